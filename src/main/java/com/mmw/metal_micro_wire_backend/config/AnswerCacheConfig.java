@@ -0,0 +1,40 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * IoT设备问答缓存配置类
+ * 设备重复提出的相同或相近问题直接返回缓存的回答，回答所依赖的数据变化时失效
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.answer-cache")
+public class AnswerCacheConfig {
+
+    /**
+     * 是否启用问答缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大缓存问题数
+     */
+    private int maxEntries = 200;
+
+    /**
+     * 回答缓存时间（秒）
+     */
+    private int ttlSeconds = 600;
+
+    /**
+     * 相近问题的相似度阈值（字符二元组TF-IDF余弦相似度），大于1表示只做精确匹配
+     */
+    private double similarityThreshold = 0.8;
+
+    /**
+     * 参与相似匹配的最短问题长度（规范化后的字符数），更短的问题只做精确匹配
+     */
+    private int similarityMinLength = 4;
+}
@@ -0,0 +1,41 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 检测数据归档配置类
+ * 超过保留期的线材明细迁移到本地列式段文件，数据库中只保留按日汇总
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.archive")
+public class ArchiveConfig {
+
+    /**
+     * 是否启用自动归档（会从wire_materials中删除已归档的明细，默认关闭）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 热数据保留月数，早于（当前月份 - N个月）月初的数据将被归档
+     * 最小为2，保证本月和上月统计始终基于明细数据
+     */
+    private int retentionMonths = 12;
+
+    /**
+     * 归档段文件存放目录
+     */
+    private String archivePath = "archive/wire_materials";
+
+    /**
+     * 归档任务执行频率（cron表达式），默认每天凌晨3点30分
+     */
+    private String cron = "0 30 3 * * ?";
+
+    /**
+     * 单次任务最多归档的天数，避免首次启用时长时间占用数据库
+     */
+    private int maxDaysPerRun = 31;
+}
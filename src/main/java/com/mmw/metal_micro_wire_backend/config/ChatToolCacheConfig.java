@@ -0,0 +1,45 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AI工具调用结果缓存配置类
+ * 相同工具、相同参数的调用结果在短时间内共享（跨对话、跨用户），并发的相同调用只执行一次
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.chat-tool-cache")
+public class ChatToolCacheConfig {
+
+    /**
+     * 是否启用工具调用结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大缓存条目数
+     */
+    private int maxEntries = 500;
+
+    /**
+     * 默认缓存时间（秒）
+     */
+    private int defaultTtlSeconds = 30;
+
+    /**
+     * 按工具名称单独设置的缓存时间（秒），0表示不缓存
+     */
+    private Map<String, Integer> ttlSeconds = new HashMap<>(Map.of("get_current_time", 0));
+
+    /**
+     * 获取工具的缓存时间（秒）
+     */
+    public int ttlSecondsOf(String functionName) {
+        return ttlSeconds.getOrDefault(functionName, defaultTtlSeconds);
+    }
+}
@@ -28,6 +28,21 @@ public class DeepSeekConfig {
      */
     private Session session = new Session();
     
+    /**
+     * 流式响应配置
+     */
+    private Stream stream = new Stream();
+    
+    /**
+     * 工具调用执行配置
+     */
+    private ToolExecution toolExecution = new ToolExecution();
+    
+    /**
+     * 上下文窗口配置
+     */
+    private Context context = new Context();
+    
     /**
      * API配置
      */
@@ -167,9 +182,105 @@ public class DeepSeekConfig {
          */
         private int maxMessagesPerSession = 100;
         
+        /**
+         * 构建提示词时读取的最近消息数（按区间读取消息列表末尾）
+         */
+        private int promptMessages = 100;
+        
         /**
          * 会话标题最大长度
          */
         private int maxTitleLength = 50;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 流式响应配置
+     */
+    @Data
+    public static class Stream {
+        /**
+         * 流式对话线程数（同时进行的流式对话数）
+         */
+        private int executorThreads = 16;
+        
+        /**
+         * 排队等待的流式对话数，超过时直接返回繁忙
+         */
+        private int queueCapacity = 64;
+        
+        /**
+         * SSE连接超时时间（毫秒），包含工具调用在内的整轮对话需在此时间内完成
+         */
+        private long emitterTimeoutMs = 300000;
+        
+        /**
+         * 单轮对话最多的工具调用轮数
+         */
+        private int maxToolRounds = 5;
+    }
+    
+    /**
+     * 工具调用执行配置
+     * 同一轮中模型请求的多个工具调用并行执行
+     */
+    @Data
+    public static class ToolExecution {
+        /**
+         * 工具调用并行线程数（所有对话共享）
+         */
+        private int parallelism = 8;
+        
+        /**
+         * 等待执行的工具调用队列容量，队列已满时调用直接以失败结果返回给模型
+         */
+        private int queueCapacity = 64;
+        
+        /**
+         * 单个工具调用超时时间（秒），从工具开始执行时计时，超时的调用以失败结果返回给模型
+         * 排队超过该时间仍未开始的调用同样以失败结果返回
+         */
+        private int timeoutSeconds = 30;
+    }
+    
+    /**
+     * 上下文窗口配置
+     * 提示词只包含预算内的最近消息，更早的消息合并为会话摘要，摘要在后台异步更新
+     */
+    @Data
+    public static class Context {
+        /**
+         * 是否按token预算裁剪历史消息
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 历史消息的token预算（本地估算值，不含系统提示词和工具定义）
+         */
+        private int historyTokenBudget = 3000;
+        
+        /**
+         * 至少保留的最近消息数，即使超出预算
+         */
+        private int minRecentMessages = 2;
+        
+        /**
+         * 是否将窗口外的较早消息合并为会话摘要
+         */
+        private boolean summaryEnabled = true;
+        
+        /**
+         * 窗口外未合并的消息达到此数量时更新摘要
+         */
+        private int summaryMinMessages = 2;
+        
+        /**
+         * 摘要的最大token数
+         */
+        private int summaryMaxTokens = 400;
+        
+        /**
+         * 摘要生成线程数（所有会话共享）
+         */
+        private int summaryThreads = 2;
+    }
+}
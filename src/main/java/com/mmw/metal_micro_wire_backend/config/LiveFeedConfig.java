@@ -0,0 +1,50 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 实时推送配置类
+ * 通过SSE向看板推送新检测摘要、计数增量、设备状态变更和质量问题，替代前端轮询
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.live-feed")
+public class LiveFeedConfig {
+
+    /**
+     * 是否启用实时推送
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大同时订阅数
+     */
+    private int maxSubscribers = 500;
+
+    /**
+     * 每个订阅者的缓冲消息数，写满时断开该订阅者
+     */
+    private int subscriberBufferSize = 256;
+
+    /**
+     * 发送线程数
+     */
+    private int senderThreads = 4;
+
+    /**
+     * 连接超时时间（毫秒），超时后客户端自动重连
+     */
+    private long emitterTimeoutMs = 1800000;
+
+    /**
+     * 心跳间隔（毫秒），用于保持连接并及时发现已断开的客户端
+     */
+    private long heartbeatIntervalMs = 15000;
+
+    /**
+     * 计数增量的合并推送间隔（毫秒）
+     */
+    private long counterIntervalMs = 1000;
+}
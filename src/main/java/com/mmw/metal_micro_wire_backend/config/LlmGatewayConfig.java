@@ -0,0 +1,56 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI对话请求闸门配置类
+ * 限制同时进行的DeepSeek对话数，交互对话优先于IoT设备问答、会话摘要等后台任务；
+ * 每个用户按令牌桶限速，超出负载的请求直接返回429
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.llm-gateway")
+public class LlmGatewayConfig {
+
+    /**
+     * 是否启用请求闸门
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大并发对话数
+     */
+    private int maxConcurrent = 8;
+
+    /**
+     * 每个通道的最大排队数
+     */
+    private int maxQueued = 20;
+
+    /**
+     * 交互对话最长排队时间（毫秒）
+     */
+    private long interactiveMaxWaitMs = 2000;
+
+    /**
+     * 后台任务（IoT设备问答、会话摘要）最长排队时间（毫秒）
+     */
+    private long backgroundMaxWaitMs = 30000;
+
+    /**
+     * 每个用户允许的突发请求数（令牌桶容量）
+     */
+    private int userBurst = 5;
+
+    /**
+     * 每个用户每分钟补充的请求数
+     */
+    private double userRefillPerMinute = 12;
+
+    /**
+     * 最多跟踪的用户令牌桶数
+     */
+    private int maxTrackedUsers = 10000;
+}
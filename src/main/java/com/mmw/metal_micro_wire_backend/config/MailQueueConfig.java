@@ -0,0 +1,80 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 邮件发送队列配置类
+ * 通知类邮件写入数据库队列后立即返回，由发送线程批量发送：一批邮件共用一次SMTP连接，失败按指数退避重试
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.mail-queue")
+public class MailQueueConfig {
+
+    /**
+     * 是否启用队列发送任务
+     */
+    private boolean enabled = true;
+
+    /**
+     * 节点标识，用于认领邮件；为空时使用主机名
+     */
+    private String nodeId = "";
+
+    /**
+     * 发送线程数（同时打开的SMTP连接数）
+     */
+    private int workerThreads = 2;
+
+    /**
+     * 每批（每次SMTP连接）最多发送的邮件数
+     */
+    private int batchSize = 20;
+
+    /**
+     * 队列轮询间隔（毫秒）
+     */
+    private long pollIntervalMs = 2000;
+
+    /**
+     * 最大发送次数，用尽后标记为失败
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * 首次重试的退避时间（毫秒），之后每次翻倍
+     */
+    private long initialBackoffMs = 30000;
+
+    /**
+     * 最大退避时间（毫秒）
+     */
+    private long maxBackoffMs = 1800000;
+
+    /**
+     * 摘要邮件的合并等待时间（毫秒），期间同一收件人的同类邮件合并为一封
+     */
+    private long digestWindowMs = 60000;
+
+    /**
+     * 一封摘要最多合并的邮件数
+     */
+    private int maxDigestItems = 50;
+
+    /**
+     * 认领租约时间（分钟），到期仍未完成的邮件重新放回队列
+     */
+    private int leaseMinutes = 10;
+
+    /**
+     * 已发送和已失败邮件的保留天数
+     */
+    private int retentionDays = 30;
+
+    /**
+     * 过期邮件清理频率（cron表达式）
+     */
+    private String purgeCron = "0 30 4 * * ?";
+}
@@ -0,0 +1,42 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 线材数据分区管理配置类
+ * wire_materials表按event_time进行月度范围分区
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.partition")
+public class PartitionConfig {
+
+    /**
+     * 是否启用分区自动维护
+     */
+    private boolean enabled = true;
+
+    /**
+     * 分区维护任务执行频率（cron表达式）
+     * 默认每天凌晨1点执行
+     */
+    private String cron = "0 0 1 * * ?";
+
+    /**
+     * 预创建的未来月份数量（不含当前月）
+     */
+    private int monthsAhead = 3;
+
+    /**
+     * 分区名称前缀，完整分区名形如 p202501
+     */
+    private String partitionPrefix = "p";
+
+    /**
+     * 兜底分区名称（VALUES LESS THAN MAXVALUE）
+     * 存在时新月份分区通过拆分该分区创建，不存在时直接在末尾追加
+     */
+    private String catchAllPartition = "pmax";
+}
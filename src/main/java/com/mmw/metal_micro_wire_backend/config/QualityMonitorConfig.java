@@ -38,4 +38,30 @@ public class QualityMonitorConfig {
      * 质量问题判定阈值（百分比）
      */
     private double failRateThreshold = 5.0;
+    
+    /**
+     * 是否启用流式滑动窗口检测
+     * 启用后在数据写入时实时检测，每日定时全量扫描不再执行
+     */
+    private boolean streamingEnabled = true;
+    
+    /**
+     * 滑动窗口长度（分钟）
+     */
+    private int slidingWindowMinutes = 60;
+    
+    /**
+     * 触发告警所需的窗口内最少已判定样本数
+     */
+    private int minSampleSize = 20;
+    
+    /**
+     * 告警解除比例：不合格率回落到阈值乘以该比例以下才解除告警，之后才能再次触发
+     */
+    private double clearRatio = 0.8;
+    
+    /**
+     * 流式检测告警发送间隔（毫秒）
+     */
+    private long streamingDispatchIntervalMs = 10000;
 }
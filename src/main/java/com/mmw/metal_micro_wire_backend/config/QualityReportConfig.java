@@ -0,0 +1,55 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 质量报告配置类
+ * 每日、每周、每月质量报告的生成时间和渲染参数，报告发送给 app.notification.admin-emails
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.quality-report")
+public class QualityReportConfig {
+
+    /**
+     * 是否启用质量报告生成
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每日报告生成时间（cron表达式），统计前一天
+     */
+    private String cron = "0 0 2 * * ?";
+
+    /**
+     * 是否生成每周报告
+     */
+    private boolean weeklyEnabled = true;
+
+    /**
+     * 每周报告生成时间（cron表达式），统计上一个自然周
+     */
+    private String weeklyCron = "0 30 2 * * MON";
+
+    /**
+     * 是否生成每月报告
+     */
+    private boolean monthlyEnabled = true;
+
+    /**
+     * 每月报告生成时间（cron表达式），统计上一个自然月
+     */
+    private String monthlyCron = "0 0 3 1 * ?";
+
+    /**
+     * 每个维度最多列出的取值数（按不合格数降序）
+     */
+    private int topN = 20;
+
+    /**
+     * 并行查询和渲染各维度的线程数
+     */
+    private int parallelism = 4;
+}
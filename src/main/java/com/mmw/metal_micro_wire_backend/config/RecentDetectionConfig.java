@@ -0,0 +1,35 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 近期检测数据内存列式存储配置类
+ * 覆盖保留期内的查询（仪表板、溯源统计、聊天工具）直接在内存中聚合，不再访问数据库
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.recent-detections")
+public class RecentDetectionConfig {
+
+    /**
+     * 是否启用内存列式存储
+     */
+    private boolean enabled = true;
+
+    /**
+     * 内存中保留的天数，开始时间早于保留期的查询仍访问数据库
+     */
+    private int retentionDays = 90;
+
+    /**
+     * 行数达到该值时使用ForkJoin并行聚合
+     */
+    private int parallelThreshold = 200000;
+
+    /**
+     * 淘汰过期数据的频率（cron表达式），默认每小时一次
+     */
+    private String evictCron = "0 5 * * * ?";
+}
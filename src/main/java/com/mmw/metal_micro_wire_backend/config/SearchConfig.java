@@ -0,0 +1,30 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 线材关键词搜索配置类
+ * 批次号使用数据库中的三元组倒排表，其余维度字段使用内存中的取值三元组索引
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.search")
+public class SearchConfig {
+
+    /**
+     * 是否启用索引搜索，关闭时退回LIKE模糊查询
+     */
+    private boolean enabled = true;
+
+    /**
+     * 维度字段关键词匹配到的取值数量上限，超过时退回LIKE模糊查询（避免过长的IN列表）
+     */
+    private int maxDimensionMatches = 1000;
+
+    /**
+     * 启动时回填批次号三元组索引的每批数量
+     */
+    private int backfillBatchSize = 1000;
+}
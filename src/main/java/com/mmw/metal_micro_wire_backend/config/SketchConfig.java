@@ -0,0 +1,50 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 统计草图配置类
+ * 按天和应用场景维护HyperLogLog（去重计数）和KLL（检测指标分位数）草图，保存在Redis中，可跨时间桶和节点合并
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.sketch")
+public class SketchConfig {
+
+    /**
+     * 是否启用统计草图
+     */
+    private boolean enabled = true;
+
+    /**
+     * KLL草图精度参数k，秩误差约为1.65/k
+     */
+    private int kllK = 200;
+
+    /**
+     * 节点标识，各节点的KLL草图分别保存、查询时合并；为空时使用主机名
+     */
+    private String nodeId = "";
+
+    /**
+     * 本地KLL草图写入Redis的间隔（毫秒）
+     */
+    private long flushIntervalMs = 60000;
+
+    /**
+     * 按天草图在Redis中的保留天数
+     */
+    private int retentionDays = 400;
+
+    /**
+     * 未指定时间范围时默认统计的天数
+     */
+    private int defaultRangeDays = 30;
+
+    /**
+     * 首次启动时是否从数据库回填历史数据
+     */
+    private boolean backfillEnabled = true;
+}
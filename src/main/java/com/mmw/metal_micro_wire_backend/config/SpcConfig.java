@@ -0,0 +1,65 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 统计过程控制（SPC）配置类
+ * 按（应用场景, 生产机器, 检测指标）维护控制图，在检测数据写入时增量更新
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.spc")
+public class SpcConfig {
+
+    /**
+     * 是否启用SPC控制图
+     */
+    private boolean enabled = true;
+
+    /**
+     * X-bar/R 子组大小（2~10）
+     */
+    private int subgroupSize = 5;
+
+    /**
+     * 确定控制限所需的基线子组数
+     */
+    private int baselineSubgroups = 20;
+
+    /**
+     * EWMA平滑系数
+     */
+    private double ewmaLambda = 0.2;
+
+    /**
+     * EWMA控制限宽度（标准差倍数）
+     */
+    private double ewmaWidth = 3.0;
+
+    /**
+     * CUSUM参考值（标准差倍数）
+     */
+    private double cusumK = 0.5;
+
+    /**
+     * CUSUM决策区间（标准差倍数）
+     */
+    private double cusumH = 5.0;
+
+    /**
+     * 同一序列同一信号的告警冷却时间（分钟）
+     */
+    private int alertCooldownMinutes = 60;
+
+    /**
+     * 告警发送间隔（毫秒），告警先进入队列，由定时任务合并后发送
+     */
+    private long dispatchIntervalMs = 60000;
+
+    /**
+     * 最多维护的序列数，超出后新序列不再建立控制图
+     */
+    private int maxSeries = 10000;
+}
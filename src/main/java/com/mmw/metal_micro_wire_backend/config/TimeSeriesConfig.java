@@ -0,0 +1,65 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 检测指标时间序列配置类
+ * 按（设备, 应用场景）维护分钟、小时、天三种粒度的最小值/最大值/平均值/样本数桶，入库时增量更新，保存在Redis中
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.time-series")
+public class TimeSeriesConfig {
+
+    /**
+     * 是否启用检测指标时间序列
+     */
+    private boolean enabled = true;
+
+    /**
+     * 节点标识，各节点的桶分别保存、查询时合并；为空时使用主机名
+     */
+    private String nodeId = "";
+
+    /**
+     * 本地桶写入Redis的间隔（毫秒）
+     */
+    private long flushIntervalMs = 10000;
+
+    /**
+     * 分钟粒度保留天数
+     */
+    private int minuteRetentionDays = 3;
+
+    /**
+     * 小时粒度保留天数
+     */
+    private int hourRetentionDays = 90;
+
+    /**
+     * 天粒度保留天数
+     */
+    private int dayRetentionDays = 1830;
+
+    /**
+     * 未指定点数预算时默认返回的最大点数
+     */
+    private int defaultMaxPoints = 500;
+
+    /**
+     * 允许请求的最大点数
+     */
+    private int maxPointsLimit = 5000;
+
+    /**
+     * 未指定时间范围时默认查询的小时数
+     */
+    private int defaultRangeHours = 24;
+
+    /**
+     * 首次启动时是否从数据库回填保留期内的历史数据
+     */
+    private boolean backfillEnabled = true;
+}
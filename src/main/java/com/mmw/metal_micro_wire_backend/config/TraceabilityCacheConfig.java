@@ -0,0 +1,40 @@
+package com.mmw.metal_micro_wire_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 溯源统计结果缓存配置类
+ * 统计结果按时间桶缓存：Redis为共享缓存层，进程内LRU缓存为近端缓存
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.traceability-cache")
+public class TraceabilityCacheConfig {
+
+    /**
+     * 是否启用溯源统计结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地近端缓存的最大条目数
+     */
+    private int localMaxEntries = 1000;
+
+    /**
+     * 本地近端缓存条目的存活时间（分钟）
+     */
+    private int localTtlMinutes = 10;
+
+    /**
+     * 已结束的整月/整日桶在Redis中的存活时间（天）
+     */
+    private int closedBucketTtlDays = 30;
+
+    /**
+     * 当天开放桶在Redis中的存活时间（分钟）
+     */
+    private int openBucketTtlMinutes = 60;
+}
@@ -2,14 +2,17 @@ package com.mmw.metal_micro_wire_backend.controller;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
 import com.mmw.metal_micro_wire_backend.dto.chat.*;
+import com.mmw.metal_micro_wire_backend.exception.LlmOverloadedException;
 import com.mmw.metal_micro_wire_backend.service.ChatService;
 import com.mmw.metal_micro_wire_backend.service.TokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 聊天控制器
@@ -40,12 +43,43 @@ public class ChatController {
         try {
             ChatMessageResponse response = chatService.sendMessage(userId, userType, request);
             return ResponseEntity.ok(BaseResponse.success("发送成功", response));
+        } catch (LlmOverloadedException e) {
+            // 交给全局异常处理器返回429
+            throw e;
         } catch (Exception e) {
             log.error("发送聊天消息失败，用户ID：{}，错误：{}", userId, e.getMessage(), e);
             return ResponseEntity.ok(BaseResponse.error("发送失败：" + e.getMessage()));
         }
     }
     
+    /**
+     * 流式发送聊天消息（SSE）
+     * 事件：session、delta、tool、done、error，回复增量到达即推送
+     */
+    @PostMapping(value = "/message/stream", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> streamMessage(
+            @Valid @RequestBody ChatMessageRequest request,
+            HttpServletRequest httpRequest) {
+        
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        TokenService.UserType userType = (TokenService.UserType) httpRequest.getAttribute("userType");
+        String userName = (String) httpRequest.getAttribute("userName");
+        
+        log.info("用户流式发送聊天消息，用户：{}(ID:{})，用户类型：{}，会话ID：{}", 
+                userName, userId, userType, request.getSessionId());
+        
+        try {
+            SseEmitter emitter = chatService.streamMessage(userId, userType, request);
+            return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+        } catch (LlmOverloadedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("流式发送聊天消息失败，用户ID：{}，错误：{}", userId, e.getMessage(), e);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(BaseResponse.error("发送失败：" + e.getMessage()));
+        }
+    }
+    
     /**
      * 创建新的聊天会话
      */
@@ -0,0 +1,49 @@
+package com.mmw.metal_micro_wire_backend.controller;
+
+import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.service.LiveFeedService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+/**
+ * 实时推送控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/live")
+@RequiredArgsConstructor
+public class LiveFeedController {
+
+    private final LiveFeedService liveFeedService;
+
+    /**
+     * 订阅实时推送（SSE）
+     * 事件名为主题：detection、counters、device-status、quality-issue；浏览器EventSource可通过token参数认证
+     * 权限：已认证用户
+     * @param topics 订阅的主题，逗号分隔，为空时订阅全部
+     */
+    @GetMapping(value = "/stream", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> stream(@RequestParam(required = false) Set<String> topics,
+                                    HttpServletRequest httpRequest) {
+
+        String userName = (String) httpRequest.getAttribute("userName");
+        try {
+            SseEmitter emitter = liveFeedService.subscribe(topics);
+            log.info("用户{}订阅实时推送，主题：{}，当前订阅数：{}", userName, topics, liveFeedService.getSubscriberCount());
+            return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn("用户{}订阅实时推送失败：{}", userName, e.getMessage());
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(BaseResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.mmw.metal_micro_wire_backend.controller;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.DistinctCountResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.MeasurementPercentileResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.OverallStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.ScenarioStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.YearlyStatisticsResponse;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Pattern;
+import java.util.List;
 
 /**
  * 仪表板概览控制器
@@ -97,5 +100,43 @@ public class OverViewController {
         return response;
     }
 
+    /**
+     * 获取时间范围内的去重设备数和批次数（HyperLogLog近似值）
+     * 权限：已认证用户
+     */
+    @GetMapping("/distinct_count")
+    public BaseResponse<DistinctCountResponse> getDistinctCounts(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String scenarioCode,
+            HttpServletRequest httpRequest) {
+
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        String userName = (String) httpRequest.getAttribute("userName");
+
+        log.info("用户{}({})获取去重计数，时间范围：{} 至 {}，场景：{}", userName, userId, startDate, endDate, scenarioCode);
+
+        return overViewService.getDistinctCounts(startDate, endDate, scenarioCode);
+    }
 
+    /**
+     * 获取检测指标分位数（KLL草图近似值），按应用场景和生产机器分组
+     * 权限：已认证用户
+     */
+    @GetMapping("/percentiles")
+    public BaseResponse<List<MeasurementPercentileResponse>> getMeasurementPercentiles(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String scenarioCode,
+            @RequestParam(required = false) String productionMachine,
+            HttpServletRequest httpRequest) {
+
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        String userName = (String) httpRequest.getAttribute("userName");
+
+        log.info("用户{}({})获取检测指标分位数，时间范围：{} 至 {}，场景：{}，生产机器：{}",
+                userName, userId, startDate, endDate, scenarioCode, productionMachine);
+
+        return overViewService.getMeasurementPercentiles(startDate, endDate, scenarioCode, productionMachine);
+    }
 }
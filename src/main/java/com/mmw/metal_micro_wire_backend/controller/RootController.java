@@ -4,8 +4,10 @@ import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
 import com.mmw.metal_micro_wire_backend.dto.auth.UserInfoResponse;
 import com.mmw.metal_micro_wire_backend.dto.auth.UserManageRequest;
 import com.mmw.metal_micro_wire_backend.dto.auth.UserPageResponse;
+import com.mmw.metal_micro_wire_backend.dto.chat.LlmGatewayStatsResponse;
 import com.mmw.metal_micro_wire_backend.entity.User;
 import com.mmw.metal_micro_wire_backend.repository.UserRepository;
+import com.mmw.metal_micro_wire_backend.service.LlmGatewayService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -32,6 +34,7 @@ import java.util.Optional;
 public class RootController {
     
     private final UserRepository userRepository;
+    private final LlmGatewayService llmGatewayService;
     
     /**
      * 获取所有用户列表（分页）
@@ -219,6 +222,14 @@ public class RootController {
         }
     }
     
+    /**
+     * 获取AI对话请求闸门统计（并发数、各通道排队数、等待时间和拒绝次数）
+     */
+    @GetMapping("/llm-gateway/stats")
+    public ResponseEntity<BaseResponse<LlmGatewayStatsResponse>> getLlmGatewayStats() {
+        return ResponseEntity.ok(BaseResponse.success("获取成功", llmGatewayService.getStats()));
+    }
+    
     /**
      * 转换User实体为UserInfoResponse
      */
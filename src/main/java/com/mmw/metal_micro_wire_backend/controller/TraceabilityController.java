@@ -1,15 +1,26 @@
 package com.mmw.metal_micro_wire_backend.controller;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.mail.MailDeliveryResponse;
 import com.mmw.metal_micro_wire_backend.dto.traceability.*;
+import com.mmw.metal_micro_wire_backend.service.MailQueueService;
+import com.mmw.metal_micro_wire_backend.service.QualityReportService;
+import com.mmw.metal_micro_wire_backend.service.SpcService;
+import com.mmw.metal_micro_wire_backend.service.StreamingQualityMonitorService;
 import com.mmw.metal_micro_wire_backend.service.TraceabilityService;
+import com.mmw.metal_micro_wire_backend.util.HtmlTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * 质量问题溯源控制器
@@ -21,6 +32,10 @@ import java.util.List;
 public class TraceabilityController {
 
     private final TraceabilityService traceabilityService;
+    private final SpcService spcService;
+    private final StreamingQualityMonitorService streamingQualityMonitorService;
+    private final QualityReportService qualityReportService;
+    private final MailQueueService mailQueueService;
     
     /**
      * 执行溯源分析
@@ -226,6 +241,75 @@ public class TraceabilityController {
         }
     }
     
+    /**
+     * 获取SPC控制图状态
+     */
+    @GetMapping("/spc/charts")
+    public BaseResponse<List<SpcChartResponse>> getSpcCharts(
+            @RequestParam(required = false) String scenarioCode,
+            @RequestParam(required = false) String productionMachine,
+            HttpServletRequest httpRequest) {
+
+        try {
+            // 从拦截器设置的属性中获取用户信息（拦截器已验证token）
+            String userName = (String) httpRequest.getAttribute("userName");
+            log.debug("获取SPC控制图状态，用户：{}", userName);
+
+            return BaseResponse.success(spcService.getCharts(scenarioCode, productionMachine));
+
+        } catch (Exception e) {
+            log.error("获取SPC控制图状态接口异常", e);
+            return BaseResponse.error("获取SPC控制图状态失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取流式检测中当前处于告警状态的质量问题
+     */
+    @GetMapping("/monitor/active-issues")
+    public BaseResponse<List<QualityIssueResponse>> getActiveIssues(HttpServletRequest httpRequest) {
+
+        try {
+            // 从拦截器设置的属性中获取用户信息（拦截器已验证token）
+            String userName = (String) httpRequest.getAttribute("userName");
+            log.debug("获取实时质量告警，用户：{}", userName);
+
+            return BaseResponse.success(streamingQualityMonitorService.getActiveIssues());
+
+        } catch (Exception e) {
+            log.error("获取实时质量告警接口异常", e);
+            return BaseResponse.error("获取实时质量告警失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 预览质量报告（与定时发送的邮件内容相同，不发送邮件）
+     * @param period 报告周期：DAILY、WEEKLY、MONTHLY
+     * @param date 参考日期（yyyy-MM-dd，默认今天），统计其之前最近一个完整周期
+     */
+    @GetMapping(value = "/reports/preview", produces = MediaType.TEXT_HTML_VALUE + ";charset=UTF-8")
+    public ResponseEntity<String> previewReport(
+            @RequestParam(defaultValue = "DAILY") String period,
+            @RequestParam(required = false) String date,
+            HttpServletRequest httpRequest) {
+
+        try {
+            String userName = (String) httpRequest.getAttribute("userName");
+            log.info("预览质量报告，用户：{}，周期：{}，参考日期：{}", userName, period, date);
+
+            QualityReportService.ReportPeriod reportPeriod =
+                    QualityReportService.ReportPeriod.valueOf(period.toUpperCase(Locale.ROOT));
+            LocalDate referenceDate = date != null ? LocalDate.parse(date) : LocalDate.now();
+            return ResponseEntity.ok(qualityReportService.renderReport(reportPeriod, referenceDate));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("参数错误：" + HtmlTemplate.escape(e.getMessage()));
+        } catch (Exception e) {
+            log.error("预览质量报告接口异常", e);
+            return ResponseEntity.internalServerError().body("生成质量报告失败：" + HtmlTemplate.escape(String.valueOf(e.getMessage())));
+        }
+    }
+    
     // ==================== 统计分析接口（不发送邮件） ====================
 
     /**
@@ -341,4 +425,23 @@ public class TraceabilityController {
             return BaseResponse.error("发送自定义邮件通知失败：" + e.getMessage());
         }
     }
+
+    /**
+     * 查询邮件投递状态
+     * @param deliveryId 发送通知时返回的投递ID
+     */
+    @GetMapping("/notifications/deliveries/{deliveryId}")
+    public BaseResponse<MailDeliveryResponse> getDelivery(@PathVariable String deliveryId) {
+        try {
+            MailDeliveryResponse delivery = mailQueueService.getDelivery(deliveryId);
+            if (delivery == null) {
+                return BaseResponse.error("投递记录不存在");
+            }
+            return BaseResponse.success(delivery);
+
+        } catch (Exception e) {
+            log.error("查询邮件投递状态接口异常", e);
+            return BaseResponse.error("查询邮件投递状态失败：" + e.getMessage());
+        }
+    }
 }
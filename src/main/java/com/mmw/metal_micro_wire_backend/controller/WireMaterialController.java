@@ -1,10 +1,15 @@
 package com.mmw.metal_micro_wire_backend.controller;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.MeasurementTrendRequest;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.MeasurementTrendResponse;
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.UpdateWireMaterialRequest;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialExportRequest;
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageRequest;
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageResponse;
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialResponse;
+import com.mmw.metal_micro_wire_backend.service.MeasurementTimeSeriesService;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialExportService;
 import com.mmw.metal_micro_wire_backend.service.WireMaterialManageService;
 import com.mmw.metal_micro_wire_backend.service.TokenService;
 import com.mmw.metal_micro_wire_backend.service.QualityEvaluationService;
@@ -12,13 +17,18 @@ import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * 线材管理控制器
@@ -33,6 +43,8 @@ public class WireMaterialController {
     private final WireMaterialManageService wireMaterialManageService;
     private final QualityEvaluationService qualityEvaluationService;
     private final WireMaterialRepository wireMaterialRepository;
+    private final WireMaterialExportService wireMaterialExportService;
+    private final MeasurementTimeSeriesService measurementTimeSeriesService;
     
     /**
      * 分页查询线材列表
@@ -51,6 +63,53 @@ public class WireMaterialController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 流式导出线材数据（gzip压缩的CSV或NDJSON）
+     * 数据通过数据库游标逐行写出，内存占用与导出范围无关
+     * 权限：已认证用户
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportWireMaterials(
+            WireMaterialExportRequest request,
+            HttpServletRequest httpRequest) {
+        
+        String error = wireMaterialExportService.validate(request);
+        if (error != null) {
+            return ResponseEntity.ok(BaseResponse.error(error));
+        }
+        
+        String userName = (String) httpRequest.getAttribute("userName");
+        log.info("用户{}导出线材数据，格式：{}，时间范围：{} ~ {}", userName, request.getFormat(),
+                request.getStartTime(), request.getEndTime());
+        
+        String extension = "ndjson".equalsIgnoreCase(request.getFormat()) ? "ndjson" : "csv";
+        String filename = "wire_materials_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + "." + extension + ".gz";
+        StreamingResponseBody body = outputStream -> wireMaterialExportService.export(request, outputStream);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+    
+    /**
+     * 查询设备检测指标趋势（预聚合的时间序列，按点数预算选择粒度）
+     * 权限：已认证用户
+     */
+    @GetMapping("/trends")
+    public ResponseEntity<BaseResponse<MeasurementTrendResponse>> getMeasurementTrend(
+            MeasurementTrendRequest request,
+            HttpServletRequest httpRequest) {
+        
+        String userName = (String) httpRequest.getAttribute("userName");
+        log.info("用户{}查询检测指标趋势，设备：{}，场景：{}，指标：{}，时间范围：{} ~ {}", userName,
+                request.getDeviceId(), request.getScenarioCode(), request.getMetric(),
+                request.getStartTime(), request.getEndTime());
+        
+        return ResponseEntity.ok(measurementTimeSeriesService.getTrend(request));
+    }
+    
     /**
      * 根据批次号查询线材信息
      * 权限：无需认证（公开接口）
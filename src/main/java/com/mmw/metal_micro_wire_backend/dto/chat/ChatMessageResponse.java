@@ -3,6 +3,7 @@ package com.mmw.metal_micro_wire_backend.dto.chat;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 聊天消息响应DTO
@@ -44,4 +45,9 @@ public class ChatMessageResponse {
      * 会话标题
      */
     private String sessionTitle;
+    
+    /**
+     * 生成回复时调用过的工具名称
+     */
+    private List<String> usedTools;
 } 
\ No newline at end of file
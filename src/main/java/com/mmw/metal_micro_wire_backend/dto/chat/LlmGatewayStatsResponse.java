@@ -0,0 +1,80 @@
+package com.mmw.metal_micro_wire_backend.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * AI对话请求闸门统计响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmGatewayStatsResponse {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled;
+
+    /**
+     * 最大并发对话数
+     */
+    private int maxConcurrent;
+
+    /**
+     * 当前进行中的对话数
+     */
+    private int running;
+
+    /**
+     * 累计因用户请求过于频繁被拒绝数
+     */
+    private long rateLimited;
+
+    /**
+     * 各通道统计，键为通道名称
+     */
+    private Map<String, LaneStatistics> lanes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LaneStatistics {
+
+        /**
+         * 当前排队数
+         */
+        private int queued;
+
+        /**
+         * 累计获得执行许可数
+         */
+        private long acquired;
+
+        /**
+         * 累计因队列已满被拒绝数
+         */
+        private long rejected;
+
+        /**
+         * 累计排队超时数
+         */
+        private long timedOut;
+
+        /**
+         * 平均排队时间（毫秒）
+         */
+        private double averageWaitMillis;
+
+        /**
+         * 最长排队时间（毫秒）
+         */
+        private double maxWaitMillis;
+    }
+}
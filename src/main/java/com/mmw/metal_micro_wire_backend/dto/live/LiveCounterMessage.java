@@ -0,0 +1,27 @@
+package com.mmw.metal_micro_wire_backend.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实时推送的计数增量（上次推送以来新增的检测数据，按最终评估结果分类）
+ * 前端在首次加载的统计值上累加即可得到最新值
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveCounterMessage {
+
+    private Long total;
+
+    private Long pass;
+
+    private Long fail;
+
+    private Long pendingReview;
+
+    private Long unknown;
+}
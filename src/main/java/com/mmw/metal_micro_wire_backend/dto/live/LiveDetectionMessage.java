@@ -0,0 +1,59 @@
+package com.mmw.metal_micro_wire_backend.dto.live;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 实时推送的新检测数据摘要
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveDetectionMessage {
+
+    private String batchNumber;
+
+    private String deviceId;
+
+    private String scenarioCode;
+
+    private String productionMachine;
+
+    private LocalDateTime eventTime;
+
+    private BigDecimal diameter;
+
+    private BigDecimal resistance;
+
+    private BigDecimal extensibility;
+
+    private BigDecimal weight;
+
+    /**
+     * 最终评估结果：PASS、FAIL、PENDING_REVIEW、UNKNOWN
+     */
+    private String finalEvaluationResult;
+
+    public static LiveDetectionMessage fromEntity(WireMaterial wireMaterial) {
+        return LiveDetectionMessage.builder()
+                .batchNumber(wireMaterial.getBatchNumber())
+                .deviceId(wireMaterial.getDeviceId())
+                .scenarioCode(wireMaterial.getScenarioCode())
+                .productionMachine(wireMaterial.getProductionMachine())
+                .eventTime(wireMaterial.getEventTime())
+                .diameter(wireMaterial.getDiameter())
+                .resistance(wireMaterial.getResistance())
+                .extensibility(wireMaterial.getExtensibility())
+                .weight(wireMaterial.getWeight())
+                .finalEvaluationResult(wireMaterial.getFinalEvaluationResult() != null
+                        ? wireMaterial.getFinalEvaluationResult().name() : null)
+                .build();
+    }
+}
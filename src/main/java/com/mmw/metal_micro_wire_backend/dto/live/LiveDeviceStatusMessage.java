@@ -0,0 +1,32 @@
+package com.mmw.metal_micro_wire_backend.dto.live;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 实时推送的设备状态变更
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveDeviceStatusMessage {
+
+    private String deviceId;
+
+    /**
+     * 变更前状态：ON、OFF
+     */
+    private String previousStatus;
+
+    /**
+     * 当前状态：ON、OFF
+     */
+    private String status;
+
+    private LocalDateTime changedAt;
+}
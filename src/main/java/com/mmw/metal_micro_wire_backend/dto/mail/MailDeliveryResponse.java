@@ -0,0 +1,54 @@
+package com.mmw.metal_micro_wire_backend.dto.mail;
+
+import com.mmw.metal_micro_wire_backend.entity.OutboundMail;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 邮件投递状态响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailDeliveryResponse {
+
+    private String deliveryId;
+
+    private String recipient;
+
+    private String subject;
+
+    /**
+     * 发送状态：PENDING、SENDING、SENT、FAILED
+     */
+    private String status;
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptTime;
+
+    private String lastError;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime sentTime;
+
+    public static MailDeliveryResponse fromEntity(OutboundMail mail) {
+        return MailDeliveryResponse.builder()
+                .deliveryId(mail.getDeliveryId())
+                .recipient(mail.getRecipient())
+                .subject(mail.getSubject())
+                .status(mail.getStatus().name())
+                .attempts(mail.getAttempts())
+                .nextAttemptTime(mail.getNextAttemptTime())
+                .lastError(mail.getLastError())
+                .createTime(mail.getCreateTime())
+                .sentTime(mail.getSentTime())
+                .build();
+    }
+}
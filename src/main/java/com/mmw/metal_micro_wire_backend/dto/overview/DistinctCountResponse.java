@@ -0,0 +1,43 @@
+package com.mmw.metal_micro_wire_backend.dto.overview;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 去重计数响应DTO（HyperLogLog估计值，标准误差约0.81%）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistinctCountResponse {
+
+    /**
+     * 开始日期
+     */
+    private LocalDate startDate;
+
+    /**
+     * 结束日期
+     */
+    private LocalDate endDate;
+
+    /**
+     * 应用场景编号，为空表示全部场景
+     */
+    private String scenarioCode;
+
+    /**
+     * 去重设备数
+     */
+    private Long distinctDevices;
+
+    /**
+     * 去重批次数
+     */
+    private Long distinctBatches;
+}
@@ -0,0 +1,66 @@
+package com.mmw.metal_micro_wire_backend.dto.overview;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 检测指标分位数响应DTO（KLL草图估计值）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasurementPercentileResponse {
+
+    /**
+     * 应用场景编号
+     */
+    private String scenarioCode;
+
+    /**
+     * 生产机器
+     */
+    private String productionMachine;
+
+    /**
+     * 检测指标（DIAMETER、RESISTANCE、EXTENSIBILITY、WEIGHT）
+     */
+    private String metric;
+
+    /**
+     * 检测指标名称
+     */
+    private String metricName;
+
+    /**
+     * 样本数
+     */
+    private Long count;
+
+    /**
+     * 最小值
+     */
+    private Double min;
+
+    /**
+     * 中位数
+     */
+    private Double p50;
+
+    /**
+     * 95分位数
+     */
+    private Double p95;
+
+    /**
+     * 99分位数
+     */
+    private Double p99;
+
+    /**
+     * 最大值
+     */
+    private Double max;
+}
@@ -40,4 +40,26 @@ public class CompletedEvaluationPageRequest {
      * 对于置信度排序：desc=高置信度优先，asc=低置信度优先
      */
     private String sortDirection = "desc";
-} 
\ No newline at end of file
+    
+    /**
+     * 是否使用游标分页（为true或传入after时启用，忽略page参数）
+     */
+    private boolean keyset = false;
+    
+    /**
+     * 游标分页：上一页响应中的nextCursor，为空时查询第一页
+     */
+    private String after;
+    
+    /**
+     * 游标分页：是否统计总记录数，默认不统计以避免COUNT查询
+     */
+    private boolean withTotal = false;
+    
+    /**
+     * 是否使用游标分页
+     */
+    public boolean isKeysetMode() {
+        return keyset || (after != null && !after.isEmpty());
+    }
+}
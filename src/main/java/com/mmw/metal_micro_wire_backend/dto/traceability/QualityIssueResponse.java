@@ -23,6 +23,12 @@ public class QualityIssueResponse {
      */
     private String issueId;
     
+    /**
+     * 问题类型
+     */
+    @Builder.Default
+    private IssueType issueType = IssueType.FAIL_RATE;
+    
     /**
      * 问题维度（生产商、负责人、工艺类型、生产机器）
      */
@@ -89,6 +95,16 @@ public class QualityIssueResponse {
      */
     private LocalDateTime notifiedTime;
     
+    /**
+     * 问题类型枚举
+     */
+    public enum IssueType {
+        /** 维度不合格率超过阈值 */
+        FAIL_RATE,
+        /** SPC控制图检测到过程漂移（预警，尚未出现不合格） */
+        PROCESS_DRIFT
+    }
+    
     /**
      * 问题严重程度枚举
      */
@@ -0,0 +1,124 @@
+package com.mmw.metal_micro_wire_backend.dto.traceability;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * SPC控制图状态响应DTO
+ * 基线确定前各控制限为null
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcChartResponse {
+
+    /**
+     * 应用场景编号
+     */
+    private String scenarioCode;
+
+    /**
+     * 生产机器
+     */
+    private String productionMachine;
+
+    /**
+     * 检测指标（DIAMETER、RESISTANCE、EXTENSIBILITY、WEIGHT）
+     */
+    private String metric;
+
+    /**
+     * 检测指标名称
+     */
+    private String metricName;
+
+    /**
+     * 观测值个数
+     */
+    private Long sampleCount;
+
+    /**
+     * 全部观测值的均值
+     */
+    private Double mean;
+
+    /**
+     * 全部观测值的标准差
+     */
+    private Double stdDev;
+
+    /**
+     * 基线是否已确定
+     */
+    private Boolean baselineReady;
+
+    /**
+     * 中心线（基线均值）
+     */
+    private Double centerLine;
+
+    /**
+     * 基线标准差估计（R̄/d2）
+     */
+    private Double sigma;
+
+    /**
+     * X-bar 控制上限
+     */
+    private Double xbarUpperLimit;
+
+    /**
+     * X-bar 控制下限
+     */
+    private Double xbarLowerLimit;
+
+    /**
+     * R 图中心线
+     */
+    private Double rangeCenterLine;
+
+    /**
+     * R 图控制上限
+     */
+    private Double rangeUpperLimit;
+
+    /**
+     * 当前EWMA值
+     */
+    private Double ewma;
+
+    /**
+     * EWMA控制上限
+     */
+    private Double ewmaUpperLimit;
+
+    /**
+     * EWMA控制下限
+     */
+    private Double ewmaLowerLimit;
+
+    /**
+     * CUSUM上侧累积和（标准差倍数）
+     */
+    private Double cusumHigh;
+
+    /**
+     * CUSUM下侧累积和（标准差倍数）
+     */
+    private Double cusumLow;
+
+    /**
+     * 最近一次信号描述
+     */
+    private String lastSignal;
+
+    /**
+     * 最近一次信号时间
+     */
+    private LocalDateTime lastSignalTime;
+}
@@ -0,0 +1,45 @@
+package com.mmw.metal_micro_wire_backend.dto.wirematerial;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 检测指标趋势查询请求DTO
+ */
+@Data
+public class MeasurementTrendRequest {
+
+    /**
+     * 设备ID（必填）
+     */
+    private String deviceId;
+
+    /**
+     * 应用场景编号（可选，为空时合并该设备的所有场景）
+     */
+    private String scenarioCode;
+
+    /**
+     * 检测指标：DIAMETER、RESISTANCE、EXTENSIBILITY、WEIGHT
+     */
+    private String metric;
+
+    /**
+     * 开始时间（包含，可选）
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间（不包含，可选，默认当前时间）
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime endTime;
+
+    /**
+     * 最多返回的点数（可选）
+     */
+    private Integer maxPoints;
+}
@@ -0,0 +1,77 @@
+package com.mmw.metal_micro_wire_backend.dto.wirematerial;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 检测指标趋势响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasurementTrendResponse {
+
+    private String deviceId;
+
+    private String scenarioCode;
+
+    /**
+     * 检测指标
+     */
+    private String metric;
+
+    /**
+     * 检测指标名称
+     */
+    private String metricName;
+
+    /**
+     * 实际使用的粒度：MINUTE、HOUR、DAY
+     */
+    private String resolution;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    /**
+     * 粒度内的有数据桶数（降采样前）
+     */
+    private Integer bucketCount;
+
+    /**
+     * 是否经过LTTB降采样
+     */
+    private Boolean downsampled;
+
+    private List<TrendPoint> points;
+
+    /**
+     * 趋势点（一个时间桶）
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrendPoint {
+
+        /**
+         * 桶起始时间
+         */
+        private LocalDateTime time;
+
+        private Long count;
+
+        private Double min;
+
+        private Double max;
+
+        private Double mean;
+    }
+}
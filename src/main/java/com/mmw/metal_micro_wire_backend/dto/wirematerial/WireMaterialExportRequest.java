@@ -0,0 +1,45 @@
+package com.mmw.metal_micro_wire_backend.dto.wirematerial;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 线材数据导出请求DTO
+ */
+@Data
+public class WireMaterialExportRequest {
+
+    /**
+     * 导出格式：csv 或 ndjson，默认csv
+     */
+    private String format = "csv";
+
+    /**
+     * 事件开始时间（包含，可选）
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime startTime;
+
+    /**
+     * 事件结束时间（不包含，可选）
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime endTime;
+
+    /**
+     * 应用场景编号筛选（可选）
+     */
+    private String scenarioCode;
+
+    /**
+     * 设备ID筛选（可选）
+     */
+    private String deviceId;
+
+    /**
+     * 最终评估结果筛选（可选）：PASS、FAIL、PENDING_REVIEW、UNKNOWN
+     */
+    private String finalEvaluationResult;
+}
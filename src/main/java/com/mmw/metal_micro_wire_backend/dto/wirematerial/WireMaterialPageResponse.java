@@ -52,6 +52,16 @@ public class WireMaterialPageResponse {
      */
     private boolean last;
     
+    /**
+     * 游标分页：下一页游标，没有下一页时为null
+     */
+    private String nextCursor;
+    
+    /**
+     * 游标分页：是否还有下一页
+     */
+    private boolean hasNext;
+    
     /**
      * 从分页对象创建响应
      */
@@ -64,6 +74,25 @@ public class WireMaterialPageResponse {
                 .totalElements(page.getTotalElements())
                 .first(page.isFirst())
                 .last(page.isLast())
+                .hasNext(page.hasNext())
+                .build();
+    }
+    
+    /**
+     * 从游标分页结果创建响应，未统计总数时totalElements与totalPages为-1
+     */
+    public static WireMaterialPageResponse fromKeysetPage(List<WireMaterialResponse> content, int pageSize,
+                                    boolean first, String nextCursor, long totalElements) {
+        return WireMaterialPageResponse.builder()
+                .wireMaterials(content)
+                .currentPage(-1)
+                .pageSize(pageSize)
+                .totalPages(totalElements < 0 ? -1 : (int) ((totalElements + pageSize - 1) / pageSize))
+                .totalElements(totalElements)
+                .first(first)
+                .last(nextCursor == null)
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
                 .build();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.mmw.metal_micro_wire_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 维度字典实体类 - 将线材的生产商、负责人等文本维度映射为整数ID
+ */
+@Entity
+@Table(name = "dimension_values",
+       uniqueConstraints = @UniqueConstraint(name = "uk_dimension_type_value",
+                                             columnNames = {"dimension_type", "dimension_value"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DimensionValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    /**
+     * 维度类型
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension_type", nullable = false, length = 32)
+    private DimensionType dimensionType;
+
+    /**
+     * 维度取值
+     */
+    @Column(name = "dimension_value", nullable = false)
+    private String dimensionValue;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "create_time", nullable = false)
+    @Builder.Default
+    private LocalDateTime createTime = LocalDateTime.now();
+
+    /**
+     * 维度类型枚举，column为wire_materials中对应的文本列
+     */
+    public enum DimensionType {
+        MANUFACTURER("manufacturer"),
+        RESPONSIBLE_PERSON("responsible_person"),
+        PROCESS_TYPE("process_type"),
+        PRODUCTION_MACHINE("production_machine"),
+        CONTACT_EMAIL("contact_email");
+
+        private final String column;
+
+        DimensionType(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+}
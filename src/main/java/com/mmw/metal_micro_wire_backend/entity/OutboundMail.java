@@ -0,0 +1,124 @@
+package com.mmw.metal_micro_wire_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待发送邮件实体类 - 邮件发送队列
+ * 调用方写入后立即返回投递ID，由发送线程批量取出、复用SMTP连接发送，失败时按退避时间重试
+ */
+@Entity
+@Table(name = "outbound_mails",
+       uniqueConstraints = @UniqueConstraint(name = "uk_outbound_mails_delivery_id", columnNames = "delivery_id"),
+       indexes = {
+           @Index(name = "idx_outbound_mails_status_next_attempt", columnList = "status, next_attempt_time"),
+           @Index(name = "idx_outbound_mails_status_locked_until", columnList = "status, locked_until")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundMail {
+
+    /**
+     * 发送状态枚举
+     */
+    public enum MailStatus {
+        /** 等待发送（含等待重试） */
+        PENDING,
+        /** 已被发送线程取出 */
+        SENDING,
+        /** 发送成功 */
+        SENT,
+        /** 重试次数用尽 */
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 投递ID，返回给调用方用于查询发送状态
+     */
+    @Column(name = "delivery_id", nullable = false, length = 36)
+    private String deliveryId;
+
+    /**
+     * 收件人邮箱
+     */
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    /**
+     * 邮件主题（合并为摘要时作为条目标题）
+     */
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    /**
+     * 邮件内容
+     */
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    /**
+     * 是否为HTML格式
+     */
+    @Column(name = "html", nullable = false)
+    private Boolean html;
+
+    /**
+     * 摘要类型，不为空时同一收件人、同一类型的待发送邮件合并为一封摘要发送
+     */
+    @Column(name = "digest_key", length = 64)
+    private String digestKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    @Builder.Default
+    private MailStatus status = MailStatus.PENDING;
+
+    /**
+     * 已尝试发送次数
+     */
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    /**
+     * 下次可发送时间
+     */
+    @Column(name = "next_attempt_time", nullable = false)
+    private LocalDateTime nextAttemptTime;
+
+    /**
+     * 取出该邮件的节点
+     */
+    @Column(name = "locked_by", length = 128)
+    private String lockedBy;
+
+    /**
+     * 取出后的租约到期时间，到期仍未完成（节点宕机）时重新放回队列
+     */
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "create_time", nullable = false)
+    @Builder.Default
+    private LocalDateTime createTime = LocalDateTime.now();
+
+    @Column(name = "sent_time")
+    private LocalDateTime sentTime;
+}
@@ -13,7 +13,12 @@ import java.time.LocalDateTime;
  * 线材实体类 - 存储金属微丝检测数据
  */
 @Entity
-@Table(name = "wire_materials")
+@Table(name = "wire_materials",
+       indexes = {
+           // 游标分页定位索引：(排序字段, 批次号)
+           @Index(name = "idx_wire_materials_create_time_batch", columnList = "create_time, batch_number"),
+           @Index(name = "idx_wire_materials_event_time_batch", columnList = "event_time, batch_number")
+       })
 @Data
 @Builder
 @NoArgsConstructor
@@ -93,6 +98,36 @@ public class WireMaterial {
     @Column(name = "contact_email")
     private String contactEmail;
     
+    /**
+     * 生产商字典ID（dimension_values.id），溯源统计在该列上分组
+     */
+    @Column(name = "manufacturer_id")
+    private Integer manufacturerId;
+    
+    /**
+     * 负责人字典ID
+     */
+    @Column(name = "responsible_person_id")
+    private Integer responsiblePersonId;
+    
+    /**
+     * 工艺类型字典ID
+     */
+    @Column(name = "process_type_id")
+    private Integer processTypeId;
+    
+    /**
+     * 生产机器字典ID
+     */
+    @Column(name = "production_machine_id")
+    private Integer productionMachineId;
+    
+    /**
+     * 联系方式字典ID
+     */
+    @Column(name = "contact_email_id")
+    private Integer contactEmailId;
+    
     /**
      * 应用场景编号（从批次号解析得出）
      */
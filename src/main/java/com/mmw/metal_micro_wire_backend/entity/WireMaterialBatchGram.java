@@ -0,0 +1,49 @@
+package com.mmw.metal_micro_wire_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 批次号三元组倒排索引实体类
+ * 每个批次号按小写后的连续3个字符拆分，用于替代批次号的 LIKE '%关键词%' 全表扫描
+ */
+@Entity
+@Table(name = "wire_material_batch_grams",
+       indexes = @Index(name = "idx_batch_grams_batch_number", columnList = "batch_number"))
+@IdClass(WireMaterialBatchGram.GramId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WireMaterialBatchGram {
+
+    /**
+     * 三元组（小写）
+     */
+    @Id
+    @Column(name = "gram", nullable = false, length = 12)
+    private String gram;
+
+    /**
+     * 批次号
+     */
+    @Id
+    @Column(name = "batch_number", nullable = false)
+    private String batchNumber;
+
+    /**
+     * 复合主键
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GramId implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String gram;
+        private String batchNumber;
+    }
+}
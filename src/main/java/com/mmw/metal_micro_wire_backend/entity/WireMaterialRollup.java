@@ -0,0 +1,84 @@
+package com.mmw.metal_micro_wire_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 线材归档汇总实体类 - 存储已归档检测数据的按日汇总
+ * 明细归档到本地段文件后，统计查询通过该表补齐历史数据
+ */
+@Entity
+@Table(name = "wire_material_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_date_scenario_device",
+                                             columnNames = {"rollup_date", "scenario_code", "device_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WireMaterialRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 汇总日期（按event_time所在日期）
+     */
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    /**
+     * 应用场景编号
+     */
+    @Column(name = "scenario_code", length = 2)
+    private String scenarioCode;
+
+    /**
+     * 设备ID
+     */
+    @Column(name = "device_id", nullable = false)
+    private String deviceId;
+
+    /**
+     * 检测总数
+     */
+    @Column(name = "total_count", nullable = false)
+    private Long totalCount;
+
+    /**
+     * 合格数
+     */
+    @Column(name = "pass_count", nullable = false)
+    private Long passCount;
+
+    /**
+     * 不合格数
+     */
+    @Column(name = "fail_count", nullable = false)
+    private Long failCount;
+
+    /**
+     * 待人工审核数
+     */
+    @Column(name = "pending_review_count", nullable = false)
+    private Long pendingReviewCount;
+
+    /**
+     * 未评估数
+     */
+    @Column(name = "unknown_count", nullable = false)
+    private Long unknownCount;
+
+    /**
+     * 归档时间
+     */
+    @Column(name = "archived_time", nullable = false)
+    @Builder.Default
+    private LocalDateTime archivedTime = LocalDateTime.now();
+}
@@ -0,0 +1,37 @@
+package com.mmw.metal_micro_wire_backend.event;
+
+import lombok.Getter;
+
+/**
+ * 设备变更事件
+ * 管理端新增或删除设备后发布；设备上报的状态变化由 {@link DeviceStatusChangedEvent} 表示
+ */
+@Getter
+public class DeviceChangedEvent {
+
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        /** 新增设备 */
+        CREATED,
+        /** 删除设备 */
+        DELETED
+    }
+
+    private final ChangeType changeType;
+    private final String deviceId;
+
+    private DeviceChangedEvent(ChangeType changeType, String deviceId) {
+        this.changeType = changeType;
+        this.deviceId = deviceId;
+    }
+
+    public static DeviceChangedEvent created(String deviceId) {
+        return new DeviceChangedEvent(ChangeType.CREATED, deviceId);
+    }
+
+    public static DeviceChangedEvent deleted(String deviceId) {
+        return new DeviceChangedEvent(ChangeType.DELETED, deviceId);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mmw.metal_micro_wire_backend.event;
+
+import com.mmw.metal_micro_wire_backend.entity.Device;
+import lombok.Getter;
+
+/**
+ * 设备状态变更事件
+ * 设备上报的状态与已保存状态不同时发布
+ */
+@Getter
+public class DeviceStatusChangedEvent {
+
+    private final String deviceId;
+    private final Device.DeviceStatus previousStatus;
+    private final Device.DeviceStatus status;
+
+    public DeviceStatusChangedEvent(String deviceId, Device.DeviceStatus previousStatus, Device.DeviceStatus status) {
+        this.deviceId = deviceId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+}
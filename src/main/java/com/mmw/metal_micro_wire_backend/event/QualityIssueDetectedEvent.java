@@ -0,0 +1,18 @@
+package com.mmw.metal_micro_wire_backend.event;
+
+import com.mmw.metal_micro_wire_backend.dto.traceability.QualityIssueResponse;
+import lombok.Getter;
+
+/**
+ * 质量问题检测事件
+ * 流式检测发现某个维度取值的不合格率越过阈值时发布
+ */
+@Getter
+public class QualityIssueDetectedEvent {
+
+    private final QualityIssueResponse issue;
+
+    public QualityIssueDetectedEvent(QualityIssueResponse issue) {
+        this.issue = issue;
+    }
+}
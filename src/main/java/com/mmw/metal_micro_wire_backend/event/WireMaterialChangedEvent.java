@@ -0,0 +1,45 @@
+package com.mmw.metal_micro_wire_backend.event;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import lombok.Getter;
+
+/**
+ * 线材检测数据变更事件
+ * 单条数据写入、重新评估、人工审核、修改或删除后发布，
+ * 监听方通过 @TransactionalEventListener 在事务提交后维护各自的内存结构
+ */
+@Getter
+public class WireMaterialChangedEvent {
+
+    /**
+     * 变更类型
+     */
+    public enum ChangeType {
+        /** 设备上报的新检测数据写入（每个测量值只发布一次） */
+        CREATED,
+        /** 更新（重新评估、人工审核、修改） */
+        SAVED,
+        /** 删除 */
+        DELETED
+    }
+
+    private final ChangeType changeType;
+    private final WireMaterial wireMaterial;
+
+    private WireMaterialChangedEvent(ChangeType changeType, WireMaterial wireMaterial) {
+        this.changeType = changeType;
+        this.wireMaterial = wireMaterial;
+    }
+
+    public static WireMaterialChangedEvent created(WireMaterial wireMaterial) {
+        return new WireMaterialChangedEvent(ChangeType.CREATED, wireMaterial);
+    }
+
+    public static WireMaterialChangedEvent saved(WireMaterial wireMaterial) {
+        return new WireMaterialChangedEvent(ChangeType.SAVED, wireMaterial);
+    }
+
+    public static WireMaterialChangedEvent deleted(WireMaterial wireMaterial) {
+        return new WireMaterialChangedEvent(ChangeType.DELETED, wireMaterial);
+    }
+}
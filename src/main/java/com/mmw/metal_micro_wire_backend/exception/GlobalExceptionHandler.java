@@ -2,6 +2,7 @@ package com.mmw.metal_micro_wire_backend.exception;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -92,6 +93,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
     
+    /**
+     * 处理AI对话请求超出负载，返回429并提示重试等待时间
+     */
+    @ExceptionHandler(LlmOverloadedException.class)
+    public ResponseEntity<BaseResponse<Void>> handleLlmOverloadedException(LlmOverloadedException ex) {
+        log.warn("AI对话请求被限流：{}", ex.getMessage());
+        
+        BaseResponse<Void> response = BaseResponse.<Void>builder()
+                .msg(ex.getMessage())
+                .code("Error")
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+    
     /**
      * 处理运行时异常
      */
@@ -0,0 +1,22 @@
+package com.mmw.metal_micro_wire_backend.exception;
+
+import lombok.Getter;
+
+/**
+ * AI对话请求超出负载或用户请求过于频繁，由全局异常处理器转换为429响应
+ */
+@Getter
+public class LlmOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议的重试等待时间（秒）
+     */
+    private final long retryAfterSeconds;
+
+    public LlmOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,20 @@
+package com.mmw.metal_micro_wire_backend.repository;
+
+import com.mmw.metal_micro_wire_backend.entity.DimensionValue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 维度字典数据访问层
+ */
+@Repository
+public interface DimensionValueRepository extends JpaRepository<DimensionValue, Integer> {
+
+    /**
+     * 根据维度类型和取值查找字典项
+     */
+    Optional<DimensionValue> findByDimensionTypeAndDimensionValue(DimensionValue.DimensionType dimensionType,
+                                                                   String dimensionValue);
+}
@@ -0,0 +1,95 @@
+package com.mmw.metal_micro_wire_backend.repository;
+
+import com.mmw.metal_micro_wire_backend.entity.OutboundMail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 待发送邮件数据访问层
+ */
+@Repository
+public interface OutboundMailRepository extends JpaRepository<OutboundMail, Long> {
+
+    Optional<OutboundMail> findByDeliveryId(String deliveryId);
+
+    /**
+     * 查询已到发送时间的邮件ID，按到期先后排列
+     */
+    @Query("SELECT m.id FROM OutboundMail m WHERE m.status = :status AND m.nextAttemptTime <= :now " +
+           "ORDER BY m.nextAttemptTime, m.id")
+    List<Long> findDueIds(@Param("status") OutboundMail.MailStatus status,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * 查询同一收件人、同一摘要类型的其他待发送邮件，合并进同一封摘要：
+     * 尚未发送过的邮件不论摘要窗口是否到期都一并取出，发送失败正在退避的邮件须等到重试时间
+     */
+    @Query("SELECT m.id FROM OutboundMail m WHERE m.status = :status AND m.recipient = :recipient " +
+           "AND m.digestKey = :digestKey AND (m.attempts = 0 OR m.nextAttemptTime <= :now) ORDER BY m.id")
+    List<Long> findDigestIds(@Param("status") OutboundMail.MailStatus status,
+                             @Param("recipient") String recipient,
+                             @Param("digestKey") String digestKey,
+                             @Param("now") LocalDateTime now,
+                             Pageable pageable);
+
+    /**
+     * 认领邮件：仅更新仍处于待发送状态的行，多个节点并发认领时每封邮件只会被一个节点取得
+     */
+    @Modifying
+    @Query("UPDATE OutboundMail m SET m.status = :sending, m.lockedBy = :node, m.lockedUntil = :lockedUntil " +
+           "WHERE m.id IN :ids AND m.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("node") String node,
+              @Param("lockedUntil") LocalDateTime lockedUntil,
+              @Param("pending") OutboundMail.MailStatus pending,
+              @Param("sending") OutboundMail.MailStatus sending);
+
+    /**
+     * 写回发送结果：仅当邮件仍由本节点认领时更新。租约在发送途中到期、已被其他节点重新认领的邮件不覆盖，
+     * 以重新认领节点的结果为准
+     */
+    @Modifying
+    @Query("UPDATE OutboundMail m SET m.status = :status, m.attempts = m.attempts + 1, " +
+           "m.nextAttemptTime = :nextAttemptTime, m.lastError = :lastError, m.sentTime = :sentTime, " +
+           "m.lockedBy = null, m.lockedUntil = null " +
+           "WHERE m.id = :id AND m.status = :sending AND m.lockedBy = :node")
+    int complete(@Param("id") Long id,
+                 @Param("node") String node,
+                 @Param("sending") OutboundMail.MailStatus sending,
+                 @Param("status") OutboundMail.MailStatus status,
+                 @Param("nextAttemptTime") LocalDateTime nextAttemptTime,
+                 @Param("lastError") String lastError,
+                 @Param("sentTime") LocalDateTime sentTime);
+
+    List<OutboundMail> findByIdInAndStatusAndLockedBy(Collection<Long> ids, OutboundMail.MailStatus status, String lockedBy);
+
+    /**
+     * 租约到期仍未完成的邮件放回队列（发送节点宕机或被强制停止）
+     */
+    @Modifying
+    @Query("UPDATE OutboundMail m SET m.status = :pending, m.lockedBy = null, m.lockedUntil = null " +
+           "WHERE m.status = :sending AND m.lockedUntil < :now")
+    int releaseExpired(@Param("now") LocalDateTime now,
+                       @Param("pending") OutboundMail.MailStatus pending,
+                       @Param("sending") OutboundMail.MailStatus sending);
+
+    /**
+     * 清理早于指定时间的已结束邮件
+     */
+    @Modifying
+    @Query("DELETE FROM OutboundMail m WHERE m.status IN :statuses AND m.createTime < :before")
+    int deleteFinishedBefore(@Param("statuses") Collection<OutboundMail.MailStatus> statuses,
+                             @Param("before") LocalDateTime before);
+
+    long countByStatus(OutboundMail.MailStatus status);
+}
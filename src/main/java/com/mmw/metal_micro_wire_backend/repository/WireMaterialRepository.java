@@ -88,95 +88,144 @@ public interface WireMaterialRepository extends JpaRepository<WireMaterial, Stri
     List<WireMaterial> findByProductionMachineAndEventTimeBetween(String productionMachine, LocalDateTime startTime, LocalDateTime endTime);
 
     // ==================== 统计查询方法 ====================
+    // 维度统计在整数字典ID列上分组，分组完成后再关联dimension_values还原维度名称
 
     /**
      * 按生产商统计质量数据
      */
-    @Query(value = "SELECT w.manufacturer, " +
+    @Query(value = "SELECT d.dimension_value, t.totalCount, t.passCount, t.failCount, " +
+           "t.pendingReviewCount, t.unknownCount, e.dimension_value " +
+           "FROM (SELECT w.manufacturer_id as dimensionId, w.contact_email_id as contactEmailId, " +
            "COUNT(w.batch_number) as totalCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PASS' THEN 1 ELSE 0 END) as passCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'FAIL' THEN 1 ELSE 0 END) as failCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PENDING_REVIEW' THEN 1 ELSE 0 END) as pendingReviewCount, " +
-           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount, " +
-           "w.contact_email " +
+           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount " +
            "FROM wire_materials w " +
-           "WHERE w.event_time >= COALESCE(?1, '1900-01-01'::timestamp) " +
-           "AND w.event_time <= COALESCE(?2, '2100-12-31'::timestamp) " +
+           "WHERE w.event_time >= ?1 " +
+           "AND w.event_time <= ?2 " +
            "AND (COALESCE(?3, '') = '' OR w.scenario_code = ?3) " +
-           "AND (COALESCE(?4, '') = '' OR w.manufacturer = ?4) " +
-           "GROUP BY w.manufacturer, w.contact_email " +
-           "ORDER BY failCount DESC, totalCount DESC", nativeQuery = true)
-    List<Object[]> getManufacturerStatistics(@Param("startTime") LocalDateTime startTime,
+           "AND (COALESCE(?4, '') = '' OR w.manufacturer_id = (SELECT v.id FROM dimension_values v " +
+           "WHERE v.dimension_type = 'MANUFACTURER' AND v.dimension_value = ?4)) " +
+           "GROUP BY w.manufacturer_id, w.contact_email_id) t " +
+           "LEFT JOIN dimension_values d ON d.id = t.dimensionId " +
+           "LEFT JOIN dimension_values e ON e.id = t.contactEmailId " +
+           "ORDER BY t.failCount DESC, t.totalCount DESC", nativeQuery = true)
+    List<Object[]> getManufacturerStatisticsInRange(@Param("startTime") LocalDateTime startTime,
                                             @Param("endTime") LocalDateTime endTime,
                                             @Param("scenarioCode") String scenarioCode,
                                             @Param("dimensionValue") String dimensionValue);
 
+    /**
+     * 按生产商统计质量数据（自动补全时间边界）
+     */
+    default List<Object[]> getManufacturerStatistics(LocalDateTime startTime, LocalDateTime endTime,
+            String scenarioCode, String dimensionValue) {
+        return getManufacturerStatisticsInRange(rangeStart(startTime), rangeEnd(endTime), scenarioCode, dimensionValue);
+    }
+
     /**
      * 按负责人统计质量数据
      */
-    @Query(value = "SELECT w.responsible_person, " +
+    @Query(value = "SELECT d.dimension_value, t.totalCount, t.passCount, t.failCount, " +
+           "t.pendingReviewCount, t.unknownCount, e.dimension_value " +
+           "FROM (SELECT w.responsible_person_id as dimensionId, w.contact_email_id as contactEmailId, " +
            "COUNT(w.batch_number) as totalCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PASS' THEN 1 ELSE 0 END) as passCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'FAIL' THEN 1 ELSE 0 END) as failCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PENDING_REVIEW' THEN 1 ELSE 0 END) as pendingReviewCount, " +
-           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount, " +
-           "w.contact_email " +
+           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount " +
            "FROM wire_materials w " +
-           "WHERE w.event_time >= COALESCE(?1, '1900-01-01'::timestamp) " +
-           "AND w.event_time <= COALESCE(?2, '2100-12-31'::timestamp) " +
+           "WHERE w.event_time >= ?1 " +
+           "AND w.event_time <= ?2 " +
            "AND (COALESCE(?3, '') = '' OR w.scenario_code = ?3) " +
-           "AND (COALESCE(?4, '') = '' OR w.responsible_person = ?4) " +
-           "GROUP BY w.responsible_person, w.contact_email " +
-           "ORDER BY failCount DESC, totalCount DESC", nativeQuery = true)
-    List<Object[]> getResponsiblePersonStatistics(@Param("startTime") LocalDateTime startTime,
+           "AND (COALESCE(?4, '') = '' OR w.responsible_person_id = (SELECT v.id FROM dimension_values v " +
+           "WHERE v.dimension_type = 'RESPONSIBLE_PERSON' AND v.dimension_value = ?4)) " +
+           "GROUP BY w.responsible_person_id, w.contact_email_id) t " +
+           "LEFT JOIN dimension_values d ON d.id = t.dimensionId " +
+           "LEFT JOIN dimension_values e ON e.id = t.contactEmailId " +
+           "ORDER BY t.failCount DESC, t.totalCount DESC", nativeQuery = true)
+    List<Object[]> getResponsiblePersonStatisticsInRange(@Param("startTime") LocalDateTime startTime,
                                                  @Param("endTime") LocalDateTime endTime,
                                                  @Param("scenarioCode") String scenarioCode,
                                                  @Param("dimensionValue") String dimensionValue);
 
+    /**
+     * 按负责人统计质量数据（自动补全时间边界）
+     */
+    default List<Object[]> getResponsiblePersonStatistics(LocalDateTime startTime, LocalDateTime endTime,
+            String scenarioCode, String dimensionValue) {
+        return getResponsiblePersonStatisticsInRange(rangeStart(startTime), rangeEnd(endTime), scenarioCode, dimensionValue);
+    }
+
     /**
      * 按工艺类型统计质量数据
      */
-    @Query(value = "SELECT w.process_type, " +
+    @Query(value = "SELECT d.dimension_value, t.totalCount, t.passCount, t.failCount, " +
+           "t.pendingReviewCount, t.unknownCount, e.dimension_value " +
+           "FROM (SELECT w.process_type_id as dimensionId, w.contact_email_id as contactEmailId, " +
            "COUNT(w.batch_number) as totalCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PASS' THEN 1 ELSE 0 END) as passCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'FAIL' THEN 1 ELSE 0 END) as failCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PENDING_REVIEW' THEN 1 ELSE 0 END) as pendingReviewCount, " +
-           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount, " +
-           "w.contact_email " +
+           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount " +
            "FROM wire_materials w " +
-           "WHERE w.event_time >= COALESCE(?1, '1900-01-01'::timestamp) " +
-           "AND w.event_time <= COALESCE(?2, '2100-12-31'::timestamp) " +
+           "WHERE w.event_time >= ?1 " +
+           "AND w.event_time <= ?2 " +
            "AND (COALESCE(?3, '') = '' OR w.scenario_code = ?3) " +
-           "AND (COALESCE(?4, '') = '' OR w.process_type = ?4) " +
-           "GROUP BY w.process_type, w.contact_email " +
-           "ORDER BY failCount DESC, totalCount DESC", nativeQuery = true)
-    List<Object[]> getProcessTypeStatistics(@Param("startTime") LocalDateTime startTime,
+           "AND (COALESCE(?4, '') = '' OR w.process_type_id = (SELECT v.id FROM dimension_values v " +
+           "WHERE v.dimension_type = 'PROCESS_TYPE' AND v.dimension_value = ?4)) " +
+           "GROUP BY w.process_type_id, w.contact_email_id) t " +
+           "LEFT JOIN dimension_values d ON d.id = t.dimensionId " +
+           "LEFT JOIN dimension_values e ON e.id = t.contactEmailId " +
+           "ORDER BY t.failCount DESC, t.totalCount DESC", nativeQuery = true)
+    List<Object[]> getProcessTypeStatisticsInRange(@Param("startTime") LocalDateTime startTime,
                                           @Param("endTime") LocalDateTime endTime,
                                           @Param("scenarioCode") String scenarioCode,
                                           @Param("dimensionValue") String dimensionValue);
 
+    /**
+     * 按工艺类型统计质量数据（自动补全时间边界）
+     */
+    default List<Object[]> getProcessTypeStatistics(LocalDateTime startTime, LocalDateTime endTime,
+            String scenarioCode, String dimensionValue) {
+        return getProcessTypeStatisticsInRange(rangeStart(startTime), rangeEnd(endTime), scenarioCode, dimensionValue);
+    }
+
     /**
      * 按生产机器统计质量数据
      */
-    @Query(value = "SELECT w.production_machine, " +
+    @Query(value = "SELECT d.dimension_value, t.totalCount, t.passCount, t.failCount, " +
+           "t.pendingReviewCount, t.unknownCount, e.dimension_value " +
+           "FROM (SELECT w.production_machine_id as dimensionId, w.contact_email_id as contactEmailId, " +
            "COUNT(w.batch_number) as totalCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PASS' THEN 1 ELSE 0 END) as passCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'FAIL' THEN 1 ELSE 0 END) as failCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'PENDING_REVIEW' THEN 1 ELSE 0 END) as pendingReviewCount, " +
-           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount, " +
-           "w.contact_email " +
+           "SUM(CASE WHEN w.final_evaluation_result = 'UNKNOWN' THEN 1 ELSE 0 END) as unknownCount " +
            "FROM wire_materials w " +
-           "WHERE w.event_time >= COALESCE(?1, '1900-01-01'::timestamp) " +
-           "AND w.event_time <= COALESCE(?2, '2100-12-31'::timestamp) " +
+           "WHERE w.event_time >= ?1 " +
+           "AND w.event_time <= ?2 " +
            "AND (COALESCE(?3, '') = '' OR w.scenario_code = ?3) " +
-           "AND (COALESCE(?4, '') = '' OR w.production_machine = ?4) " +
-           "GROUP BY w.production_machine, w.contact_email " +
-           "ORDER BY failCount DESC, totalCount DESC", nativeQuery = true)
-    List<Object[]> getProductionMachineStatistics(@Param("startTime") LocalDateTime startTime,
+           "AND (COALESCE(?4, '') = '' OR w.production_machine_id = (SELECT v.id FROM dimension_values v " +
+           "WHERE v.dimension_type = 'PRODUCTION_MACHINE' AND v.dimension_value = ?4)) " +
+           "GROUP BY w.production_machine_id, w.contact_email_id) t " +
+           "LEFT JOIN dimension_values d ON d.id = t.dimensionId " +
+           "LEFT JOIN dimension_values e ON e.id = t.contactEmailId " +
+           "ORDER BY t.failCount DESC, t.totalCount DESC", nativeQuery = true)
+    List<Object[]> getProductionMachineStatisticsInRange(@Param("startTime") LocalDateTime startTime,
                                                  @Param("endTime") LocalDateTime endTime,
                                                  @Param("scenarioCode") String scenarioCode,
                                                  @Param("dimensionValue") String dimensionValue);
 
+    /**
+     * 按生产机器统计质量数据（自动补全时间边界）
+     */
+    default List<Object[]> getProductionMachineStatistics(LocalDateTime startTime, LocalDateTime endTime,
+            String scenarioCode, String dimensionValue) {
+        return getProductionMachineStatisticsInRange(rangeStart(startTime), rangeEnd(endTime), scenarioCode, dimensionValue);
+    }
+
     /**
      * 获取指定维度和值的不合格批次详情 - 生产商维度（无时间过滤）
      */
@@ -303,13 +352,20 @@ public interface WireMaterialRepository extends JpaRepository<WireMaterial, Stri
            "SUM(CASE WHEN w.final_evaluation_result = 'PASS' THEN 1 ELSE 0 END) as passCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'FAIL' THEN 1 ELSE 0 END) as failCount " +
            "FROM wire_materials w " +
-           "WHERE w.event_time >= COALESCE(?1, '1900-01-01'::timestamp) " +
-           "AND w.event_time <= COALESCE(?2, '2100-12-31'::timestamp) " +
+           "WHERE w.event_time >= ?1 " +
+           "AND w.event_time <= ?2 " +
            "AND (COALESCE(?3, '') = '' OR w.scenario_code = ?3)", nativeQuery = true)
-    List<Object[]> getOverallStatistics(@Param("startTime") LocalDateTime startTime,
+    List<Object[]> getOverallStatisticsInRange(@Param("startTime") LocalDateTime startTime,
                                        @Param("endTime") LocalDateTime endTime,
                                        @Param("scenarioCode") String scenarioCode);
 
+    /**
+     * 获取总体统计信息（自动补全时间边界）
+     */
+    default List<Object[]> getOverallStatistics(LocalDateTime startTime, LocalDateTime endTime, String scenarioCode) {
+        return getOverallStatisticsInRange(rangeStart(startTime), rangeEnd(endTime), scenarioCode);
+    }
+
     // ==================== 仪表板统计查询方法 ====================
 
     /**
@@ -334,13 +390,20 @@ public interface WireMaterialRepository extends JpaRepository<WireMaterial, Stri
            "w.scenario_code, " +
            "COUNT(w.batch_number) as scenarioCount " +
            "FROM wire_materials w " +
-           "WHERE w.event_time >= COALESCE(?1, '1900-01-01'::timestamp) " +
-           "AND w.event_time <= COALESCE(?2, '2100-12-31'::timestamp) " +
+           "WHERE w.event_time >= ?1 " +
+           "AND w.event_time <= ?2 " +
            "GROUP BY w.scenario_code " +
            "ORDER BY scenarioCount DESC", nativeQuery = true)
-    List<Object[]> getScenarioStatistics(@Param("startTime") LocalDateTime startTime,
+    List<Object[]> getScenarioStatisticsInRange(@Param("startTime") LocalDateTime startTime,
                                         @Param("endTime") LocalDateTime endTime);
 
+    /**
+     * 根据时间范围统计应用场景使用次数（自动补全时间边界）
+     */
+    default List<Object[]> getScenarioStatistics(LocalDateTime startTime, LocalDateTime endTime) {
+        return getScenarioStatisticsInRange(rangeStart(startTime), rangeEnd(endTime));
+    }
+
     /**
      * 获取系统总体统计数据
      */
@@ -359,8 +422,9 @@ public interface WireMaterialRepository extends JpaRepository<WireMaterial, Stri
            "SUM(CASE WHEN w.final_evaluation_result = 'PASS' THEN 1 ELSE 0 END) as currentMonthPassCount, " +
            "SUM(CASE WHEN w.final_evaluation_result = 'FAIL' THEN 1 ELSE 0 END) as currentMonthFailCount " +
            "FROM wire_materials w " +
-           "WHERE YEAR(w.event_time) = ?1 AND MONTH(w.event_time) = ?2", nativeQuery = true)
-    List<Object[]> getCurrentMonthStatistics(@Param("year") Integer year, @Param("month") Integer month);
+           "WHERE w.event_time >= ?1 AND w.event_time < ?2", nativeQuery = true)
+    List<Object[]> getCurrentMonthStatistics(@Param("monthStart") LocalDateTime monthStart,
+                                             @Param("nextMonthStart") LocalDateTime nextMonthStart);
 
     /**
      * 获取上月统计数据
@@ -368,18 +432,63 @@ public interface WireMaterialRepository extends JpaRepository<WireMaterial, Stri
     @Query(value = "SELECT " +
            "COUNT(w.batch_number) as lastMonthCount " +
            "FROM wire_materials w " +
-           "WHERE YEAR(w.event_time) = ?1 AND MONTH(w.event_time) = ?2", nativeQuery = true)
-    List<Object[]> getLastMonthStatistics(@Param("year") Integer year, @Param("month") Integer month);
+           "WHERE w.event_time >= ?1 AND w.event_time < ?2", nativeQuery = true)
+    List<Object[]> getLastMonthStatistics(@Param("monthStart") LocalDateTime monthStart,
+                                          @Param("nextMonthStart") LocalDateTime nextMonthStart);
 
     /**
-     * 获取不同设备的数量
+     * 获取不同设备的数量（包含已归档数据中的设备）
      */
-    @Query(value = "SELECT COUNT(DISTINCT w.device_id) as deviceCount FROM wire_materials w", nativeQuery = true)
+    @Query(value = "SELECT COUNT(DISTINCT d.device_id) as deviceCount FROM (" +
+           "SELECT w.device_id FROM wire_materials w " +
+           "UNION " +
+           "SELECT r.device_id FROM wire_material_rollups r) d", nativeQuery = true)
     Long getDistinctDeviceCount();
 
     /**
      * 获取今日线材检测数据统计
      */
-    @Query(value = "SELECT COUNT(*) FROM wire_materials w WHERE DATE(w.event_time) = DATE(?1)", nativeQuery = true)
-    int getTodayCount(@Param("now") LocalDateTime now);
-}
\ No newline at end of file
+    @Query(value = "SELECT COUNT(*) FROM wire_materials w WHERE w.event_time >= ?1 AND w.event_time < ?2", nativeQuery = true)
+    int getTodayCount(@Param("dayStart") LocalDateTime dayStart, @Param("nextDayStart") LocalDateTime nextDayStart);
+
+    // ==================== 归档查询方法 ====================
+
+    /**
+     * 获取热数据中最早的事件时间
+     */
+    @Query("SELECT MIN(w.eventTime) FROM WireMaterial w")
+    LocalDateTime findEarliestEventTime();
+
+    /**
+     * 获取指定时间范围内的线材数据（左闭右开）
+     */
+    List<WireMaterial> findByEventTimeGreaterThanEqualAndEventTimeLessThan(LocalDateTime startTime, LocalDateTime endTime);
+
+    // ==================== 分区裁剪辅助方法 ====================
+
+    /**
+     * 未指定开始时间时的默认下界
+     */
+    LocalDateTime MIN_EVENT_TIME = LocalDateTime.of(1900, 1, 1, 0, 0, 0);
+
+    /**
+     * 未指定结束时间时的默认上界
+     */
+    LocalDateTime MAX_EVENT_TIME = LocalDateTime.of(2100, 12, 31, 23, 59, 59);
+
+    /**
+     * 补全时间范围下界
+     * 在Java侧替换null而不是在SQL中使用COALESCE，使event_time上的条件成为普通的范围谓词，
+     * openGauss与MySQL都可以据此进行分区裁剪，同时也避免openGauss对null参数的类型推断问题
+     */
+    static LocalDateTime rangeStart(LocalDateTime startTime) {
+        return startTime != null ? startTime : MIN_EVENT_TIME;
+    }
+
+    /**
+     * 补全时间范围上界
+     */
+    static LocalDateTime rangeEnd(LocalDateTime endTime) {
+        return endTime != null ? endTime : MAX_EVENT_TIME;
+    }
+}
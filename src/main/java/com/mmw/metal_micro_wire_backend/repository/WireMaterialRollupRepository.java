@@ -0,0 +1,62 @@
+package com.mmw.metal_micro_wire_backend.repository;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterialRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 线材归档汇总数据访问层
+ */
+@Repository
+public interface WireMaterialRollupRepository extends JpaRepository<WireMaterialRollup, Long> {
+
+    /**
+     * 删除指定日期的汇总数据（重新归档同一天时先清除旧汇总）
+     */
+    @Modifying
+    @Query("DELETE FROM WireMaterialRollup r WHERE r.rollupDate = :rollupDate")
+    int deleteByRollupDate(@Param("rollupDate") LocalDate rollupDate);
+
+    /**
+     * 获取已归档数据的总体统计
+     */
+    @Query(value = "SELECT " +
+           "COALESCE(SUM(r.total_count), 0) as totalDetectionCount, " +
+           "COALESCE(SUM(r.pass_count), 0) as totalPassCount, " +
+           "COALESCE(SUM(r.fail_count), 0) as totalFailCount " +
+           "FROM wire_material_rollups r", nativeQuery = true)
+    List<Object[]> getArchivedOverallStatistics();
+
+    /**
+     * 获取指定日期之后已归档数据的月度统计
+     */
+    @Query(value = "SELECT " +
+           "YEAR(r.rollup_date) as year, " +
+           "MONTH(r.rollup_date) as month, " +
+           "SUM(r.pass_count) as passCount, " +
+           "SUM(r.fail_count) as failCount, " +
+           "SUM(r.total_count) as totalCount " +
+           "FROM wire_material_rollups r " +
+           "WHERE r.rollup_date >= ?1 " +
+           "GROUP BY YEAR(r.rollup_date), MONTH(r.rollup_date)", nativeQuery = true)
+    List<Object[]> getArchivedMonthlyStatistics(@Param("startDate") LocalDate startDate);
+
+    /**
+     * 按日期范围统计已归档数据的应用场景使用次数
+     */
+    @Query(value = "SELECT " +
+           "r.scenario_code, " +
+           "SUM(r.total_count) as scenarioCount " +
+           "FROM wire_material_rollups r " +
+           "WHERE r.rollup_date >= ?1 " +
+           "AND r.rollup_date <= ?2 " +
+           "GROUP BY r.scenario_code", nativeQuery = true)
+    List<Object[]> getArchivedScenarioStatistics(@Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+}
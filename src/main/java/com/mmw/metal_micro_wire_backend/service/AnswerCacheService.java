@@ -0,0 +1,39 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * 问答缓存服务接口
+ * 问题先按规范化文本精确匹配，再在本地相似度索引中查找相近问题；
+ * 回答按其调用过的工具记录依赖的数据，数据变化后缓存失效
+ */
+public interface AnswerCacheService {
+
+    /**
+     * 生成的回答
+     * @param answer 回答内容
+     * @param usedTools 生成回答时调用过的工具名称
+     * @param cacheable 是否可以缓存（降级回答等不缓存）
+     */
+    record GeneratedAnswer(String answer, Collection<String> usedTools, boolean cacheable) {
+    }
+
+    /**
+     * 获取问题的回答，未命中时调用generator生成并缓存；并发的相同问题只生成一次
+     * @param question 问题内容
+     * @param generator 回答生成函数
+     * @return 回答内容
+     */
+    String getOrGenerate(String question, Function<String, GeneratedAnswer> generator);
+
+    /**
+     * 清空缓存
+     */
+    void invalidateAll();
+
+    /**
+     * 当前缓存的问题数
+     */
+    int size();
+}
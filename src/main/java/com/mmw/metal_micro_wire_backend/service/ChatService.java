@@ -1,6 +1,7 @@
 package com.mmw.metal_micro_wire_backend.service;
 
 import com.mmw.metal_micro_wire_backend.dto.chat.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 聊天服务接口
@@ -16,6 +17,17 @@ public interface ChatService {
      */
     ChatMessageResponse sendMessage(Long userId, TokenService.UserType userType, ChatMessageRequest request);
     
+    /**
+     * 流式发送聊天消息
+     * 依次推送事件：session（会话信息）、delta（回复增量）、tool（正在调用的工具）、
+     * done（完整回复，已保存到历史）或 error（失败原因）
+     * @param userId 用户ID
+     * @param userType 用户类型
+     * @param request 聊天消息请求
+     * @return SSE连接
+     */
+    SseEmitter streamMessage(Long userId, TokenService.UserType userType, ChatMessageRequest request);
+    
     /**
      * 创建新的聊天会话
      * @param userId 用户ID
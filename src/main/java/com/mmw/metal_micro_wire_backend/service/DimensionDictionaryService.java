@@ -0,0 +1,47 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.entity.DimensionValue;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+/**
+ * 维度字典服务接口
+ * 将文本维度取值驻留为整数ID，内存缓存 + dimension_values表持久化
+ */
+public interface DimensionDictionaryService {
+
+    /**
+     * 获取维度取值对应的ID，不存在时创建
+     * @param dimensionType 维度类型
+     * @param value 维度取值
+     * @return 字典ID，取值为空时返回null
+     */
+    Integer intern(DimensionValue.DimensionType dimensionType, String value);
+
+    /**
+     * 查询维度取值对应的ID，不存在时不创建
+     * @param dimensionType 维度类型
+     * @param value 维度取值
+     * @return 字典ID，取值为空或不存在时返回null
+     */
+    Integer findId(DimensionValue.DimensionType dimensionType, String value);
+
+    /**
+     * 根据ID获取维度取值
+     * @param dimensionType 维度类型
+     * @param id 字典ID
+     * @return 维度取值，不存在时返回null
+     */
+    String resolve(DimensionValue.DimensionType dimensionType, Integer id);
+
+    /**
+     * 根据线材的文本维度填充对应的字典ID（入库或更新前调用）
+     * @param wireMaterial 线材数据
+     */
+    void assignIds(WireMaterial wireMaterial);
+
+    /**
+     * 为历史数据补齐字典ID
+     * @return 本次更新的行数
+     */
+    int backfillIds();
+}
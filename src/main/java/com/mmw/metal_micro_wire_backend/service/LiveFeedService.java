@@ -0,0 +1,47 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+/**
+ * 实时推送服务接口
+ * 入库流程产生的事件只序列化一次，再扇出到所有SSE订阅者，新增一个看板只增加一次写出而不是一次查询
+ */
+public interface LiveFeedService {
+
+    /** 新检测数据摘要 */
+    String TOPIC_DETECTION = "detection";
+    /** 计数增量 */
+    String TOPIC_COUNTERS = "counters";
+    /** 设备状态变更 */
+    String TOPIC_DEVICE_STATUS = "device-status";
+    /** 质量问题告警 */
+    String TOPIC_QUALITY_ISSUE = "quality-issue";
+
+    Set<String> TOPICS = Set.of(TOPIC_DETECTION, TOPIC_COUNTERS, TOPIC_DEVICE_STATUS, TOPIC_QUALITY_ISSUE);
+
+    /**
+     * 创建订阅
+     * @param topics 订阅的主题，为空时订阅全部
+     * @return SSE连接
+     * @throws IllegalArgumentException 主题不存在
+     * @throws IllegalStateException 推送未启用或订阅数已达上限
+     */
+    SseEmitter subscribe(Set<String> topics);
+
+    /**
+     * 推送上次推送以来的计数增量（没有新增时不推送）
+     */
+    void publishCounters();
+
+    /**
+     * 向所有订阅者发送心跳
+     */
+    void sendHeartbeat();
+
+    /**
+     * 当前订阅数
+     */
+    int getSubscriberCount();
+}
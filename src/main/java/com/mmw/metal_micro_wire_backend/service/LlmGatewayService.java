@@ -0,0 +1,58 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.chat.LlmGatewayStatsResponse;
+import com.mmw.metal_micro_wire_backend.exception.LlmOverloadedException;
+
+/**
+ * AI对话请求闸门服务接口
+ * 每次DeepSeek对话前获取执行许可，对话结束后释放
+ */
+public interface LlmGatewayService {
+
+    /**
+     * 请求优先级，排队时交互对话优先
+     */
+    enum Priority {
+        INTERACTIVE("交互对话"),
+        BACKGROUND("后台任务");
+
+        private final String description;
+
+        Priority(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 执行许可，重复关闭只释放一次
+     */
+    interface Permit extends AutoCloseable {
+
+        /**
+         * 未启用闸门时使用的空许可
+         */
+        Permit NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+
+    /**
+     * 获取执行许可，许可用尽时按优先级排队等待
+     * @param userId 用户ID，交互对话按用户限速
+     * @param priority 请求优先级
+     * @return 执行许可
+     * @throws LlmOverloadedException 用户请求过于频繁、排队已满或等待超时
+     */
+    Permit acquire(Long userId, Priority priority);
+
+    /**
+     * 获取闸门统计（并发数、排队数、等待时间和拒绝次数）
+     */
+    LlmGatewayStatsResponse getStats();
+}
@@ -0,0 +1,62 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.mail.MailDeliveryResponse;
+
+/**
+ * 邮件发送队列服务接口
+ * 通知类邮件写入队列后立即返回投递ID，不在调用线程中连接SMTP服务器；
+ * 验证码等需要同步反馈结果的邮件仍使用 EmailService
+ */
+public interface MailQueueService {
+
+    /**
+     * 质量问题通知摘要类型
+     */
+    String DIGEST_QUALITY_ISSUE = "quality-issue";
+
+    /**
+     * 加入发送队列
+     * @param to 收件人邮箱
+     * @param subject 邮件主题
+     * @param content 邮件内容
+     * @param html 是否为HTML格式
+     * @return 投递ID
+     */
+    String enqueue(String to, String subject, String content, boolean html);
+
+    /**
+     * 加入摘要队列：合并等待时间内发给同一收件人的同类邮件合并为一封发送
+     * @param to 收件人邮箱
+     * @param digestKey 摘要类型
+     * @param subject 条目标题
+     * @param content 条目内容
+     * @param html 是否为HTML格式
+     * @return 投递ID
+     */
+    String enqueueDigest(String to, String digestKey, String subject, String content, boolean html);
+
+    /**
+     * 查询投递状态
+     * @param deliveryId 投递ID
+     * @return 投递状态，不存在时返回null
+     */
+    MailDeliveryResponse getDelivery(String deliveryId);
+
+    /**
+     * 认领到期的邮件并提交给发送线程（每批一次SMTP连接）
+     * @return 认领的邮件数
+     */
+    int dispatch();
+
+    /**
+     * 把租约到期仍未完成的邮件放回队列
+     * @return 放回的邮件数
+     */
+    int releaseExpired();
+
+    /**
+     * 清理超过保留期的已发送和已失败邮件
+     * @return 删除的邮件数
+     */
+    int purge();
+}
@@ -0,0 +1,37 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.MeasurementTrendRequest;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.MeasurementTrendResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+/**
+ * 检测指标时间序列服务接口
+ * 按（设备, 应用场景）增量维护分钟、小时、天粒度的聚合桶，趋势图查询不再扫描原始数据
+ */
+public interface MeasurementTimeSeriesService {
+
+    /**
+     * 将一条新检测数据计入各粒度的桶
+     * @param wireMaterial 线材数据
+     */
+    void record(WireMaterial wireMaterial);
+
+    /**
+     * 将本节点有变化的桶写入Redis
+     * @return 写入的桶数
+     */
+    int flush();
+
+    /**
+     * 首次启用时从数据库回填保留期内的历史数据（集群中只有一个节点执行）
+     * @return 回填的行数
+     */
+    int backfill();
+
+    /**
+     * 查询检测指标趋势：选择满足点数预算的最细粒度，仍超出预算时用LTTB降采样
+     * @param request 查询请求
+     */
+    BaseResponse<MeasurementTrendResponse> getTrend(MeasurementTrendRequest request);
+}
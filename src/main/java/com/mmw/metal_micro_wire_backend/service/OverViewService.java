@@ -1,10 +1,14 @@
 package com.mmw.metal_micro_wire_backend.service;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.DistinctCountResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.MeasurementPercentileResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.OverallStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.ScenarioStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.YearlyStatisticsResponse;
 
+import java.util.List;
+
 /**
  * 仪表板概览服务接口
  */
@@ -34,4 +38,24 @@ public interface OverViewService {
      * @return 今日线材检测数据统计
      */
     BaseResponse<Integer> getTodayCount();
+
+    /**
+     * 获取时间范围内的去重设备数和批次数（近似值）
+     * @param startDate 开始日期（yyyy-MM-dd，可选）
+     * @param endDate 结束日期（yyyy-MM-dd，可选）
+     * @param scenarioCode 应用场景编号（可选）
+     * @return 去重计数
+     */
+    BaseResponse<DistinctCountResponse> getDistinctCounts(String startDate, String endDate, String scenarioCode);
+
+    /**
+     * 获取检测指标的p50/p95/p99分位数（近似值），按应用场景和生产机器分组
+     * @param startDate 开始日期（yyyy-MM-dd，可选）
+     * @param endDate 结束日期（yyyy-MM-dd，可选）
+     * @param scenarioCode 应用场景编号（可选）
+     * @param productionMachine 生产机器（可选）
+     * @return 分位数列表
+     */
+    BaseResponse<List<MeasurementPercentileResponse>> getMeasurementPercentiles(String startDate, String endDate,
+                                                                               String scenarioCode, String productionMachine);
 }
@@ -0,0 +1,69 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 质量报告服务接口
+ * 各维度统计通过溯源统计缓存获取（整日、整月桶复用已缓存的结果），并行查询并用预编译模板渲染HTML
+ */
+public interface QualityReportService {
+
+    /**
+     * 报告周期
+     */
+    enum ReportPeriod {
+        DAILY("每日"),
+        WEEKLY("每周"),
+        MONTHLY("每月");
+
+        private final String description;
+
+        ReportPeriod(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * 参考日期之前最近一个完整周期的开始日期（包含）
+         */
+        public LocalDate startOf(LocalDate referenceDate) {
+            return switch (this) {
+                case DAILY -> referenceDate.minusDays(1);
+                case WEEKLY -> referenceDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+                case MONTHLY -> referenceDate.withDayOfMonth(1).minusMonths(1);
+            };
+        }
+
+        /**
+         * 参考日期之前最近一个完整周期的结束日期（不包含）
+         */
+        public LocalDate endOf(LocalDate referenceDate) {
+            return switch (this) {
+                case DAILY -> referenceDate;
+                case WEEKLY -> referenceDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTHLY -> referenceDate.withDayOfMonth(1);
+            };
+        }
+    }
+
+    /**
+     * 渲染报告HTML
+     * @param period 报告周期
+     * @param referenceDate 参考日期，统计其之前最近一个完整周期
+     * @return 报告HTML
+     */
+    String renderReport(ReportPeriod period, LocalDate referenceDate);
+
+    /**
+     * 在报告线程中生成报告并加入管理员邮件发送队列，立即返回
+     * @param period 报告周期
+     * @return 成功加入发送队列的收件人数
+     */
+    CompletableFuture<Integer> generateAndSendAsync(ReportPeriod period);
+}
@@ -0,0 +1,68 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityQueryRequest;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 近期检测数据内存列式存储服务接口
+ * 保存保留期内的检测数据，查询方法的返回行结构与 WireMaterialRepository 中对应的统计查询一致；
+ * 查询窗口超出保留期或存储尚未加载完成时返回null，调用方应改为查询数据库
+ */
+public interface RecentDetectionStoreService {
+
+    /**
+     * 从数据库加载保留期内的检测数据
+     * @return 加载的行数
+     */
+    int load();
+
+    /**
+     * 淘汰超出保留期的数据
+     * @return 淘汰的行数
+     */
+    int evictExpired();
+
+    /**
+     * 写入或更新一条检测数据
+     * @param wireMaterial 线材数据
+     */
+    void upsert(WireMaterial wireMaterial);
+
+    /**
+     * 删除检测数据
+     * @param batchNumbers 批次号列表
+     */
+    void remove(Collection<String> batchNumbers);
+
+    /**
+     * 判断从指定时间开始的查询是否可由内存存储回答
+     * @param startTime 查询开始时间，null表示不限（不可回答）
+     */
+    boolean covers(LocalDateTime startTime);
+
+    /**
+     * 按维度统计质量数据，行结构：维度取值, 总数, 合格数, 不合格数, 待审核数, 未评估数, 联系邮箱
+     * @return 统计数据，不可回答时返回null
+     */
+    List<Object[]> getDimensionStatistics(TraceabilityQueryRequest.QueryDimension dimension,
+                                          LocalDateTime startTime, LocalDateTime endTime,
+                                          String scenarioCode, String dimensionValue);
+
+    /**
+     * 总体统计，行结构：总数, 合格数, 不合格数
+     * @param endTime 结束时间（包含），null表示不限
+     * @return 统计数据，不可回答时返回null
+     */
+    List<Object[]> getOverallStatistics(LocalDateTime startTime, LocalDateTime endTime, String scenarioCode);
+
+    /**
+     * 按应用场景统计使用次数，行结构：场景编号, 次数（降序）
+     * @param endTime 结束时间（包含），null表示不限
+     * @return 统计数据，不可回答时返回null
+     */
+    List<Object[]> getScenarioStatistics(LocalDateTime startTime, LocalDateTime endTime);
+}
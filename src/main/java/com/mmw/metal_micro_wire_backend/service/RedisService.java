@@ -111,23 +111,59 @@ public interface RedisService {
     void deleteChatSession(Long userId, String sessionId);
     
     /**
-     * 获取用户的所有会话ID
+     * 获取用户未过期的会话ID
      * @param userId 用户ID
-     * @return 会话ID列表
+     * @return 会话ID集合，按最后更新时间倒序排列
      */
     java.util.Set<String> getUserChatSessions(Long userId);
     
     /**
-     * 保存聊天消息历史
+     * 获取用户未过期的会话，按最后更新时间倒序排列；过期会话在同一次读取中顺带清理
+     * @param userId 用户ID
+     * @return 会话数据JSON列表
+     */
+    java.util.List<String> listChatSessions(Long userId);
+    
+    /**
+     * 追加聊天消息
+     * 消息以列表形式逐条存储，追加、裁剪和续期在同一次管道往返中完成，不读取已有消息
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @param messages 按时间顺序排列的消息JSON
+     * @param maxMessages 保留的最大消息数，超出部分从最早的消息开始删除
+     * @param expireHours 过期时间（小时）
+     */
+    void appendChatMessages(Long userId, String sessionId, java.util.List<String> messages, int maxMessages, int expireHours);
+    
+    /**
+     * 按区间读取聊天消息
      * @param userId 用户ID
      * @param sessionId 会话ID
-     * @param messageHistory 消息历史JSON
+     * @param start 起始下标，负数表示从末尾倒数
+     * @param end 结束下标（包含），-1表示最后一条
+     * @return 消息JSON列表，按时间顺序排列
+     */
+    java.util.List<String> getChatMessages(Long userId, String sessionId, long start, long end);
+    
+    /**
+     * 保存会话摘要
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @param summaryData 摘要数据JSON
      * @param expireHours 过期时间（小时）
      */
-    void saveChatMessageHistory(Long userId, String sessionId, String messageHistory, int expireHours);
+    void saveChatSummary(Long userId, String sessionId, String summaryData, int expireHours);
+    
+    /**
+     * 获取会话摘要
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @return 摘要数据JSON
+     */
+    String getChatSummary(Long userId, String sessionId);
     
     /**
-     * 获取聊天消息历史
+     * 获取旧格式（整体JSON）的聊天消息历史，仅用于迁移到列表存储
      * @param userId 用户ID
      * @param sessionId 会话ID
      * @return 消息历史JSON
@@ -135,7 +171,7 @@ public interface RedisService {
     String getChatMessageHistory(Long userId, String sessionId);
     
     /**
-     * 删除聊天消息历史
+     * 删除聊天消息历史（包括旧格式的整体JSON和会话摘要）
      * @param userId 用户ID
      * @param sessionId 会话ID
      */
@@ -0,0 +1,33 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.traceability.SpcChartResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.util.List;
+
+/**
+ * 统计过程控制（SPC）服务接口
+ * 按（应用场景, 生产机器, 检测指标）维护流式控制图，信号作为过程漂移预警进入质量问题通知流程
+ */
+public interface SpcService {
+
+    /**
+     * 将一条新检测数据的各项指标加入对应的控制图
+     * @param wireMaterial 线材数据
+     */
+    void record(WireMaterial wireMaterial);
+
+    /**
+     * 查询控制图状态
+     * @param scenarioCode 应用场景编号（可选）
+     * @param productionMachine 生产机器（可选）
+     * @return 控制图状态列表
+     */
+    List<SpcChartResponse> getCharts(String scenarioCode, String productionMachine);
+
+    /**
+     * 发送排队中的过程漂移预警
+     * @return 发送的预警数
+     */
+    int dispatchAlerts();
+}
@@ -0,0 +1,58 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.overview.DistinctCountResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.MeasurementPercentileResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 统计草图服务接口
+ * 按天和应用场景维护可合并的草图：HyperLogLog估计去重设备数和批次数，KLL估计检测指标分位数。
+ * 查询开销只与天数和序列数有关，与数据行数无关
+ */
+public interface StatisticsSketchService {
+
+    /**
+     * 将一条新检测数据计入草图
+     * @param wireMaterial 线材数据
+     */
+    void record(WireMaterial wireMaterial);
+
+    /**
+     * 将本节点有变化的KLL草图写入Redis
+     * @return 写入的草图数
+     */
+    int flush();
+
+    /**
+     * 首次启用时从数据库回填历史数据（集群中只有一个节点执行）
+     * @return 回填的行数
+     */
+    int backfill();
+
+    /**
+     * 全部历史去重设备数（含已归档数据中的设备）
+     * @return 估计值，回填尚未完成时返回null，调用方应改为查询数据库
+     */
+    Long getDistinctDeviceCount();
+
+    /**
+     * 时间范围内的去重设备数和批次数
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param scenarioCode 应用场景编号（可选）
+     */
+    DistinctCountResponse getDistinctCounts(LocalDate startDate, LocalDate endDate, String scenarioCode);
+
+    /**
+     * 按应用场景和生产机器统计检测指标的分位数
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @param scenarioCode 应用场景编号（可选）
+     * @param productionMachine 生产机器（可选）
+     */
+    List<MeasurementPercentileResponse> getPercentiles(LocalDate startDate, LocalDate endDate,
+                                                       String scenarioCode, String productionMachine);
+}
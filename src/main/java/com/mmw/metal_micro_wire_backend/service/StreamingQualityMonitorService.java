@@ -0,0 +1,37 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.traceability.QualityIssueResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.util.List;
+
+/**
+ * 流式质量监控服务接口
+ * 按维度取值维护分钟级滑动窗口的不合格率，在数据写入时实时检测质量问题
+ */
+public interface StreamingQualityMonitorService {
+
+    /**
+     * 计入或更新一条检测数据（只统计已判定为合格或不合格的数据）
+     * @param wireMaterial 线材数据
+     */
+    void record(WireMaterial wireMaterial);
+
+    /**
+     * 撤销一条检测数据的计数
+     * @param batchNumber 批次号
+     */
+    void remove(String batchNumber);
+
+    /**
+     * 获取当前处于告警状态的质量问题
+     * @return 质量问题列表（按不合格率降序）
+     */
+    List<QualityIssueResponse> getActiveIssues();
+
+    /**
+     * 发送排队中的质量问题通知
+     * @return 发送的问题数
+     */
+    int dispatchAlerts();
+}
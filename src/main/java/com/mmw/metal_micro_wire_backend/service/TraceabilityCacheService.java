@@ -0,0 +1,41 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityQueryRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 溯源统计结果缓存服务接口
+ * 查询窗口拆分为整月/整日/当天时间桶，各桶的统计结果分别缓存后合并；
+ * 检测数据写入或变更时按事件时间使对应的桶失效
+ */
+public interface TraceabilityCacheService {
+
+    /**
+     * 获取维度统计数据（行结构与 WireMaterialRepository 的维度统计查询一致）
+     * @param dimension 统计维度
+     * @param startTime 开始时间（包含），null表示不限
+     * @param endTime 结束时间（包含），null表示不限
+     * @param scenarioCode 应用场景编号
+     * @param dimensionValue 维度取值过滤条件
+     * @param loader 按时间范围直接查询数据库的方法（开始时间、结束时间均包含，null表示不限）
+     * @return 维度统计数据，按不合格数、总数降序排列
+     */
+    List<Object[]> getDimensionStatistics(TraceabilityQueryRequest.QueryDimension dimension,
+                                          LocalDateTime startTime, LocalDateTime endTime,
+                                          String scenarioCode, String dimensionValue,
+                                          BiFunction<LocalDateTime, LocalDateTime, List<Object[]>> loader);
+
+    /**
+     * 使包含指定事件时间的时间桶失效
+     * @param eventTime 检测数据的事件时间
+     */
+    void invalidate(LocalDateTime eventTime);
+
+    /**
+     * 使全部缓存失效（批量删除、归档等无法定位时间桶的变更后调用）
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,24 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.util.Optional;
+
+/**
+ * 线材检测数据归档服务接口
+ */
+public interface WireMaterialArchiveService {
+
+    /**
+     * 将超过保留期的检测数据归档到段文件，并生成按日汇总
+     * @return 本次归档的记录数
+     */
+    int archiveExpiredRecords();
+
+    /**
+     * 在归档段文件中按批次号查找线材记录
+     * @param batchNumber 批次号
+     * @return 归档的线材记录
+     */
+    Optional<WireMaterial> findArchivedByBatchNumber(String batchNumber);
+}
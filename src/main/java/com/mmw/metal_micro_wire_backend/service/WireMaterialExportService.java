@@ -0,0 +1,29 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialExportRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 线材数据导出服务接口
+ * 通过数据库游标逐行读取并直接写出，内存占用与导出范围无关
+ */
+public interface WireMaterialExportService {
+
+    /**
+     * 校验导出请求
+     * @param request 导出请求
+     * @return 错误信息，校验通过时返回null
+     */
+    String validate(WireMaterialExportRequest request);
+
+    /**
+     * 将符合条件的线材数据以gzip压缩后写入输出流
+     * @param request 导出请求
+     * @param outputStream 目标输出流（不会被关闭）
+     * @return 导出的记录数
+     * @throws IOException 写出失败时抛出
+     */
+    long export(WireMaterialExportRequest request, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,29 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import java.util.List;
+
+/**
+ * 线材数据分区管理服务接口
+ * 负责wire_materials表按月范围分区的检查与预创建
+ */
+public interface WireMaterialPartitionService {
+
+    /**
+     * 判断wire_materials表是否已按范围分区
+     * @return true: 已分区，false: 普通表
+     */
+    boolean isPartitioned();
+
+    /**
+     * 获取当前已存在的分区名称列表
+     * @return 分区名称列表
+     */
+    List<String> listPartitions();
+
+    /**
+     * 预创建从当前月份起指定数量的未来月度分区
+     * 已存在的分区会被跳过
+     * @return 本次新创建的分区数量
+     */
+    int ensureUpcomingPartitions();
+}
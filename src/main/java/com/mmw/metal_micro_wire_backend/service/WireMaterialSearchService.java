@@ -0,0 +1,40 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageRequest;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * 线材关键词搜索服务接口
+ * 维护批次号三元组倒排表和维度字段取值索引，将关键词搜索转换为索引查找
+ */
+public interface WireMaterialSearchService {
+
+    /**
+     * 构建线材列表关键词搜索条件
+     * 索引不可用或匹配过多时自动退回LIKE模糊查询
+     * @param request 分页查询请求
+     * @return 关键词搜索条件
+     */
+    Specification<WireMaterial> keywordSpecification(WireMaterialPageRequest request);
+
+    /**
+     * 线材数据入库后加入索引，由数据变更事件在事务提交后调用
+     * @param wireMaterial 已保存的线材数据
+     */
+    void indexWireMaterial(WireMaterial wireMaterial);
+
+    /**
+     * 线材数据删除或归档后移出批次号索引
+     * @param batchNumbers 批次号列表
+     */
+    void removeFromIndex(Collection<String> batchNumbers);
+
+    /**
+     * 加载维度取值索引并回填缺失的批次号三元组
+     * @return 本次回填的批次数量
+     */
+    int rebuildIndexes();
+}
@@ -0,0 +1,238 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.AnswerCacheConfig;
+import com.mmw.metal_micro_wire_backend.config.ChatToolCacheConfig;
+import com.mmw.metal_micro_wire_backend.event.DeviceChangedEvent;
+import com.mmw.metal_micro_wire_backend.event.DeviceStatusChangedEvent;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.AnswerCacheService;
+import com.mmw.metal_micro_wire_backend.util.SingleFlight;
+import com.mmw.metal_micro_wire_backend.util.TfIdfIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 问答缓存服务实现类
+ * 缓存条目记录回答依赖的数据域（设备、线材检测数据）及生成前的数据版本，
+ * 对应的数据变更事件使版本递增，版本不一致的条目视为失效（新上报的检测数据不递增版本）；
+ * 未调用工具的回答只受缓存时间限制
+ */
+@Slf4j
+@Service
+public class AnswerCacheServiceImpl implements AnswerCacheService {
+
+    /**
+     * 回答可能依赖的数据域
+     */
+    enum DataDomain {
+        DEVICE, WIRE_MATERIAL
+    }
+
+    /**
+     * 工具所读取的数据域，未列出的工具视为依赖全部数据域
+     */
+    private static final Map<String, Set<DataDomain>> TOOL_DOMAINS = Map.ofEntries(
+            Map.entry("get_device_list", EnumSet.of(DataDomain.DEVICE)),
+            Map.entry("get_device_info", EnumSet.of(DataDomain.DEVICE)),
+            Map.entry("get_wire_material_list", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("get_wire_material_info", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("analyze_quality_issues", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("get_quality_issues", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("get_manufacturer_ranking", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("get_overall_statistics", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("get_yearly_statistics", EnumSet.of(DataDomain.WIRE_MATERIAL)),
+            Map.entry("get_scenario_statistics", EnumSet.of(DataDomain.WIRE_MATERIAL)));
+
+    /**
+     * 问题中的编号、批次号等标识（字母数字串），相近问题的标识必须完全一致
+     */
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[a-z0-9]+");
+
+    private final AnswerCacheConfig config;
+    private final ChatToolCacheConfig toolCacheConfig;
+    private final Map<DataDomain, AtomicLong> versions = new EnumMap<>(DataDomain.class);
+    private final LinkedHashMap<String, CachedAnswer> entries;
+    private final TfIdfIndex index = new TfIdfIndex();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    /**
+     * 缓存的回答
+     * @param versions 生成回答前各依赖数据域的版本
+     */
+    private record CachedAnswer(String answer, Map<DataDomain, Long> versions, long expireAt) {
+    }
+
+    public AnswerCacheServiceImpl(AnswerCacheConfig config, ChatToolCacheConfig toolCacheConfig) {
+        this.config = config;
+        this.toolCacheConfig = toolCacheConfig;
+        for (DataDomain domain : DataDomain.values()) {
+            versions.put(domain, new AtomicLong());
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAnswer> eldest) {
+                if (size() > Math.max(1, AnswerCacheServiceImpl.this.config.getMaxEntries())) {
+                    index.remove(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String getOrGenerate(String question, Function<String, GeneratedAnswer> generator) {
+        String key = normalize(question);
+        if (!config.isEnabled() || key.isEmpty()) {
+            return generator.apply(question).answer();
+        }
+
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        return singleFlight.execute(key, () -> {
+            Map<DataDomain, Long> snapshot = new EnumMap<>(DataDomain.class);
+            versions.forEach((domain, version) -> snapshot.put(domain, version.get()));
+            GeneratedAnswer generated = generator.apply(question);
+            if (generated.cacheable() && generated.answer() != null) {
+                store(key, generated, snapshot);
+            }
+            return generated.answer();
+        });
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+        index.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 已有线材检测数据被修改或删除后，依赖检测数据的回答失效。
+     * 设备持续上报新数据，新增数据不使回答失效（否则缓存几乎总是失效），由缓存时间限制统计类回答的滞后
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (event.getChangeType() != WireMaterialChangedEvent.ChangeType.CREATED) {
+            versions.get(DataDomain.WIRE_MATERIAL).incrementAndGet();
+        }
+    }
+
+    /**
+     * 设备状态变更后，依赖设备数据的回答失效
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(DeviceStatusChangedEvent event) {
+        versions.get(DataDomain.DEVICE).incrementAndGet();
+    }
+
+    /**
+     * 新增或删除设备后，依赖设备数据的回答失效
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        versions.get(DataDomain.DEVICE).incrementAndGet();
+    }
+
+    /**
+     * 先精确匹配，再查找相近问题；失效的条目顺带删除
+     */
+    private synchronized String lookup(String key) {
+        CachedAnswer exact = entries.get(key);
+        if (exact != null) {
+            if (isValid(exact)) {
+                log.debug("问答缓存精确命中：{}", key);
+                return exact.answer();
+            }
+            evict(key);
+        }
+
+        if (key.length() < config.getSimilarityMinLength() || config.getSimilarityThreshold() > 1) {
+            return null;
+        }
+        TfIdfIndex.Match match = index.nearest(key);
+        if (match == null || match.score() < config.getSimilarityThreshold()
+                || !identifiers(key).equals(identifiers(match.key()))) {
+            return null;
+        }
+        CachedAnswer similar = entries.get(match.key());
+        if (similar == null || !isValid(similar)) {
+            evict(match.key());
+            return null;
+        }
+        log.debug("问答缓存相似命中：{} -> {}，相似度：{}", key, match.key(), String.format("%.3f", match.score()));
+        return similar.answer();
+    }
+
+    private synchronized void store(String key, GeneratedAnswer generated, Map<DataDomain, Long> snapshot) {
+        Map<DataDomain, Long> dependencies = new EnumMap<>(DataDomain.class);
+        Collection<String> usedTools = generated.usedTools() != null ? generated.usedTools() : List.of();
+        for (String tool : usedTools) {
+            // 不缓存结果的工具（如当前时间）说明回答随时间变化，回答也不缓存
+            if (toolCacheConfig.ttlSecondsOf(tool) <= 0) {
+                return;
+            }
+            for (DataDomain domain : TOOL_DOMAINS.getOrDefault(tool, EnumSet.allOf(DataDomain.class))) {
+                dependencies.put(domain, snapshot.get(domain));
+            }
+        }
+        entries.put(key, new CachedAnswer(generated.answer(), dependencies,
+                System.currentTimeMillis() + config.getTtlSeconds() * 1000L));
+        index.add(key, key);
+    }
+
+    private boolean isValid(CachedAnswer entry) {
+        if (entry.expireAt() < System.currentTimeMillis()) {
+            return false;
+        }
+        for (Map.Entry<DataDomain, Long> dependency : entry.versions().entrySet()) {
+            if (versions.get(dependency.getKey()).get() != dependency.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void evict(String key) {
+        entries.remove(key);
+        index.remove(key);
+    }
+
+    /**
+     * 规范化问题文本：全角转半角、转小写，只保留文字和数字
+     */
+    static String normalize(String question) {
+        if (question == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(question, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        normalized.codePoints()
+                .filter(Character::isLetterOrDigit)
+                .forEach(builder::appendCodePoint);
+        return builder.toString();
+    }
+
+    private static List<String> identifiers(String key) {
+        List<String> identifiers = new ArrayList<>();
+        Matcher matcher = IDENTIFIER_PATTERN.matcher(key);
+        while (matcher.find()) {
+            identifiers.add(matcher.group());
+        }
+        return identifiers;
+    }
+}
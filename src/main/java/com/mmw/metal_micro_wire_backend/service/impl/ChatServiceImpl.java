@@ -4,20 +4,48 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.mmw.metal_micro_wire_backend.config.DeepSeekConfig;
 import com.mmw.metal_micro_wire_backend.dto.chat.*;
+import com.mmw.metal_micro_wire_backend.exception.LlmOverloadedException;
 import com.mmw.metal_micro_wire_backend.service.ChatService;
 import com.mmw.metal_micro_wire_backend.service.ChatToolService;
+import com.mmw.metal_micro_wire_backend.service.LlmGatewayService;
 import com.mmw.metal_micro_wire_backend.service.RedisService;
 import com.mmw.metal_micro_wire_backend.service.TokenService;
-import lombok.RequiredArgsConstructor;
+import com.mmw.metal_micro_wire_backend.util.CanonicalJson;
+import com.mmw.metal_micro_wire_backend.util.ChatStreamAssembler;
+import com.mmw.metal_micro_wire_backend.util.ContextWindow;
+import com.mmw.metal_micro_wire_backend.util.ToolCallMarkup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -25,17 +53,118 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ChatServiceImpl implements ChatService {
     
+    private static final String STREAM_DATA_PREFIX = "data:";
+    private static final String STREAM_DONE = "[DONE]";
+    private static final int SUMMARY_QUEUE_CAPACITY = 100;
+    private static final String CODE_FENCE = "```";
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    
+    /**
+     * 流式对话各轮均未产生正文（例如达到工具调用轮数上限）时保存和返回的回复
+     */
+    private static final String STREAM_FALLBACK_REPLY = "抱歉，暂时无法根据查询结果生成回复，请缩小问题范围后重试。";
+    
+    /**
+     * 当前线程正在处理的对话调用过的工具名称，由sendMessage设置，用于在响应中返回
+     */
+    private static final ThreadLocal<Set<String>> USED_TOOLS = new ThreadLocal<>();
+    private static final String SUMMARY_SYSTEM_PROMPT =
+            "你负责为金属微细线材检测平台的智能助手维护对话摘要。请用简洁的中文概括用户关注的问题、"
+            + "已查询到的关键数据和结论，保留设备编号、批次号、生产商等具体标识，不要编造内容。";
+    
     private final DeepSeekConfig deepSeekConfig;
     private final RedisService redisService;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     private final ChatToolService chatToolService;
     
+    /**
+     * AI对话请求闸门
+     */
+    private final LlmGatewayService llmGatewayService;
+    
+    /**
+     * 流式对话执行器，对话在此线程中进行，不占用Servlet线程；首次流式对话时创建
+     */
+    private volatile ThreadPoolExecutor streamExecutor;
+    
+    /**
+     * 工具调用执行器，同一轮中的多个工具调用并行执行；首次并行调用时创建
+     */
+    private volatile ThreadPoolExecutor toolExecutor;
+    
+    /**
+     * 会话摘要生成执行器，摘要在后台更新，不阻塞对话；首次生成摘要时创建
+     */
+    private volatile ThreadPoolExecutor summaryExecutor;
+    
+    /**
+     * 正在生成摘要的会话，同一会话同时只生成一次
+     */
+    private final Set<String> summarizingSessions = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * 预先序列化的请求前缀，系统提示词配置变化时重建
+     */
+    private volatile RequestPrefix requestPrefix;
+    
+    /**
+     * 请求的静态前缀：系统消息和工具定义按规范化JSON预先序列化，每次请求原样拼入请求体。
+     * 前缀在各次请求间逐字节一致，便于命中DeepSeek服务端的上下文硬盘缓存
+     * @param configuredPrompt 构建时配置的系统提示词，用于发现配置变化
+     * @param tools 工具定义，没有可用工具时为null
+     */
+    private record RequestPrefix(String configuredPrompt, RawValue systemMessage, RawValue tools) {
+    }
+    
+    @Autowired
+    public ChatServiceImpl(DeepSeekConfig deepSeekConfig,
+                           RedisService redisService,
+                           RestTemplate restTemplate,
+                           ObjectMapper objectMapper,
+                           ChatToolService chatToolService,
+                           LlmGatewayService llmGatewayService) {
+        this.deepSeekConfig = deepSeekConfig;
+        this.redisService = redisService;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.chatToolService = chatToolService;
+        this.llmGatewayService = llmGatewayService;
+    }
+    
+    /**
+     * 启动时预先构建请求前缀
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            requestPrefix();
+        } catch (Exception e) {
+            log.warn("预构建对话请求前缀失败，将在首次请求时重试：{}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (streamExecutor != null) {
+            streamExecutor.shutdownNow();
+        }
+        if (toolExecutor != null) {
+            toolExecutor.shutdownNow();
+        }
+        if (summaryExecutor != null) {
+            summaryExecutor.shutdownNow();
+        }
+    }
+    
     @Override
     public ChatMessageResponse sendMessage(Long userId, TokenService.UserType userType, ChatMessageRequest request) {
+        // 许可在try之外获取，超出负载时的异常原样抛出以便返回429
+        LlmGatewayService.Permit permit = acquirePermit(userId);
+        Set<String> usedTools = new LinkedHashSet<>();
+        USED_TOOLS.set(usedTools);
         try {
             // 检查服务是否启用
             if (!deepSeekConfig.getApi().isEnabled()) {
@@ -54,14 +183,14 @@ public class ChatServiceImpl implements ChatService {
             // 获取或创建会话
             ChatSession session = getOrCreateSession(userId, userType, sessionId, request.getTitle(), isNewSession);
             
-            // 获取消息历史
-            List<ChatMessage> messageHistory = getMessageHistory(userId, sessionId);
+            // 获取提示词所需的最近消息
+            List<ChatMessage> messageHistory = getPromptMessages(userId, sessionId);
             
             // 构建API请求
             String response = callDeepSeekApi(messageHistory, request.getMessage(), userId);
             
             // 保存消息
-            saveMessage(userId, sessionId, request.getMessage(), response, messageHistory);
+            saveMessage(userId, sessionId, request.getMessage(), response);
             
             // 更新会话信息
             updateSessionInfo(userId, sessionId, session, response);
@@ -75,15 +204,70 @@ public class ChatServiceImpl implements ChatService {
             messageResponse.setCreateTime(LocalDateTime.now());
             messageResponse.setNewSession(isNewSession);
             messageResponse.setSessionTitle(session.getTitle());
+            messageResponse.setUsedTools(new ArrayList<>(usedTools));
             
             return messageResponse;
             
         } catch (Exception e) {
             log.error("发送聊天消息失败，用户ID：{}，错误：{}", userId, e.getMessage(), e);
             throw new RuntimeException("发送消息失败：" + e.getMessage());
+        } finally {
+            USED_TOOLS.remove();
+            permit.close();
+        }
+    }
+    
+    @Override
+    public SseEmitter streamMessage(Long userId, TokenService.UserType userType, ChatMessageRequest request) {
+        if (!deepSeekConfig.getApi().isEnabled()) {
+            throw new IllegalStateException("DeepSeek服务已禁用");
+        }
+        
+        // 许可在流式对话结束时释放
+        LlmGatewayService.Permit permit = acquirePermit(userId);
+        try {
+            String requestedSessionId = request.getSessionId();
+            boolean isNewSession = requestedSessionId == null || requestedSessionId.trim().isEmpty();
+            String sessionId = isNewSession ? generateSessionId() : requestedSessionId;
+            
+            ChatSession session;
+            try {
+                session = getOrCreateSession(userId, userType, sessionId, request.getTitle(), isNewSession);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("创建会话失败：" + e.getMessage(), e);
+            }
+            
+            SseEmitter emitter = new SseEmitter(deepSeekConfig.getStream().getEmitterTimeoutMs());
+            try {
+                streamExecutor().execute(() -> {
+                    try {
+                        runStream(emitter, userId, sessionId, isNewSession, session, request.getMessage());
+                    } finally {
+                        permit.close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                throw new IllegalStateException("当前对话请求较多，请稍后重试");
+            }
+            return emitter;
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
         }
     }
     
+    /**
+     * 获取AI对话执行许可：系统调用使用负数用户ID（IoT设备问答为-1），走后台通道，其余为交互对话
+     */
+    private LlmGatewayService.Permit acquirePermit(Long userId) {
+        return acquirePermit(userId, userId != null && userId < 0
+                ? LlmGatewayService.Priority.BACKGROUND : LlmGatewayService.Priority.INTERACTIVE);
+    }
+    
+    private LlmGatewayService.Permit acquirePermit(Long userId, LlmGatewayService.Priority priority) {
+        return llmGatewayService.acquire(userId, priority);
+    }
+    
     @Override
     public ChatSessionResponse createSession(Long userId, TokenService.UserType userType, CreateChatSessionRequest request) {
         try {
@@ -128,32 +312,23 @@ public class ChatServiceImpl implements ChatService {
     @Override
     public ChatSessionListResponse getUserSessions(Long userId, TokenService.UserType userType) {
         try {
-            // 清理过期会话
-            redisService.cleanupExpiredChatSessions(userId);
+            // 一次读取按更新时间倒序排列的会话，过期会话在同一次读取中清理
+            List<String> sessionData = redisService.listChatSessions(userId);
+            List<ChatSessionResponse> sessions = new ArrayList<>(sessionData.size());
             
-            Set<String> sessionIds = redisService.getUserChatSessions(userId);
-            List<ChatSessionResponse> sessions = new ArrayList<>();
-            
-            if (sessionIds != null && !sessionIds.isEmpty()) {
-                for (String sessionId : sessionIds) {
-                    ChatSession session = getSession(userId, sessionId);
-                    if (session != null) {
-                        ChatSessionResponse response = new ChatSessionResponse();
-                        response.setSessionId(session.getSessionId());
-                        response.setTitle(session.getTitle());
-                        response.setUserId(session.getUserId());
-                        response.setCreateTime(session.getCreateTime());
-                        response.setUpdateTime(session.getUpdateTime());
-                        response.setMessageCount(session.getMessageCount());
-                        response.setLastMessage(session.getLastMessage());
-                        sessions.add(response);
-                    }
-                }
+            for (String data : sessionData) {
+                ChatSession session = objectMapper.readValue(data, ChatSession.class);
+                ChatSessionResponse response = new ChatSessionResponse();
+                response.setSessionId(session.getSessionId());
+                response.setTitle(session.getTitle());
+                response.setUserId(session.getUserId());
+                response.setCreateTime(session.getCreateTime());
+                response.setUpdateTime(session.getUpdateTime());
+                response.setMessageCount(session.getMessageCount());
+                response.setLastMessage(session.getLastMessage());
+                sessions.add(response);
             }
             
-            // 按更新时间倒序排序
-            sessions.sort((a, b) -> b.getUpdateTime().compareTo(a.getUpdateTime()));
-            
             ChatSessionListResponse response = new ChatSessionListResponse();
             response.setSessions(sessions);
             response.setTotal(sessions.size());
@@ -265,44 +440,12 @@ public class ChatServiceImpl implements ChatService {
     // ==================== 私有方法 ====================
     
     private String callDeepSeekApi(List<ChatMessage> messageHistory, String newMessage, Long userId) throws Exception {
-        // 构建消息列表
-        List<Map<String, String>> messages = new ArrayList<>();
-        
-        // 添加系统消息
-        messages.add(Map.of("role", "system", "content", buildSystemPrompt()));
-        
-        // 添加历史消息
-        for (ChatMessage msg : messageHistory) {
-            messages.add(Map.of("role", msg.getRole(), "content", msg.getContent()));
-        }
-        
-        // 添加新消息
-        messages.add(Map.of("role", "user", "content", newMessage));
-        
-        // 构建请求体
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", deepSeekConfig.getModel().getDefaultModel());
-        requestBody.put("messages", messages);
-        requestBody.put("temperature", deepSeekConfig.getModel().getTemperature());
-        requestBody.put("max_tokens", deepSeekConfig.getModel().getMaxTokens());
-        
-        // 添加工具调用支持
-        List<ChatToolCall.Tool> tools = chatToolService.getAvailableTools();
-        if (!tools.isEmpty()) {
-            requestBody.put("tools", tools);
-            requestBody.put("tool_choice", "auto");
-        }
-        
-        // 构建请求头
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + deepSeekConfig.getApi().getApiKey());
-        
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        // 构建请求体（含工具调用支持）
+        Map<String, Object> requestBody = buildRequestBody(buildMessages(messageHistory, newMessage), true);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, buildHeaders());
         
         // 发送请求
-        String url = deepSeekConfig.getApi().getBaseUrl() + "/v1/chat/completions";
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, request, String.class);
+        ResponseEntity<String> response = restTemplate.exchange(chatCompletionsUrl(), HttpMethod.POST, request, String.class);
         
         // 解析响应
         JsonNode responseJson = objectMapper.readTree(response.getBody());
@@ -340,6 +483,278 @@ public class ChatServiceImpl implements ChatService {
         throw new RuntimeException("DeepSeek API响应格式不正确");
     }
     
+    private ThreadPoolExecutor streamExecutor() {
+        ThreadPoolExecutor executor = streamExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = streamExecutor;
+                if (executor == null) {
+                    DeepSeekConfig.Stream stream = deepSeekConfig.getStream();
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(stream.getExecutorThreads(), stream.getExecutorThreads(),
+                            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, stream.getQueueCapacity())),
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "chat-stream-" + threadNumber.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    streamExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+    
+    private ThreadPoolExecutor toolExecutor() {
+        ThreadPoolExecutor executor = toolExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = toolExecutor;
+                if (executor == null) {
+                    DeepSeekConfig.ToolExecution toolExecution = deepSeekConfig.getToolExecution();
+                    int parallelism = Math.max(1, toolExecution.getParallelism());
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(Math.max(1, toolExecution.getQueueCapacity())), runnable -> {
+                                Thread thread = new Thread(runnable, "chat-tool-" + threadNumber.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+                    toolExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+    
+    private ThreadPoolExecutor summaryExecutor() {
+        ThreadPoolExecutor executor = summaryExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = summaryExecutor;
+                if (executor == null) {
+                    int threads = Math.max(1, deepSeekConfig.getContext().getSummaryThreads());
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(SUMMARY_QUEUE_CAPACITY), runnable -> {
+                                Thread thread = new Thread(runnable, "chat-summary-" + threadNumber.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+                    summaryExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+    
+    /**
+     * 在流式对话线程中执行一轮对话：逐轮流式请求模型，正文增量实时转发，
+     * 工具调用在流结束后执行并把结果带入下一轮，最终回复保存到历史后推送done事件。
+     * 最终回复为各轮正文（去掉工具调用标记）的拼接，与客户端收到的增量一致
+     */
+    private void runStream(SseEmitter emitter, Long userId, String sessionId, boolean isNewSession,
+                           ChatSession session, String userMessage) {
+        try {
+            sendEvent(emitter, "session", Map.of(
+                    "sessionId", sessionId,
+                    "newSession", isNewSession,
+                    "sessionTitle", session.getTitle()));
+            
+            List<ChatMessage> messageHistory = getPromptMessages(userId, sessionId);
+            List<Map<String, Object>> messages = buildMessages(messageHistory, userMessage);
+            
+            int maxToolRounds = Math.max(0, deepSeekConfig.getStream().getMaxToolRounds());
+            StringBuilder reply = new StringBuilder();
+            Set<String> usedTools = new LinkedHashSet<>();
+            for (int round = 0; round <= maxToolRounds; round++) {
+                // 最后一轮不再提供工具，要求模型直接给出回复
+                ChatStreamAssembler assembler = streamCompletion(messages, round < maxToolRounds,
+                        delta -> sendEvent(emitter, "delta", Map.of("content", delta)));
+                
+                List<ChatToolCall.ToolCallRequest> toolCalls = assembler.getToolCalls();
+                if (toolCalls.isEmpty() && (assembler.isToolCallMarkerDetected()
+                        || containsToolCallMarkers(assembler.getContent()))) {
+                    log.info("流式响应中检测到DeepSeek特殊格式的工具调用，开始解析和执行");
+                    toolCalls = parseDeepSeekToolCalls(assembler.getContent());
+                }
+                reply.append(stripToolCallMarkup(assembler.getContent()));
+                if (toolCalls.isEmpty()) {
+                    break;
+                }
+                if (round == maxToolRounds) {
+                    log.warn("流式对话达到工具调用轮数上限{}，忽略最后一轮的工具调用，会话ID：{}", maxToolRounds, sessionId);
+                    break;
+                }
+                
+                for (ChatToolCall.ToolCallRequest toolCall : toolCalls) {
+                    usedTools.add(toolCall.getFunction().getName());
+                    sendEvent(emitter, "tool", Map.of("name", toolCall.getFunction().getName()));
+                }
+                Map<String, Object> assistantMessage = new HashMap<>();
+                assistantMessage.put("role", "assistant");
+                assistantMessage.put("content", null);
+                assistantMessage.put("tool_calls", toToolCallsPayload(toolCalls));
+                messages.add(assistantMessage);
+                messages.addAll(executeToolCalls(toolCalls, userId));
+            }
+            
+            String response = reply.toString().isBlank() ? STREAM_FALLBACK_REPLY : reply.toString();
+            saveMessage(userId, sessionId, userMessage, response);
+            updateSessionInfo(userId, sessionId, session, response);
+            
+            ChatMessageResponse messageResponse = new ChatMessageResponse();
+            messageResponse.setMessageId(generateMessageId());
+            messageResponse.setSessionId(sessionId);
+            messageResponse.setUserMessage(userMessage);
+            messageResponse.setAssistantMessage(response);
+            messageResponse.setCreateTime(LocalDateTime.now());
+            messageResponse.setNewSession(isNewSession);
+            messageResponse.setSessionTitle(session.getTitle());
+            messageResponse.setUsedTools(new ArrayList<>(usedTools));
+            sendEvent(emitter, "done", messageResponse);
+            emitter.complete();
+            
+        } catch (UncheckedIOException e) {
+            // 客户端已断开，放弃本轮对话
+            log.info("流式对话客户端已断开，用户ID：{}，会话ID：{}", userId, sessionId);
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("流式对话失败，用户ID：{}，会话ID：{}，错误：{}", userId, sessionId, e.getMessage(), e);
+            try {
+                sendEvent(emitter, "error", Map.of("message", "发送消息失败：" + e.getMessage()));
+                emitter.complete();
+            } catch (Exception ignored) {
+                // 客户端已断开或连接已超时
+                emitter.complete();
+            }
+        }
+    }
+    
+    /**
+     * 去掉正文中第一个工具调用标记及其后的内容，与流式转发时的截断位置一致
+     */
+    private String stripToolCallMarkup(String content) {
+        if (content == null) {
+            return "";
+        }
+        List<ToolCallMarkup.Token> markers = ToolCallMarkup.scan(content);
+        return markers.isEmpty() ? content : content.substring(0, markers.get(0).start());
+    }
+    
+    /**
+     * 以流式方式请求模型，正文增量到达即回调；工具调用增量由组装器拼接
+     */
+    private ChatStreamAssembler streamCompletion(List<Map<String, Object>> messages, boolean withTools,
+                                                 Consumer<String> onContent) {
+        Map<String, Object> requestBody = buildRequestBody(messages, withTools);
+        requestBody.put("stream", true);
+        HttpHeaders headers = buildHeaders();
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+        
+        ChatStreamAssembler assembler = new ChatStreamAssembler();
+        restTemplate.execute(chatCompletionsUrl(), HttpMethod.POST,
+                restTemplate.httpEntityCallback(new HttpEntity<>(requestBody, headers)), response -> {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith(STREAM_DATA_PREFIX)) {
+                                continue;
+                            }
+                            String data = line.substring(STREAM_DATA_PREFIX.length()).trim();
+                            if (STREAM_DONE.equals(data)) {
+                                break;
+                            }
+                            if (data.isEmpty()) {
+                                continue;
+                            }
+                            String delta = assembler.onChunk(objectMapper.readTree(data));
+                            if (!delta.isEmpty()) {
+                                onContent.accept(delta);
+                            }
+                        }
+                    }
+                    return null;
+                });
+        String tail = assembler.flush();
+        if (!tail.isEmpty()) {
+            onContent.accept(tail);
+        }
+        return assembler;
+    }
+    
+    /**
+     * 推送SSE事件，客户端断开时抛出UncheckedIOException以中止上游读取
+     */
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 构建消息列表：历史消息和新的用户消息，系统消息在构建请求体时作为前缀拼入
+     */
+    private List<Map<String, Object>> buildMessages(List<ChatMessage> messageHistory, String newMessage) {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        for (ChatMessage msg : messageHistory) {
+            messages.add(Map.of("role", msg.getRole(), "content", msg.getContent()));
+        }
+        messages.add(Map.of("role", "user", "content", newMessage));
+        return messages;
+    }
+    
+    private Map<String, Object> buildRequestBody(List<? extends Map<String, ?>> messages, boolean withTools) {
+        RequestPrefix prefix = requestPrefix();
+        List<Object> payloadMessages = new ArrayList<>(messages.size() + 1);
+        payloadMessages.add(prefix.systemMessage());
+        payloadMessages.addAll(messages);
+        
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", deepSeekConfig.getModel().getDefaultModel());
+        requestBody.put("messages", payloadMessages);
+        requestBody.put("temperature", deepSeekConfig.getModel().getTemperature());
+        requestBody.put("max_tokens", deepSeekConfig.getModel().getMaxTokens());
+        if (withTools && prefix.tools() != null) {
+            requestBody.put("tools", prefix.tools());
+            requestBody.put("tool_choice", "auto");
+        }
+        return requestBody;
+    }
+    
+    private RequestPrefix requestPrefix() {
+        String configuredPrompt = deepSeekConfig.getModel().getSystemPrompt();
+        RequestPrefix prefix = requestPrefix;
+        if (prefix == null || !Objects.equals(prefix.configuredPrompt(), configuredPrompt)) {
+            ObjectNode systemMessage = objectMapper.createObjectNode();
+            systemMessage.put("role", "system");
+            systemMessage.put("content", buildSystemPrompt());
+            List<ChatToolCall.Tool> tools = chatToolService.getAvailableTools();
+            prefix = new RequestPrefix(configuredPrompt,
+                    new RawValue(CanonicalJson.write(systemMessage)),
+                    tools.isEmpty() ? null : new RawValue(CanonicalJson.write(objectMapper.valueToTree(tools))));
+            requestPrefix = prefix;
+            log.debug("对话请求前缀已构建，工具数：{}", tools.size());
+        }
+        return prefix;
+    }
+    
+    private HttpHeaders buildHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + deepSeekConfig.getApi().getApiKey());
+        return headers;
+    }
+    
+    private String chatCompletionsUrl() {
+        return deepSeekConfig.getApi().getBaseUrl() + "/v1/chat/completions";
+    }
+    
     private ChatSession getOrCreateSession(Long userId, TokenService.UserType userType, String sessionId, String title, boolean isNewSession) throws JsonProcessingException {
         if (isNewSession) {
             // 创建新会话
@@ -384,45 +799,245 @@ public class ChatServiceImpl implements ChatService {
         return null;
     }
     
+    /**
+     * 获取会话的全部消息
+     */
     private List<ChatMessage> getMessageHistory(Long userId, String sessionId) {
+        return readMessages(userId, sessionId, 0, -1);
+    }
+    
+    /**
+     * 获取构建提示词所需的消息：只读取消息列表末尾的区间，按token预算保留最近的消息，
+     * 更早的消息以会话摘要代替；窗口外尚未合并进摘要的消息提交到后台更新摘要
+     */
+    private List<ChatMessage> getPromptMessages(Long userId, String sessionId) {
+        int promptMessages = deepSeekConfig.getSession().getPromptMessages();
+        List<ChatMessage> recent = readMessages(userId, sessionId, promptMessages > 0 ? -promptMessages : 0, -1);
+        DeepSeekConfig.Context context = deepSeekConfig.getContext();
+        if (!context.isEnabled() || recent.isEmpty()) {
+            return recent;
+        }
+        
+        List<Integer> messageTokens = new ArrayList<>(recent.size());
+        for (ChatMessage message : recent) {
+            messageTokens.add(ContextWindow.estimateMessageTokens(message.getContent()));
+        }
+        int start = ContextWindow.startOfWindow(messageTokens, context.getHistoryTokenBudget(), context.getMinRecentMessages());
+        // 窗口不以助手回复开头
+        if (start > 0 && start < recent.size() && "assistant".equals(recent.get(start).getRole())) {
+            start++;
+        }
+        
+        // 末尾区间之前可能还有更早的消息，此时即使全部消息都在预算内也需要读取摘要
+        boolean truncated = promptMessages > 0 && recent.size() >= promptMessages;
+        ChatSummary summary = start > 0 || truncated ? getSummary(userId, sessionId) : null;
+        int summarizedEnd = 0;
+        if (summary != null) {
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                if (Objects.equals(recent.get(i).getMessageId(), summary.getLastMessageId())) {
+                    summarizedEnd = i + 1;
+                    break;
+                }
+            }
+            start = Math.max(start, summarizedEnd);
+        }
+        if (context.isSummaryEnabled()) {
+            String firstKeptId = start < recent.size() ? recent.get(start).getMessageId() : null;
+            if (hasUnsummarizedOlderMessages(recent, summary, summarizedEnd, truncated)) {
+                // 摘要更新曾被跳过或消息已滑出末尾区间：后台从上次摘要的位置读取，补齐后再合并窗口外的消息
+                scheduleSummary(userId, sessionId, summary, null, firstKeptId);
+            } else if (start - summarizedEnd >= Math.max(1, context.getSummaryMinMessages())) {
+                scheduleSummary(userId, sessionId, summary, new ArrayList<>(recent.subList(summarizedEnd, start)), firstKeptId);
+            }
+        }
+        
+        List<ChatMessage> window = new ArrayList<>(recent.size() - start + 1);
+        if (summary != null) {
+            ChatMessage summaryMessage = new ChatMessage();
+            summaryMessage.setRole("system");
+            summaryMessage.setContent("以下是本会话较早对话的摘要，供回答时参考：\n" + summary.getSummary());
+            window.add(summaryMessage);
+        }
+        window.addAll(recent.subList(start, recent.size()));
+        return window;
+    }
+    
+    private ChatSummary getSummary(Long userId, String sessionId) {
         try {
-            String historyData = redisService.getChatMessageHistory(userId, sessionId);
-            if (historyData != null) {
-                return objectMapper.readValue(historyData, 
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, ChatMessage.class));
+            String summaryData = redisService.getChatSummary(userId, sessionId);
+            if (summaryData != null) {
+                return objectMapper.readValue(summaryData, ChatSummary.class);
+            }
+        } catch (Exception e) {
+            log.warn("获取会话摘要失败，用户ID：{}，会话ID：{}，错误：{}", userId, sessionId, e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 末尾区间之前是否还有未合并进摘要的消息：摘要覆盖的位置不在末尾区间内、也不紧接在末尾区间之前，
+     * 且消息列表保留的消息多于末尾区间（否则更早的消息已被裁剪，无法补齐）
+     */
+    private boolean hasUnsummarizedOlderMessages(List<ChatMessage> recent, ChatSummary summary,
+                                                 int summarizedEnd, boolean truncated) {
+        if (!truncated || summarizedEnd > 0) {
+            return false;
+        }
+        int maxMessages = deepSeekConfig.getSession().getMaxMessagesPerSession();
+        if (maxMessages > 0 && maxMessages <= deepSeekConfig.getSession().getPromptMessages()) {
+            return false;
+        }
+        return summary == null || !Objects.equals(summary.getNextMessageId(), recent.get(0).getMessageId());
+    }
+    
+    /**
+     * 提交后台摘要更新，同一会话已有摘要在生成时跳过；被跳过的消息在之后的请求中重新提交，不会丢失
+     * @param messages 待合并的消息，为null时从会话全部消息中读取上次摘要之后、窗口之前的消息
+     * @param firstKeptId 窗口内第一条消息ID，摘要覆盖到它之前为止
+     */
+    private void scheduleSummary(Long userId, String sessionId, ChatSummary previous, List<ChatMessage> messages,
+                                 String firstKeptId) {
+        String key = userId + ":" + sessionId;
+        if (!summarizingSessions.add(key)) {
+            return;
+        }
+        try {
+            summaryExecutor().execute(() -> {
+                // 摘要生成同样调用模型，走后台通道，不与交互对话争抢许可
+                try (LlmGatewayService.Permit permit = acquirePermit(userId, LlmGatewayService.Priority.BACKGROUND)) {
+                    List<ChatMessage> pending = messages != null ? messages
+                            : unsummarizedMessages(userId, sessionId, previous, firstKeptId);
+                    if (pending.size() >= Math.max(1, deepSeekConfig.getContext().getSummaryMinMessages())) {
+                        updateSummary(userId, sessionId, previous, pending, firstKeptId);
+                    }
+                } catch (LlmOverloadedException e) {
+                    log.debug("AI对话负载较高，跳过本次摘要更新，会话ID：{}", sessionId);
+                } catch (Exception e) {
+                    log.warn("更新会话摘要失败，用户ID：{}，会话ID：{}，错误：{}", userId, sessionId, e.getMessage());
+                } finally {
+                    summarizingSessions.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            summarizingSessions.remove(key);
+            log.debug("摘要生成队列已满，跳过本次摘要更新，会话ID：{}", sessionId);
+        }
+    }
+    
+    /**
+     * 读取上次摘要之后、窗口之前的全部消息
+     */
+    private List<ChatMessage> unsummarizedMessages(Long userId, String sessionId, ChatSummary previous, String firstKeptId) {
+        List<ChatMessage> messages = getMessageHistory(userId, sessionId);
+        List<String> messageIds = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            messageIds.add(message.getMessageId());
+        }
+        ContextWindow.Range range = ContextWindow.unsummarizedRange(messageIds,
+                previous != null ? previous.getLastMessageId() : null, firstKeptId);
+        return range.isEmpty() ? List.of() : new ArrayList<>(messages.subList(range.from(), range.to()));
+    }
+    
+    /**
+     * 将新移出窗口的消息合并进已有摘要
+     */
+    private void updateSummary(Long userId, String sessionId, ChatSummary previous, List<ChatMessage> messages,
+                               String firstKeptId) throws Exception {
+        StringBuilder prompt = new StringBuilder();
+        if (previous != null) {
+            prompt.append("已有摘要：\n").append(previous.getSummary()).append("\n\n");
+        }
+        prompt.append("新增对话：\n");
+        for (ChatMessage message : messages) {
+            prompt.append("user".equals(message.getRole()) ? "用户：" : "助手：").append(message.getContent()).append('\n');
+        }
+        prompt.append("\n请将新增对话合并到摘要中，只输出更新后的完整摘要。");
+        
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", deepSeekConfig.getModel().getDefaultModel());
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", SUMMARY_SYSTEM_PROMPT),
+                Map.of("role", "user", "content", prompt.toString())));
+        requestBody.put("temperature", 0.3);
+        requestBody.put("max_tokens", deepSeekConfig.getContext().getSummaryMaxTokens());
+        
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, buildHeaders());
+        ResponseEntity<String> response = restTemplate.exchange(chatCompletionsUrl(), HttpMethod.POST, request, String.class);
+        String text = objectMapper.readTree(response.getBody()).path("choices").path(0).path("message").path("content").asText("");
+        if (text.isBlank()) {
+            return;
+        }
+        
+        ChatSummary summary = new ChatSummary();
+        summary.setSummary(text.trim());
+        summary.setLastMessageId(messages.get(messages.size() - 1).getMessageId());
+        summary.setNextMessageId(firstKeptId);
+        summary.setUpdateTime(LocalDateTime.now());
+        redisService.saveChatSummary(userId, sessionId, objectMapper.writeValueAsString(summary),
+                deepSeekConfig.getSession().getExpireHours());
+        log.debug("会话摘要已更新，用户ID：{}，会话ID：{}，合并消息数：{}", userId, sessionId, messages.size());
+    }
+    
+    private List<ChatMessage> readMessages(Long userId, String sessionId, long start, long end) {
+        List<ChatMessage> messages = new ArrayList<>();
+        try {
+            List<String> entries = redisService.getChatMessages(userId, sessionId, start, end);
+            if (entries.isEmpty() && migrateLegacyHistory(userId, sessionId)) {
+                entries = redisService.getChatMessages(userId, sessionId, start, end);
+            }
+            for (String entry : entries) {
+                messages.add(objectMapper.readValue(entry, ChatMessage.class));
             }
         } catch (Exception e) {
             log.error("获取消息历史失败，用户ID：{}，会话ID：{}，错误：{}", userId, sessionId, e.getMessage(), e);
         }
-        return new ArrayList<>();
+        return messages;
+    }
+    
+    /**
+     * 将旧格式的整体JSON消息历史迁移为逐条存储的消息列表
+     * @return 是否存在并迁移了旧格式的消息历史
+     */
+    private boolean migrateLegacyHistory(Long userId, String sessionId) throws JsonProcessingException {
+        String historyData = redisService.getChatMessageHistory(userId, sessionId);
+        if (historyData == null) {
+            return false;
+        }
+        List<ChatMessage> legacyMessages = objectMapper.readValue(historyData,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, ChatMessage.class));
+        List<String> entries = new ArrayList<>(legacyMessages.size());
+        for (ChatMessage message : legacyMessages) {
+            entries.add(objectMapper.writeValueAsString(message));
+        }
+        redisService.deleteChatMessageHistory(userId, sessionId);
+        redisService.appendChatMessages(userId, sessionId, entries,
+                deepSeekConfig.getSession().getMaxMessagesPerSession(), deepSeekConfig.getSession().getExpireHours());
+        log.info("旧格式消息历史已迁移，用户ID：{}，会话ID：{}，消息数：{}", userId, sessionId, entries.size());
+        return !entries.isEmpty();
     }
     
-    private void saveMessage(Long userId, String sessionId, String userMessage, String assistantMessage, List<ChatMessage> messageHistory) throws JsonProcessingException {
-        // 添加用户消息
+    /**
+     * 追加本轮的用户消息和助手消息，不读取和重写已有的消息历史
+     */
+    private void saveMessage(Long userId, String sessionId, String userMessage, String assistantMessage) throws JsonProcessingException {
+        // 用户消息
         ChatMessage userMsg = new ChatMessage();
         userMsg.setMessageId(generateMessageId());
         userMsg.setRole("user");
         userMsg.setContent(userMessage);
         userMsg.setTimestamp(LocalDateTime.now());
-        messageHistory.add(userMsg);
         
-        // 添加助手消息
+        // 助手消息
         ChatMessage assistantMsg = new ChatMessage();
         assistantMsg.setMessageId(generateMessageId());
         assistantMsg.setRole("assistant");
         assistantMsg.setContent(assistantMessage);
         assistantMsg.setTimestamp(LocalDateTime.now());
-        messageHistory.add(assistantMsg);
-        
-        // 限制消息数量
-        int maxMessages = deepSeekConfig.getSession().getMaxMessagesPerSession();
-        if (messageHistory.size() > maxMessages) {
-            messageHistory = messageHistory.subList(messageHistory.size() - maxMessages, messageHistory.size());
-        }
         
-        // 保存消息历史
-        String historyData = objectMapper.writeValueAsString(messageHistory);
-        redisService.saveChatMessageHistory(userId, sessionId, historyData, deepSeekConfig.getSession().getExpireHours());
+        // 追加并裁剪到最大消息数
+        redisService.appendChatMessages(userId, sessionId,
+                List.of(objectMapper.writeValueAsString(userMsg), objectMapper.writeValueAsString(assistantMsg)),
+                deepSeekConfig.getSession().getMaxMessagesPerSession(), deepSeekConfig.getSession().getExpireHours());
     }
     
     /**
@@ -472,66 +1087,202 @@ public class ChatServiceImpl implements ChatService {
      * 处理工具调用
      */
     private String handleToolCalls(JsonNode toolCalls, List<ChatMessage> messageHistory, String newMessage, Long userId) throws Exception {
-        List<Map<String, Object>> toolMessages = new ArrayList<>();
-        
         // 执行所有工具调用
-        for (JsonNode toolCall : toolCalls) {
-            String toolCallId = toolCall.get("id").asText();
-            String functionName = toolCall.get("function").get("name").asText();
-            String arguments = toolCall.get("function").get("arguments").asText();
-            
-            // 构建工具调用请求
-            ChatToolCall.ToolCallRequest request = new ChatToolCall.ToolCallRequest();
-            request.setId(toolCallId);
-            request.setType("function");
-            
-            ChatToolCall.FunctionCall functionCall = new ChatToolCall.FunctionCall();
-            functionCall.setName(functionName);
-            functionCall.setArguments(arguments);
-            request.setFunction(functionCall);
-            
-            // 执行工具调用
-            ChatToolCall.ToolCallResult toolResult = chatToolService.executeToolCall(request, userId);
+        List<Map<String, Object>> toolMessages = executeToolCalls(toToolCallRequests(toolCalls), userId);
+        
+        // 如果有工具调用结果，需要再次调用API获取最终响应
+        if (!toolMessages.isEmpty()) {
+            return callDeepSeekApiWithToolResults(messageHistory, newMessage, toolCalls, toolMessages, userId);
+        }
+        
+        return "工具调用完成，但没有返回结果";
+    }
+    
+    /**
+     * 执行工具调用，返回对应的tool角色消息（顺序与请求一致）
+     * 多个工具调用并行执行，每个调用有独立的超时时间
+     */
+    private List<Map<String, Object>> executeToolCalls(List<ChatToolCall.ToolCallRequest> requests, Long userId) {
+        Set<String> usedTools = USED_TOOLS.get();
+        if (usedTools != null) {
+            requests.forEach(request -> usedTools.add(request.getFunction().getName()));
+        }
+        List<ChatToolCall.ToolCallResult> results = requests.size() > 1
+                ? executeToolCallsInParallel(requests, userId)
+                : requests.stream().map(request -> chatToolService.executeToolCall(request, userId)).toList();
+        
+        List<Map<String, Object>> toolMessages = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ChatToolCall.ToolCallRequest request = requests.get(i);
+            ChatToolCall.ToolCallResult toolResult = results.get(i);
+            String functionName = request.getFunction().getName();
             
             // 添加工具调用结果到消息
             Map<String, Object> toolMessage = new HashMap<>();
             toolMessage.put("role", "tool");
-            toolMessage.put("tool_call_id", toolCallId);
+            toolMessage.put("tool_call_id", request.getId());
             toolMessage.put("content", toolResult.getResult());
             toolMessages.add(toolMessage);
             
             if (toolResult.isSuccess()) {
-                log.info("工具调用成功：{}，结果：{}", functionName, toolResult.getResult());
+                log.info("工具调用成功：{}，结果长度：{}", functionName,
+                        toolResult.getResult() != null ? toolResult.getResult().length() : 0);
             } else {
                 log.error("工具调用失败：{}，错误：{}", functionName, toolResult.getError());
             }
         }
-        
-        // 如果有工具调用结果，需要再次调用API获取最终响应
-        if (!toolMessages.isEmpty()) {
-            return callDeepSeekApiWithToolResults(messageHistory, newMessage, toolCalls, toolMessages, userId);
+        return toolMessages;
+    }
+    
+    /**
+     * 并行执行工具调用
+     * 超时从工具开始执行时计时；队列已满的调用直接以失败返回，排队超过超时时间仍未开始的调用放弃执行
+     */
+    private List<ChatToolCall.ToolCallResult> executeToolCallsInParallel(List<ChatToolCall.ToolCallRequest> requests,
+                                                                         Long userId) {
+        log.info("并行执行{}个工具调用：{}", requests.size(),
+                requests.stream().map(request -> request.getFunction().getName()).collect(Collectors.joining(", ")));
+        ThreadPoolExecutor executor = toolExecutor();
+        List<TimedToolCall> calls = new ArrayList<>(requests.size());
+        List<Future<ChatToolCall.ToolCallResult>> futures = new ArrayList<>(requests.size());
+        for (ChatToolCall.ToolCallRequest request : requests) {
+            TimedToolCall call = new TimedToolCall(() -> chatToolService.executeToolCall(request, userId));
+            Future<ChatToolCall.ToolCallResult> future;
+            try {
+                future = executor.submit(call);
+            } catch (RejectedExecutionException e) {
+                future = null;
+            }
+            calls.add(call);
+            futures.add(future);
         }
         
-        return "工具调用完成，但没有返回结果";
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, deepSeekConfig.getToolExecution().getTimeoutSeconds()));
+        List<ChatToolCall.ToolCallResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ChatToolCall.ToolCallRequest request = requests.get(i);
+            Future<ChatToolCall.ToolCallResult> future = futures.get(i);
+            if (future == null) {
+                log.warn("工具调用队列已满，跳过工具调用：{}", request.getFunction().getName());
+                results.add(failedToolCall(request, "工具调用繁忙，请稍后重试", "工具调用队列已满"));
+                continue;
+            }
+            try {
+                results.add(awaitToolCall(request, calls.get(i), future, timeoutNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.stream().filter(Objects::nonNull).forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("工具调用被中断", e);
+            }
+        }
+        return results;
     }
     
     /**
-     * 带工具调用结果的API调用
+     * 等待单个工具调用完成：已开始的调用等待至开始时间加超时时间，未开始的调用最多排队一个超时时间
      */
-    private String callDeepSeekApiWithToolResults(List<ChatMessage> messageHistory, String newMessage, JsonNode toolCalls, List<Map<String, Object>> toolMessages, Long userId) throws Exception {
-        // 构建消息列表
-        List<Map<String, Object>> messages = new ArrayList<>();
+    private ChatToolCall.ToolCallResult awaitToolCall(ChatToolCall.ToolCallRequest request, TimedToolCall call,
+                                                      Future<ChatToolCall.ToolCallResult> future,
+                                                      long timeoutNanos) throws InterruptedException {
+        while (true) {
+            long startedAt = call.startedAt;
+            long deadline = (startedAt != 0 ? startedAt : call.submittedAt) + timeoutNanos;
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (startedAt == 0 && call.startedAt != 0) {
+                    // 等待期间刚开始执行，按开始时间重新计算截止时间
+                    continue;
+                }
+                future.cancel(true);
+                return startedAt == 0
+                        ? failedToolCall(request, "工具调用繁忙，请稍后重试", "排队超过" +
+                                deepSeekConfig.getToolExecution().getTimeoutSeconds() + "秒未开始执行")
+                        : failedToolCall(request, "工具调用超时", "超过" +
+                                deepSeekConfig.getToolExecution().getTimeoutSeconds() + "秒未返回");
+            } catch (ExecutionException e) {
+                return failedToolCall(request, "工具调用执行失败", e.getCause().getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 记录提交和开始执行时间的工具调用任务
+     */
+    private static final class TimedToolCall implements Callable<ChatToolCall.ToolCallResult> {
         
-        // 添加系统消息
-        messages.add(Map.of("role", "system", "content", buildSystemPrompt()));
+        private final Callable<ChatToolCall.ToolCallResult> delegate;
+        private final long submittedAt = System.nanoTime();
         
-        // 添加历史消息
-        for (ChatMessage msg : messageHistory) {
-            messages.add(Map.of("role", msg.getRole(), "content", msg.getContent()));
+        /**
+         * 开始执行的时间（System.nanoTime），未开始时为0
+         */
+        private volatile long startedAt;
+        
+        private TimedToolCall(Callable<ChatToolCall.ToolCallResult> delegate) {
+            this.delegate = delegate;
         }
         
-        // 添加用户消息
-        messages.add(Map.of("role", "user", "content", newMessage));
+        @Override
+        public ChatToolCall.ToolCallResult call() throws Exception {
+            long now = System.nanoTime();
+            startedAt = now != 0 ? now : 1;
+            return delegate.call();
+        }
+    }
+    
+    private ChatToolCall.ToolCallResult failedToolCall(ChatToolCall.ToolCallRequest request, String result, String error) {
+        ChatToolCall.ToolCallResult toolResult = new ChatToolCall.ToolCallResult();
+        toolResult.setToolCallId(request.getId());
+        toolResult.setResult(result);
+        toolResult.setError(error);
+        toolResult.setSuccess(false);
+        return toolResult;
+    }
+    
+    /**
+     * 把标准格式的tool_calls转换为工具调用请求
+     */
+    private List<ChatToolCall.ToolCallRequest> toToolCallRequests(JsonNode toolCalls) {
+        List<ChatToolCall.ToolCallRequest> requests = new ArrayList<>();
+        for (JsonNode toolCall : toolCalls) {
+            ChatToolCall.ToolCallRequest request = new ChatToolCall.ToolCallRequest();
+            request.setId(toolCall.get("id").asText());
+            request.setType("function");
+            
+            ChatToolCall.FunctionCall functionCall = new ChatToolCall.FunctionCall();
+            functionCall.setName(toolCall.get("function").get("name").asText());
+            functionCall.setArguments(toolCall.get("function").get("arguments").asText());
+            request.setFunction(functionCall);
+            requests.add(request);
+        }
+        return requests;
+    }
+    
+    /**
+     * 把工具调用请求转换为assistant消息中的tool_calls
+     */
+    private List<Map<String, Object>> toToolCallsPayload(List<ChatToolCall.ToolCallRequest> requests) {
+        List<Map<String, Object>> toolCallsData = new ArrayList<>();
+        for (ChatToolCall.ToolCallRequest request : requests) {
+            Map<String, Object> toolCallData = new HashMap<>();
+            toolCallData.put("id", request.getId());
+            toolCallData.put("type", "function");
+            Map<String, Object> functionData = new HashMap<>();
+            functionData.put("name", request.getFunction().getName());
+            functionData.put("arguments", request.getFunction().getArguments());
+            toolCallData.put("function", functionData);
+            toolCallsData.add(toolCallData);
+        }
+        return toolCallsData;
+    }
+    
+    /**
+     * 带工具调用结果的API调用
+     */
+    private String callDeepSeekApiWithToolResults(List<ChatMessage> messageHistory, String newMessage, JsonNode toolCalls, List<Map<String, Object>> toolMessages, Long userId) throws Exception {
+        // 构建消息列表（系统消息、历史消息和用户消息）
+        List<Map<String, Object>> messages = buildMessages(messageHistory, newMessage);
         
         // 添加助手消息（包含工具调用）
         Map<String, Object> assistantMessage = new HashMap<>();
@@ -544,22 +1295,11 @@ public class ChatServiceImpl implements ChatService {
         messages.addAll(toolMessages);
         
         // 构建请求体
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", deepSeekConfig.getModel().getDefaultModel());
-        requestBody.put("messages", messages);
-        requestBody.put("temperature", deepSeekConfig.getModel().getTemperature());
-        requestBody.put("max_tokens", deepSeekConfig.getModel().getMaxTokens());
-        
-        // 构建请求头
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + deepSeekConfig.getApi().getApiKey());
-        
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        Map<String, Object> requestBody = buildRequestBody(messages, false);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, buildHeaders());
         
         // 发送请求
-        String url = deepSeekConfig.getApi().getBaseUrl() + "/v1/chat/completions";
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, request, String.class);
+        ResponseEntity<String> response = restTemplate.exchange(chatCompletionsUrl(), HttpMethod.POST, request, String.class);
         
         // 解析响应
         JsonNode responseJson = objectMapper.readTree(response.getBody());
@@ -602,18 +1342,16 @@ public class ChatServiceImpl implements ChatService {
         if (content == null) {
             return false;
         }
+        return ToolCallMarkup.containsMarker(content) || looksLikeToolCallArray(content);
+    }
 
-        // 检测各种可能的DeepSeek工具调用格式
-        return content.contains("<|tool_calls_begin|>") ||
-               content.contains("<｜tool▁calls▁begin｜>") ||
-               content.contains("<｜tool▁call▁begin｜>") ||  // 新增：单数形式
-               content.contains("tool_calls_begin") ||
-               content.contains("tool_call_begin") ||        // 新增：单数形式
-               content.contains("function_calls") ||
-               content.contains("<｜tool▁sep｜>") ||         // 新增：分隔符格式
-               content.contains("tool▁sep") ||               // 新增：分隔符格式
-               // 检测JSON数组格式的工具调用
-               (content.contains("[") && content.contains("\"name\"") && content.contains("\"arguments\""));
+    /**
+     * 检测JSON数组格式的工具调用，键名可能使用单引号
+     */
+    private boolean looksLikeToolCallArray(String content) {
+        return content.indexOf('[') >= 0
+                && (content.contains("\"name\"") || content.contains("'name'"))
+                && (content.contains("\"arguments\"") || content.contains("'arguments'"));
     }
 
     /**
@@ -641,43 +1379,11 @@ public class ChatServiceImpl implements ChatService {
                 return content;
             }
 
-            List<Map<String, Object>> toolMessages = new ArrayList<>();
-
             // 执行所有工具调用
-            for (ChatToolCall.ToolCallRequest request : toolCallRequests) {
-                log.info("执行工具调用：{}", request.getFunction().getName());
-
-                // 执行工具调用
-                ChatToolCall.ToolCallResult toolResult = chatToolService.executeToolCall(request, userId);
-
-                // 添加工具调用结果到消息
-                Map<String, Object> toolMessage = new HashMap<>();
-                toolMessage.put("role", "tool");
-                toolMessage.put("tool_call_id", request.getId());
-                toolMessage.put("content", toolResult.getResult());
-                toolMessages.add(toolMessage);
-
-                if (toolResult.isSuccess()) {
-                    log.info("工具调用成功：{}，结果长度：{}", request.getFunction().getName(), toolResult.getResult().length());
-                } else {
-                    log.error("工具调用失败：{}，错误：{}", request.getFunction().getName(), toolResult.getError());
-                }
-            }
+            List<Map<String, Object>> toolMessages = executeToolCalls(toolCallRequests, userId);
 
             // 构建模拟的tool_calls JsonNode用于后续处理
-            List<Map<String, Object>> toolCallsData = new ArrayList<>();
-            for (ChatToolCall.ToolCallRequest request : toolCallRequests) {
-                Map<String, Object> toolCallData = new HashMap<>();
-                toolCallData.put("id", request.getId());
-                toolCallData.put("type", "function");
-                Map<String, Object> functionData = new HashMap<>();
-                functionData.put("name", request.getFunction().getName());
-                functionData.put("arguments", request.getFunction().getArguments());
-                toolCallData.put("function", functionData);
-                toolCallsData.add(toolCallData);
-            }
-
-            JsonNode toolCallsNode = objectMapper.valueToTree(toolCallsData);
+            JsonNode toolCallsNode = objectMapper.valueToTree(toToolCallsPayload(toolCallRequests));
 
             // 调用原有的工具结果处理逻辑
             return callDeepSeekApiWithToolResults(messageHistory, newMessage, toolCallsNode, toolMessages, userId);
@@ -690,252 +1396,309 @@ public class ChatServiceImpl implements ChatService {
 
     /**
      * 解析DeepSeek特殊格式的工具调用
+     * 标记在一遍扫描中识别；依次尝试标记之间的JSON、正文中的JSON数组和分隔符格式，
+     * 每段候选内容只解析一次
      */
     private List<ChatToolCall.ToolCallRequest> parseDeepSeekToolCalls(String content) {
         List<ChatToolCall.ToolCallRequest> requests = new ArrayList<>();
+        if (content == null || content.isEmpty()) {
+            return requests;
+        }
 
         try {
-            // 尝试多种可能的DeepSeek工具调用格式
-            String[] patterns = {
-                "<\\|tool_calls_begin\\|>([\\s\\S]*?)<\\|tool_calls_end\\|>",
-                "<｜tool▁calls▁begin｜>([\\s\\S]*?)<｜tool▁calls▁end｜>",
-                "<｜tool▁call▁begin｜>([\\s\\S]*?)<｜tool▁call▁end｜>",  // 新增：单数形式
-                "tool_calls_begin([\\s\\S]*?)tool_calls_end",
-                "tool_call_begin([\\s\\S]*?)tool_call_end",              // 新增：单数形式
-                "function_calls\\s*:\\s*\\[([\\s\\S]*?)\\]"
-            };
-
-            String toolCallsJson = null;
-
-            for (String pattern : patterns) {
-                java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-                java.util.regex.Matcher m = p.matcher(content);
-                if (m.find()) {
-                    String extractedContent = m.group(1).trim();
-                    log.info("使用模式 {} 成功提取工具调用内容：{}", pattern, extractedContent);
-
-                    // 验证提取的内容是否为有效JSON
-                    if (isValidJson(extractedContent)) {
-                        toolCallsJson = extractedContent;
-                        log.info("提取的内容是有效JSON，直接使用");
-                        break;
-                    } else {
-                        log.info("提取的内容不是有效JSON，将使用分隔符解析方法处理");
-                        // 不设置toolCallsJson，让后续的parseToolCallsWithSeparator处理
-                    }
-                }
-            }
-
-            if (toolCallsJson == null) {
-                // 尝试直接查找JSON数组格式
-                java.util.regex.Pattern jsonPattern = java.util.regex.Pattern.compile("\\[\\s*\\{[^\\}]*\"name\"[^\\}]*\\}[^\\]]*\\]");
-                java.util.regex.Matcher jsonMatcher = jsonPattern.matcher(content);
-                if (jsonMatcher.find()) {
-                    toolCallsJson = jsonMatcher.group();
-                    log.info("使用JSON模式成功提取工具调用：{}", toolCallsJson);
-                }
+            List<ToolCallMarkup.Token> tokens = ToolCallMarkup.scan(content);
+            JsonNode toolCallsNode = findToolCallsJson(content, tokens);
+            if (toolCallsNode != null) {
+                addToolCallRequests(requests, toolCallsNode);
+                return requests;
             }
 
-            // 如果没有找到JSON格式，尝试解析分隔符格式
-            if (toolCallsJson == null) {
-                log.info("未找到有效JSON格式，尝试使用分隔符解析方法");
-                toolCallsJson = parseToolCallsWithSeparator(content);
+            log.info("未找到有效JSON格式，尝试使用分隔符解析方法");
+            List<SeparatedToolCall> separatedCalls = parseSeparatedToolCalls(content, tokens);
+            for (int i = 0; i < separatedCalls.size(); i++) {
+                SeparatedToolCall call = separatedCalls.get(i);
+                requests.add(toolCallRequest(i, call.name(), call.arguments()));
+                log.info("成功解析工具调用：{} with args: {}", call.name(), call.arguments());
             }
+        } catch (Exception e) {
+            log.error("解析DeepSeek工具调用时发生错误", e);
+        }
 
-            if (toolCallsJson != null) {
-                log.debug("准备解析工具调用JSON：{}", toolCallsJson);
-
-                try {
-                    // 解析JSON格式的工具调用
-                    JsonNode toolCallsArray = objectMapper.readTree(toolCallsJson);
-
-                    if (toolCallsArray.isArray()) {
-                        log.info("成功解析工具调用JSON数组，包含 {} 个工具调用", toolCallsArray.size());
-
-                        for (int i = 0; i < toolCallsArray.size(); i++) {
-                            JsonNode toolCallNode = toolCallsArray.get(i);
-                            log.debug("处理第 {} 个工具调用：{}", i + 1, toolCallNode);
+        return requests;
+    }
 
-                            ChatToolCall.ToolCallRequest request = new ChatToolCall.ToolCallRequest();
-                            request.setId("tool_call_" + System.currentTimeMillis() + "_" + i);
-                            request.setType("function");
+    /**
+     * 分隔符格式中解析出的一个工具调用，参数为原始JSON文本（已验证可解析）
+     */
+    private record SeparatedToolCall(String name, String arguments) {
+    }
+    
+    /**
+     * 修复后的JSON文本及其解析结果
+     */
+    private record RepairedJson(String text, JsonNode node) {
+    }
 
-                            ChatToolCall.FunctionCall functionCall = new ChatToolCall.FunctionCall();
+    /**
+     * 查找JSON格式的工具调用：先取成对标记之间及function_calls之后的内容，再查找正文中含name键的JSON数组
+     */
+    private JsonNode findToolCallsJson(String content, List<ToolCallMarkup.Token> tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            ToolCallMarkup.Token token = tokens.get(i);
+            String candidate = switch (token.type()) {
+                case CALLS_BEGIN -> textUntil(content, tokens, i, ToolCallMarkup.TokenType.CALLS_END);
+                case CALL_BEGIN -> textUntil(content, tokens, i, ToolCallMarkup.TokenType.CALL_END);
+                case FUNCTION_CALLS -> arrayAfterColon(content, token.end());
+                default -> null;
+            };
+            JsonNode node = readJsonCandidate(candidate);
+            if (node != null) {
+                log.info("从{}标记中提取到工具调用JSON：{}", token.type(), candidate);
+                return node;
+            }
+        }
 
-                            // 获取函数名
-                            String functionName = null;
-                            if (toolCallNode.has("name")) {
-                                functionName = toolCallNode.get("name").asText();
-                            } else if (toolCallNode.has("function") && toolCallNode.get("function").has("name")) {
-                                functionName = toolCallNode.get("function").get("name").asText();
-                            }
+        if (!content.contains("\"name\"")) {
+            return null;
+        }
+        for (int start = content.indexOf('['); start >= 0; start = content.indexOf('[', start + 1)) {
+            int next = start + 1;
+            while (next < content.length() && Character.isWhitespace(content.charAt(next))) {
+                next++;
+            }
+            if (next >= content.length() || content.charAt(next) != '{') {
+                continue;
+            }
+            int end = ToolCallMarkup.findClosingBracket(content, start);
+            String candidate = end >= 0 ? content.substring(start, end + 1) : content.substring(start);
+            if (!candidate.contains("\"name\"")) {
+                continue;
+            }
+            log.info("使用JSON模式提取工具调用：{}", candidate);
+            JsonNode node = readJsonCandidate(candidate);
+            if (node == null) {
+                // 尝试修复常见的JSON格式问题，修复结果直接使用其解析结果
+                RepairedJson repaired = repairJson(candidate);
+                if (repaired != null) {
+                    log.info("尝试修复JSON格式，修复后的内容：{}", repaired.text());
+                    node = repaired.node();
+                }
+            }
+            if (node != null) {
+                return node;
+            }
+            log.warn("工具调用JSON无法解析：{}", candidate);
+        }
+        return null;
+    }
 
-                            if (functionName == null) {
-                                log.warn("无法获取工具调用的函数名，跳过：{}", toolCallNode);
-                                continue;
-                            }
+    /**
+     * 第index个标记到其后第一个指定类型标记之间的内容
+     */
+    private String textUntil(String content, List<ToolCallMarkup.Token> tokens, int index,
+                             ToolCallMarkup.TokenType endType) {
+        for (int i = index + 1; i < tokens.size(); i++) {
+            if (tokens.get(i).type() == endType) {
+                return content.substring(tokens.get(index).end(), tokens.get(i).start()).trim();
+            }
+        }
+        return null;
+    }
 
-                            functionCall.setName(functionName);
-
-                            // 获取参数
-                            String arguments = "{}";
-                            if (toolCallNode.has("arguments")) {
-                                JsonNode argsNode = toolCallNode.get("arguments");
-                                arguments = argsNode.isTextual() ? argsNode.asText() : argsNode.toString();
-                            } else if (toolCallNode.has("function") && toolCallNode.get("function").has("arguments")) {
-                                JsonNode argsNode = toolCallNode.get("function").get("arguments");
-                                arguments = argsNode.isTextual() ? argsNode.asText() : argsNode.toString();
-                            } else if (toolCallNode.has("parameters")) {
-                                JsonNode argsNode = toolCallNode.get("parameters");
-                                arguments = argsNode.toString();
-                            }
+    /**
+     * function_calls之后形如 {@code : [...]} 的数组
+     */
+    private String arrayAfterColon(String content, int from) {
+        int i = skipWhitespace(content, from);
+        if (i >= content.length() || content.charAt(i) != ':') {
+            return null;
+        }
+        i = skipWhitespace(content, i + 1);
+        if (i >= content.length() || content.charAt(i) != '[') {
+            return null;
+        }
+        int end = ToolCallMarkup.findClosingBracket(content, i);
+        return end >= 0 ? content.substring(i, end + 1) : null;
+    }
 
-                            // 验证参数是否为有效JSON
-                            if (!isValidJson(arguments)) {
-                                log.warn("工具调用 {} 的参数不是有效的JSON格式，使用默认空对象：{}", functionName, arguments);
-                                arguments = "{}";
-                            }
+    private int skipWhitespace(String content, int from) {
+        int i = from;
+        while (i < content.length() && Character.isWhitespace(content.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
 
-                            functionCall.setArguments(arguments);
-                            request.setFunction(functionCall);
+    /**
+     * 以 [ 或 { 开头且能解析的候选内容返回解析结果，否则返回null
+     */
+    private JsonNode readJsonCandidate(String candidate) {
+        if (candidate == null || candidate.isEmpty()
+                || (candidate.charAt(0) != '[' && candidate.charAt(0) != '{')) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(candidate);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
 
-                            requests.add(request);
-                            log.info("成功解析工具调用：{} with args: {}", functionName, arguments);
-                        }
-                    } else {
-                        log.warn("工具调用JSON不是数组格式：{}", toolCallsArray);
-                    }
-                } catch (JsonProcessingException e) {
-                    log.error("解析工具调用JSON时发生错误，JSON内容：{}", toolCallsJson, e);
-                    log.error("JSON解析错误详情：{}", e.getMessage());
-
-                    // 尝试修复常见的JSON格式问题
-                    String fixedJson = tryFixJsonFormat(toolCallsJson);
-                    if (fixedJson != null && !fixedJson.equals(toolCallsJson)) {
-                        log.info("尝试修复JSON格式，修复后的内容：{}", fixedJson);
-                        try {
-                            JsonNode fixedArray = objectMapper.readTree(fixedJson);
-                            if (fixedArray.isArray()) {
-                                log.info("JSON修复成功，重新解析");
-                                // 递归调用自己处理修复后的JSON
-                                return parseDeepSeekToolCalls(fixedJson);
-                            }
-                        } catch (Exception fixException) {
-                            log.error("修复后的JSON仍然无法解析：{}", fixException.getMessage());
-                        }
-                    }
+    /**
+     * 将JSON数组（或单个对象）中的工具调用转换为请求
+     */
+    private void addToolCallRequests(List<ChatToolCall.ToolCallRequest> requests, JsonNode toolCallsNode) {
+        if (!toolCallsNode.isArray() && !toolCallsNode.isObject()) {
+            log.warn("工具调用JSON不是数组格式：{}", toolCallsNode);
+            return;
+        }
+        Iterable<JsonNode> toolCallNodes = toolCallsNode.isArray() ? toolCallsNode : List.of(toolCallsNode);
+        log.info("成功解析工具调用JSON，包含 {} 个工具调用", toolCallsNode.isArray() ? toolCallsNode.size() : 1);
+
+        int index = 0;
+        for (JsonNode toolCallNode : toolCallNodes) {
+            JsonNode function = toolCallNode.path("function");
+
+            // 获取函数名
+            JsonNode nameNode = toolCallNode.has("name") ? toolCallNode.get("name") : function.get("name");
+            if (nameNode == null) {
+                log.warn("无法获取工具调用的函数名，跳过：{}", toolCallNode);
+                continue;
+            }
+            String functionName = nameNode.asText();
+
+            // 获取参数
+            JsonNode argsNode = toolCallNode.has("arguments") ? toolCallNode.get("arguments")
+                    : function.has("arguments") ? function.get("arguments")
+                    : toolCallNode.get("parameters");
+            String arguments = "{}";
+            if (argsNode != null) {
+                arguments = argsNode.isTextual() ? argsNode.asText() : argsNode.toString();
+                // 字符串形式的参数需要验证是否为有效JSON
+                if (argsNode.isTextual() && parseJson(arguments) == null) {
+                    log.warn("工具调用 {} 的参数不是有效的JSON格式，使用默认空对象：{}", functionName, arguments);
+                    arguments = "{}";
                 }
             }
 
-        } catch (Exception e) {
-            log.error("解析DeepSeek工具调用时发生错误", e);
+            requests.add(toolCallRequest(index++, functionName, arguments));
+            log.info("成功解析工具调用：{} with args: {}", functionName, arguments);
         }
+    }
 
-        return requests;
+    private ChatToolCall.ToolCallRequest toolCallRequest(int index, String functionName, String arguments) {
+        ChatToolCall.ToolCallRequest request = new ChatToolCall.ToolCallRequest();
+        request.setId("tool_call_" + System.currentTimeMillis() + "_" + index);
+        request.setType("function");
+        ChatToolCall.FunctionCall functionCall = new ChatToolCall.FunctionCall();
+        functionCall.setName(functionName);
+        functionCall.setArguments(arguments);
+        request.setFunction(functionCall);
+        return request;
     }
 
     /**
      * 解析使用分隔符格式的工具调用
      * 格式：<｜tool▁call▁begin｜>function<｜tool▁sep｜>function_name\n```json\n{...}\n```<｜tool▁call▁end｜>
+     * @return 工具调用JSON数组，没有解析出工具调用时返回null
      */
     private String parseToolCallsWithSeparator(String content) {
         try {
-            List<Map<String, Object>> toolCalls = new ArrayList<>();
-
-            // 查找分隔符格式的工具调用
-            String[] separatorPatterns = {
-                "<｜tool▁call▁begin｜>([\\s\\S]*?)<｜tool▁call▁end｜>",
-                "<\\|tool_call_begin\\|>([\\s\\S]*?)<\\|tool_call_end\\|>"
-            };
-
-            for (String pattern : separatorPatterns) {
-                java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-                java.util.regex.Matcher m = p.matcher(content);
-
-                while (m.find()) {
-                    String toolCallContent = m.group(1).trim();
-                    log.info("找到分隔符格式的工具调用内容：{}", toolCallContent);
-
-                    // 解析分隔符格式：function<｜tool▁sep｜>function_name\n```json\n{...}\n```
-                    String[] parts = toolCallContent.split("<｜tool▁sep｜>|<\\|tool_sep\\|>");
-
-                    if (parts.length >= 2) {
-                        // 解析函数名和参数
-                        String functionNamePart = parts[1].trim();
-                        String arguments = parts.length > 2 ? parts[2].trim() : "{}";
-
-                        // 从函数名部分提取纯函数名（可能包含换行和markdown代码块）
-                        String functionName = extractFunctionName(functionNamePart);
-
-                        // 如果函数名部分包含参数，提取参数
-                        if (functionNamePart.contains("```")) {
-                            arguments = extractJsonFromMarkdown(functionNamePart);
-                        } else {
-                            // 提取JSON内容，处理markdown代码块格式
-                            arguments = extractJsonFromMarkdown(arguments);
-                        }
-
-                        // 验证JSON格式
-                        if (!isValidJson(arguments)) {
-                            log.warn("工具调用 {} 的参数不是有效的JSON格式，使用默认空对象：{}", functionName, arguments);
-                            arguments = "{}";
-                        }
-
-                        Map<String, Object> toolCall = new HashMap<>();
-                        toolCall.put("name", functionName);
-                        toolCall.put("arguments", arguments);
-                        toolCalls.add(toolCall);
-
-                        log.info("成功解析分隔符格式工具调用：{} with args: {}", functionName, arguments);
-                    }
-                }
+            List<SeparatedToolCall> calls = parseSeparatedToolCalls(content, ToolCallMarkup.scan(content));
+            if (calls.isEmpty()) {
+                return null;
             }
-
-            if (!toolCalls.isEmpty()) {
-                String result = objectMapper.writeValueAsString(toolCalls);
-                log.info("成功构建工具调用JSON数组，包含 {} 个工具调用", toolCalls.size());
-                return result;
+            List<Map<String, Object>> toolCalls = new ArrayList<>(calls.size());
+            for (SeparatedToolCall call : calls) {
+                Map<String, Object> toolCall = new LinkedHashMap<>();
+                toolCall.put("name", call.name());
+                toolCall.put("arguments", new RawValue(call.arguments()));
+                toolCalls.add(toolCall);
             }
-
+            return objectMapper.writeValueAsString(toolCalls);
         } catch (Exception e) {
             log.error("解析分隔符格式工具调用时发生错误", e);
         }
-
         return null;
     }
 
+    /**
+     * 按扫描出的标记切分分隔符格式的工具调用：调用开始与结束标记之间按分隔符分段，
+     * 第二段为函数名（可能紧跟markdown代码块形式的参数），第三段为参数
+     */
+    private List<SeparatedToolCall> parseSeparatedToolCalls(String content, List<ToolCallMarkup.Token> tokens) {
+        List<SeparatedToolCall> calls = new ArrayList<>();
+        List<String> parts = new ArrayList<>();
+        int segmentStart = -1;
+        for (ToolCallMarkup.Token token : tokens) {
+            switch (token.type()) {
+                case CALL_BEGIN -> {
+                    parts.clear();
+                    segmentStart = token.end();
+                }
+                case SEP -> {
+                    if (segmentStart >= 0) {
+                        parts.add(content.substring(segmentStart, token.start()).trim());
+                        segmentStart = token.end();
+                    }
+                }
+                case CALL_END -> {
+                    if (segmentStart >= 0) {
+                        parts.add(content.substring(segmentStart, token.start()).trim());
+                        addSeparatedToolCall(calls, parts);
+                        segmentStart = -1;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return calls;
+    }
+
+    private void addSeparatedToolCall(List<SeparatedToolCall> calls, List<String> parts) {
+        if (parts.size() < 2) {
+            log.debug("分隔符格式的工具调用缺少函数名：{}", parts);
+            return;
+        }
+        String functionNamePart = parts.get(1);
+        String functionName = extractFunctionName(functionNamePart);
+        // 函数名部分包含代码块时参数在代码块中，否则在第三段
+        String arguments = functionNamePart.contains("```") ? extractJsonFromMarkdown(functionNamePart)
+                : extractJsonFromMarkdown(parts.size() > 2 ? parts.get(2) : "{}");
+
+        // 验证JSON格式：参数文本只解析这一次，之后按原文写出，不再重新解析
+        if (parseJson(arguments) == null) {
+            log.warn("工具调用 {} 的参数不是有效的JSON格式，使用默认空对象：{}", functionName, arguments);
+            arguments = "{}";
+        }
+        calls.add(new SeparatedToolCall(functionName, arguments));
+        log.info("成功解析分隔符格式工具调用：{} with args: {}", functionName, arguments);
+    }
+
     /**
      * 从markdown代码块中提取JSON内容
      */
     private String extractJsonFromMarkdown(String text) {
-        if (text == null || text.trim().isEmpty()) {
+        if (text == null || text.isBlank()) {
             return "{}";
         }
 
-        // 移除markdown代码块标记
         text = text.trim();
-
-        // 处理```json\n{...}\n```格式
-        if (text.contains("```json")) {
-            java.util.regex.Pattern jsonPattern = java.util.regex.Pattern.compile("```json\\s*([\\s\\S]*?)\\s*```");
-            java.util.regex.Matcher jsonMatcher = jsonPattern.matcher(text);
-            if (jsonMatcher.find()) {
-                String jsonContent = jsonMatcher.group(1).trim();
-                log.debug("从markdown代码块中提取JSON：{}", jsonContent);
-                return jsonContent;
+        int fence = text.indexOf(CODE_FENCE);
+        if (fence >= 0) {
+            int bodyStart = fence + CODE_FENCE.length();
+            boolean jsonFence = text.startsWith("json", bodyStart);
+            if (jsonFence) {
+                bodyStart += "json".length();
             }
-        }
-
-        // 处理```\n{...}\n```格式
-        if (text.contains("```")) {
-            java.util.regex.Pattern codePattern = java.util.regex.Pattern.compile("```\\s*([\\s\\S]*?)\\s*```");
-            java.util.regex.Matcher codeMatcher = codePattern.matcher(text);
-            if (codeMatcher.find()) {
-                String codeContent = codeMatcher.group(1).trim();
-                // 检查是否是JSON格式
-                if (codeContent.startsWith("{") || codeContent.startsWith("[")) {
-                    log.debug("从代码块中提取JSON：{}", codeContent);
-                    return codeContent;
+            int close = text.indexOf(CODE_FENCE, bodyStart);
+            if (close >= 0) {
+                String body = text.substring(bodyStart, close).trim();
+                // ```json 代码块直接使用，普通代码块需要是JSON格式
+                if (jsonFence || body.startsWith("{") || body.startsWith("[")) {
+                    log.debug("从markdown代码块中提取JSON：{}", body);
+                    return body;
                 }
             }
         }
@@ -953,45 +1716,66 @@ public class ChatServiceImpl implements ChatService {
      * 验证字符串是否为有效的JSON格式
      */
     private boolean isValidJson(String jsonString) {
+        return parseJson(jsonString) != null;
+    }
+    
+    /**
+     * 解析JSON文本，无效时返回null
+     */
+    private JsonNode parseJson(String jsonString) {
+        if (jsonString == null) {
+            return null;
+        }
         try {
-            objectMapper.readTree(jsonString);
-            return true;
-        } catch (Exception e) {
-            return false;
+            return objectMapper.readTree(jsonString);
+        } catch (JsonProcessingException e) {
+            return null;
         }
     }
 
     /**
-     * 从包含函数名和可能的其他内容的字符串中提取纯函数名
+     * 从包含函数名和可能的其他内容的字符串中提取纯函数名：取第一行中代码块之前的部分并去掉空白字符
      */
     private String extractFunctionName(String functionNamePart) {
-        if (functionNamePart == null || functionNamePart.trim().isEmpty()) {
+        if (functionNamePart == null || functionNamePart.isBlank()) {
             return "";
         }
 
         String cleaned = functionNamePart.trim();
-
-        // 如果包含换行符，取第一行
-        if (cleaned.contains("\n")) {
-            cleaned = cleaned.split("\n")[0].trim();
+        int lineEnd = cleaned.indexOf('\n');
+        if (lineEnd >= 0) {
+            cleaned = cleaned.substring(0, lineEnd);
         }
-
-        // 如果包含markdown代码块标记，取代码块之前的部分
-        if (cleaned.contains("```")) {
-            cleaned = cleaned.split("```")[0].trim();
+        int fence = cleaned.indexOf(CODE_FENCE);
+        if (fence >= 0) {
+            cleaned = cleaned.substring(0, fence);
         }
 
-        // 移除可能的空格和特殊字符
-        cleaned = cleaned.replaceAll("[\\s\\r\\n]+", "").trim();
-
-        log.debug("从 '{}' 提取函数名：'{}'", functionNamePart, cleaned);
-        return cleaned;
+        StringBuilder name = new StringBuilder(cleaned.length());
+        for (int i = 0; i < cleaned.length(); i++) {
+            char c = cleaned.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                name.append(c);
+            }
+        }
+        log.debug("从 '{}' 提取函数名：'{}'", functionNamePart, name);
+        return name.toString();
     }
 
     /**
      * 尝试修复常见的JSON格式问题
+     * @return 修复后的JSON文本，无法修复时返回null
      */
     private String tryFixJsonFormat(String jsonString) {
+        RepairedJson repaired = repairJson(jsonString);
+        return repaired != null ? repaired.text() : null;
+    }
+    
+    /**
+     * 修复常见的JSON格式问题，修复后的文本只解析一次
+     * @return 修复后的文本和解析结果，无法修复时返回null
+     */
+    private RepairedJson repairJson(String jsonString) {
         if (jsonString == null || jsonString.trim().isEmpty()) {
             return null;
         }
@@ -1002,7 +1786,7 @@ public class ChatServiceImpl implements ChatService {
             // 1. 移除可能的HTML标签或特殊字符
             if (fixed.contains("<") && fixed.contains(">")) {
                 // 移除HTML标签，但保留JSON内容
-                fixed = fixed.replaceAll("<[^>]*>", "");
+                fixed = HTML_TAG.matcher(fixed).replaceAll("");
                 log.debug("移除HTML标签后：{}", fixed);
             }
 
@@ -1046,8 +1830,9 @@ public class ChatServiceImpl implements ChatService {
             }
 
             // 5. 验证修复后的JSON
-            if (isValidJson(fixed)) {
-                return fixed;
+            JsonNode node = parseJson(fixed);
+            if (node != null) {
+                return new RepairedJson(fixed, node);
             }
 
         } catch (Exception e) {
@@ -1132,4 +1917,27 @@ public class ChatServiceImpl implements ChatService {
         public LocalDateTime getTimestamp() { return timestamp; }
         public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     }
-} 
\ No newline at end of file
+    
+    private static class ChatSummary {
+        private String summary;
+        private String lastMessageId;
+        /**
+         * 摘要之后的第一条消息（生成摘要时窗口内的第一条消息）
+         */
+        private String nextMessageId;
+        private LocalDateTime updateTime;
+        
+        // Getters and Setters
+        public String getSummary() { return summary; }
+        public void setSummary(String summary) { this.summary = summary; }
+        
+        public String getLastMessageId() { return lastMessageId; }
+        public void setLastMessageId(String lastMessageId) { this.lastMessageId = lastMessageId; }
+        
+        public String getNextMessageId() { return nextMessageId; }
+        public void setNextMessageId(String nextMessageId) { this.nextMessageId = nextMessageId; }
+        
+        public LocalDateTime getUpdateTime() { return updateTime; }
+        public void setUpdateTime(LocalDateTime updateTime) { this.updateTime = updateTime; }
+    }
+}
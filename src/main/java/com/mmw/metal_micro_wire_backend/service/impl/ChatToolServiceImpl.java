@@ -2,6 +2,7 @@ package com.mmw.metal_micro_wire_backend.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.config.ChatToolCacheConfig;
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
 import com.mmw.metal_micro_wire_backend.dto.chat.ChatToolCall;
 import com.mmw.metal_micro_wire_backend.dto.device.DevicePageRequest;
@@ -19,6 +20,10 @@ import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageRequest
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageResponse;
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialResponse;
 import com.mmw.metal_micro_wire_backend.service.*;
+import com.mmw.metal_micro_wire_backend.util.CanonicalJson;
+import com.mmw.metal_micro_wire_backend.util.LocalLruCache;
+import com.mmw.metal_micro_wire_backend.util.SingleFlight;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -26,9 +31,11 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AI工具调用服务实现类
+ * 工具调用结果按“工具名称 + 规范化参数”缓存，缓存时间按工具配置；并发的相同调用合并为一次执行
  */
 @Slf4j
 @Service
@@ -40,6 +47,16 @@ public class ChatToolServiceImpl implements ChatToolService {
     private final TraceabilityService traceabilityService;
     private final OverViewService overViewService;
     private final ObjectMapper objectMapper;
+    private final ChatToolCacheConfig toolCacheConfig;
+    
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private LocalLruCache<String, String> resultCache;
+    
+    @PostConstruct
+    public void initResultCache() {
+        resultCache = new LocalLruCache<>(toolCacheConfig.getMaxEntries(),
+                TimeUnit.SECONDS.toMillis(toolCacheConfig.getDefaultTtlSeconds()));
+    }
     
     @Override
     public List<ChatToolCall.Tool> getAvailableTools() {
@@ -79,20 +96,7 @@ public class ChatToolServiceImpl implements ChatToolService {
             String arguments = toolCall.getFunction().getArguments();
             JsonNode argsNode = objectMapper.readTree(arguments);
             
-            String response = switch (functionName) {
-                case "get_device_list" -> executeGetDeviceList(argsNode);
-                case "get_device_info" -> executeGetDeviceInfo(argsNode);
-                case "get_wire_material_list" -> executeGetWireMaterialList(argsNode);
-                case "get_wire_material_info" -> executeGetWireMaterialInfo(argsNode);
-                case "analyze_quality_issues" -> executeAnalyzeQualityIssues(argsNode);
-                case "get_quality_issues" -> executeGetQualityIssues(argsNode);
-                case "get_manufacturer_ranking" -> executeGetManufacturerRanking(argsNode);
-                case "get_overall_statistics" -> executeGetOverallStatistics();
-                case "get_yearly_statistics" -> executeGetYearlyStatistics();
-                case "get_scenario_statistics" -> executeGetScenarioStatistics(argsNode);
-                case "get_current_time" -> executeGetCurrentTime(argsNode);
-                default -> "未知的工具调用：" + functionName;
-            };
+            String response = executeCached(functionName, argsNode);
             
             result.setResult(response);
             result.setSuccess(true);
@@ -107,6 +111,48 @@ public class ChatToolServiceImpl implements ChatToolService {
         return result;
     }
     
+    /**
+     * 先查结果缓存，未命中时合并并发的相同调用后执行。
+     * 工具执行失败时返回的是说明文字，只有JSON格式的成功结果才写入缓存
+     */
+    private String executeCached(String functionName, JsonNode argsNode) {
+        int ttlSeconds = toolCacheConfig.ttlSecondsOf(functionName);
+        if (!toolCacheConfig.isEnabled() || ttlSeconds <= 0) {
+            return dispatch(functionName, argsNode);
+        }
+        
+        String cacheKey = functionName + ":" + CanonicalJson.write(argsNode);
+        String cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("工具调用命中缓存：{}", cacheKey);
+            return cached;
+        }
+        return singleFlight.execute(cacheKey, () -> {
+            String response = dispatch(functionName, argsNode);
+            if (response != null && (response.startsWith("{") || response.startsWith("["))) {
+                resultCache.put(cacheKey, response, TimeUnit.SECONDS.toMillis(ttlSeconds));
+            }
+            return response;
+        });
+    }
+    
+    private String dispatch(String functionName, JsonNode argsNode) {
+        return switch (functionName) {
+            case "get_device_list" -> executeGetDeviceList(argsNode);
+            case "get_device_info" -> executeGetDeviceInfo(argsNode);
+            case "get_wire_material_list" -> executeGetWireMaterialList(argsNode);
+            case "get_wire_material_info" -> executeGetWireMaterialInfo(argsNode);
+            case "analyze_quality_issues" -> executeAnalyzeQualityIssues(argsNode);
+            case "get_quality_issues" -> executeGetQualityIssues(argsNode);
+            case "get_manufacturer_ranking" -> executeGetManufacturerRanking(argsNode);
+            case "get_overall_statistics" -> executeGetOverallStatistics();
+            case "get_yearly_statistics" -> executeGetYearlyStatistics();
+            case "get_scenario_statistics" -> executeGetScenarioStatistics(argsNode);
+            case "get_current_time" -> executeGetCurrentTime(argsNode);
+            default -> "未知的工具调用：" + functionName;
+        };
+    }
+    
     // ==================== 工具定义方法 ====================
     
     private ChatToolCall.Tool createDeviceListTool() {
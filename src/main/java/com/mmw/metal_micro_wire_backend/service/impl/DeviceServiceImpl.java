@@ -3,11 +3,13 @@ package com.mmw.metal_micro_wire_backend.service.impl;
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
 import com.mmw.metal_micro_wire_backend.dto.device.*;
 import com.mmw.metal_micro_wire_backend.entity.Device;
+import com.mmw.metal_micro_wire_backend.event.DeviceChangedEvent;
 import com.mmw.metal_micro_wire_backend.repository.DeviceRepository;
 import com.mmw.metal_micro_wire_backend.service.DeviceService;
 import com.mmw.metal_micro_wire_backend.util.HuaweiIotMessageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,6 +29,7 @@ public class DeviceServiceImpl implements DeviceService {
     
     private final DeviceRepository deviceRepository;
     private final HuaweiIotMessageUtil huaweiIotMessageUtil;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
     public BaseResponse<DevicePageResponse> getDeviceList(DevicePageRequest request) {
@@ -81,6 +84,7 @@ public class DeviceServiceImpl implements DeviceService {
                     .build();
             
             Device savedDevice = deviceRepository.save(device);
+            eventPublisher.publishEvent(DeviceChangedEvent.created(savedDevice.getDeviceId()));
             log.info("创建设备成功，设备ID：{}，设备代码：{}，初始状态：OFF", 
                     savedDevice.getDeviceId(), savedDevice.getDeviceCode());
             
@@ -101,6 +105,7 @@ public class DeviceServiceImpl implements DeviceService {
             }
             
             deviceRepository.deleteById(deviceId);
+            eventPublisher.publishEvent(DeviceChangedEvent.deleted(deviceId));
             log.info("删除设备成功，设备ID：{}", deviceId);
             
             return BaseResponse.success(null);
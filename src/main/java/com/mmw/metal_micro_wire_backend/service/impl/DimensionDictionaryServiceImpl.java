@@ -0,0 +1,182 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.entity.DimensionValue;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.repository.DimensionValueRepository;
+import com.mmw.metal_micro_wire_backend.service.DimensionDictionaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 维度字典服务实现类
+ * 字典规模很小，首次使用时全量加载到内存；新取值在独立事务中写入，
+ * 保证入库事务回滚时缓存中的ID依然有效
+ */
+@Slf4j
+@Service
+public class DimensionDictionaryServiceImpl implements DimensionDictionaryService {
+
+    private final DimensionValueRepository dimensionValueRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNewTemplate;
+
+    private final Map<DimensionValue.DimensionType, Map<String, Integer>> idsByValue = new EnumMap<>(DimensionValue.DimensionType.class);
+    private final Map<DimensionValue.DimensionType, Map<Integer, String>> valuesById = new EnumMap<>(DimensionValue.DimensionType.class);
+
+    private volatile boolean loaded = false;
+
+    public DimensionDictionaryServiceImpl(DimensionValueRepository dimensionValueRepository,
+                                          JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager) {
+        this.dimensionValueRepository = dimensionValueRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (DimensionValue.DimensionType type : DimensionValue.DimensionType.values()) {
+            idsByValue.put(type, new ConcurrentHashMap<>());
+            valuesById.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public Integer intern(DimensionValue.DimensionType dimensionType, String value) {
+        if (value == null) {
+            return null;
+        }
+        ensureLoaded();
+
+        Integer id = idsByValue.get(dimensionType).get(value);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = idsByValue.get(dimensionType).get(value);
+            if (id == null) {
+                DimensionValue created = findOrCreate(dimensionType, value);
+                id = created.getId();
+                cache(dimensionType, value, id);
+                log.debug("新建维度字典项：{} = {} -> {}", dimensionType, value, id);
+            }
+            return id;
+        }
+    }
+
+    @Override
+    public Integer findId(DimensionValue.DimensionType dimensionType, String value) {
+        if (value == null) {
+            return null;
+        }
+        ensureLoaded();
+        Integer id = idsByValue.get(dimensionType).get(value);
+        if (id == null) {
+            // 其他节点新建的字典项
+            id = dimensionValueRepository.findByDimensionTypeAndDimensionValue(dimensionType, value)
+                    .map(item -> {
+                        cache(dimensionType, item.getDimensionValue(), item.getId());
+                        return item.getId();
+                    })
+                    .orElse(null);
+        }
+        return id;
+    }
+
+    @Override
+    public String resolve(DimensionValue.DimensionType dimensionType, Integer id) {
+        if (id == null) {
+            return null;
+        }
+        ensureLoaded();
+        String value = valuesById.get(dimensionType).get(id);
+        if (value == null) {
+            // 其他节点新建的字典项
+            value = dimensionValueRepository.findById(id)
+                    .filter(item -> item.getDimensionType() == dimensionType)
+                    .map(item -> {
+                        cache(dimensionType, item.getDimensionValue(), item.getId());
+                        return item.getDimensionValue();
+                    })
+                    .orElse(null);
+        }
+        return value;
+    }
+
+    @Override
+    public void assignIds(WireMaterial wireMaterial) {
+        wireMaterial.setManufacturerId(intern(DimensionValue.DimensionType.MANUFACTURER, wireMaterial.getManufacturer()));
+        wireMaterial.setResponsiblePersonId(intern(DimensionValue.DimensionType.RESPONSIBLE_PERSON, wireMaterial.getResponsiblePerson()));
+        wireMaterial.setProcessTypeId(intern(DimensionValue.DimensionType.PROCESS_TYPE, wireMaterial.getProcessType()));
+        wireMaterial.setProductionMachineId(intern(DimensionValue.DimensionType.PRODUCTION_MACHINE, wireMaterial.getProductionMachine()));
+        wireMaterial.setContactEmailId(intern(DimensionValue.DimensionType.CONTACT_EMAIL, wireMaterial.getContactEmail()));
+    }
+
+    @Override
+    public int backfillIds() {
+        int updated = 0;
+        for (DimensionValue.DimensionType type : DimensionValue.DimensionType.values()) {
+            String column = type.getColumn();
+            List<String> values = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT " + column + " FROM wire_materials " +
+                    "WHERE " + column + " IS NOT NULL AND " + column + "_id IS NULL", String.class);
+            if (values.isEmpty()) {
+                continue;
+            }
+
+            values.forEach(value -> intern(type, value));
+            int rows = jdbcTemplate.update(
+                    "UPDATE wire_materials SET " + column + "_id = (SELECT d.id FROM dimension_values d " +
+                    "WHERE d.dimension_type = ? AND d.dimension_value = wire_materials." + column + ") " +
+                    "WHERE " + column + "_id IS NULL AND " + column + " IS NOT NULL", type.name());
+            updated += rows;
+            log.info("维度字典ID回填完成：{}，取值数量：{}，更新行数：{}", type, values.size(), rows);
+        }
+        return updated;
+    }
+
+    /**
+     * 查找或创建字典项，并发创建导致唯一约束冲突时重新查询
+     */
+    private DimensionValue findOrCreate(DimensionValue.DimensionType dimensionType, String value) {
+        try {
+            return requiresNewTemplate.execute(status ->
+                    dimensionValueRepository.findByDimensionTypeAndDimensionValue(dimensionType, value)
+                            .orElseGet(() -> dimensionValueRepository.saveAndFlush(DimensionValue.builder()
+                                    .dimensionType(dimensionType)
+                                    .dimensionValue(value)
+                                    .build())));
+        } catch (DataIntegrityViolationException e) {
+            return requiresNewTemplate.execute(status ->
+                    dimensionValueRepository.findByDimensionTypeAndDimensionValue(dimensionType, value)
+                            .orElseThrow(() -> e));
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                List<DimensionValue> all = dimensionValueRepository.findAll();
+                all.forEach(item -> cache(item.getDimensionType(), item.getDimensionValue(), item.getId()));
+                loaded = true;
+                log.info("维度字典加载完成，共{}项", all.size());
+            }
+        }
+    }
+
+    private void cache(DimensionValue.DimensionType dimensionType, String value, Integer id) {
+        idsByValue.get(dimensionType).put(value, id);
+        valuesById.get(dimensionType).putIfAbsent(id, value);
+    }
+}
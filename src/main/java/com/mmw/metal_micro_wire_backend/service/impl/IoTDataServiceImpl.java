@@ -4,10 +4,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.mmw.metal_micro_wire_backend.entity.Device;
 import com.mmw.metal_micro_wire_backend.entity.Question;
 import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.DeviceStatusChangedEvent;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
 import com.mmw.metal_micro_wire_backend.config.HuaweiIotConfig;
 import com.mmw.metal_micro_wire_backend.repository.DeviceRepository;
 import com.mmw.metal_micro_wire_backend.repository.QuestionRepository;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
+import com.mmw.metal_micro_wire_backend.service.AnswerCacheService;
+import com.mmw.metal_micro_wire_backend.service.DimensionDictionaryService;
 import com.mmw.metal_micro_wire_backend.service.IoTDataService;
 import com.mmw.metal_micro_wire_backend.service.QualityEvaluationService;
 import com.mmw.metal_micro_wire_backend.service.ChatService;
@@ -19,6 +23,7 @@ import com.mmw.metal_micro_wire_backend.util.HuaweiIotMessageUtil;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,6 +48,9 @@ public class IoTDataServiceImpl implements IoTDataService {
     private final QualityEvaluationService qualityEvaluationService;
     private final HuaweiIotMessageUtil huaweiIotMessageUtil;
     private final ChatService chatService;
+    private final DimensionDictionaryService dimensionDictionaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AnswerCacheService answerCacheService;
     
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
     
@@ -50,7 +58,9 @@ public class IoTDataServiceImpl implements IoTDataService {
     @Transactional
     public WireMaterial saveWireMaterial(WireMaterial wireMaterial) {
         try {
+            dimensionDictionaryService.assignIds(wireMaterial);
             WireMaterial saved = wireMaterialRepository.save(wireMaterial);
+            eventPublisher.publishEvent(WireMaterialChangedEvent.created(saved));
             if (huaweiIotConfig.getMessage().isEnableDetailedLogging()) {
                 log.info("成功保存线材数据，批次号: {}, 设备ID: {}", saved.getBatchNumber(), saved.getDeviceId());
             }
@@ -197,9 +207,14 @@ public class IoTDataServiceImpl implements IoTDataService {
                     .orElseThrow(() -> new IllegalArgumentException("设备不存在: " + deviceId));
             
             // 更新设备状态
+            Device.DeviceStatus previousStatus = device.getStatus();
             device.setStatus(deviceStatus);
             
-            return saveDevice(device);
+            Device saved = saveDevice(device);
+            if (previousStatus != deviceStatus) {
+                eventPublisher.publishEvent(new DeviceStatusChangedEvent(deviceId, previousStatus, deviceStatus));
+            }
+            return saved;
             
         } catch (Exception e) {
             throw new RuntimeException("解析并保存设备数据失败", e);
@@ -252,7 +267,7 @@ public class IoTDataServiceImpl implements IoTDataService {
     
     /**
      * 生成AI响应内容
-     * 复用现有ChatService，为IoT设备提供智能问答
+     * 复用现有ChatService，为IoT设备提供智能问答；相同或相近的问题直接使用问答缓存中的回答
      *
      * @param questionContent 问题内容
      * @return AI响应内容
@@ -263,6 +278,16 @@ public class IoTDataServiceImpl implements IoTDataService {
             return "未收到有效问题，请重新提问。";
         }
 
+        return answerCacheService.getOrGenerate(questionContent, this::askChatService);
+    }
+
+    /**
+     * 调用ChatService生成回答，降级回答不缓存
+     *
+     * @param questionContent 问题内容
+     * @return 生成的回答
+     */
+    private AnswerCacheService.GeneratedAnswer askChatService(String questionContent) {
         try {
             // 构建聊天请求
             ChatMessageRequest request = new ChatMessageRequest();
@@ -278,12 +303,14 @@ public class IoTDataServiceImpl implements IoTDataService {
 
             // 优化响应内容，适合设备显示
             String aiResponse = response.getAssistantMessage();
-            return optimizeResponseForDevice(aiResponse);
+            boolean answered = aiResponse != null && !aiResponse.trim().isEmpty();
+            return new AnswerCacheService.GeneratedAnswer(optimizeResponseForDevice(aiResponse),
+                    response.getUsedTools(), answered);
 
         } catch (Exception e) {
             log.error("IoT AI问答失败，问题内容：{}", questionContent, e);
             // 降级处理：返回友好的错误信息
-            return generateFallbackResponse(questionContent);
+            return new AnswerCacheService.GeneratedAnswer(generateFallbackResponse(questionContent), null, false);
         }
     }
 
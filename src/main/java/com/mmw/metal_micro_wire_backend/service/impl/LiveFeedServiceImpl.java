@@ -0,0 +1,212 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.config.LiveFeedConfig;
+import com.mmw.metal_micro_wire_backend.dto.live.LiveCounterMessage;
+import com.mmw.metal_micro_wire_backend.dto.live.LiveDetectionMessage;
+import com.mmw.metal_micro_wire_backend.dto.live.LiveDeviceStatusMessage;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.DeviceStatusChangedEvent;
+import com.mmw.metal_micro_wire_backend.event.QualityIssueDetectedEvent;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.LiveFeedService;
+import com.mmw.metal_micro_wire_backend.util.FanOutHub;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时推送服务实现类
+ * 事件在事务提交后序列化为JSON，通过FanOutHub写入各订阅者的有界缓冲区，由发送线程池写出到SSE连接。
+ * 计数增量在本节点内累加，按固定间隔合并推送一次
+ */
+@Slf4j
+@Service
+public class LiveFeedServiceImpl implements LiveFeedService {
+
+    private static final String TOPIC_HEARTBEAT = "heartbeat";
+
+    private final LiveFeedConfig config;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor senderExecutor;
+    private final FanOutHub<LiveMessage> hub;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong totalDelta = new AtomicLong();
+    private final AtomicLong passDelta = new AtomicLong();
+    private final AtomicLong failDelta = new AtomicLong();
+    private final AtomicLong pendingReviewDelta = new AtomicLong();
+    private final AtomicLong unknownDelta = new AtomicLong();
+
+    /**
+     * 已序列化的推送消息，所有订阅者共享
+     */
+    private record LiveMessage(String topic, long id, String data) {
+    }
+
+    public LiveFeedServiceImpl(LiveFeedConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senderExecutor = new ThreadPoolExecutor(config.getSenderThreads(), config.getSenderThreads(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "live-feed-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.hub = new FanOutHub<>(senderExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.closeAll("服务关闭");
+        senderExecutor.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(Set<String> topics) {
+        if (!config.isEnabled()) {
+            throw new IllegalStateException("实时推送未启用");
+        }
+        Set<String> subscribed = new HashSet<>();
+        if (topics == null || topics.isEmpty()) {
+            subscribed.addAll(TOPICS);
+        } else {
+            for (String topic : topics) {
+                String normalized = topic.trim().toLowerCase(Locale.ROOT);
+                if (!TOPICS.contains(normalized)) {
+                    throw new IllegalArgumentException("不支持的推送主题：" + topic);
+                }
+                subscribed.add(normalized);
+            }
+        }
+        if (hub.size() >= config.getMaxSubscribers()) {
+            throw new IllegalStateException("实时推送订阅数已达上限，请稍后重试");
+        }
+
+        SseEmitter emitter = new SseEmitter(config.getEmitterTimeoutMs());
+        long subscriptionId = hub.subscribe(new FanOutHub.Sink<>() {
+            @Override
+            public void send(LiveMessage message) throws Exception {
+                if (TOPIC_HEARTBEAT.equals(message.topic())) {
+                    emitter.send(SseEmitter.event().comment(message.data()));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(message.id()))
+                            .name(message.topic())
+                            .data(message.data(), MediaType.APPLICATION_JSON));
+                }
+            }
+
+            @Override
+            public void close(String reason) {
+                log.debug("关闭实时推送订阅：{}", reason);
+                emitter.complete();
+            }
+        }, config.getSubscriberBufferSize(), message -> TOPIC_HEARTBEAT.equals(message.topic())
+                || subscribed.contains(message.topic()));
+
+        emitter.onCompletion(() -> hub.unsubscribe(subscriptionId));
+        emitter.onTimeout(() -> hub.unsubscribe(subscriptionId));
+        emitter.onError(e -> hub.unsubscribe(subscriptionId));
+        log.debug("新增实时推送订阅，主题：{}，当前订阅数：{}", subscribed, hub.size());
+        return emitter;
+    }
+
+    /**
+     * 新检测数据提交后推送摘要并累加计数
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (event.getChangeType() != WireMaterialChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        WireMaterial wireMaterial = event.getWireMaterial();
+        totalDelta.incrementAndGet();
+        WireMaterial.FinalEvaluationResult result = wireMaterial.getFinalEvaluationResult();
+        if (result == WireMaterial.FinalEvaluationResult.PASS) {
+            passDelta.incrementAndGet();
+        } else if (result == WireMaterial.FinalEvaluationResult.FAIL) {
+            failDelta.incrementAndGet();
+        } else if (result == WireMaterial.FinalEvaluationResult.PENDING_REVIEW) {
+            pendingReviewDelta.incrementAndGet();
+        } else {
+            unknownDelta.incrementAndGet();
+        }
+        publish(TOPIC_DETECTION, LiveDetectionMessage.fromEntity(wireMaterial));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(DeviceStatusChangedEvent event) {
+        publish(TOPIC_DEVICE_STATUS, LiveDeviceStatusMessage.builder()
+                .deviceId(event.getDeviceId())
+                .previousStatus(event.getPreviousStatus() != null ? event.getPreviousStatus().name() : null)
+                .status(event.getStatus().name())
+                .changedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQualityIssueDetected(QualityIssueDetectedEvent event) {
+        publish(TOPIC_QUALITY_ISSUE, event.getIssue());
+    }
+
+    @Override
+    public void publishCounters() {
+        long total = totalDelta.getAndSet(0);
+        long pass = passDelta.getAndSet(0);
+        long fail = failDelta.getAndSet(0);
+        long pendingReview = pendingReviewDelta.getAndSet(0);
+        long unknown = unknownDelta.getAndSet(0);
+        if (total == 0) {
+            return;
+        }
+        publish(TOPIC_COUNTERS, LiveCounterMessage.builder()
+                .total(total)
+                .pass(pass)
+                .fail(fail)
+                .pendingReview(pendingReview)
+                .unknown(unknown)
+                .build());
+    }
+
+    @Override
+    public void sendHeartbeat() {
+        if (hub.size() > 0) {
+            hub.publish(new LiveMessage(TOPIC_HEARTBEAT, 0, "ping"));
+        }
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return hub.size();
+    }
+
+    /**
+     * 序列化一次后扇出；没有订阅者时跳过序列化
+     */
+    private void publish(String topic, Object payload) {
+        if (!config.isEnabled() || hub.size() == 0) {
+            return;
+        }
+        try {
+            String data = objectMapper.writeValueAsString(payload);
+            hub.publish(new LiveMessage(topic, sequence.incrementAndGet(), data));
+        } catch (Exception e) {
+            log.error("实时推送消息失败，主题：{}", topic, e);
+        }
+    }
+}
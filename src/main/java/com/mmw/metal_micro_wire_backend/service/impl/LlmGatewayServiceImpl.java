@@ -0,0 +1,119 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.LlmGatewayConfig;
+import com.mmw.metal_micro_wire_backend.dto.chat.LlmGatewayStatsResponse;
+import com.mmw.metal_micro_wire_backend.exception.LlmOverloadedException;
+import com.mmw.metal_micro_wire_backend.service.LlmGatewayService;
+import com.mmw.metal_micro_wire_backend.util.LocalLruCache;
+import com.mmw.metal_micro_wire_backend.util.PriorityPermitGate;
+import com.mmw.metal_micro_wire_backend.util.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI对话请求闸门服务实现类
+ * 全局并发由带优先级通道的许可闸门控制，通道内按到达顺序排队；交互对话先经过用户令牌桶限速。
+ * 用户令牌桶闲置到补满所需的时间后从本地缓存中移除，再次请求时按满桶重建，效果相同
+ */
+@Slf4j
+@Service
+public class LlmGatewayServiceImpl implements LlmGatewayService {
+
+    private final LlmGatewayConfig config;
+    private final PriorityPermitGate gate;
+    private final LocalLruCache<Long, TokenBucket> userBuckets;
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    public LlmGatewayServiceImpl(LlmGatewayConfig config) {
+        this.config = config;
+        this.gate = new PriorityPermitGate(Math.max(1, config.getMaxConcurrent()), Priority.values().length,
+                config.getMaxQueued());
+        long refillMillis = (long) Math.ceil(Math.max(1, config.getUserBurst())
+                / Math.max(0.001, config.getUserRefillPerMinute()) * 60_000);
+        this.userBuckets = new LocalLruCache<>(Math.max(1, config.getMaxTrackedUsers()), refillMillis);
+    }
+
+    @Override
+    public Permit acquire(Long userId, Priority priority) {
+        if (!config.isEnabled()) {
+            return Permit.NONE;
+        }
+        if (priority == Priority.INTERACTIVE && userId != null) {
+            checkUserRate(userId);
+        }
+
+        long maxWaitMs = priority == Priority.INTERACTIVE
+                ? config.getInteractiveMaxWaitMs() : config.getBackgroundMaxWaitMs();
+        PriorityPermitGate.Result result;
+        try {
+            result = gate.acquire(priority.ordinal(), maxWaitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmOverloadedException("AI对话请求已取消，请稍后重试", 1);
+        }
+        if (result != PriorityPermitGate.Result.ACQUIRED) {
+            log.warn("AI对话请求被拒绝，用户ID：{}，通道：{}，原因：{}，进行中：{}",
+                    userId, priority.getDescription(), result, gate.running());
+            // 按本通道的排队时间建议重试间隔
+            throw new LlmOverloadedException("当前AI对话请求较多，请稍后重试",
+                    TimeUnit.MILLISECONDS.toSeconds(maxWaitMs));
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                gate.release();
+            }
+        };
+    }
+
+    @Override
+    public LlmGatewayStatsResponse getStats() {
+        Map<String, LlmGatewayStatsResponse.LaneStatistics> lanes = new LinkedHashMap<>();
+        for (Priority priority : Priority.values()) {
+            PriorityPermitGate.LaneStats stats = gate.laneStats(priority.ordinal());
+            lanes.put(priority.name(), LlmGatewayStatsResponse.LaneStatistics.builder()
+                    .queued(stats.queued())
+                    .acquired(stats.acquired())
+                    .rejected(stats.rejected())
+                    .timedOut(stats.timedOut())
+                    .averageWaitMillis(stats.averageWaitMillis())
+                    .maxWaitMillis(stats.maxWaitMillis())
+                    .build());
+        }
+        return LlmGatewayStatsResponse.builder()
+                .enabled(config.isEnabled())
+                .maxConcurrent(gate.maxConcurrent())
+                .running(gate.running())
+                .rateLimited(rateLimited.get())
+                .lanes(lanes)
+                .build();
+    }
+
+    private void checkUserRate(Long userId) {
+        long now = System.nanoTime();
+        TokenBucket bucket;
+        // 每次请求重新写入以延长闲置移除时间
+        synchronized (userBuckets) {
+            bucket = userBuckets.get(userId);
+            if (bucket == null) {
+                bucket = new TokenBucket(Math.max(1, config.getUserBurst()),
+                        Math.max(0.001, config.getUserRefillPerMinute()), now);
+            }
+            userBuckets.put(userId, bucket);
+        }
+        if (!bucket.tryConsume(now)) {
+            rateLimited.incrementAndGet();
+            long retryAfterSeconds = (long) Math.ceil(bucket.nanosUntilAvailable(now) / 1e9);
+            log.warn("用户AI对话请求过于频繁，用户ID：{}", userId);
+            throw new LlmOverloadedException("发送消息过于频繁，请" + Math.max(1, retryAfterSeconds) + "秒后重试",
+                    retryAfterSeconds);
+        }
+    }
+}
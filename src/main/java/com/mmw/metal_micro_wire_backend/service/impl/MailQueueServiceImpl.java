@@ -0,0 +1,329 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.MailQueueConfig;
+import com.mmw.metal_micro_wire_backend.dto.mail.MailDeliveryResponse;
+import com.mmw.metal_micro_wire_backend.entity.OutboundMail;
+import com.mmw.metal_micro_wire_backend.repository.OutboundMailRepository;
+import com.mmw.metal_micro_wire_backend.service.MailQueueService;
+import com.mmw.metal_micro_wire_backend.util.MailDigest;
+import com.mmw.metal_micro_wire_backend.util.NodeLocalAggregates;
+import com.mmw.metal_micro_wire_backend.util.RetryBackoff;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 邮件发送队列服务实现类
+ * 调度线程在短事务中认领到期邮件（同一收件人的同类摘要邮件一并认领），交给发送线程；
+ * 发送线程把一批邮件放在一次SMTP连接中发送，再按每封邮件的结果更新状态：成功标记已发送，
+ * 失败按指数退避放回队列，次数用尽标记为失败
+ */
+@Slf4j
+@Service
+public class MailQueueServiceImpl implements MailQueueService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final OutboundMailRepository outboundMailRepository;
+    private final JavaMailSender mailSender;
+    private final MailQueueConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workerExecutor;
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final String nodeId;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    public MailQueueServiceImpl(OutboundMailRepository outboundMailRepository,
+                                JavaMailSender mailSender,
+                                MailQueueConfig config,
+                                PlatformTransactionManager transactionManager) {
+        this.outboundMailRepository = outboundMailRepository;
+        this.mailSender = mailSender;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = NodeLocalAggregates.resolveNodeId(config.getNodeId());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workerExecutor = Executors.newFixedThreadPool(Math.max(1, config.getWorkerThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "mail-queue-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 等待正在发送的批次完成；未发送的邮件保持认领状态，租约到期后由任一节点重新发送
+     */
+    @PreDestroy
+    public void shutdown() {
+        workerExecutor.shutdown();
+        try {
+            if (!workerExecutor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("邮件发送线程未在{}秒内结束，剩余批次将在租约到期后重新发送", SHUTDOWN_WAIT_SECONDS);
+                workerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String enqueue(String to, String subject, String content, boolean html) {
+        return save(to, null, subject, content, html, LocalDateTime.now());
+    }
+
+    @Override
+    public String enqueueDigest(String to, String digestKey, String subject, String content, boolean html) {
+        return save(to, digestKey, subject, content, html,
+                LocalDateTime.now().plusNanos(config.getDigestWindowMs() * 1_000_000L));
+    }
+
+    @Override
+    public MailDeliveryResponse getDelivery(String deliveryId) {
+        return outboundMailRepository.findByDeliveryId(deliveryId)
+                .map(MailDeliveryResponse::fromEntity)
+                .orElse(null);
+    }
+
+    @Override
+    public int dispatch() {
+        int claimed = 0;
+        // 每个发送线程最多持有一个批次，避免认领了却长时间排队
+        while (inFlightBatches.get() < Math.max(1, config.getWorkerThreads())) {
+            List<OutboundMail> batch = transactionTemplate.execute(status -> claimBatch());
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            claimed += batch.size();
+            inFlightBatches.incrementAndGet();
+            try {
+                workerExecutor.execute(() -> {
+                    try {
+                        deliver(batch);
+                    } finally {
+                        inFlightBatches.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 服务关闭中，已认领的邮件在租约到期后重新发送
+                inFlightBatches.decrementAndGet();
+                log.warn("提交邮件发送批次失败：{}", e.getMessage());
+                break;
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public int releaseExpired() {
+        Integer released = transactionTemplate.execute(status -> outboundMailRepository.releaseExpired(
+                LocalDateTime.now(), OutboundMail.MailStatus.PENDING, OutboundMail.MailStatus.SENDING));
+        if (released != null && released > 0) {
+            log.warn("{}封邮件认领租约已到期，重新放回发送队列", released);
+        }
+        return released != null ? released : 0;
+    }
+
+    @Override
+    public int purge() {
+        LocalDateTime before = LocalDateTime.now().minusDays(config.getRetentionDays());
+        Integer deleted = transactionTemplate.execute(status -> outboundMailRepository.deleteFinishedBefore(
+                List.of(OutboundMail.MailStatus.SENT, OutboundMail.MailStatus.FAILED), before));
+        return deleted != null ? deleted : 0;
+    }
+
+    private String save(String to, String digestKey, String subject, String content, boolean html,
+                        LocalDateTime nextAttemptTime) {
+        OutboundMail mail = OutboundMail.builder()
+                .deliveryId(UUID.randomUUID().toString())
+                .recipient(to)
+                .subject(subject)
+                .content(content)
+                .html(html)
+                .digestKey(digestKey)
+                .nextAttemptTime(nextAttemptTime)
+                .build();
+        outboundMailRepository.save(mail);
+        log.debug("邮件已加入发送队列，投递ID：{}，收件人：{}", mail.getDeliveryId(), to);
+        return mail.getDeliveryId();
+    }
+
+    /**
+     * 认领一批到期邮件；其中的摘要邮件连同同一收件人、同一类型的其他待发送邮件一起认领
+     */
+    private List<OutboundMail> claimBatch() {
+        List<Long> dueIds = outboundMailRepository.findDueIds(OutboundMail.MailStatus.PENDING, LocalDateTime.now(),
+                PageRequest.of(0, Math.max(1, config.getBatchSize())));
+        if (dueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime lockedUntil = LocalDateTime.now().plusMinutes(config.getLeaseMinutes());
+        if (outboundMailRepository.claim(dueIds, nodeId, lockedUntil,
+                OutboundMail.MailStatus.PENDING, OutboundMail.MailStatus.SENDING) == 0) {
+            return Collections.emptyList();
+        }
+        List<OutboundMail> claimed = new ArrayList<>(outboundMailRepository.findByIdInAndStatusAndLockedBy(
+                dueIds, OutboundMail.MailStatus.SENDING, nodeId));
+
+        Map<String, Long> digestSizes = new LinkedHashMap<>();
+        Map<String, OutboundMail> digestHeads = new HashMap<>();
+        for (OutboundMail mail : claimed) {
+            if (mail.getDigestKey() != null) {
+                digestSizes.merge(groupKey(mail), 1L, Long::sum);
+                digestHeads.putIfAbsent(groupKey(mail), mail);
+            }
+        }
+        for (Map.Entry<String, Long> entry : digestSizes.entrySet()) {
+            int remaining = (int) (config.getMaxDigestItems() - entry.getValue());
+            if (remaining <= 0) {
+                continue;
+            }
+            OutboundMail head = digestHeads.get(entry.getKey());
+            List<Long> extraIds = outboundMailRepository.findDigestIds(OutboundMail.MailStatus.PENDING,
+                    head.getRecipient(), head.getDigestKey(), LocalDateTime.now(), PageRequest.of(0, remaining));
+            if (!extraIds.isEmpty() && outboundMailRepository.claim(extraIds, nodeId, lockedUntil,
+                    OutboundMail.MailStatus.PENDING, OutboundMail.MailStatus.SENDING) > 0) {
+                claimed.addAll(outboundMailRepository.findByIdInAndStatusAndLockedBy(
+                        extraIds, OutboundMail.MailStatus.SENDING, nodeId));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 在一次SMTP连接中发送整批邮件，并按每封邮件的结果更新状态
+     */
+    private void deliver(List<OutboundMail> batch) {
+        Map<String, List<OutboundMail>> groups = new LinkedHashMap<>();
+        for (OutboundMail mail : batch) {
+            groups.computeIfAbsent(groupKey(mail), key -> new ArrayList<>()).add(mail);
+        }
+
+        Map<MimeMessage, List<OutboundMail>> messages = new IdentityHashMap<>();
+        List<MimeMessage> ordered = new ArrayList<>();
+        Map<OutboundMail, String> failures = new IdentityHashMap<>();
+        for (List<OutboundMail> group : groups.values()) {
+            try {
+                MimeMessage message = buildMessage(group);
+                messages.put(message, group);
+                ordered.add(message);
+            } catch (Exception e) {
+                group.forEach(mail -> failures.put(mail, "构建邮件失败：" + e.getMessage()));
+            }
+        }
+
+        if (!ordered.isEmpty()) {
+            try {
+                mailSender.send(ordered.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                if (failedMessages.isEmpty()) {
+                    // 连接或认证失败，整批都未发出
+                    messages.values().forEach(group -> group.forEach(mail -> failures.put(mail, e.getMessage())));
+                } else {
+                    failedMessages.forEach((message, cause) -> {
+                        List<OutboundMail> group = messages.get(message);
+                        if (group != null) {
+                            group.forEach(mail -> failures.put(mail, cause.getMessage()));
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                messages.values().forEach(group -> group.forEach(mail -> failures.put(mail, e.getMessage())));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Integer lost;
+        try {
+            lost = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (OutboundMail mail : batch) {
+                    if (!complete(mail, failures.get(mail), now)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        } catch (Exception e) {
+            log.error("更新邮件发送状态失败，{}封邮件将在租约到期后重新处理", batch.size(), e);
+            return;
+        }
+        if (lost != null && lost > 0) {
+            log.warn("{}封邮件的认领租约已在发送途中到期并被重新认领，本次发送结果未写回", lost);
+        }
+        log.info("邮件批次发送完成：{}封（合并为{}封），失败{}封", batch.size(), groups.size(), failures.size());
+    }
+
+    /**
+     * 按发送结果更新单封邮件：成功标记已发送，失败按指数退避放回队列，次数用尽标记为失败
+     * @return 邮件仍由本节点认领且已更新时返回true
+     */
+    private boolean complete(OutboundMail mail, String error, LocalDateTime now) {
+        int attempts = mail.getAttempts() + 1;
+        if (error == null) {
+            return outboundMailRepository.complete(mail.getId(), nodeId, OutboundMail.MailStatus.SENDING,
+                    OutboundMail.MailStatus.SENT, mail.getNextAttemptTime(), null, now) > 0;
+        }
+        if (attempts >= config.getMaxAttempts()) {
+            log.error("邮件发送失败，已放弃，投递ID：{}，收件人：{}，错误：{}",
+                    mail.getDeliveryId(), mail.getRecipient(), error);
+            return outboundMailRepository.complete(mail.getId(), nodeId, OutboundMail.MailStatus.SENDING,
+                    OutboundMail.MailStatus.FAILED, mail.getNextAttemptTime(), truncate(error), null) > 0;
+        }
+        long backoff = RetryBackoff.exponential(attempts, config.getInitialBackoffMs(), config.getMaxBackoffMs());
+        return outboundMailRepository.complete(mail.getId(), nodeId, OutboundMail.MailStatus.SENDING,
+                OutboundMail.MailStatus.PENDING, now.plusNanos(backoff * 1_000_000L), truncate(error), null) > 0;
+    }
+
+    private MimeMessage buildMessage(List<OutboundMail> group) throws Exception {
+        List<MailDigest.Item> items = new ArrayList<>(group.size());
+        for (OutboundMail mail : group) {
+            items.add(new MailDigest.Item(mail.getSubject(), mail.getContent(), Boolean.TRUE.equals(mail.getHtml())));
+        }
+        MailDigest.Composed composed = MailDigest.compose(items);
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(group.get(0).getRecipient());
+        helper.setSubject(composed.subject());
+        helper.setText(composed.content(), composed.html());
+        return message;
+    }
+
+    /**
+     * 摘要邮件按收件人和摘要类型分组，其他邮件各自单独发送
+     */
+    private String groupKey(OutboundMail mail) {
+        return mail.getDigestKey() != null
+                ? mail.getRecipient() + "\n" + mail.getDigestKey()
+                : "#" + mail.getId();
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return "未知错误";
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,421 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.TimeSeriesConfig;
+import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.MeasurementTrendRequest;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.MeasurementTrendResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.MeasurementTimeSeriesService;
+import com.mmw.metal_micro_wire_backend.util.Lttb;
+import com.mmw.metal_micro_wire_backend.util.MeasurementMetric;
+import com.mmw.metal_micro_wire_backend.util.NodeLocalAggregates;
+import com.mmw.metal_micro_wire_backend.util.TimeSeriesBucket;
+import com.mmw.metal_micro_wire_backend.util.TimeSeriesResolution;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * 检测指标时间序列服务实现类
+ * 本节点在内存中聚合当前时间附近的桶，定时写入Redis哈希 ts:{粒度}:{设备}:{分区}，
+ * 字段为 桶标识|场景|节点，值为该节点对该桶的全部聚合（覆盖写入）。查询时合并所有节点和场景的字段。
+ * 回填只读取截止时间之前入库的数据，之后的数据由实时计入覆盖。
+ * 桶只增不减：删除或归档的数据不会从桶中扣除
+ */
+@Slf4j
+@Service
+public class MeasurementTimeSeriesServiceImpl implements MeasurementTimeSeriesService {
+
+    private static final String KEY_PREFIX = "ts:";
+    private static final String META_PREFIX = "ts:meta:";
+    private static final String BACKFILL_NODE = "backfill";
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    private static final String FIELD_SEPARATOR = NodeLocalAggregates.FIELD_SEPARATOR;
+
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeSeriesConfig config;
+    private final String nodeId;
+
+    /**
+     * 本节点的桶
+     */
+    private final NodeLocalAggregates<BucketKey, TimeSeriesBucket> localBuckets;
+
+    private record BucketKey(TimeSeriesResolution resolution, String deviceId, String bucketId, String scenario) {
+
+        String redisKey() {
+            return KEY_PREFIX + resolution.name() + ":" + deviceId + ":" + resolution.partitionOf(bucketId);
+        }
+
+        String field(String node) {
+            return bucketId + FIELD_SEPARATOR + scenario + FIELD_SEPARATOR + node;
+        }
+    }
+
+    public MeasurementTimeSeriesServiceImpl(StringRedisTemplate redisTemplate,
+                                            JdbcTemplate jdbcTemplate,
+                                            TimeSeriesConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.localBuckets = new NodeLocalAggregates<>(redisTemplate, META_PREFIX, config.getNodeId());
+        this.nodeId = localBuckets.nodeId();
+    }
+
+    /**
+     * 登记回填截止时间
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled() || !config.isBackfillEnabled()) {
+            return;
+        }
+        try {
+            localBuckets.registerStart();
+        } catch (Exception e) {
+            log.warn("登记时间序列回填截止时间失败，将使用本节点启动时间：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 新检测数据提交后计入时间序列
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (event.getChangeType() != WireMaterialChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        try {
+            record(event.getWireMaterial());
+        } catch (Exception e) {
+            log.error("更新检测指标时间序列失败，批次号：{}", event.getWireMaterial().getBatchNumber(), e);
+        }
+    }
+
+    @Override
+    public void record(WireMaterial wireMaterial) {
+        if (!config.isEnabled() || !StringUtils.hasText(wireMaterial.getDeviceId())) {
+            return;
+        }
+        LocalDateTime eventTime = eventTimeOf(wireMaterial);
+        String scenario = NodeLocalAggregates.valueOrNone(wireMaterial.getScenarioCode());
+
+        for (TimeSeriesResolution resolution : TimeSeriesResolution.values()) {
+            BucketKey key = new BucketKey(resolution, wireMaterial.getDeviceId(),
+                    resolution.bucketId(eventTime), scenario);
+            // 本节点启动后开始的桶不可能已有本节点写入的数据，无需从Redis读回；读取在锁外进行
+            boolean mayExist = resolution.truncate(eventTime).isBefore(localBuckets.startedAt());
+            localBuckets.update(key, k -> mayExist ? loadOwnBucket(k) : new TimeSeriesBucket(),
+                    bucket -> addMeasurements(bucket, wireMaterial));
+        }
+    }
+
+    @Override
+    public int flush() {
+        // 只保留当前桶和上一个桶在内存中，更早的桶再有数据时从Redis读回本节点字段
+        LocalDateTime now = LocalDateTime.now();
+        return localBuckets.flush(TimeSeriesBucket::encode, key -> TimeSeriesResolution.parseBucketId(key.bucketId())
+                        .plus(key.resolution().getBucketDuration().multipliedBy(2)).isBefore(now),
+                encoded -> writeBuckets(encoded, nodeId));
+    }
+
+    @Override
+    public int backfill() {
+        if (!config.isEnabled() || !config.isBackfillEnabled()) {
+            return 0;
+        }
+        if (!localBuckets.tryStartBackfill()) {
+            return 0;
+        }
+
+        // 截止时间之后入库的数据已由实时计入覆盖，不再回填，避免桶内计数和累计值重复
+        Timestamp cutoff = Timestamp.valueOf(localBuckets.backfillCutoff());
+        log.info("开始回填检测指标时间序列，截止入库时间：{}", cutoff);
+        LocalDateTime now = LocalDateTime.now();
+        // 按事件时间顺序扫描，游标越过的桶已完整，可以立即写出，内存中只保留未完成的桶
+        Map<BucketKey, TimeSeriesBucket> pending = new HashMap<>();
+        LocalDateTime lastEventTime = oldestRetained(TimeSeriesResolution.DAY, now);
+        String lastBatchNumber = "";
+        int backfilled = 0;
+        int written = 0;
+        try {
+            while (true) {
+                List<WireMaterial> batch = jdbcTemplate.query(
+                        "SELECT batch_number, device_id, event_time, scenario_code, " +
+                                "diameter, resistance, extensibility, weight FROM wire_materials " +
+                                "WHERE (event_time > ? OR (event_time = ? AND batch_number > ?)) AND create_time < ? " +
+                                "ORDER BY event_time, batch_number LIMIT " + BACKFILL_BATCH_SIZE,
+                        (rs, rowNum) -> {
+                            WireMaterial wireMaterial = new WireMaterial();
+                            wireMaterial.setBatchNumber(rs.getString("batch_number"));
+                            wireMaterial.setDeviceId(rs.getString("device_id"));
+                            wireMaterial.setEventTime(rs.getTimestamp("event_time").toLocalDateTime());
+                            wireMaterial.setScenarioCode(rs.getString("scenario_code"));
+                            wireMaterial.setDiameter(rs.getBigDecimal("diameter"));
+                            wireMaterial.setResistance(rs.getBigDecimal("resistance"));
+                            wireMaterial.setExtensibility(rs.getBigDecimal("extensibility"));
+                            wireMaterial.setWeight(rs.getBigDecimal("weight"));
+                            return wireMaterial;
+                        },
+                        Timestamp.valueOf(lastEventTime), Timestamp.valueOf(lastEventTime), lastBatchNumber, cutoff);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                for (WireMaterial wireMaterial : batch) {
+                    if (!StringUtils.hasText(wireMaterial.getDeviceId())) {
+                        continue;
+                    }
+                    String scenario = NodeLocalAggregates.valueOrNone(wireMaterial.getScenarioCode());
+                    for (TimeSeriesResolution resolution : TimeSeriesResolution.values()) {
+                        if (wireMaterial.getEventTime().isBefore(oldestRetained(resolution, now))) {
+                            continue;
+                        }
+                        BucketKey key = new BucketKey(resolution, wireMaterial.getDeviceId(),
+                                resolution.bucketId(wireMaterial.getEventTime()), scenario);
+                        addMeasurements(pending.computeIfAbsent(key, k -> new TimeSeriesBucket()), wireMaterial);
+                    }
+                }
+
+                backfilled += batch.size();
+                WireMaterial last = batch.get(batch.size() - 1);
+                lastEventTime = last.getEventTime();
+                lastBatchNumber = last.getBatchNumber();
+                written += writeCompletedBuckets(pending, lastEventTime);
+                if (batch.size() < BACKFILL_BATCH_SIZE) {
+                    break;
+                }
+            }
+
+            written += writeCompletedBuckets(pending, null);
+            localBuckets.completeBackfill();
+        } catch (Exception e) {
+            localBuckets.abortBackfill();
+            throw e;
+        }
+
+        log.info("检测指标时间序列回填完成，共{}行，{}个桶", backfilled, written);
+        return backfilled;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BaseResponse<MeasurementTrendResponse> getTrend(MeasurementTrendRequest request) {
+        if (!config.isEnabled()) {
+            return BaseResponse.error("检测指标时间序列未启用");
+        }
+        if (!StringUtils.hasText(request.getDeviceId())) {
+            return BaseResponse.error("设备ID不能为空");
+        }
+        MeasurementMetric metric;
+        try {
+            metric = MeasurementMetric.valueOf(String.valueOf(request.getMetric()).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return BaseResponse.error("不支持的检测指标：" + request.getMetric());
+        }
+        int maxPoints = request.getMaxPoints() != null ? request.getMaxPoints() : config.getDefaultMaxPoints();
+        if (maxPoints < 2 || maxPoints > config.getMaxPointsLimit()) {
+            return BaseResponse.error("点数必须在2到" + config.getMaxPointsLimit() + "之间");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = request.getEndTime() != null ? request.getEndTime() : now;
+        LocalDateTime start = request.getStartTime() != null ? request.getStartTime()
+                : end.minusHours(config.getDefaultRangeHours());
+        if (!start.isBefore(end)) {
+            return BaseResponse.error("开始时间必须早于结束时间");
+        }
+        LocalDateTime oldest = oldestRetained(TimeSeriesResolution.DAY, now);
+        if (start.isBefore(oldest)) {
+            start = oldest;
+        }
+        if (!start.isBefore(end)) {
+            return BaseResponse.error("查询时间范围超出保留期");
+        }
+
+        LocalDateTime rangeStart = start;
+        TimeSeriesResolution resolution = TimeSeriesResolution.choose(start, end, maxPoints,
+                candidate -> !rangeStart.isBefore(oldestRetained(candidate, now)));
+        String deviceId = request.getDeviceId();
+        String scenarioFilter = StringUtils.hasText(request.getScenarioCode()) ? NodeLocalAggregates.valueOrNone(request.getScenarioCode()) : null;
+        String firstBucket = resolution.bucketId(start);
+        String lastBucket = resolution.bucketId(end.minusNanos(1));
+
+        List<String> keys = new ArrayList<>();
+        for (String partition : resolution.partitions(start, end)) {
+            keys.add(KEY_PREFIX + resolution.name() + ":" + deviceId + ":" + partition);
+        }
+        List<Object> stored = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String key : keys) {
+                stringConnection.hGetAll(key);
+            }
+            return null;
+        });
+
+        Map<String, TimeSeriesBucket> merged = new TreeMap<>();
+        synchronized (localBuckets) {
+            for (Object result : stored) {
+                if (result == null) {
+                    continue;
+                }
+                for (Map.Entry<String, String> field : ((Map<String, String>) result).entrySet()) {
+                    String[] parts = field.getKey().split("\\" + FIELD_SEPARATOR, 3);
+                    String bucketId = parts[0];
+                    if (bucketId.compareTo(firstBucket) < 0 || bucketId.compareTo(lastBucket) > 0
+                            || (scenarioFilter != null && !scenarioFilter.equals(parts[1]))) {
+                        continue;
+                    }
+                    // 本节点内存中的桶比Redis中的新
+                    if (parts[2].equals(nodeId)
+                            && localBuckets.contains(new BucketKey(resolution, deviceId, bucketId, parts[1]))) {
+                        continue;
+                    }
+                    merged.computeIfAbsent(bucketId, k -> new TimeSeriesBucket())
+                            .merge(TimeSeriesBucket.decode(field.getValue()));
+                }
+            }
+            localBuckets.forEach((key, bucket) -> {
+                if (key.resolution() == resolution && key.deviceId().equals(deviceId)
+                        && key.bucketId().compareTo(firstBucket) >= 0 && key.bucketId().compareTo(lastBucket) <= 0
+                        && (scenarioFilter == null || scenarioFilter.equals(key.scenario()))) {
+                    merged.computeIfAbsent(key.bucketId(), k -> new TimeSeriesBucket()).merge(bucket);
+                }
+            });
+        }
+
+        List<MeasurementTrendResponse.TrendPoint> points = new ArrayList<>();
+        merged.forEach((bucketId, bucket) -> {
+            if (bucket.getCount(metric) > 0) {
+                points.add(MeasurementTrendResponse.TrendPoint.builder()
+                        .time(TimeSeriesResolution.parseBucketId(bucketId))
+                        .count(bucket.getCount(metric))
+                        .min(bucket.getMin(metric))
+                        .max(bucket.getMax(metric))
+                        .mean(bucket.getMean(metric))
+                        .build());
+            }
+        });
+        List<MeasurementTrendResponse.TrendPoint> sampled = Lttb.downsample(points, maxPoints,
+                point -> point.getTime().toEpochSecond(ZoneOffset.UTC), MeasurementTrendResponse.TrendPoint::getMean);
+
+        MeasurementTrendResponse response = MeasurementTrendResponse.builder()
+                .deviceId(deviceId)
+                .scenarioCode(request.getScenarioCode())
+                .metric(metric.name())
+                .metricName(metric.getDisplayName())
+                .resolution(resolution.name())
+                .startTime(start)
+                .endTime(end)
+                .bucketCount(points.size())
+                .downsampled(sampled.size() < points.size())
+                .points(sampled)
+                .build();
+        return BaseResponse.success("获取检测指标趋势成功", response);
+    }
+
+    /**
+     * 写出回填中已完整的桶
+     * @param cursor 扫描游标的事件时间，桶结束时间不晚于游标即为完整；为null时写出全部
+     * @return 写出的桶数
+     */
+    private int writeCompletedBuckets(Map<BucketKey, TimeSeriesBucket> pending, LocalDateTime cursor) {
+        Map<BucketKey, String> encoded = new HashMap<>();
+        Iterator<Map.Entry<BucketKey, TimeSeriesBucket>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<BucketKey, TimeSeriesBucket> entry = iterator.next();
+            BucketKey key = entry.getKey();
+            LocalDateTime bucketEnd = TimeSeriesResolution.parseBucketId(key.bucketId())
+                    .plus(key.resolution().getBucketDuration());
+            if (cursor == null || !bucketEnd.isAfter(cursor)) {
+                encoded.put(key, entry.getValue().encode());
+                iterator.remove();
+            }
+        }
+        if (!encoded.isEmpty()) {
+            writeBuckets(encoded, BACKFILL_NODE);
+        }
+        return encoded.size();
+    }
+
+    private void writeBuckets(Map<BucketKey, String> encoded, String node) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            Map<String, Long> ttlByKey = new HashMap<>();
+            encoded.forEach((key, value) -> {
+                stringConnection.hSet(key.redisKey(), key.field(node), value);
+                ttlByKey.putIfAbsent(key.redisKey(), ttlSeconds(key.resolution()));
+            });
+            ttlByKey.forEach(stringConnection::expire);
+            return null;
+        });
+    }
+
+    /**
+     * 读回本节点之前写入的桶（重启或较早的桶再次有数据时），不存在时新建
+     */
+    private TimeSeriesBucket loadOwnBucket(BucketKey key) {
+        try {
+            Object stored = redisTemplate.opsForHash().get(key.redisKey(), key.field(nodeId));
+            if (stored != null) {
+                return TimeSeriesBucket.decode(stored.toString());
+            }
+        } catch (Exception e) {
+            log.warn("读取时间序列桶失败，新建桶：{}", key, e);
+        }
+        return new TimeSeriesBucket();
+    }
+
+    private void addMeasurements(TimeSeriesBucket bucket, WireMaterial wireMaterial) {
+        for (MeasurementMetric metric : MeasurementMetric.values()) {
+            BigDecimal value = metric.valueOf(wireMaterial);
+            if (value != null) {
+                bucket.add(metric, value.doubleValue());
+            }
+        }
+    }
+
+    private int retentionDays(TimeSeriesResolution resolution) {
+        return switch (resolution) {
+            case MINUTE -> config.getMinuteRetentionDays();
+            case HOUR -> config.getHourRetentionDays();
+            case DAY -> config.getDayRetentionDays();
+        };
+    }
+
+    private LocalDateTime oldestRetained(TimeSeriesResolution resolution, LocalDateTime now) {
+        return now.minusDays(retentionDays(resolution));
+    }
+
+    /**
+     * 分区键的过期时间：保留期加上一个分区的跨度（天、月、年），保证分区内最晚的桶也能保留足够时间
+     */
+    private long ttlSeconds(TimeSeriesResolution resolution) {
+        int partitionDays = switch (resolution) {
+            case MINUTE -> 1;
+            case HOUR -> 31;
+            case DAY -> 366;
+        };
+        return Duration.ofDays(retentionDays(resolution) + (long) partitionDays).getSeconds();
+    }
+
+    private LocalDateTime eventTimeOf(WireMaterial wireMaterial) {
+        return wireMaterial.getEventTime() != null ? wireMaterial.getEventTime() : LocalDateTime.now();
+    }
+}
@@ -1,24 +1,33 @@
 package com.mmw.metal_micro_wire_backend.service.impl;
 
 import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.DistinctCountResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.MeasurementPercentileResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.OverallStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.ScenarioStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.dto.overview.YearlyStatisticsResponse;
 import com.mmw.metal_micro_wire_backend.entity.ApplicationScenario;
 import com.mmw.metal_micro_wire_backend.repository.ApplicationScenarioRepository;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
+import com.mmw.metal_micro_wire_backend.repository.WireMaterialRollupRepository;
 import com.mmw.metal_micro_wire_backend.service.OverViewService;
+import com.mmw.metal_micro_wire_backend.service.RecentDetectionStoreService;
+import com.mmw.metal_micro_wire_backend.service.StatisticsSketchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +40,9 @@ public class OverViewServiceImpl implements OverViewService {
 
     private final WireMaterialRepository wireMaterialRepository;
     private final ApplicationScenarioRepository applicationScenarioRepository;
+    private final WireMaterialRollupRepository wireMaterialRollupRepository;
+    private final RecentDetectionStoreService recentDetectionStoreService;
+    private final StatisticsSketchService statisticsSketchService;
 
     @Override
     public BaseResponse<YearlyStatisticsResponse> getYearlyStatistics() {
@@ -43,14 +55,19 @@ public class OverViewServiceImpl implements OverViewService {
             // 查询月度统计数据
             List<Object[]> monthlyData = wireMaterialRepository.getMonthlyStatistics(twelveMonthsAgo);
 
+            // 合并已归档的汇总数据，按年月排序
+            Map<YearMonth, long[]> monthlyCounts = new TreeMap<>();
+            mergeMonthlyCounts(monthlyCounts, monthlyData);
+            mergeMonthlyCounts(monthlyCounts, wireMaterialRollupRepository.getArchivedMonthlyStatistics(twelveMonthsAgo.toLocalDate()));
+
             List<YearlyStatisticsResponse.MonthlyStatistics> monthlyStatistics = new ArrayList<>();
 
-            for (Object[] row : monthlyData) {
-                Integer year = ((Number) row[0]).intValue();
-                Integer month = ((Number) row[1]).intValue();
-                Long passCount = ((Number) row[2]).longValue();
-                Long failCount = ((Number) row[3]).longValue();
-                Long totalCount = ((Number) row[4]).longValue();
+            for (Map.Entry<YearMonth, long[]> entry : monthlyCounts.entrySet()) {
+                Integer year = entry.getKey().getYear();
+                Integer month = entry.getKey().getMonthValue();
+                Long passCount = entry.getValue()[0];
+                Long failCount = entry.getValue()[1];
+                Long totalCount = entry.getValue()[2];
 
                 // 计算合格率
                 Double passRate = totalCount > 0 ?
@@ -121,8 +138,18 @@ public class OverViewServiceImpl implements OverViewService {
                     return BaseResponse.error("不支持的时间范围参数：" + how);
             }
 
-            // 查询场景统计数据
-            List<Object[]> scenarioData = wireMaterialRepository.getScenarioStatistics(startTime, endTime);
+            // 查询场景统计数据（本月、上月等近期范围直接使用内存存储）
+            List<Object[]> scenarioData = recentDetectionStoreService.getScenarioStatistics(startTime, endTime);
+            if (scenarioData == null) {
+                scenarioData = wireMaterialRepository.getScenarioStatistics(startTime, endTime);
+            }
+
+            // 合并已归档的汇总数据后按使用次数降序排列
+            Map<String, Long> scenarioCounts = new LinkedHashMap<>();
+            mergeScenarioCounts(scenarioCounts, scenarioData);
+            mergeScenarioCounts(scenarioCounts, wireMaterialRollupRepository.getArchivedScenarioStatistics(
+                    WireMaterialRepository.rangeStart(startTime).toLocalDate(),
+                    WireMaterialRepository.rangeEnd(endTime).toLocalDate()));
 
             // 获取所有应用场景信息用于补充场景名称和线材类型
             List<ApplicationScenario> allScenarios = applicationScenarioRepository.findAll();
@@ -131,9 +158,12 @@ public class OverViewServiceImpl implements OverViewService {
 
             List<ScenarioStatisticsResponse.ScenarioStatistics> scenarioStatistics = new ArrayList<>();
 
-            for (Object[] row : scenarioData) {
-                String scenarioCode = (String) row[0];
-                Long scenarioCount = ((Number) row[1]).longValue();
+            List<Map.Entry<String, Long>> sortedScenarioCounts = new ArrayList<>(scenarioCounts.entrySet());
+            sortedScenarioCounts.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+            for (Map.Entry<String, Long> entry : sortedScenarioCounts) {
+                String scenarioCode = entry.getKey();
+                Long scenarioCount = entry.getValue();
 
                 ApplicationScenario scenario = scenarioMap.get(scenarioCode);
                 String scenarioName = scenario != null ? scenario.getScenarioName() : "未知场景";
@@ -182,6 +212,15 @@ public class OverViewServiceImpl implements OverViewService {
                 totalFailCount = ((Number) row[2]).longValue();
             }
 
+            // 累加已归档数据的汇总
+            List<Object[]> archivedData = wireMaterialRollupRepository.getArchivedOverallStatistics();
+            if (!archivedData.isEmpty()) {
+                Object[] row = archivedData.get(0);
+                totalDetectionCount += ((Number) row[0]).longValue();
+                totalPassCount += ((Number) row[1]).longValue();
+                totalFailCount += ((Number) row[2]).longValue();
+            }
+
             // 计算总合格率
             Double totalPassRate = totalDetectionCount > 0 ?
                 BigDecimal.valueOf(totalPassCount * 100.0 / totalDetectionCount)
@@ -189,7 +228,14 @@ public class OverViewServiceImpl implements OverViewService {
                     .doubleValue() : 0.0;
 
             // 获取本月统计
-            List<Object[]> currentMonthData = wireMaterialRepository.getCurrentMonthStatistics(now.getYear(), now.getMonthValue());
+            YearMonth thisMonth = YearMonth.from(now);
+            LocalDateTime thisMonthStart = thisMonth.atDay(1).atStartOfDay();
+            LocalDateTime nextMonthStart = thisMonth.plusMonths(1).atDay(1).atStartOfDay();
+            List<Object[]> currentMonthData = recentDetectionStoreService.getOverallStatistics(
+                    thisMonthStart, nextMonthStart.minusNanos(1000), null);
+            if (currentMonthData == null) {
+                currentMonthData = wireMaterialRepository.getCurrentMonthStatistics(thisMonthStart, nextMonthStart);
+            }
             Long currentMonthCount = 0L;
             Long currentMonthPassCount = 0L;
             Long currentMonthFailCount = 0L;
@@ -213,8 +259,12 @@ public class OverViewServiceImpl implements OverViewService {
                     .doubleValue() : 0.0;
 
             // 获取上月统计
-            LocalDateTime lastMonth = now.minusMonths(1);
-            List<Object[]> lastMonthData = wireMaterialRepository.getLastMonthStatistics(lastMonth.getYear(), lastMonth.getMonthValue());
+            YearMonth lastMonth = thisMonth.minusMonths(1);
+            List<Object[]> lastMonthData = recentDetectionStoreService.getOverallStatistics(
+                    lastMonth.atDay(1).atStartOfDay(), thisMonthStart.minusNanos(1000), null);
+            if (lastMonthData == null) {
+                lastMonthData = wireMaterialRepository.getLastMonthStatistics(lastMonth.atDay(1).atStartOfDay(), thisMonthStart);
+            }
             Long lastMonthCount = 0L;
 
             if (!lastMonthData.isEmpty()) {
@@ -225,8 +275,11 @@ public class OverViewServiceImpl implements OverViewService {
             // 获取总应用场景数
             Long totalScenarioCount = applicationScenarioRepository.count();
 
-            // 获取总设备数
-            Long totalDeviceCount = wireMaterialRepository.getDistinctDeviceCount();
+            // 获取总设备数（优先使用HyperLogLog估计值，草图回填完成前查询数据库）
+            Long totalDeviceCount = statisticsSketchService.getDistinctDeviceCount();
+            if (totalDeviceCount == null) {
+                totalDeviceCount = wireMaterialRepository.getDistinctDeviceCount();
+            }
             if (totalDeviceCount == null) {
                 totalDeviceCount = 0L;
             }
@@ -259,8 +312,12 @@ public class OverViewServiceImpl implements OverViewService {
         try {
             log.info("获取今日线材检测数据统计");
 
-            LocalDateTime now = LocalDateTime.now();
-            int todayCount = wireMaterialRepository.getTodayCount(now);
+            LocalDateTime todayStart = LocalDate.now().atStartOfDay();
+            List<Object[]> recentToday = recentDetectionStoreService.getOverallStatistics(
+                    todayStart, todayStart.plusDays(1).minusNanos(1000), null);
+            int todayCount = recentToday != null
+                    ? ((Number) recentToday.get(0)[0]).intValue()
+                    : wireMaterialRepository.getTodayCount(todayStart, todayStart.plusDays(1));
 
             log.info("今日线材检测数据统计获取成功，共{}条数据", todayCount);
             return BaseResponse.success("获取今日线材检测数据统计成功", todayCount);
@@ -271,4 +328,68 @@ public class OverViewServiceImpl implements OverViewService {
         }
 
     }
+
+    @Override
+    public BaseResponse<DistinctCountResponse> getDistinctCounts(String startDate, String endDate, String scenarioCode) {
+        try {
+            DistinctCountResponse response = statisticsSketchService.getDistinctCounts(
+                    parseDate(startDate), parseDate(endDate), scenarioCode);
+            return BaseResponse.success("获取去重计数成功", response);
+
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return BaseResponse.error("参数错误：" + e.getMessage());
+        } catch (Exception e) {
+            log.error("获取去重计数失败", e);
+            return BaseResponse.error("获取去重计数失败：" + e.getMessage());
+        }
+    }
+
+    @Override
+    public BaseResponse<List<MeasurementPercentileResponse>> getMeasurementPercentiles(String startDate, String endDate,
+                                                                                      String scenarioCode, String productionMachine) {
+        try {
+            List<MeasurementPercentileResponse> response = statisticsSketchService.getPercentiles(
+                    parseDate(startDate), parseDate(endDate), scenarioCode, productionMachine);
+            return BaseResponse.success("获取检测指标分位数成功", response);
+
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return BaseResponse.error("参数错误：" + e.getMessage());
+        } catch (Exception e) {
+            log.error("获取检测指标分位数失败", e);
+            return BaseResponse.error("获取检测指标分位数失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 解析yyyy-MM-dd格式的日期，为空时返回null
+     */
+    private LocalDate parseDate(String date) {
+        return date == null || date.isBlank() ? null : LocalDate.parse(date);
+    }
+
+    /**
+     * 将月度统计行（年, 月, 合格数, 不合格数, 总数）累加到按年月索引的计数表中
+     */
+    private void mergeMonthlyCounts(Map<YearMonth, long[]> monthlyCounts, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            YearMonth month = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            long[] counts = monthlyCounts.computeIfAbsent(month, key -> new long[3]);
+            counts[0] += toLong(row[2]);
+            counts[1] += toLong(row[3]);
+            counts[2] += toLong(row[4]);
+        }
+    }
+
+    /**
+     * 将场景统计行（场景代码, 使用次数）累加到计数表中
+     */
+    private void mergeScenarioCounts(Map<String, Long> scenarioCounts, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            scenarioCounts.merge((String) row[0], toLong(row[1]), Long::sum);
+        }
+    }
+
+    private long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
 }
@@ -4,13 +4,16 @@ import com.mmw.metal_micro_wire_backend.dto.ml.ModelPredictionRequest;
 import com.mmw.metal_micro_wire_backend.dto.ml.ModelPredictionResponse;
 import com.mmw.metal_micro_wire_backend.dto.ml.PredictionData;
 import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
 import com.mmw.metal_micro_wire_backend.service.MachineLearningService;
 import com.mmw.metal_micro_wire_backend.service.QualityEvaluationService;
 import com.mmw.metal_micro_wire_backend.service.RuleEngineService;
+import com.mmw.metal_micro_wire_backend.util.KeysetPageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -45,6 +48,7 @@ public class QualityEvaluationServiceImpl implements QualityEvaluationService {
     private final RuleEngineService ruleEngineService;
     private final MachineLearningService machineLearningService;
     private final WireMaterialRepository wireMaterialRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * 模型置信度阈值，低于此值需要人工审核
@@ -94,12 +98,14 @@ public class QualityEvaluationServiceImpl implements QualityEvaluationService {
             log.info("最终评估结果：{}", finalResult.getDescription());
             
             // 4. 保存评估结果
+            eventPublisher.publishEvent(WireMaterialChangedEvent.saved(wireMaterial));
             return wireMaterialRepository.save(wireMaterial);
             
         } catch (Exception e) {
             log.error("综合评估失败，批次号：{}", wireMaterial.getBatchNumber(), e);
             // 评估失败时，保持原有的规则引擎评估结果，设置最终结果为待审核
             wireMaterial.setFinalEvaluationResult(WireMaterial.FinalEvaluationResult.PENDING_REVIEW);
+            eventPublisher.publishEvent(WireMaterialChangedEvent.saved(wireMaterial));
             return wireMaterialRepository.save(wireMaterial);
         }
     }
@@ -160,6 +166,14 @@ public class QualityEvaluationServiceImpl implements QualityEvaluationService {
             WireMaterial.FinalEvaluationResult.PENDING_REVIEW
         );
         
+        // 游标分页：不执行COUNT查询，查询代价与页深度无关
+        if (request.isKeysetMode()) {
+            Specification<WireMaterial> spec = (root, query, criteriaBuilder) ->
+                    root.get("finalEvaluationResult").in(pendingStates);
+            return toKeysetResponse(KeysetPageUtil.fetch(wireMaterialRepository, spec, request.getSortBy(), direction,
+                    request.getAfter(), request.getSize(), request.isWithTotal()), request.getSize(), request.getAfter());
+        }
+        
         Page<WireMaterial> wireMaterialPage = wireMaterialRepository.findByFinalEvaluationResultIn(pendingStates, pageable);
         
         // 转换为响应DTO
@@ -194,6 +208,12 @@ public class QualityEvaluationServiceImpl implements QualityEvaluationService {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
         
+        // 游标分页：不执行COUNT查询，查询代价与页深度无关
+        if (request.isKeysetMode()) {
+            return toKeysetResponse(KeysetPageUtil.fetch(wireMaterialRepository, spec, request.getSortBy(), direction,
+                    request.getAfter(), request.getSize(), request.isWithTotal()), request.getSize(), request.getAfter());
+        }
+        
         Page<WireMaterial> wireMaterialPage = wireMaterialRepository.findAll(spec, pageable);
         
         // 转换为响应DTO
@@ -201,6 +221,15 @@ public class QualityEvaluationServiceImpl implements QualityEvaluationService {
         return QualityEvaluationPageResponse.fromPage(responsePage);
     }
     
+    /**
+     * 将游标分页结果转换为响应DTO
+     */
+    private QualityEvaluationPageResponse toKeysetResponse(KeysetPageUtil.KeysetPage keysetPage, int size, String after) {
+        return QualityEvaluationPageResponse.fromKeysetPage(
+                keysetPage.content().stream().map(WireMaterialResponse::fromEntity).toList(),
+                size, !StringUtils.hasText(after), keysetPage.nextCursor(), keysetPage.totalElements());
+    }
+    
     @Override
     @Transactional
     public boolean confirmFinalResult(String batchNumber, 
@@ -230,6 +259,7 @@ public class QualityEvaluationServiceImpl implements QualityEvaluationService {
             wireMaterial.setEvaluationMessage(updatedMessage);
             
             wireMaterialRepository.save(wireMaterial);
+            eventPublisher.publishEvent(WireMaterialChangedEvent.saved(wireMaterial));
             
             log.info("{}完成，批次号：{}，原结果：{}，新结果：{}", 
                 reviewType, batchNumber, originalResult.getDescription(), finalResult.getDescription());
@@ -0,0 +1,226 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.NotificationConfig;
+import com.mmw.metal_micro_wire_backend.config.QualityReportConfig;
+import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
+import com.mmw.metal_micro_wire_backend.dto.traceability.QualityStatisticsResponse;
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityAnalysisResponse;
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityQueryRequest;
+import com.mmw.metal_micro_wire_backend.service.MailQueueService;
+import com.mmw.metal_micro_wire_backend.service.QualityReportService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityService;
+import com.mmw.metal_micro_wire_backend.util.HtmlTemplate;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 质量报告服务实现类
+ * 报告在单线程的报告执行器中生成后加入邮件发送队列，定时任务线程只负责提交；
+ * 四个维度的统计查询和分段渲染在维度执行器中并行进行
+ */
+@Slf4j
+@Service
+public class QualityReportServiceImpl implements QualityReportService {
+
+    private static final String TEMPLATE_DIR = "templates/report/";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String PROBLEM_ROW_STYLE = "background: #fdecea;";
+
+    /**
+     * 闭区间上界与下一个周期起点的间隔，与溯源统计缓存的分桶方式一致
+     */
+    private static final long END_OFFSET_NANOS = 1000L;
+
+    private final TraceabilityService traceabilityService;
+    private final MailQueueService mailQueueService;
+    private final NotificationConfig notificationConfig;
+    private final QualityReportConfig config;
+
+    private final HtmlTemplate reportTemplate;
+    private final HtmlTemplate sectionTemplate;
+    private final HtmlTemplate rowTemplate;
+
+    private final ExecutorService reportExecutor;
+    private final ExecutorService dimensionExecutor;
+
+    public QualityReportServiceImpl(TraceabilityService traceabilityService,
+                                    MailQueueService mailQueueService,
+                                    NotificationConfig notificationConfig,
+                                    QualityReportConfig config) {
+        this.traceabilityService = traceabilityService;
+        this.mailQueueService = mailQueueService;
+        this.notificationConfig = notificationConfig;
+        this.config = config;
+        this.reportTemplate = loadTemplate("quality-report.html");
+        this.sectionTemplate = loadTemplate("dimension-section.html");
+        this.rowTemplate = loadTemplate("dimension-row.html");
+        this.reportExecutor = Executors.newSingleThreadExecutor(namedThreads("quality-report"));
+        this.dimensionExecutor = Executors.newFixedThreadPool(Math.max(1, config.getParallelism()),
+                namedThreads("quality-report-dimension"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reportExecutor.shutdownNow();
+        dimensionExecutor.shutdownNow();
+    }
+
+    @Override
+    public String renderReport(ReportPeriod period, LocalDate referenceDate) {
+        LocalDate startDate = period.startOf(referenceDate);
+        LocalDate endDate = period.endOf(referenceDate);
+        LocalDateTime startTime = startDate.atStartOfDay();
+        LocalDateTime endTime = endDate.atStartOfDay().minusNanos(END_OFFSET_NANOS);
+
+        // 各维度并行查询并渲染分段
+        Map<TraceabilityQueryRequest.QueryDimension, CompletableFuture<TraceabilityAnalysisResponse>> analyses =
+                new EnumMap<>(TraceabilityQueryRequest.QueryDimension.class);
+        Map<TraceabilityQueryRequest.QueryDimension, CompletableFuture<String>> sections =
+                new EnumMap<>(TraceabilityQueryRequest.QueryDimension.class);
+        for (TraceabilityQueryRequest.QueryDimension dimension : TraceabilityQueryRequest.QueryDimension.values()) {
+            CompletableFuture<TraceabilityAnalysisResponse> analysis = CompletableFuture.supplyAsync(
+                    () -> analyze(dimension, startTime, endTime), dimensionExecutor);
+            analyses.put(dimension, analysis);
+            sections.put(dimension, analysis.thenApplyAsync(
+                    response -> renderSection(dimension, response), dimensionExecutor));
+        }
+
+        StringBuilder sectionHtml = new StringBuilder();
+        for (CompletableFuture<String> section : sections.values()) {
+            sectionHtml.append(section.join());
+        }
+
+        TraceabilityAnalysisResponse.OverallStatistics overall = analyses.values().iterator().next().join()
+                .getOverallStatistics();
+        Map<String, Object> values = new HashMap<>();
+        values.put("title", period.getDescription() + "质量报告 - " + startDate.format(DATE_FORMATTER));
+        values.put("periodStart", startDate.format(DATE_FORMATTER));
+        values.put("periodEnd", endDate.minusDays(1).format(DATE_FORMATTER));
+        values.put("totalBatches", overall != null ? overall.getTotalBatches() : 0L);
+        values.put("passBatches", overall != null ? overall.getTotalPassBatches() : 0L);
+        values.put("failBatches", overall != null ? overall.getTotalFailBatches() : 0L);
+        values.put("passRate", formatRate(overall != null ? overall.getOverallPassRate() : null));
+        values.put("failRate", formatRate(overall != null ? overall.getOverallFailRate() : null));
+        values.put("threshold", notificationConfig.getFailRateThreshold());
+        values.put("sections", sectionHtml);
+        values.put("generatedTime", LocalDateTime.now().format(TIME_FORMATTER));
+        return reportTemplate.render(values);
+    }
+
+    @Override
+    public CompletableFuture<Integer> generateAndSendAsync(ReportPeriod period) {
+        return CompletableFuture.supplyAsync(() -> generateAndSend(period), reportExecutor);
+    }
+
+    private int generateAndSend(ReportPeriod period) {
+        String[] recipients = notificationConfig.getAdminEmails();
+        if (recipients == null || recipients.length == 0) {
+            log.info("未配置管理员邮箱，跳过{}质量报告", period.getDescription());
+            return 0;
+        }
+
+        LocalDate today = LocalDate.now();
+        long begin = System.currentTimeMillis();
+        String html = renderReport(period, today);
+        String subject = String.format("%s质量报告 - %s", period.getDescription(),
+                period.startOf(today).format(DATE_FORMATTER));
+        log.info("{}质量报告生成完成，耗时{}ms", period.getDescription(), System.currentTimeMillis() - begin);
+
+        int queued = 0;
+        for (String recipient : recipients) {
+            try {
+                mailQueueService.enqueue(recipient, subject, html, true);
+                queued++;
+            } catch (Exception e) {
+                log.error("{}质量报告加入发送队列失败，收件人：{}", period.getDescription(), recipient, e);
+            }
+        }
+        log.info("{}质量报告已加入发送队列：{}/{}位管理员", period.getDescription(), queued, recipients.length);
+        return queued;
+    }
+
+    private TraceabilityAnalysisResponse analyze(TraceabilityQueryRequest.QueryDimension dimension,
+                                                 LocalDateTime startTime, LocalDateTime endTime) {
+        TraceabilityQueryRequest request = new TraceabilityQueryRequest();
+        request.setDimension(dimension);
+        request.setStartTime(startTime);
+        request.setEndTime(endTime);
+        request.setFailRateThreshold(notificationConfig.getFailRateThreshold());
+        BaseResponse<TraceabilityAnalysisResponse> response = traceabilityService.performTraceabilityAnalysis(request);
+        if (!"success".equals(response.getCode()) || response.getData() == null) {
+            throw new IllegalStateException(dimension.getDescription() + "统计失败：" + response.getMsg());
+        }
+        return response.getData();
+    }
+
+    private String renderSection(TraceabilityQueryRequest.QueryDimension dimension,
+                                 TraceabilityAnalysisResponse analysis) {
+        List<QualityStatisticsResponse> statistics = analysis.getDetailStatistics() != null
+                ? analysis.getDetailStatistics() : Collections.emptyList();
+        BigDecimal threshold = BigDecimal.valueOf(notificationConfig.getFailRateThreshold());
+        long problematic = statistics.stream().filter(stat -> stat.hasQualityIssue(threshold)).count();
+
+        StringBuilder rows = new StringBuilder();
+        Map<String, Object> rowValues = new HashMap<>();
+        int listed = Math.min(statistics.size(), Math.max(1, config.getTopN()));
+        for (QualityStatisticsResponse stat : statistics.subList(0, listed)) {
+            rowValues.put("rowStyle", stat.hasQualityIssue(threshold) ? PROBLEM_ROW_STYLE : "");
+            rowValues.put("dimensionValue", stat.getDimensionValue() != null ? stat.getDimensionValue() : "未知");
+            rowValues.put("totalCount", stat.getTotalCount());
+            rowValues.put("passCount", stat.getPassCount());
+            rowValues.put("failCount", stat.getFailCount());
+            rowValues.put("pendingReviewCount", stat.getPendingReviewCount());
+            rowValues.put("failRate", stat.getFailRate());
+            rowValues.put("severity", stat.getIssueSeverity());
+            rowTemplate.renderTo(rows, rowValues);
+        }
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("dimensionName", dimension.getDescription());
+        values.put("valueCount", statistics.size());
+        values.put("problematicCount", problematic);
+        values.put("truncatedNote", listed < statistics.size() ? "（仅列出不合格数最多的前" + listed + "项）" : "");
+        values.put("rows", rows);
+        return sectionTemplate.render(values);
+    }
+
+    private String formatRate(Double rate) {
+        return rate != null ? String.format("%.2f", rate) : "0.00";
+    }
+
+    private static HtmlTemplate loadTemplate(String name) {
+        try {
+            ClassPathResource resource = new ClassPathResource(TEMPLATE_DIR + name);
+            return HtmlTemplate.compile(StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载报告模板失败：" + name, e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
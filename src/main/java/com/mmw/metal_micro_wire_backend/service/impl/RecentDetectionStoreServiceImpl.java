@@ -0,0 +1,378 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.RecentDetectionConfig;
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityQueryRequest;
+import com.mmw.metal_micro_wire_backend.entity.DimensionValue;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.DimensionDictionaryService;
+import com.mmw.metal_micro_wire_backend.service.RecentDetectionStoreService;
+import com.mmw.metal_micro_wire_backend.util.DetectionColumns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 近期检测数据内存列式存储服务实现类
+ * 启动时按(event_time, batch_number)分批加载保留期内的数据，之后由数据变更事件增量维护，定时按保留期淘汰。
+ * 维度列保存维度字典ID，应用场景编号在本地编码为整数
+ */
+@Slf4j
+@Service
+public class RecentDetectionStoreServiceImpl implements RecentDetectionStoreService {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private static final String SELECT_COLUMNS = "SELECT batch_number, event_time, diameter, resistance, extensibility, weight, " +
+            "manufacturer, manufacturer_id, responsible_person, responsible_person_id, process_type, process_type_id, " +
+            "production_machine, production_machine_id, contact_email, contact_email_id, scenario_code, final_evaluation_result " +
+            "FROM wire_materials ";
+
+    private static final int PASS = 1 + WireMaterial.FinalEvaluationResult.PASS.ordinal();
+    private static final int FAIL = 1 + WireMaterial.FinalEvaluationResult.FAIL.ordinal();
+    private static final int PENDING_REVIEW = 1 + WireMaterial.FinalEvaluationResult.PENDING_REVIEW.ordinal();
+    private static final int UNKNOWN = 1 + WireMaterial.FinalEvaluationResult.UNKNOWN.ordinal();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DimensionDictionaryService dimensionDictionaryService;
+    private final RecentDetectionConfig config;
+    private final DetectionColumns columns;
+
+    private final Map<String, Integer> scenarioIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> scenarioCodes = new ConcurrentHashMap<>();
+
+    /**
+     * 加载期间删除的批次，加载时跳过，避免用加载读到的旧数据覆盖删除
+     */
+    private final Set<String> removedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loading = false;
+    private volatile boolean ready = false;
+    private volatile LocalDateTime coverageStart;
+
+    public RecentDetectionStoreServiceImpl(JdbcTemplate jdbcTemplate,
+                                           DimensionDictionaryService dimensionDictionaryService,
+                                           RecentDetectionConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dimensionDictionaryService = dimensionDictionaryService;
+        this.config = config;
+        this.columns = new DetectionColumns(config.getParallelThreshold());
+    }
+
+    @Override
+    public int load() {
+        if (!config.isEnabled()) {
+            log.info("近期检测数据内存存储未启用");
+            return 0;
+        }
+
+        coverageStart = retentionStart();
+        loading = true;
+        Timestamp lastEventTime = Timestamp.valueOf(coverageStart);
+        String lastBatchNumber = "";
+        int loaded = 0;
+
+        try {
+            while (true) {
+                List<WireMaterial> batch = jdbcTemplate.query(SELECT_COLUMNS +
+                                "WHERE event_time >= ? AND (event_time > ? OR (event_time = ? AND batch_number > ?)) " +
+                                "ORDER BY event_time, batch_number LIMIT " + LOAD_BATCH_SIZE,
+                        (rs, rowNum) -> mapWireMaterial(rs),
+                        lastEventTime, lastEventTime, lastEventTime, lastBatchNumber);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                for (WireMaterial wireMaterial : batch) {
+                    if (!removedWhileLoading.contains(wireMaterial.getBatchNumber())
+                            && columns.insertIfAbsent(toRow(wireMaterial))) {
+                        loaded++;
+                    }
+                }
+                WireMaterial last = batch.get(batch.size() - 1);
+                lastEventTime = Timestamp.valueOf(last.getEventTime());
+                lastBatchNumber = last.getBatchNumber();
+                if (batch.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+            }
+            ready = true;
+        } finally {
+            loading = false;
+            removedWhileLoading.clear();
+        }
+
+        log.info("近期检测数据内存存储加载完成，保留起点：{}，行数：{}", coverageStart, loaded);
+        return loaded;
+    }
+
+    @Override
+    public int evictExpired() {
+        if (!ready) {
+            return 0;
+        }
+        LocalDateTime cutoff = retentionStart();
+        // 先推进覆盖起点，再淘汰数据，保证查询不会读到已淘汰的时间段
+        coverageStart = cutoff;
+        int evicted = columns.evictBefore(toEpochSecond(cutoff));
+        if (evicted > 0) {
+            log.info("近期检测数据内存存储淘汰{}行，保留起点：{}，当前行数：{}", evicted, cutoff, columns.size());
+        }
+        return evicted;
+    }
+
+    /**
+     * 数据变更事件：事务提交后更新内存存储
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (event.getChangeType() == WireMaterialChangedEvent.ChangeType.DELETED) {
+            remove(List.of(event.getWireMaterial().getBatchNumber()));
+        } else {
+            upsert(event.getWireMaterial());
+        }
+    }
+
+    @Override
+    public void upsert(WireMaterial wireMaterial) {
+        if (!config.isEnabled() || (!ready && !loading)) {
+            return;
+        }
+        LocalDateTime eventTime = wireMaterial.getEventTime();
+        if (eventTime == null || eventTime.isBefore(coverageStart)) {
+            // 事件时间被修改到保留期之前时同样需要移出
+            remove(List.of(wireMaterial.getBatchNumber()));
+            return;
+        }
+        try {
+            columns.upsert(toRow(wireMaterial));
+        } catch (Exception e) {
+            log.error("更新近期检测数据内存存储失败，批次号：{}", wireMaterial.getBatchNumber(), e);
+        }
+    }
+
+    @Override
+    public void remove(Collection<String> batchNumbers) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (String batchNumber : batchNumbers) {
+            if (loading) {
+                removedWhileLoading.add(batchNumber);
+            }
+            columns.remove(batchNumber);
+        }
+    }
+
+    @Override
+    public boolean covers(LocalDateTime startTime) {
+        LocalDateTime start = coverageStart;
+        return ready && startTime != null && start != null && !startTime.isBefore(start);
+    }
+
+    @Override
+    public List<Object[]> getDimensionStatistics(TraceabilityQueryRequest.QueryDimension dimension,
+                                                 LocalDateTime startTime, LocalDateTime endTime,
+                                                 String scenarioCode, String dimensionValue) {
+        if (!covers(startTime)) {
+            return null;
+        }
+
+        int column = columnOf(dimension);
+        DimensionValue.DimensionType dimensionType = DimensionValue.DimensionType.valueOf(dimension.name());
+        int scenarioId = scenarioFilter(scenarioCode);
+        int filterValue = DetectionColumns.NONE;
+        if (StringUtils.hasText(dimensionValue)) {
+            Integer id = dimensionDictionaryService.findId(dimensionType, dimensionValue);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            filterValue = id;
+        }
+        if (scenarioId == Integer.MIN_VALUE) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, long[]> groups = columns.aggregate(new DetectionColumns.Query(
+                toEpochSecond(startTime), endSecond(endTime), scenarioId,
+                filterValue == DetectionColumns.NONE ? DetectionColumns.NONE : column, filterValue,
+                column, DetectionColumns.CONTACT_EMAIL));
+
+        List<Object[]> rows = new ArrayList<>(groups.size());
+        groups.forEach((key, counts) -> rows.add(new Object[]{
+                resolve(dimensionType, DetectionColumns.primaryOf(key)),
+                counts[0], counts[PASS], counts[FAIL], counts[PENDING_REVIEW], counts[UNKNOWN],
+                resolve(DimensionValue.DimensionType.CONTACT_EMAIL, DetectionColumns.secondaryOf(key))}));
+        rows.sort(Comparator.comparingLong((Object[] row) -> (Long) row[3]).reversed()
+                .thenComparing(Comparator.comparingLong((Object[] row) -> (Long) row[1]).reversed()));
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> getOverallStatistics(LocalDateTime startTime, LocalDateTime endTime, String scenarioCode) {
+        if (!covers(startTime)) {
+            return null;
+        }
+
+        int scenarioId = scenarioFilter(scenarioCode);
+        long[] counts = new long[DetectionColumns.COUNT_SLOTS];
+        if (scenarioId != Integer.MIN_VALUE) {
+            counts = columns.aggregate(new DetectionColumns.Query(
+                            toEpochSecond(startTime), endSecond(endTime), scenarioId,
+                            DetectionColumns.NONE, DetectionColumns.NONE, DetectionColumns.NONE, DetectionColumns.NONE))
+                    .getOrDefault(0L, counts);
+        }
+
+        List<Object[]> rows = new ArrayList<>(1);
+        rows.add(new Object[]{counts[0], counts[PASS], counts[FAIL]});
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> getScenarioStatistics(LocalDateTime startTime, LocalDateTime endTime) {
+        if (!covers(startTime)) {
+            return null;
+        }
+
+        Map<Long, long[]> groups = columns.aggregate(new DetectionColumns.Query(
+                toEpochSecond(startTime), endSecond(endTime), DetectionColumns.NONE,
+                DetectionColumns.NONE, DetectionColumns.NONE, DetectionColumns.SCENARIO, DetectionColumns.NONE));
+
+        List<Object[]> rows = new ArrayList<>(groups.size());
+        groups.forEach((key, counts) -> rows.add(new Object[]{
+                scenarioCodes.get(DetectionColumns.primaryOf(key)), counts[0]}));
+        rows.sort(Comparator.comparingLong((Object[] row) -> (Long) row[1]).reversed());
+        return rows;
+    }
+
+    /**
+     * 场景过滤条件：未指定时不过滤，本地没有该场景时返回Integer.MIN_VALUE（无匹配数据）
+     */
+    private int scenarioFilter(String scenarioCode) {
+        if (!StringUtils.hasText(scenarioCode)) {
+            return DetectionColumns.NONE;
+        }
+        return scenarioIds.getOrDefault(scenarioCode, Integer.MIN_VALUE);
+    }
+
+    private int columnOf(TraceabilityQueryRequest.QueryDimension dimension) {
+        switch (dimension) {
+            case MANUFACTURER:
+                return DetectionColumns.MANUFACTURER;
+            case RESPONSIBLE_PERSON:
+                return DetectionColumns.RESPONSIBLE_PERSON;
+            case PROCESS_TYPE:
+                return DetectionColumns.PROCESS_TYPE;
+            case PRODUCTION_MACHINE:
+                return DetectionColumns.PRODUCTION_MACHINE;
+            default:
+                throw new IllegalArgumentException("不支持的查询维度：" + dimension);
+        }
+    }
+
+    private String resolve(DimensionValue.DimensionType dimensionType, int id) {
+        return id == DetectionColumns.NULL_ID ? null : dimensionDictionaryService.resolve(dimensionType, id);
+    }
+
+    private DetectionColumns.Row toRow(WireMaterial wireMaterial) {
+        double[] measurements = {
+                toDouble(wireMaterial.getDiameter()),
+                toDouble(wireMaterial.getResistance()),
+                toDouble(wireMaterial.getExtensibility()),
+                toDouble(wireMaterial.getWeight())};
+        int[] dimensions = new int[DetectionColumns.DIMENSION_COUNT];
+        dimensions[DetectionColumns.MANUFACTURER] = dimensionId(DimensionValue.DimensionType.MANUFACTURER,
+                wireMaterial.getManufacturerId(), wireMaterial.getManufacturer());
+        dimensions[DetectionColumns.RESPONSIBLE_PERSON] = dimensionId(DimensionValue.DimensionType.RESPONSIBLE_PERSON,
+                wireMaterial.getResponsiblePersonId(), wireMaterial.getResponsiblePerson());
+        dimensions[DetectionColumns.PROCESS_TYPE] = dimensionId(DimensionValue.DimensionType.PROCESS_TYPE,
+                wireMaterial.getProcessTypeId(), wireMaterial.getProcessType());
+        dimensions[DetectionColumns.PRODUCTION_MACHINE] = dimensionId(DimensionValue.DimensionType.PRODUCTION_MACHINE,
+                wireMaterial.getProductionMachineId(), wireMaterial.getProductionMachine());
+        dimensions[DetectionColumns.CONTACT_EMAIL] = dimensionId(DimensionValue.DimensionType.CONTACT_EMAIL,
+                wireMaterial.getContactEmailId(), wireMaterial.getContactEmail());
+        dimensions[DetectionColumns.SCENARIO] = scenarioId(wireMaterial.getScenarioCode());
+
+        WireMaterial.FinalEvaluationResult result = wireMaterial.getFinalEvaluationResult();
+        return new DetectionColumns.Row(wireMaterial.getBatchNumber(), toEpochSecond(wireMaterial.getEventTime()),
+                measurements, dimensions, result == null ? DetectionColumns.RESULT_NULL : (byte) result.ordinal());
+    }
+
+    private WireMaterial mapWireMaterial(ResultSet rs) throws SQLException {
+        WireMaterial wireMaterial = new WireMaterial();
+        wireMaterial.setBatchNumber(rs.getString("batch_number"));
+        wireMaterial.setEventTime(rs.getTimestamp("event_time").toLocalDateTime());
+        wireMaterial.setDiameter(rs.getBigDecimal("diameter"));
+        wireMaterial.setResistance(rs.getBigDecimal("resistance"));
+        wireMaterial.setExtensibility(rs.getBigDecimal("extensibility"));
+        wireMaterial.setWeight(rs.getBigDecimal("weight"));
+        wireMaterial.setManufacturer(rs.getString("manufacturer"));
+        wireMaterial.setManufacturerId(rs.getObject("manufacturer_id", Integer.class));
+        wireMaterial.setResponsiblePerson(rs.getString("responsible_person"));
+        wireMaterial.setResponsiblePersonId(rs.getObject("responsible_person_id", Integer.class));
+        wireMaterial.setProcessType(rs.getString("process_type"));
+        wireMaterial.setProcessTypeId(rs.getObject("process_type_id", Integer.class));
+        wireMaterial.setProductionMachine(rs.getString("production_machine"));
+        wireMaterial.setProductionMachineId(rs.getObject("production_machine_id", Integer.class));
+        wireMaterial.setContactEmail(rs.getString("contact_email"));
+        wireMaterial.setContactEmailId(rs.getObject("contact_email_id", Integer.class));
+        wireMaterial.setScenarioCode(rs.getString("scenario_code"));
+        String result = rs.getString("final_evaluation_result");
+        wireMaterial.setFinalEvaluationResult(result == null ? null : WireMaterial.FinalEvaluationResult.valueOf(result));
+        return wireMaterial;
+    }
+
+    /**
+     * 维度ID：尚未回填字典ID的数据按文本取值驻留，与回填后的结果一致
+     */
+    private int dimensionId(DimensionValue.DimensionType dimensionType, Integer id, String value) {
+        if (id == null && value != null) {
+            id = dimensionDictionaryService.intern(dimensionType, value);
+        }
+        return id == null ? DetectionColumns.NULL_ID : id;
+    }
+
+    private int scenarioId(String scenarioCode) {
+        if (scenarioCode == null) {
+            return DetectionColumns.NULL_ID;
+        }
+        Integer id = scenarioIds.get(scenarioCode);
+        if (id != null) {
+            return id;
+        }
+        synchronized (scenarioIds) {
+            return scenarioIds.computeIfAbsent(scenarioCode, code -> {
+                int next = scenarioIds.size();
+                scenarioCodes.put(next, code);
+                return next;
+            });
+        }
+    }
+
+    private LocalDateTime retentionStart() {
+        return LocalDateTime.now().toLocalDate().minusDays(config.getRetentionDays()).atStartOfDay();
+    }
+
+    private static long endSecond(LocalDateTime endTime) {
+        return endTime == null ? Long.MAX_VALUE : toEpochSecond(endTime);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+}
@@ -4,9 +4,14 @@ import com.mmw.metal_micro_wire_backend.config.VerificationConfig;
 import com.mmw.metal_micro_wire_backend.service.RedisService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -24,11 +29,19 @@ public class RedisServiceImpl implements RedisService {
     private static final String CODE_PREFIX = "verification_code:";
     // 验证码发送冷却前缀
     private static final String CODE_COOLDOWN_PREFIX = "code_cooldown:";
-    // 聊天会话前缀
+    // 聊天会话前缀（旧格式，每个会话一个键）
     private static final String CHAT_SESSION_PREFIX = "chat_session:";
-    // 聊天消息历史前缀
+    // 用户会话数据哈希前缀，字段为会话ID
+    private static final String USER_SESSION_DATA_PREFIX = "user_session_data:";
+    // 用户会话索引有序集合前缀，分值为会话过期时间戳
+    private static final String USER_SESSION_INDEX_PREFIX = "user_session_index:";
+    // 聊天消息历史前缀（旧格式，整体JSON）
     private static final String CHAT_MESSAGE_HISTORY_PREFIX = "chat_message_history:";
-    // 用户会话列表前缀
+    // 聊天消息列表前缀
+    private static final String CHAT_MESSAGES_PREFIX = "chat_messages:";
+    // 会话摘要前缀
+    private static final String CHAT_SUMMARY_PREFIX = "chat_summary:";
+    // 用户会话列表前缀（旧格式）
     private static final String USER_SESSIONS_PREFIX = "user_sessions:";
     
     @Override
@@ -120,57 +133,165 @@ public class RedisServiceImpl implements RedisService {
     
     // ==================== 聊天会话管理实现 ====================
     
+    /**
+     * 会话数据写入用户的会话哈希，会话ID按过期时间戳写入有序集合；
+     * 过期时间在每次保存时顺延，因此按分值倒序即按最后更新时间倒序
+     */
     @Override
     public void saveChatSession(Long userId, String sessionId, String sessionData, int expireHours) {
-        String sessionKey = CHAT_SESSION_PREFIX + userId + ":" + sessionId;
-        String userSessionsKey = USER_SESSIONS_PREFIX + userId;
+        String dataKey = USER_SESSION_DATA_PREFIX + userId;
+        String indexKey = USER_SESSION_INDEX_PREFIX + userId;
+        long expireSeconds = TimeUnit.HOURS.toSeconds(expireHours);
+        double expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expireSeconds);
         
-        // 保存会话数据
-        redisTemplate.opsForValue().set(sessionKey, sessionData, expireHours, TimeUnit.HOURS);
-        
-        // 添加会话ID到用户会话列表
-        redisTemplate.opsForSet().add(userSessionsKey, sessionId);
-        redisTemplate.expire(userSessionsKey, expireHours, TimeUnit.HOURS);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.hSet(dataKey, sessionId, sessionData);
+            stringConnection.zAdd(indexKey, expireAt, sessionId);
+            // 整个哈希和索引随最近保存的会话续期
+            stringConnection.expire(dataKey, expireSeconds);
+            stringConnection.expire(indexKey, expireSeconds);
+            return null;
+        });
         
         log.debug("聊天会话已保存，用户ID：{}，会话ID：{}，过期时间：{}小时", userId, sessionId, expireHours);
     }
     
     @Override
     public String getChatSession(Long userId, String sessionId) {
-        String sessionKey = CHAT_SESSION_PREFIX + userId + ":" + sessionId;
-        return redisTemplate.opsForValue().get(sessionKey);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.hGet(USER_SESSION_DATA_PREFIX + userId, sessionId);
+            stringConnection.zScore(USER_SESSION_INDEX_PREFIX + userId, sessionId);
+            stringConnection.exists(CHAT_SESSION_PREFIX + userId + ":" + sessionId);
+            return null;
+        });
+        String sessionData = (String) results.get(0);
+        Double expireAt = (Double) results.get(1);
+        if (sessionData != null && expireAt != null && expireAt > System.currentTimeMillis()) {
+            return sessionData;
+        }
+        
+        // 旧格式的会话先迁移再读取
+        if (Boolean.TRUE.equals(results.get(2)) && migrateLegacySessions(userId)) {
+            return redisTemplate.<String, String>opsForHash().get(USER_SESSION_DATA_PREFIX + userId, sessionId);
+        }
+        return null;
     }
     
     @Override
     public void deleteChatSession(Long userId, String sessionId) {
-        String sessionKey = CHAT_SESSION_PREFIX + userId + ":" + sessionId;
-        String userSessionsKey = USER_SESSIONS_PREFIX + userId;
-        String messageHistoryKey = CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.hDel(USER_SESSION_DATA_PREFIX + userId, sessionId);
+            stringConnection.zRem(USER_SESSION_INDEX_PREFIX + userId, sessionId);
+            stringConnection.del(CHAT_SESSION_PREFIX + userId + ":" + sessionId,
+                    CHAT_MESSAGES_PREFIX + userId + ":" + sessionId,
+                    CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId,
+                    CHAT_SUMMARY_PREFIX + userId + ":" + sessionId);
+            return null;
+        });
+        
+        log.debug("聊天会话已删除，用户ID：{}，会话ID：{}", userId, sessionId);
+    }
+    
+    @Override
+    public java.util.Set<String> getUserChatSessions(Long userId) {
+        return redisTemplate.opsForZSet().reverseRangeByScore(USER_SESSION_INDEX_PREFIX + userId,
+                System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * 在一次管道往返中取出已过期的会话ID并从索引删除，按更新时间倒序读取剩余会话ID和全部会话数据；
+     * 过期会话的数据和消息仅在确实存在时再删除
+     */
+    @Override
+    public List<String> listChatSessions(Long userId) {
+        String dataKey = USER_SESSION_DATA_PREFIX + userId;
+        String indexKey = USER_SESSION_INDEX_PREFIX + userId;
+        double now = System.currentTimeMillis();
         
-        // 删除会话数据
-        redisTemplate.delete(sessionKey);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+            stringConnection.zRemRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+            stringConnection.zRevRange(indexKey, 0, -1);
+            stringConnection.hGetAll(dataKey);
+            stringConnection.exists(USER_SESSIONS_PREFIX + userId);
+            return null;
+        });
         
-        // 从用户会话列表中删除
-        redisTemplate.opsForSet().remove(userSessionsKey, sessionId);
+        if (Boolean.TRUE.equals(results.get(4)) && migrateLegacySessions(userId)) {
+            return listChatSessions(userId);
+        }
         
-        // 删除消息历史
-        redisTemplate.delete(messageHistoryKey);
+        @SuppressWarnings("unchecked")
+        java.util.Set<String> expiredIds = (java.util.Set<String>) results.get(0);
+        @SuppressWarnings("unchecked")
+        java.util.Set<String> sessionIds = (java.util.Set<String>) results.get(2);
+        @SuppressWarnings("unchecked")
+        java.util.Map<String, String> sessionData = (java.util.Map<String, String>) results.get(3);
         
-        log.debug("聊天会话已删除，用户ID：{}，会话ID：{}", userId, sessionId);
+        if (expiredIds != null && !expiredIds.isEmpty()) {
+            removeExpiredSessions(userId, expiredIds);
+        }
+        if (sessionIds == null || sessionIds.isEmpty() || sessionData == null) {
+            return Collections.emptyList();
+        }
+        List<String> sessions = new ArrayList<>(sessionIds.size());
+        for (String sessionId : sessionIds) {
+            String data = sessionData.get(sessionId);
+            if (data != null) {
+                sessions.add(data);
+            }
+        }
+        return sessions;
     }
     
+    /**
+     * RPUSH一次写入本轮的所有消息，随后LTRIM保留末尾的maxMessages条并续期。
+     * 单条命令在Redis中原子执行，并发追加不会互相覆盖，裁剪只会删除最早的消息
+     */
     @Override
-    public java.util.Set<String> getUserChatSessions(Long userId) {
-        String userSessionsKey = USER_SESSIONS_PREFIX + userId;
-        return redisTemplate.opsForSet().members(userSessionsKey);
+    public void appendChatMessages(Long userId, String sessionId, List<String> messages, int maxMessages, int expireHours) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        String messagesKey = CHAT_MESSAGES_PREFIX + userId + ":" + sessionId;
+        String[] values = messages.toArray(new String[0]);
+        long expireSeconds = TimeUnit.HOURS.toSeconds(expireHours);
+        
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.rPush(messagesKey, values);
+            if (maxMessages > 0) {
+                stringConnection.lTrim(messagesKey, -maxMessages, -1);
+            }
+            stringConnection.expire(messagesKey, expireSeconds);
+            return null;
+        });
+        
+        log.debug("聊天消息已追加，用户ID：{}，会话ID：{}，消息数：{}", userId, sessionId, values.length);
     }
     
     @Override
-    public void saveChatMessageHistory(Long userId, String sessionId, String messageHistory, int expireHours) {
-        String messageHistoryKey = CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId;
-        redisTemplate.opsForValue().set(messageHistoryKey, messageHistory, expireHours, TimeUnit.HOURS);
+    public List<String> getChatMessages(Long userId, String sessionId, long start, long end) {
+        String messagesKey = CHAT_MESSAGES_PREFIX + userId + ":" + sessionId;
+        List<String> messages = redisTemplate.opsForList().range(messagesKey, start, end);
+        return messages != null ? messages : Collections.emptyList();
+    }
+    
+    @Override
+    public void saveChatSummary(Long userId, String sessionId, String summaryData, int expireHours) {
+        String summaryKey = CHAT_SUMMARY_PREFIX + userId + ":" + sessionId;
+        redisTemplate.opsForValue().set(summaryKey, summaryData, expireHours, TimeUnit.HOURS);
         
-        log.debug("聊天消息历史已保存，用户ID：{}，会话ID：{}，过期时间：{}小时", userId, sessionId, expireHours);
+        log.debug("会话摘要已保存，用户ID：{}，会话ID：{}", userId, sessionId);
+    }
+    
+    @Override
+    public String getChatSummary(Long userId, String sessionId) {
+        return redisTemplate.opsForValue().get(CHAT_SUMMARY_PREFIX + userId + ":" + sessionId);
     }
     
     @Override
@@ -181,40 +302,117 @@ public class RedisServiceImpl implements RedisService {
     
     @Override
     public void deleteChatMessageHistory(Long userId, String sessionId) {
-        String messageHistoryKey = CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId;
-        redisTemplate.delete(messageHistoryKey);
+        deleteMessageKeys(userId, sessionId);
         
         log.debug("聊天消息历史已删除，用户ID：{}，会话ID：{}", userId, sessionId);
     }
     
     @Override
     public int getUserChatSessionCount(Long userId) {
-        String userSessionsKey = USER_SESSIONS_PREFIX + userId;
-        Long count = redisTemplate.opsForSet().size(userSessionsKey);
+        Long count = redisTemplate.opsForZSet().count(USER_SESSION_INDEX_PREFIX + userId,
+                System.currentTimeMillis(), Double.POSITIVE_INFINITY);
         return count != null ? count.intValue() : 0;
     }
     
     @Override
     public void cleanupExpiredChatSessions(Long userId) {
-        String userSessionsKey = USER_SESSIONS_PREFIX + userId;
-        java.util.Set<String> sessionIds = redisTemplate.opsForSet().members(userSessionsKey);
+        String indexKey = USER_SESSION_INDEX_PREFIX + userId;
+        double now = System.currentTimeMillis();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+            stringConnection.zRemRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+            return null;
+        });
         
-        if (sessionIds != null && !sessionIds.isEmpty()) {
-            for (String sessionId : sessionIds) {
+        @SuppressWarnings("unchecked")
+        java.util.Set<String> expiredIds = (java.util.Set<String>) results.get(0);
+        if (expiredIds != null && !expiredIds.isEmpty()) {
+            removeExpiredSessions(userId, expiredIds);
+        }
+    }
+    
+    /**
+     * 删除已从索引移除的过期会话的数据和消息
+     */
+    private void removeExpiredSessions(Long userId, java.util.Set<String> expiredIds) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.hDel(USER_SESSION_DATA_PREFIX + userId, expiredIds.toArray(new String[0]));
+            for (String sessionId : expiredIds) {
+                stringConnection.del(CHAT_MESSAGES_PREFIX + userId + ":" + sessionId,
+                        CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId,
+                        CHAT_SUMMARY_PREFIX + userId + ":" + sessionId);
+            }
+            return null;
+        });
+        log.debug("清理过期会话，用户ID：{}，会话数：{}", userId, expiredIds.size());
+    }
+    
+    /**
+     * 将旧格式（会话ID集合加每个会话一个键）的会话迁移到会话哈希和索引，保留各会话剩余的过期时间
+     * @return 是否迁移了至少一个会话
+     */
+    private boolean migrateLegacySessions(Long userId) {
+        String legacySetKey = USER_SESSIONS_PREFIX + userId;
+        java.util.Set<String> legacyIds = redisTemplate.opsForSet().members(legacySetKey);
+        if (legacyIds == null || legacyIds.isEmpty()) {
+            redisTemplate.delete(legacySetKey);
+            return false;
+        }
+        List<String> ids = new ArrayList<>(legacyIds);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String sessionId : ids) {
                 String sessionKey = CHAT_SESSION_PREFIX + userId + ":" + sessionId;
-                
-                // 检查会话是否过期
-                if (!redisTemplate.hasKey(sessionKey)) {
-                    // 会话已过期，从用户会话列表中删除
-                    redisTemplate.opsForSet().remove(userSessionsKey, sessionId);
-                    
-                    // 删除对应的消息历史
-                    String messageHistoryKey = CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId;
-                    redisTemplate.delete(messageHistoryKey);
-                    
-                    log.debug("清理过期会话，用户ID：{}，会话ID：{}", userId, sessionId);
-                }
+                stringConnection.get(sessionKey);
+                stringConnection.pTtl(sessionKey);
+            }
+            return null;
+        });
+        
+        String dataKey = USER_SESSION_DATA_PREFIX + userId;
+        String indexKey = USER_SESSION_INDEX_PREFIX + userId;
+        long now = System.currentTimeMillis();
+        int migrated = 0;
+        long longestTtl = 0;
+        java.util.Map<String, String> sessionData = new java.util.HashMap<>();
+        java.util.Map<String, Double> expireAt = new java.util.HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String data = (String) results.get(i * 2);
+            Long ttl = (Long) results.get(i * 2 + 1);
+            if (data != null && ttl != null && ttl > 0) {
+                sessionData.put(ids.get(i), data);
+                expireAt.put(ids.get(i), (double) (now + ttl));
+                longestTtl = Math.max(longestTtl, ttl);
+                migrated++;
             }
         }
+        long indexTtl = longestTtl;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (java.util.Map.Entry<String, String> entry : sessionData.entrySet()) {
+                stringConnection.hSet(dataKey, entry.getKey(), entry.getValue());
+                stringConnection.zAdd(indexKey, expireAt.get(entry.getKey()), entry.getKey());
+            }
+            if (indexTtl > 0) {
+                stringConnection.pExpire(dataKey, indexTtl);
+                stringConnection.pExpire(indexKey, indexTtl);
+            }
+            for (String sessionId : ids) {
+                stringConnection.del(CHAT_SESSION_PREFIX + userId + ":" + sessionId);
+            }
+            stringConnection.del(legacySetKey);
+            return null;
+        });
+        log.info("旧格式聊天会话已迁移，用户ID：{}，会话数：{}", userId, migrated);
+        return migrated > 0;
+    }
+    
+    private void deleteMessageKeys(Long userId, String sessionId) {
+        redisTemplate.delete(List.of(
+                CHAT_MESSAGES_PREFIX + userId + ":" + sessionId,
+                CHAT_MESSAGE_HISTORY_PREFIX + userId + ":" + sessionId,
+                CHAT_SUMMARY_PREFIX + userId + ":" + sessionId));
     }
-} 
\ No newline at end of file
+}
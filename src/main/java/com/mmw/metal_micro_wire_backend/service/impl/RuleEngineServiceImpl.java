@@ -5,6 +5,7 @@ import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
 import com.mmw.metal_micro_wire_backend.repository.ApplicationScenarioRepository;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
 import com.mmw.metal_micro_wire_backend.service.RuleEngineService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,6 +26,7 @@ public class RuleEngineServiceImpl implements RuleEngineService {
     
     private final ApplicationScenarioRepository applicationScenarioRepository;
     private final WireMaterialRepository wireMaterialRepository;
+    private final TraceabilityCacheService traceabilityCacheService;
     
     @Override
     public WireMaterial evaluateWireMaterial(WireMaterial wireMaterial) {
@@ -123,6 +125,9 @@ public class RuleEngineServiceImpl implements RuleEngineService {
                 }
             }
             
+            if (evaluatedCount > 0) {
+                traceabilityCacheService.invalidateAll();
+            }
             log.info("完成应用场景 {} 的线材数据重新评估，共处理 {} 条数据", scenarioCode, evaluatedCount);
             return evaluatedCount;
             
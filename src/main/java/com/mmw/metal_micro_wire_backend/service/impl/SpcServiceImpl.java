@@ -0,0 +1,229 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.SpcConfig;
+import com.mmw.metal_micro_wire_backend.dto.traceability.QualityIssueResponse;
+import com.mmw.metal_micro_wire_backend.dto.traceability.SpcChartResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.SpcService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityService;
+import com.mmw.metal_micro_wire_backend.util.MeasurementMetric;
+import com.mmw.metal_micro_wire_backend.util.SpcChart;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 统计过程控制（SPC）服务实现类
+ * 控制图状态只保存在内存中（每个序列O(1)），重启后各序列重新积累基线
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpcServiceImpl implements SpcService {
+
+    private final SpcConfig spcConfig;
+    private final TraceabilityService traceabilityService;
+
+    private final Map<SeriesKey, Series> seriesMap = new ConcurrentHashMap<>();
+    private final Queue<PendingAlert> pendingAlerts = new ConcurrentLinkedQueue<>();
+
+    private record SeriesKey(String scenarioCode, String productionMachine, MeasurementMetric metric) {
+    }
+
+    /**
+     * 一个序列的控制图及告警状态
+     */
+    private static class Series {
+        private final SpcChart chart;
+        private final Map<SpcChart.Signal, LocalDateTime> lastAlertTimes = new ConcurrentHashMap<>();
+        private volatile SpcChart.Signal lastSignal;
+        private volatile LocalDateTime lastSignalTime;
+
+        Series(SpcChart chart) {
+            this.chart = chart;
+        }
+    }
+
+    private record PendingAlert(SeriesKey key, SpcChart.Signal signal, double value, SpcChart.State state,
+                                String batchNumber, String contactEmail, LocalDateTime time) {
+    }
+
+    /**
+     * 新检测数据提交后更新控制图；重新评估、审核等更新不改变测量值，不重复计入
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (event.getChangeType() != WireMaterialChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        try {
+            record(event.getWireMaterial());
+        } catch (Exception e) {
+            log.error("更新SPC控制图失败，批次号：{}", event.getWireMaterial().getBatchNumber(), e);
+        }
+    }
+
+    @Override
+    public void record(WireMaterial wireMaterial) {
+        if (!spcConfig.isEnabled() || !StringUtils.hasText(wireMaterial.getScenarioCode())
+                || !StringUtils.hasText(wireMaterial.getProductionMachine())) {
+            return;
+        }
+
+        for (MeasurementMetric metric : MeasurementMetric.values()) {
+            BigDecimal value = metric.valueOf(wireMaterial);
+            if (value == null) {
+                continue;
+            }
+            SeriesKey key = new SeriesKey(wireMaterial.getScenarioCode(), wireMaterial.getProductionMachine(), metric);
+            Series series = getOrCreateSeries(key);
+            if (series == null) {
+                continue;
+            }
+
+            double observed = value.doubleValue();
+            List<SpcChart.Signal> signals = series.chart.add(observed);
+            if (!signals.isEmpty()) {
+                onSignals(key, series, signals, observed, wireMaterial);
+            }
+        }
+    }
+
+    @Override
+    public List<SpcChartResponse> getCharts(String scenarioCode, String productionMachine) {
+        List<SpcChartResponse> charts = new ArrayList<>();
+        seriesMap.forEach((key, series) -> {
+            if ((StringUtils.hasText(scenarioCode) && !scenarioCode.equals(key.scenarioCode()))
+                    || (StringUtils.hasText(productionMachine) && !productionMachine.equals(key.productionMachine()))) {
+                return;
+            }
+            charts.add(toResponse(key, series));
+        });
+        charts.sort(Comparator.comparing(SpcChartResponse::getScenarioCode)
+                .thenComparing(SpcChartResponse::getProductionMachine)
+                .thenComparing(SpcChartResponse::getMetric));
+        return charts;
+    }
+
+    @Override
+    public int dispatchAlerts() {
+        List<QualityIssueResponse> issues = new ArrayList<>();
+        PendingAlert alert;
+        while ((alert = pendingAlerts.poll()) != null) {
+            issues.add(toIssue(alert));
+        }
+        if (issues.isEmpty()) {
+            return 0;
+        }
+
+        log.info("发送SPC过程漂移预警{}条", issues.size());
+        traceabilityService.sendQualityIssueNotifications(issues);
+        return issues.size();
+    }
+
+    private Series getOrCreateSeries(SeriesKey key) {
+        Series series = seriesMap.get(key);
+        if (series != null) {
+            return series;
+        }
+        if (seriesMap.size() >= spcConfig.getMaxSeries()) {
+            log.warn("SPC序列数已达上限{}，不再为{}建立控制图", spcConfig.getMaxSeries(), key);
+            return null;
+        }
+        return seriesMap.computeIfAbsent(key, k -> new Series(new SpcChart(new SpcChart.Parameters(
+                spcConfig.getSubgroupSize(), spcConfig.getBaselineSubgroups(), spcConfig.getEwmaLambda(),
+                spcConfig.getEwmaWidth(), spcConfig.getCusumK(), spcConfig.getCusumH()))));
+    }
+
+    /**
+     * 记录信号并按冷却时间决定是否进入告警队列
+     */
+    private void onSignals(SeriesKey key, Series series, List<SpcChart.Signal> signals, double observed,
+                           WireMaterial wireMaterial) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cooldownStart = now.minusMinutes(spcConfig.getAlertCooldownMinutes());
+        SpcChart.State state = series.chart.state();
+
+        for (SpcChart.Signal signal : signals) {
+            series.lastSignal = signal;
+            series.lastSignalTime = now;
+            log.info("SPC信号：场景{}，生产机器{}，{}：{}，批次号：{}", key.scenarioCode(), key.productionMachine(),
+                    key.metric().getDisplayName(), signal.getDescription(), wireMaterial.getBatchNumber());
+
+            LocalDateTime lastAlert = series.lastAlertTimes.get(signal);
+            if (lastAlert != null && lastAlert.isAfter(cooldownStart)) {
+                continue;
+            }
+            series.lastAlertTimes.put(signal, now);
+            pendingAlerts.add(new PendingAlert(key, signal, observed, state, wireMaterial.getBatchNumber(),
+                    wireMaterial.getContactEmail(), now));
+        }
+    }
+
+    private QualityIssueResponse toIssue(PendingAlert alert) {
+        SeriesKey key = alert.key();
+        SpcChart.State state = alert.state();
+        boolean ewmaSignal = alert.signal() == SpcChart.Signal.EWMA_ABOVE_UCL
+                || alert.signal() == SpcChart.Signal.EWMA_BELOW_LCL;
+
+        String description = String.format("场景【%s】生产机器【%s】的%s%s：触发值%.4f，中心线%.4f，σ=%.4f，EWMA=%.4f，X-bar控制限[%.4f, %.4f]",
+                key.scenarioCode(), key.productionMachine(), key.metric().getDisplayName(), alert.signal().getDescription(),
+                alert.value(), state.centerLine(), state.sigma(), state.ewma(),
+                state.xbarLowerLimit(), state.xbarUpperLimit());
+
+        return QualityIssueResponse.builder()
+                .issueId(String.format("SPC_%s_%s_%s_%d", key.scenarioCode(), key.productionMachine(),
+                        key.metric().name(), System.currentTimeMillis()))
+                .issueType(QualityIssueResponse.IssueType.PROCESS_DRIFT)
+                .dimension("生产机器")
+                .dimensionValue(key.productionMachine())
+                .severity(ewmaSignal ? QualityIssueResponse.IssueSeverity.MEDIUM : QualityIssueResponse.IssueSeverity.HIGH)
+                .description(description)
+                .recommendation("检查设备校准、原材料批次和工艺参数，确认漂移原因，必要时调整后重新建立基线")
+                .contactEmail(alert.contactEmail())
+                .relatedBatchNumbers(List.of(alert.batchNumber()))
+                .discoveredTime(alert.time())
+                .build();
+    }
+
+    private SpcChartResponse toResponse(SeriesKey key, Series series) {
+        SpcChart.State state = series.chart.state();
+        boolean ready = state.baselineReady();
+        return SpcChartResponse.builder()
+                .scenarioCode(key.scenarioCode())
+                .productionMachine(key.productionMachine())
+                .metric(key.metric().name())
+                .metricName(key.metric().getDisplayName())
+                .sampleCount(state.count())
+                .mean(state.mean())
+                .stdDev(state.stdDev())
+                .baselineReady(ready)
+                .centerLine(ready ? state.centerLine() : null)
+                .sigma(ready ? state.sigma() : null)
+                .xbarUpperLimit(ready ? state.xbarUpperLimit() : null)
+                .xbarLowerLimit(ready ? state.xbarLowerLimit() : null)
+                .rangeCenterLine(ready ? state.rangeCenterLine() : null)
+                .rangeUpperLimit(ready ? state.rangeUpperLimit() : null)
+                .ewma(ready ? state.ewma() : null)
+                .ewmaUpperLimit(ready ? state.ewmaUpperLimit() : null)
+                .ewmaLowerLimit(ready ? state.ewmaLowerLimit() : null)
+                .cusumHigh(ready ? state.cusumHigh() : null)
+                .cusumLow(ready ? state.cusumLow() : null)
+                .lastSignal(series.lastSignal != null ? series.lastSignal.getDescription() : null)
+                .lastSignalTime(series.lastSignalTime)
+                .build();
+    }
+}
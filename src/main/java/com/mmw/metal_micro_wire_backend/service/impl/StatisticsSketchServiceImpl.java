@@ -0,0 +1,453 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.SketchConfig;
+import com.mmw.metal_micro_wire_backend.dto.overview.DistinctCountResponse;
+import com.mmw.metal_micro_wire_backend.dto.overview.MeasurementPercentileResponse;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.StatisticsSketchService;
+import com.mmw.metal_micro_wire_backend.util.KllSketch;
+import com.mmw.metal_micro_wire_backend.util.MeasurementMetric;
+import com.mmw.metal_micro_wire_backend.util.NodeLocalAggregates;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * 统计草图服务实现类
+ * HyperLogLog直接使用Redis原生结构（PFADD/PFCOUNT），多个键的PFCOUNT即为并集估计，天然跨节点合并；
+ * KLL草图在本节点内存中按（天, 场景, 生产机器, 指标）维护，定时写入Redis哈希 sketch:kll:{天}，
+ * 字段带节点标识，查询时合并所有节点和所有天的草图。回填只读取截止时间之前入库的数据，之后的数据由实时计入覆盖。
+ * 草图只增不减：删除或归档的数据不会从草图中扣除
+ */
+@Slf4j
+@Service
+public class StatisticsSketchServiceImpl implements StatisticsSketchService {
+
+    private static final String HLL_DEVICE_ALL_KEY = "sketch:hll:device:all";
+    private static final String HLL_DEVICE_PREFIX = "sketch:hll:device:";
+    private static final String HLL_BATCH_PREFIX = "sketch:hll:batch:";
+    private static final String KLL_PREFIX = "sketch:kll:";
+    private static final String META_PREFIX = "sketch:meta:";
+    private static final String BACKFILL_NODE = "backfill";
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    private static final String NONE = NodeLocalAggregates.NONE;
+    private static final String FIELD_SEPARATOR = NodeLocalAggregates.FIELD_SEPARATOR;
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final SketchConfig config;
+    private final String nodeId;
+
+    /**
+     * 本节点的KLL草图
+     */
+    private final NodeLocalAggregates<SketchKey, KllSketch> localSketches;
+
+    /**
+     * @param series 场景|生产机器|指标
+     */
+    private record SketchKey(String day, String series) {
+    }
+
+    public StatisticsSketchServiceImpl(StringRedisTemplate redisTemplate,
+                                       JdbcTemplate jdbcTemplate,
+                                       SketchConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.localSketches = new NodeLocalAggregates<>(redisTemplate, META_PREFIX, config.getNodeId());
+        this.nodeId = localSketches.nodeId();
+    }
+
+    /**
+     * 登记回填截止时间
+     */
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled() || !config.isBackfillEnabled()) {
+            return;
+        }
+        try {
+            localSketches.registerStart();
+        } catch (Exception e) {
+            log.warn("登记统计草图回填截止时间失败，将使用本节点启动时间：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 新检测数据提交后计入草图
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (event.getChangeType() != WireMaterialChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        try {
+            record(event.getWireMaterial());
+        } catch (Exception e) {
+            log.error("更新统计草图失败，批次号：{}", event.getWireMaterial().getBatchNumber(), e);
+        }
+    }
+
+    @Override
+    public void record(WireMaterial wireMaterial) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        String day = dayOf(wireMaterial);
+        String scenario = NodeLocalAggregates.valueOrNone(wireMaterial.getScenarioCode());
+
+        addToHyperLogLogs(Collections.singletonMap(day + FIELD_SEPARATOR + scenario, List.of(wireMaterial)));
+
+        for (MeasurementMetric metric : MeasurementMetric.values()) {
+            BigDecimal value = metric.valueOf(wireMaterial);
+            if (value != null) {
+                localSketches.update(new SketchKey(day, seriesOf(wireMaterial, metric)), this::loadOwnSketch,
+                        sketch -> sketch.update(value.doubleValue()));
+            }
+        }
+    }
+
+    @Override
+    public int flush() {
+        // 只保留昨天及以后的草图在内存中，更早的天再有数据时从Redis读回本节点字段
+        String oldestKept = LocalDate.now().minusDays(1).format(DAY_FORMATTER);
+        return localSketches.flush(KllSketch::toBase64, key -> key.day().compareTo(oldestKept) < 0,
+                encoded -> writeSketches(encoded, nodeId));
+    }
+
+    @Override
+    public int backfill() {
+        if (!config.isEnabled() || !config.isBackfillEnabled()) {
+            return 0;
+        }
+        if (!localSketches.tryStartBackfill()) {
+            return 0;
+        }
+
+        // 截止时间之后入库的数据已由实时计入覆盖，不再回填，避免KLL草图重复计数
+        Timestamp cutoff = Timestamp.valueOf(localSketches.backfillCutoff());
+        log.info("开始回填统计草图，截止入库时间：{}", cutoff);
+        Map<SketchKey, KllSketch> sketches = new HashMap<>();
+        String lastBatchNumber = "";
+        int backfilled = 0;
+        try {
+            while (true) {
+                List<WireMaterial> batch = jdbcTemplate.query(
+                        "SELECT batch_number, device_id, event_time, scenario_code, production_machine, " +
+                                "diameter, resistance, extensibility, weight FROM wire_materials " +
+                                "WHERE batch_number > ? AND create_time < ? " +
+                                "ORDER BY batch_number LIMIT " + BACKFILL_BATCH_SIZE,
+                        (rs, rowNum) -> {
+                            WireMaterial wireMaterial = new WireMaterial();
+                            wireMaterial.setBatchNumber(rs.getString("batch_number"));
+                            wireMaterial.setDeviceId(rs.getString("device_id"));
+                            wireMaterial.setEventTime(rs.getTimestamp("event_time").toLocalDateTime());
+                            wireMaterial.setScenarioCode(rs.getString("scenario_code"));
+                            wireMaterial.setProductionMachine(rs.getString("production_machine"));
+                            wireMaterial.setDiameter(rs.getBigDecimal("diameter"));
+                            wireMaterial.setResistance(rs.getBigDecimal("resistance"));
+                            wireMaterial.setExtensibility(rs.getBigDecimal("extensibility"));
+                            wireMaterial.setWeight(rs.getBigDecimal("weight"));
+                            return wireMaterial;
+                        },
+                        lastBatchNumber, cutoff);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                Map<String, List<WireMaterial>> byDayAndScenario = new HashMap<>();
+                for (WireMaterial wireMaterial : batch) {
+                    byDayAndScenario.computeIfAbsent(dayOf(wireMaterial) + FIELD_SEPARATOR
+                                    + NodeLocalAggregates.valueOrNone(wireMaterial.getScenarioCode()), k -> new ArrayList<>())
+                            .add(wireMaterial);
+                    for (MeasurementMetric metric : MeasurementMetric.values()) {
+                        BigDecimal value = metric.valueOf(wireMaterial);
+                        if (value != null) {
+                            sketches.computeIfAbsent(new SketchKey(dayOf(wireMaterial), seriesOf(wireMaterial, metric)),
+                                    k -> new KllSketch(config.getKllK())).update(value.doubleValue());
+                        }
+                    }
+                }
+                addToHyperLogLogs(byDayAndScenario);
+
+                backfilled += batch.size();
+                lastBatchNumber = batch.get(batch.size() - 1).getBatchNumber();
+                if (batch.size() < BACKFILL_BATCH_SIZE) {
+                    break;
+                }
+            }
+
+            Map<SketchKey, String> encoded = new HashMap<>();
+            sketches.forEach((key, sketch) -> encoded.put(key, sketch.toBase64()));
+            writeSketches(encoded, BACKFILL_NODE);
+            // 热表扫描完成后再读取汇总表：扫描期间被归档的数据此时已在汇总表中
+            seedDevicesFromRollups();
+            localSketches.completeBackfill();
+        } catch (Exception e) {
+            localSketches.abortBackfill();
+            throw e;
+        }
+
+        log.info("统计草图回填完成，共{}行，{}个KLL草图", backfilled, sketches.size());
+        return backfilled;
+    }
+
+    /**
+     * 已归档数据只保留(日期, 场景, 设备)汇总，其中的设备补入设备HyperLogLog；
+     * 归档前的数据入库时已计入，HyperLogLog只增不减，归档本身无需再写入
+     */
+    private void seedDevicesFromRollups() {
+        long lastId = 0;
+        int seeded = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, rollup_date, scenario_code, device_id FROM wire_material_rollups " +
+                            "WHERE id > ? ORDER BY id LIMIT " + BACKFILL_BATCH_SIZE,
+                    (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getDate("rollup_date").toLocalDate(),
+                            rs.getString("scenario_code"), rs.getString("device_id")},
+                    lastId);
+            if (rows.isEmpty()) {
+                break;
+            }
+            Map<String, Set<String>> devicesByDayAndScenario = new HashMap<>();
+            for (Object[] row : rows) {
+                String day = ((LocalDate) row[1]).format(DAY_FORMATTER);
+                devicesByDayAndScenario.computeIfAbsent(day + FIELD_SEPARATOR
+                                + NodeLocalAggregates.valueOrNone((String) row[2]), k -> new HashSet<>())
+                        .add((String) row[3]);
+            }
+            long ttlSeconds = Duration.ofDays(config.getRetentionDays()).getSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                devicesByDayAndScenario.forEach((dayAndScenario, devices) -> addDevices(stringConnection,
+                        dayAndScenario, devices.toArray(new String[0]), ttlSeconds));
+                return null;
+            });
+
+            seeded += rows.size();
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+            if (rows.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+        log.info("从归档汇总表补入设备去重计数，共{}行", seeded);
+    }
+
+    @Override
+    public Long getDistinctDeviceCount() {
+        if (!config.isEnabled() || !localSketches.isBackfillDone()) {
+            return null;
+        }
+        return redisTemplate.opsForHyperLogLog().size(HLL_DEVICE_ALL_KEY);
+    }
+
+    @Override
+    public DistinctCountResponse getDistinctCounts(LocalDate startDate, LocalDate endDate, String scenarioCode) {
+        LocalDate[] range = normalizeRange(startDate, endDate);
+        String suffix = StringUtils.hasText(scenarioCode) ? FIELD_SEPARATOR + scenarioCode : "";
+
+        List<String> deviceKeys = new ArrayList<>();
+        List<String> batchKeys = new ArrayList<>();
+        for (LocalDate day = range[0]; !day.isAfter(range[1]); day = day.plusDays(1)) {
+            String dayId = day.format(DAY_FORMATTER);
+            deviceKeys.add(HLL_DEVICE_PREFIX + dayId + suffix);
+            batchKeys.add(HLL_BATCH_PREFIX + dayId + suffix);
+        }
+
+        return DistinctCountResponse.builder()
+                .startDate(range[0])
+                .endDate(range[1])
+                .scenarioCode(scenarioCode)
+                .distinctDevices(redisTemplate.opsForHyperLogLog().size(deviceKeys.toArray(new String[0])))
+                .distinctBatches(redisTemplate.opsForHyperLogLog().size(batchKeys.toArray(new String[0])))
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<MeasurementPercentileResponse> getPercentiles(LocalDate startDate, LocalDate endDate,
+                                                              String scenarioCode, String productionMachine) {
+        LocalDate[] range = normalizeRange(startDate, endDate);
+        List<String> days = new ArrayList<>();
+        for (LocalDate day = range[0]; !day.isAfter(range[1]); day = day.plusDays(1)) {
+            days.add(day.format(DAY_FORMATTER));
+        }
+
+        List<Object> stored = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String day : days) {
+                stringConnection.hGetAll(KLL_PREFIX + day);
+            }
+            return null;
+        });
+
+        Map<String, KllSketch> merged = new TreeMap<>();
+        synchronized (localSketches) {
+            for (int i = 0; i < days.size(); i++) {
+                Map<String, String> fields = (Map<String, String>) stored.get(i);
+                if (fields == null) {
+                    continue;
+                }
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    int separator = field.getKey().lastIndexOf(FIELD_SEPARATOR);
+                    String series = field.getKey().substring(0, separator);
+                    String node = field.getKey().substring(separator + 1);
+                    // 本节点内存中的草图比Redis中的新
+                    if (node.equals(nodeId) && localSketches.contains(new SketchKey(days.get(i), series))) {
+                        continue;
+                    }
+                    if (matches(series, scenarioCode, productionMachine)) {
+                        merged.computeIfAbsent(series, k -> new KllSketch(config.getKllK()))
+                                .merge(KllSketch.fromBase64(field.getValue()));
+                    }
+                }
+            }
+            localSketches.forEach((key, sketch) -> {
+                if (days.contains(key.day()) && matches(key.series(), scenarioCode, productionMachine)) {
+                    merged.computeIfAbsent(key.series(), k -> new KllSketch(config.getKllK())).merge(sketch);
+                }
+            });
+        }
+
+        List<MeasurementPercentileResponse> responses = new ArrayList<>();
+        merged.forEach((series, sketch) -> {
+            String[] parts = series.split("\\" + FIELD_SEPARATOR);
+            MeasurementMetric metric = MeasurementMetric.valueOf(parts[2]);
+            responses.add(MeasurementPercentileResponse.builder()
+                    .scenarioCode(noneToNull(parts[0]))
+                    .productionMachine(noneToNull(parts[1]))
+                    .metric(metric.name())
+                    .metricName(metric.getDisplayName())
+                    .count(sketch.getCount())
+                    .min(sketch.getMin())
+                    .p50(sketch.quantile(0.5))
+                    .p95(sketch.quantile(0.95))
+                    .p99(sketch.quantile(0.99))
+                    .max(sketch.getMax())
+                    .build());
+        });
+        return responses;
+    }
+
+    /**
+     * 写入HyperLogLog：全部设备、按天、按天+场景的设备和批次
+     * @param byDayAndScenario 天|场景 -> 线材数据
+     */
+    private void addToHyperLogLogs(Map<String, List<WireMaterial>> byDayAndScenario) {
+        long ttlSeconds = Duration.ofDays(config.getRetentionDays()).getSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Map.Entry<String, List<WireMaterial>> entry : byDayAndScenario.entrySet()) {
+                String day = entry.getKey().substring(0, entry.getKey().indexOf(FIELD_SEPARATOR));
+                String[] devices = entry.getValue().stream()
+                        .map(WireMaterial::getDeviceId).filter(StringUtils::hasText).distinct().toArray(String[]::new);
+                String[] batches = entry.getValue().stream()
+                        .map(WireMaterial::getBatchNumber).toArray(String[]::new);
+
+                addDevices(stringConnection, entry.getKey(), devices, ttlSeconds);
+                addWithTtl(stringConnection, HLL_BATCH_PREFIX + day, batches, ttlSeconds);
+                addWithTtl(stringConnection, HLL_BATCH_PREFIX + entry.getKey(), batches, ttlSeconds);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 写入设备HyperLogLog：全部设备、按天、按天+场景
+     * @param dayAndScenario 天|场景
+     */
+    private void addDevices(StringRedisConnection connection, String dayAndScenario, String[] devices, long ttlSeconds) {
+        if (devices.length == 0) {
+            return;
+        }
+        String day = dayAndScenario.substring(0, dayAndScenario.indexOf(FIELD_SEPARATOR));
+        connection.pfAdd(HLL_DEVICE_ALL_KEY, devices);
+        addWithTtl(connection, HLL_DEVICE_PREFIX + day, devices, ttlSeconds);
+        addWithTtl(connection, HLL_DEVICE_PREFIX + dayAndScenario, devices, ttlSeconds);
+    }
+
+    private void addWithTtl(StringRedisConnection connection, String key, String[] values, long ttlSeconds) {
+        connection.pfAdd(key, values);
+        connection.expire(key, ttlSeconds);
+    }
+
+    private void writeSketches(Map<SketchKey, String> encoded, String node) {
+        long ttlSeconds = Duration.ofDays(config.getRetentionDays()).getSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            Set<String> hashKeys = new HashSet<>();
+            encoded.forEach((key, value) -> {
+                stringConnection.hSet(KLL_PREFIX + key.day(), key.series() + FIELD_SEPARATOR + node, value);
+                hashKeys.add(KLL_PREFIX + key.day());
+            });
+            for (String hashKey : hashKeys) {
+                stringConnection.expire(hashKey, ttlSeconds);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 读回本节点之前写入的草图（重启或较早的天再次有数据时），不存在时新建
+     */
+    private KllSketch loadOwnSketch(SketchKey key) {
+        try {
+            Object stored = redisTemplate.opsForHash().get(KLL_PREFIX + key.day(), key.series() + FIELD_SEPARATOR + nodeId);
+            if (stored != null) {
+                return KllSketch.fromBase64(stored.toString());
+            }
+        } catch (Exception e) {
+            log.warn("读取KLL草图失败，新建草图：{}", key, e);
+        }
+        return new KllSketch(config.getKllK());
+    }
+
+    private boolean matches(String series, String scenarioCode, String productionMachine) {
+        String[] parts = series.split("\\" + FIELD_SEPARATOR);
+        return (!StringUtils.hasText(scenarioCode) || scenarioCode.equals(parts[0]))
+                && (!StringUtils.hasText(productionMachine) || productionMachine.equals(parts[1]));
+    }
+
+    private LocalDate[] normalizeRange(LocalDate startDate, LocalDate endDate) {
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusDays(config.getDefaultRangeDays() - 1L);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        LocalDate oldest = LocalDate.now().minusDays(config.getRetentionDays());
+        return new LocalDate[]{start.isBefore(oldest) ? oldest : start, end};
+    }
+
+    private String seriesOf(WireMaterial wireMaterial, MeasurementMetric metric) {
+        return NodeLocalAggregates.valueOrNone(wireMaterial.getScenarioCode()) + FIELD_SEPARATOR
+                + NodeLocalAggregates.valueOrNone(wireMaterial.getProductionMachine()) + FIELD_SEPARATOR + metric.name();
+    }
+
+    private String dayOf(WireMaterial wireMaterial) {
+        LocalDateTime eventTime = wireMaterial.getEventTime() != null ? wireMaterial.getEventTime() : LocalDateTime.now();
+        return eventTime.format(DAY_FORMATTER);
+    }
+
+    private String noneToNull(String value) {
+        return NONE.equals(value) ? null : value;
+    }
+}
@@ -0,0 +1,339 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.QualityMonitorConfig;
+import com.mmw.metal_micro_wire_backend.dto.traceability.QualityIssueResponse;
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityQueryRequest.QueryDimension;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.QualityIssueDetectedEvent;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.StreamingQualityMonitorService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityService;
+import com.mmw.metal_micro_wire_backend.util.SlidingWindowCounter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 流式质量监控服务实现类
+ * 每个维度取值一个分钟级环形缓冲区；批次按首次判定的分钟计入，结果变化（人工审核、重新评估）
+ * 或删除时在原分钟桶内修正。告警带滞回：不合格率越过阈值时触发一次，回落到阈值×clearRatio以下才解除
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StreamingQualityMonitorServiceImpl implements StreamingQualityMonitorService {
+
+    private static final int RELATED_BATCH_LIMIT = 5;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    private final QualityMonitorConfig qualityMonitorConfig;
+    private final TraceabilityService traceabilityService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<CounterKey, DimensionCounter> counters = new HashMap<>();
+    private final Map<String, CountedBatch> countedBatches = new HashMap<>();
+    private final ArrayDeque<CountedEntry> countedOrder = new ArrayDeque<>();
+    private final Queue<QualityIssueResponse> pendingIssues = new ConcurrentLinkedQueue<>();
+    private long lastSweepMinute = Long.MIN_VALUE;
+
+    private record CounterKey(QueryDimension dimension, String value) {
+    }
+
+    /**
+     * 已计入窗口的批次：记录计入的分钟和维度取值，用于结果变化时修正
+     */
+    private record CountedBatch(List<CounterKey> keys, long minute, boolean fail) {
+    }
+
+    private record CountedEntry(String batchNumber, long minute) {
+    }
+
+    private static class DimensionCounter {
+        private final SlidingWindowCounter window;
+        private final ArrayDeque<String> recentFailBatches = new ArrayDeque<>();
+        private boolean alerting;
+        private String contactEmail;
+
+        DimensionCounter(int windowMinutes) {
+            this.window = new SlidingWindowCounter(windowMinutes);
+        }
+    }
+
+    /**
+     * 数据提交后更新滑动窗口；新增、评估、审核、修改都会触发，同一结果重复到达时忽略
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        if (!qualityMonitorConfig.isStreamingEnabled()) {
+            return;
+        }
+        try {
+            if (event.getChangeType() == WireMaterialChangedEvent.ChangeType.DELETED) {
+                remove(event.getWireMaterial().getBatchNumber());
+            } else {
+                record(event.getWireMaterial());
+            }
+        } catch (Exception e) {
+            log.error("更新流式质量监控窗口失败，批次号：{}", event.getWireMaterial().getBatchNumber(), e);
+        }
+    }
+
+    @Override
+    public void record(WireMaterial wireMaterial) {
+        WireMaterial.FinalEvaluationResult result = wireMaterial.getFinalEvaluationResult();
+        boolean decided = result == WireMaterial.FinalEvaluationResult.PASS
+                || result == WireMaterial.FinalEvaluationResult.FAIL;
+        boolean fail = result == WireMaterial.FinalEvaluationResult.FAIL;
+
+        List<QualityIssueResponse> fired = new ArrayList<>();
+        synchronized (this) {
+            long minute = currentMinute();
+            fired.addAll(expire(minute));
+            fired.addAll(count(wireMaterial, minute, decided, fail));
+        }
+        publish(fired);
+    }
+
+    /**
+     * 计入（或改判）一个批次
+     * @return 新触发的质量问题
+     */
+    private List<QualityIssueResponse> count(WireMaterial wireMaterial, long minute, boolean decided, boolean fail) {
+        CountedBatch previous = countedBatches.get(wireMaterial.getBatchNumber());
+        if (previous == null && !decided) {
+            return List.of();
+        }
+        if (previous != null && decided && previous.fail() == fail) {
+            return List.of();
+        }
+
+        Set<CounterKey> touched = new LinkedHashSet<>();
+        long countMinute = minute;
+        if (previous != null) {
+            apply(previous.keys(), previous.minute(), -1, previous.fail() ? -1 : 0, touched);
+            countedBatches.remove(wireMaterial.getBatchNumber());
+            countMinute = previous.minute();
+        }
+        if (decided) {
+            List<CounterKey> keys = keysOf(wireMaterial);
+            apply(keys, countMinute, 1, fail ? 1 : 0, touched);
+            for (CounterKey key : keys) {
+                DimensionCounter counter = counters.get(key);
+                if (StringUtils.hasText(wireMaterial.getContactEmail())) {
+                    counter.contactEmail = wireMaterial.getContactEmail();
+                }
+                if (fail) {
+                    counter.recentFailBatches.addFirst(wireMaterial.getBatchNumber());
+                    if (counter.recentFailBatches.size() > RELATED_BATCH_LIMIT) {
+                        counter.recentFailBatches.removeLast();
+                    }
+                }
+            }
+            countedBatches.put(wireMaterial.getBatchNumber(), new CountedBatch(keys, countMinute, fail));
+            if (previous == null) {
+                countedOrder.addLast(new CountedEntry(wireMaterial.getBatchNumber(), countMinute));
+            }
+        }
+        return evaluate(touched);
+    }
+
+    @Override
+    public void remove(String batchNumber) {
+        List<QualityIssueResponse> fired;
+        synchronized (this) {
+            CountedBatch previous = countedBatches.remove(batchNumber);
+            if (previous == null) {
+                return;
+            }
+            Set<CounterKey> touched = new LinkedHashSet<>();
+            apply(previous.keys(), previous.minute(), -1, previous.fail() ? -1 : 0, touched);
+            fired = evaluate(touched);
+        }
+        publish(fired);
+    }
+
+    @Override
+    public List<QualityIssueResponse> getActiveIssues() {
+        List<QualityIssueResponse> issues = new ArrayList<>();
+        synchronized (this) {
+            long minute = currentMinute();
+            counters.forEach((key, counter) -> {
+                counter.window.advance(minute);
+                if (counter.alerting) {
+                    issues.add(buildIssue(key, counter));
+                }
+            });
+        }
+        issues.sort(Comparator.comparing(QualityIssueResponse::getFailRate).reversed());
+        return issues;
+    }
+
+    @Override
+    public int dispatchAlerts() {
+        // 没有新批次到达时也前移窗口，移出窗口的合格批次可能使不合格率超过阈值
+        List<QualityIssueResponse> expired;
+        synchronized (this) {
+            expired = expire(currentMinute());
+        }
+        publish(expired);
+
+        List<QualityIssueResponse> issues = new ArrayList<>();
+        QualityIssueResponse issue;
+        while ((issue = pendingIssues.poll()) != null) {
+            issues.add(issue);
+        }
+        if (issues.isEmpty()) {
+            return 0;
+        }
+
+        log.info("发送流式检测发现的质量问题{}个", issues.size());
+        traceabilityService.sendQualityIssueNotifications(issues);
+        return issues.size();
+    }
+
+    private void apply(List<CounterKey> keys, long minute, long totalDelta, long failDelta, Set<CounterKey> touched) {
+        for (CounterKey key : keys) {
+            DimensionCounter counter = counters.computeIfAbsent(key,
+                    k -> new DimensionCounter(qualityMonitorConfig.getSlidingWindowMinutes()));
+            if (counter.window.add(minute, totalDelta, failDelta)) {
+                touched.add(key);
+            }
+        }
+    }
+
+    /**
+     * 对计数变化的维度取值应用滞回判定
+     * @return 新触发的质量问题
+     */
+    private List<QualityIssueResponse> evaluate(Set<CounterKey> touched) {
+        List<QualityIssueResponse> fired = new ArrayList<>();
+        for (CounterKey key : touched) {
+            DimensionCounter counter = counters.get(key);
+            QualityIssueResponse issue = evaluate(key, counter);
+            if (issue != null) {
+                fired.add(issue);
+            }
+        }
+        return fired;
+    }
+
+    private QualityIssueResponse evaluate(CounterKey key, DimensionCounter counter) {
+        double failRate = counter.window.getFailRate();
+        double threshold = qualityMonitorConfig.getFailRateThreshold();
+
+        if (!counter.alerting && counter.window.getTotal() >= qualityMonitorConfig.getMinSampleSize()
+                && failRate >= threshold) {
+            counter.alerting = true;
+            QualityIssueResponse issue = buildIssue(key, counter);
+            log.warn("流式检测发现质量问题：{}", issue.getDescription());
+            return issue;
+        }
+        if (counter.alerting && failRate < threshold * qualityMonitorConfig.getClearRatio()) {
+            counter.alerting = false;
+            log.info("{}【{}】不合格率回落至{}%，解除告警", key.dimension().getDescription(), key.value(),
+                    String.format("%.2f", failRate));
+        }
+        return null;
+    }
+
+    private void publish(List<QualityIssueResponse> fired) {
+        for (QualityIssueResponse issue : fired) {
+            pendingIssues.add(issue);
+            eventPublisher.publishEvent(new QualityIssueDetectedEvent(issue));
+        }
+    }
+
+    /**
+     * 丢弃移出窗口的批次记录；每分钟一次前移所有计数器，重新判定告警并清理空计数器
+     * @return 窗口前移后新触发的质量问题
+     */
+    private List<QualityIssueResponse> expire(long minute) {
+        long windowStart = minute - qualityMonitorConfig.getSlidingWindowMinutes();
+        while (!countedOrder.isEmpty() && countedOrder.peekFirst().minute() <= windowStart) {
+            CountedEntry entry = countedOrder.pollFirst();
+            CountedBatch counted = countedBatches.get(entry.batchNumber());
+            if (counted != null && counted.minute() == entry.minute()) {
+                countedBatches.remove(entry.batchNumber());
+            }
+        }
+
+        if (minute == lastSweepMinute) {
+            return List.of();
+        }
+        lastSweepMinute = minute;
+        List<QualityIssueResponse> fired = new ArrayList<>();
+        Iterator<Map.Entry<CounterKey, DimensionCounter>> iterator = counters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<CounterKey, DimensionCounter> entry = iterator.next();
+            DimensionCounter counter = entry.getValue();
+            counter.window.advance(minute);
+            QualityIssueResponse issue = evaluate(entry.getKey(), counter);
+            if (issue != null) {
+                fired.add(issue);
+            }
+            if (!counter.alerting && counter.window.getTotal() == 0) {
+                iterator.remove();
+            }
+        }
+        return fired;
+    }
+
+    private QualityIssueResponse buildIssue(CounterKey key, DimensionCounter counter) {
+        BigDecimal failRate = BigDecimal.valueOf(counter.window.getFailRate()).setScale(2, RoundingMode.HALF_UP);
+        QualityIssueResponse issue = QualityIssueResponse.builder()
+                .issueId(String.format("%s_%s_%d", key.dimension().name(), key.value(), System.currentTimeMillis()))
+                .dimension(key.dimension().getDescription())
+                .dimensionValue(key.value())
+                .severity(QualityIssueResponse.IssueSeverity.fromFailRate(failRate))
+                .failRate(failRate)
+                .failCount(counter.window.getFail())
+                .totalCount(counter.window.getTotal())
+                .contactEmail(counter.contactEmail)
+                .relatedBatchNumbers(new ArrayList<>(counter.recentFailBatches))
+                .discoveredTime(LocalDateTime.now())
+                .build();
+
+        issue.generateDescription();
+        issue.setDescription(issue.getDescription()
+                + String.format("（最近%d分钟）", qualityMonitorConfig.getSlidingWindowMinutes()));
+        issue.generateRecommendation();
+        return issue;
+    }
+
+    private List<CounterKey> keysOf(WireMaterial wireMaterial) {
+        List<CounterKey> keys = new ArrayList<>(4);
+        addKey(keys, QueryDimension.MANUFACTURER, wireMaterial.getManufacturer());
+        addKey(keys, QueryDimension.RESPONSIBLE_PERSON, wireMaterial.getResponsiblePerson());
+        addKey(keys, QueryDimension.PROCESS_TYPE, wireMaterial.getProcessType());
+        addKey(keys, QueryDimension.PRODUCTION_MACHINE, wireMaterial.getProductionMachine());
+        return keys;
+    }
+
+    private void addKey(List<CounterKey> keys, QueryDimension dimension, String value) {
+        if (StringUtils.hasText(value)) {
+            keys.add(new CounterKey(dimension, value));
+        }
+    }
+
+    private long currentMinute() {
+        return System.currentTimeMillis() / MILLIS_PER_MINUTE;
+    }
+}
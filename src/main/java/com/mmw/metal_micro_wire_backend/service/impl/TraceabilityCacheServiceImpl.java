@@ -0,0 +1,308 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.config.TraceabilityCacheConfig;
+import com.mmw.metal_micro_wire_backend.dto.traceability.TraceabilityQueryRequest;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityCacheService;
+import com.mmw.metal_micro_wire_backend.util.LocalLruCache;
+import com.mmw.metal_micro_wire_backend.util.TimeBucketPlanner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 溯源统计结果缓存服务实现类
+ * 缓存键：维度 + 场景 + 维度取值 + 时间桶 + 版本号。版本号保存在Redis中（全局版本 + 每个桶的版本），
+ * 数据变更时递增对应桶的版本号，旧的缓存条目不再被命中并随TTL过期，因此本地近端缓存也无需广播失效。
+ * 不合格率阈值在统计结果构建后才参与过滤，不影响缓存内容，因此不计入缓存键
+ */
+@Slf4j
+@Service
+public class TraceabilityCacheServiceImpl implements TraceabilityCacheService {
+
+    private static final String VALUE_PREFIX = "traceability:cache:stats:";
+    private static final String GENERATION_PREFIX = "traceability:cache:gen:";
+    private static final String GLOBAL_GENERATION_KEY = GENERATION_PREFIX + "all";
+    private static final String ANY = "*";
+
+    private static final DateTimeFormatter MONTH_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter DAY_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final WireMaterialRepository wireMaterialRepository;
+    private final TraceabilityCacheConfig cacheConfig;
+    private final LocalLruCache<String, List<Object[]>> localCache;
+
+    public TraceabilityCacheServiceImpl(StringRedisTemplate redisTemplate,
+                                        ObjectMapper objectMapper,
+                                        WireMaterialRepository wireMaterialRepository,
+                                        TraceabilityCacheConfig cacheConfig) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.wireMaterialRepository = wireMaterialRepository;
+        this.cacheConfig = cacheConfig;
+        this.localCache = new LocalLruCache<>(cacheConfig.getLocalMaxEntries(),
+                TimeUnit.MINUTES.toMillis(cacheConfig.getLocalTtlMinutes()));
+    }
+
+    @Override
+    public List<Object[]> getDimensionStatistics(TraceabilityQueryRequest.QueryDimension dimension,
+                                                 LocalDateTime startTime, LocalDateTime endTime,
+                                                 String scenarioCode, String dimensionValue,
+                                                 BiFunction<LocalDateTime, LocalDateTime, List<Object[]>> loader) {
+        if (!cacheConfig.isEnabled()) {
+            return loader.apply(startTime, endTime);
+        }
+
+        LocalDateTime earliest = startTime == null ? wireMaterialRepository.findEarliestEventTime() : null;
+        List<TimeBucketPlanner.TimeBucket> buckets = TimeBucketPlanner.plan(startTime, endTime, earliest, LocalDateTime.now());
+
+        List<String> cacheKeys;
+        try {
+            cacheKeys = buildCacheKeys(dimension, scenarioCode, dimensionValue, buckets);
+        } catch (Exception e) {
+            log.warn("读取溯源统计缓存版本号失败，直接查询数据库：{}", e.getMessage());
+            return loader.apply(startTime, endTime);
+        }
+
+        // 先查本地近端缓存，未命中的桶再批量查询Redis
+        List<List<Object[]>> results = new ArrayList<>(Collections.nCopies(buckets.size(), null));
+        List<Integer> remoteIndexes = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            String key = cacheKeys.get(i);
+            if (key == null) {
+                continue;
+            }
+            List<Object[]> cached = localCache.get(key);
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                remoteIndexes.add(i);
+            }
+        }
+        fetchRemote(cacheKeys, remoteIndexes, results);
+
+        int loaded = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            TimeBucketPlanner.TimeBucket bucket = buckets.get(i);
+            List<Object[]> rows = loader.apply(bucket.start(), bucket.end());
+            results.set(i, rows);
+            if (cacheKeys.get(i) != null) {
+                store(cacheKeys.get(i), bucket, rows);
+                loaded++;
+            }
+        }
+
+        log.debug("溯源统计分桶查询完成，维度：{}，桶数量：{}，新缓存：{}", dimension, buckets.size(), loaded);
+        return merge(results);
+    }
+
+    @Override
+    public void invalidate(LocalDateTime eventTime) {
+        if (!cacheConfig.isEnabled() || eventTime == null) {
+            return;
+        }
+        incrementGenerations(generationKeys(eventTime));
+    }
+
+    /**
+     * 数据变更事件：事务提交后使对应的时间桶失效
+     * （此时已处于提交后阶段，直接递增版本号，不再注册事务同步）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        LocalDateTime eventTime = event.getWireMaterial().getEventTime();
+        if (cacheConfig.isEnabled() && eventTime != null) {
+            doIncrementGenerations(generationKeys(eventTime));
+        }
+    }
+
+    /**
+     * 包含指定事件时间的日桶、月桶（当天及以后的数据还包括开放桶）的版本号键
+     */
+    private List<String> generationKeys(LocalDateTime eventTime) {
+        List<String> keys = new ArrayList<>(3);
+        keys.add(GENERATION_PREFIX + "D" + eventTime.format(DAY_ID_FORMATTER));
+        keys.add(GENERATION_PREFIX + "M" + eventTime.format(MONTH_ID_FORMATTER));
+        LocalDateTime todayStart = LocalDateTime.now().toLocalDate().atStartOfDay();
+        if (!eventTime.isBefore(todayStart)) {
+            // 当天及未来时间的数据都落在当天的开放桶中
+            keys.add(GENERATION_PREFIX + "O" + todayStart.format(DAY_ID_FORMATTER));
+        }
+        return keys;
+    }
+
+    @Override
+    public void invalidateAll() {
+        localCache.clear();
+        if (!cacheConfig.isEnabled()) {
+            return;
+        }
+        incrementGenerations(List.of(GLOBAL_GENERATION_KEY));
+        log.info("溯源统计缓存已全部失效");
+    }
+
+    /**
+     * 构建各时间桶的缓存键，不可缓存的桶为null（一次MGET读取全部版本号）
+     */
+    private List<String> buildCacheKeys(TraceabilityQueryRequest.QueryDimension dimension, String scenarioCode,
+                                        String dimensionValue, List<TimeBucketPlanner.TimeBucket> buckets) {
+        List<String> generationKeys = new ArrayList<>();
+        generationKeys.add(GLOBAL_GENERATION_KEY);
+        for (TimeBucketPlanner.TimeBucket bucket : buckets) {
+            if (bucket.isCacheable()) {
+                generationKeys.add(GENERATION_PREFIX + bucket.id());
+            }
+        }
+
+        List<String> generations = generationKeys.size() > 1
+                ? redisTemplate.opsForValue().multiGet(generationKeys)
+                : Collections.emptyList();
+        if (generations == null) {
+            throw new IllegalStateException("Redis未返回版本号");
+        }
+
+        String prefix = VALUE_PREFIX + dimension.name() + ":"
+                + (StringUtils.hasText(scenarioCode) ? scenarioCode : ANY) + ":";
+        String suffix = ":" + (StringUtils.hasText(dimensionValue) ? dimensionValue : ANY);
+        String globalGeneration = generations.isEmpty() ? "0" : Objects.toString(generations.get(0), "0");
+
+        List<String> keys = new ArrayList<>(buckets.size());
+        int generationIndex = 1;
+        for (TimeBucketPlanner.TimeBucket bucket : buckets) {
+            if (!bucket.isCacheable()) {
+                keys.add(null);
+                continue;
+            }
+            String bucketGeneration = Objects.toString(generations.get(generationIndex++), "0");
+            keys.add(prefix + bucket.id() + ":" + globalGeneration + "." + bucketGeneration + suffix);
+        }
+        return keys;
+    }
+
+    /**
+     * 批量读取Redis中的桶统计结果，命中的条目同时写入本地近端缓存
+     */
+    private void fetchRemote(List<String> cacheKeys, List<Integer> indexes, List<List<Object[]>> results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        List<String> keys = indexes.stream().map(cacheKeys::get).toList();
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            log.warn("读取溯源统计缓存失败：{}", e.getMessage());
+            return;
+        }
+        if (values == null) {
+            return;
+        }
+
+        for (int i = 0; i < indexes.size(); i++) {
+            String json = values.get(i);
+            if (json == null) {
+                continue;
+            }
+            try {
+                List<Object[]> rows = Arrays.asList(objectMapper.readValue(json, Object[][].class));
+                results.set(indexes.get(i), rows);
+                localCache.put(keys.get(i), rows);
+            } catch (JsonProcessingException e) {
+                log.warn("解析溯源统计缓存失败，键：{}", keys.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * 写入桶统计结果：已结束的桶长期保存，当天的开放桶短期保存
+     */
+    private void store(String key, TimeBucketPlanner.TimeBucket bucket, List<Object[]> rows) {
+        localCache.put(key, rows);
+        Duration ttl = bucket.type() == TimeBucketPlanner.BucketType.OPEN
+                ? Duration.ofMinutes(cacheConfig.getOpenBucketTtlMinutes())
+                : Duration.ofDays(cacheConfig.getClosedBucketTtlDays());
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(rows), ttl);
+        } catch (Exception e) {
+            log.warn("写入溯源统计缓存失败，键：{}，错误：{}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 递增版本号，处于事务中时延迟到提交之后执行，避免并发查询在提交前读到旧数据并以新版本号缓存
+     */
+    private void incrementGenerations(List<String> keys) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doIncrementGenerations(keys);
+                }
+            });
+        } else {
+            doIncrementGenerations(keys);
+        }
+    }
+
+    /**
+     * 递增版本号（单次管道往返），版本号的存活时间长于缓存条目，避免过期重置后命中旧条目
+     */
+    private void doIncrementGenerations(List<String> keys) {
+        long ttlSeconds = Duration.ofDays(cacheConfig.getClosedBucketTtlDays()).multipliedBy(2).getSeconds();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String key : keys) {
+                    stringConnection.incr(key);
+                    stringConnection.expire(key, ttlSeconds);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("递增溯源统计缓存版本号失败，键：{}", keys, e);
+        }
+    }
+
+    /**
+     * 合并各时间桶的统计结果：按(维度取值, 联系邮箱)累加计数，再按不合格数、总数降序排列
+     */
+    private List<Object[]> merge(List<List<Object[]>> results) {
+        Map<List<Object>, long[]> counts = new LinkedHashMap<>();
+        for (List<Object[]> rows : results) {
+            for (Object[] row : rows) {
+                long[] sums = counts.computeIfAbsent(Arrays.asList(row[0], row[6]), key -> new long[5]);
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += row[i + 1] == null ? 0L : ((Number) row[i + 1]).longValue();
+                }
+            }
+        }
+
+        List<Object[]> merged = new ArrayList<>(counts.size());
+        counts.forEach((key, sums) -> merged.add(new Object[]{
+                key.get(0), sums[0], sums[1], sums[2], sums[3], sums[4], key.get(1)}));
+        merged.sort(Comparator.comparingLong((Object[] row) -> (Long) row[3]).reversed()
+                .thenComparing(Comparator.comparingLong((Object[] row) -> (Long) row[1]).reversed()));
+        return merged;
+    }
+}
@@ -6,7 +6,9 @@ import com.mmw.metal_micro_wire_backend.dto.BaseResponse;
 import com.mmw.metal_micro_wire_backend.dto.traceability.*;
 import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
-import com.mmw.metal_micro_wire_backend.service.EmailService;
+import com.mmw.metal_micro_wire_backend.service.MailQueueService;
+import com.mmw.metal_micro_wire_backend.service.RecentDetectionStoreService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityCacheService;
 import com.mmw.metal_micro_wire_backend.service.TraceabilityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,9 +31,11 @@ import java.util.stream.Collectors;
 public class TraceabilityServiceImpl implements TraceabilityService {
 
     private final WireMaterialRepository wireMaterialRepository;
-    private final EmailService emailService;
+    private final MailQueueService mailQueueService;
     private final NotificationConfig notificationConfig;
     private final QualityMonitorConfig qualityMonitorConfig;
+    private final TraceabilityCacheService traceabilityCacheService;
+    private final RecentDetectionStoreService recentDetectionStoreService;
 
     // 支持多种日期时间格式
     private static final DateTimeFormatter ISO_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
@@ -230,34 +234,41 @@ public class TraceabilityServiceImpl implements TraceabilityService {
 //            log.info("未提供结束时间，使用默认值：{}", endTime);
 //        }
 
-        List<Object[]> rawData;
-        String dimensionName;
-
         log.info("根据维度获取统计数据，维度：{}，维度值：{}，时间范围：{} 到 {}",
                 request.getDimension(), dimensionValue, startTime, endTime);
 
-        switch (request.getDimension()) {
+        TraceabilityQueryRequest.QueryDimension dimension = request.getDimension();
+        List<Object[]> rawData = traceabilityCacheService.getDimensionStatistics(dimension, startTime, endTime,
+                scenarioCode, dimensionValue,
+                (bucketStart, bucketEnd) -> queryDimensionStatistics(dimension, bucketStart, bucketEnd, scenarioCode, dimensionValue));
+
+        return convertToQualityStatistics(rawData, dimension.getDescription());
+    }
+
+    /**
+     * 按维度查询统计数据：时间窗口在内存存储保留期内时直接在内存中聚合，否则查询数据库
+     */
+    private List<Object[]> queryDimensionStatistics(TraceabilityQueryRequest.QueryDimension dimension,
+                                                    LocalDateTime startTime, LocalDateTime endTime,
+                                                    String scenarioCode, String dimensionValue) {
+        List<Object[]> recent = recentDetectionStoreService.getDimensionStatistics(
+                dimension, startTime, endTime, scenarioCode, dimensionValue);
+        if (recent != null) {
+            return recent;
+        }
+
+        switch (dimension) {
             case MANUFACTURER:
-                rawData = wireMaterialRepository.getManufacturerStatistics(startTime, endTime, scenarioCode, dimensionValue);
-                dimensionName = "生产商";
-                break;
+                return wireMaterialRepository.getManufacturerStatistics(startTime, endTime, scenarioCode, dimensionValue);
             case RESPONSIBLE_PERSON:
-                rawData = wireMaterialRepository.getResponsiblePersonStatistics(startTime, endTime, scenarioCode, dimensionValue);
-                dimensionName = "负责人";
-                break;
+                return wireMaterialRepository.getResponsiblePersonStatistics(startTime, endTime, scenarioCode, dimensionValue);
             case PROCESS_TYPE:
-                rawData = wireMaterialRepository.getProcessTypeStatistics(startTime, endTime, scenarioCode, dimensionValue);
-                dimensionName = "工艺类型";
-                break;
+                return wireMaterialRepository.getProcessTypeStatistics(startTime, endTime, scenarioCode, dimensionValue);
             case PRODUCTION_MACHINE:
-                rawData = wireMaterialRepository.getProductionMachineStatistics(startTime, endTime, scenarioCode, dimensionValue);
-                dimensionName = "生产机器";
-                break;
+                return wireMaterialRepository.getProductionMachineStatistics(startTime, endTime, scenarioCode, dimensionValue);
             default:
-                throw new IllegalArgumentException("不支持的查询维度：" + request.getDimension());
+                throw new IllegalArgumentException("不支持的查询维度：" + dimension);
         }
-
-        return convertToQualityStatistics(rawData, dimensionName);
     }
 
     /**
@@ -320,7 +331,10 @@ public class TraceabilityServiceImpl implements TraceabilityService {
             TraceabilityQueryRequest.QueryDimension dimension, LocalDateTime startTime,
             LocalDateTime endTime, String scenarioCode) {
 
-        List<Object[]> overallDataList = wireMaterialRepository.getOverallStatistics(startTime, endTime, scenarioCode);
+        List<Object[]> overallDataList = recentDetectionStoreService.getOverallStatistics(startTime, endTime, scenarioCode);
+        if (overallDataList == null) {
+            overallDataList = wireMaterialRepository.getOverallStatistics(startTime, endTime, scenarioCode);
+        }
 
         // 处理查询结果为空的情况
         if (overallDataList == null || overallDataList.isEmpty()) {
@@ -385,6 +399,11 @@ public class TraceabilityServiceImpl implements TraceabilityService {
      * 发送质量问题通知邮件
      */
     private void sendIssueNotificationEmail(QualityIssueResponse issue) {
+        if (issue.getIssueType() == QualityIssueResponse.IssueType.PROCESS_DRIFT) {
+            sendProcessDriftNotificationEmail(issue);
+            return;
+        }
+
         String subject = String.format("【质量问题通知】%s质量异常 - %s", issue.getDimension(), issue.getSeverity().getLevel());
 
         String content = String.format(
@@ -411,7 +430,39 @@ public class TraceabilityServiceImpl implements TraceabilityService {
                 issue.getDiscoveredTime().format(STANDARD_DATE_TIME_FORMATTER)
         );
 
-        emailService.sendSimpleEmail(issue.getContactEmail(), subject, content);
+        mailQueueService.enqueueDigest(issue.getContactEmail(), MailQueueService.DIGEST_QUALITY_ISSUE,
+                subject, content, false);
+    }
+
+    /**
+     * 发送过程漂移预警邮件（SPC控制图信号，没有不合格率数据）
+     */
+    private void sendProcessDriftNotificationEmail(QualityIssueResponse issue) {
+        String subject = String.format("【过程漂移预警】%s【%s】 - %s",
+                issue.getDimension(), issue.getDimensionValue(), issue.getSeverity().getLevel());
+
+        String content = String.format(
+                "尊敬的负责人，\n\n" +
+                "统计过程控制检测到过程漂移，相关检测值尚未超出合格范围，但已偏离正常波动：\n" +
+                "问题维度：%s\n" +
+                "问题对象：%s\n" +
+                "严重程度：%s\n\n" +
+                "问题描述：\n%s\n\n" +
+                "建议措施：\n%s\n\n" +
+                "相关批次：%s\n" +
+                "发现时间：%s\n\n" +
+                "此邮件由金属微丝质量溯源系统自动发送。",
+                issue.getDimension(),
+                issue.getDimensionValue(),
+                issue.getSeverity().getLevel(),
+                issue.getDescription(),
+                issue.getRecommendation(),
+                issue.getRelatedBatchNumbers() != null ? String.join(", ", issue.getRelatedBatchNumbers()) : "无",
+                issue.getDiscoveredTime().format(STANDARD_DATE_TIME_FORMATTER)
+        );
+
+        mailQueueService.enqueueDigest(issue.getContactEmail(), MailQueueService.DIGEST_QUALITY_ISSUE,
+                subject, content, false);
     }
 
     /**
@@ -437,8 +488,12 @@ public class TraceabilityServiceImpl implements TraceabilityService {
             htmlContent.append("<td>").append(issue.getDimensionValue()).append("</td>");
             htmlContent.append("<td style='color: ").append(getSeverityColor(issue.getSeverity())).append(";'>")
                       .append(issue.getSeverity().getLevel()).append("</td>");
-            htmlContent.append("<td>").append(String.format("%.2f%%", issue.getFailRate())).append("</td>");
-            htmlContent.append("<td>").append(issue.getFailCount()).append("/").append(issue.getTotalCount()).append("</td>");
+            if (issue.getIssueType() == QualityIssueResponse.IssueType.PROCESS_DRIFT) {
+                htmlContent.append("<td colspan='2'>").append(issue.getDescription()).append("</td>");
+            } else {
+                htmlContent.append("<td>").append(String.format("%.2f%%", issue.getFailRate())).append("</td>");
+                htmlContent.append("<td>").append(issue.getFailCount()).append("/").append(issue.getTotalCount()).append("</td>");
+            }
             htmlContent.append("<td>").append(issue.getContactEmail() != null ? issue.getContactEmail() : "无").append("</td>");
             htmlContent.append("</tr>");
         }
@@ -456,10 +511,10 @@ public class TraceabilityServiceImpl implements TraceabilityService {
         // 发送给所有管理员
         for (String adminEmail : notificationConfig.getAdminEmails()) {
             try {
-                emailService.sendHtmlEmail(adminEmail, subject, htmlContent.toString());
-                log.info("质量问题汇总通知已发送给管理员：{}", adminEmail);
+                mailQueueService.enqueue(adminEmail, subject, htmlContent.toString(), true);
+                log.info("质量问题汇总通知已加入发送队列，管理员：{}", adminEmail);
             } catch (Exception e) {
-                log.error("发送质量问题汇总通知给管理员{}失败", adminEmail, e);
+                log.error("质量问题汇总通知加入发送队列失败，管理员：{}", adminEmail, e);
             }
         }
     }
@@ -736,23 +791,21 @@ public class TraceabilityServiceImpl implements TraceabilityService {
 
             int successCount = 0;
             int totalCount = request.getRecipients().size();
+            List<String> deliveryIds = new ArrayList<>();
 
             for (String recipient : request.getRecipients()) {
                 try {
-                    if (Boolean.TRUE.equals(request.getIsHtml())) {
-                        emailService.sendHtmlEmail(recipient, request.getSubject(), request.getContent());
-                    } else {
-                        emailService.sendSimpleEmail(recipient, request.getSubject(), request.getContent());
-                    }
+                    deliveryIds.add(mailQueueService.enqueue(recipient, request.getSubject(), request.getContent(),
+                            Boolean.TRUE.equals(request.getIsHtml())));
                     successCount++;
-                    log.info("自定义邮件发送成功，收件人：{}", recipient);
+                    log.info("自定义邮件已加入发送队列，收件人：{}", recipient);
                 } catch (Exception e) {
-                    log.error("自定义邮件发送失败，收件人：{}，错误：{}", recipient, e.getMessage());
+                    log.error("自定义邮件加入发送队列失败，收件人：{}，错误：{}", recipient, e.getMessage());
                 }
             }
 
-            String result = String.format("自定义邮件发送完成，成功：%d/%d，收件人：%s",
-                successCount, totalCount, String.join(", ", request.getRecipients()));
+            String result = String.format("自定义邮件已加入发送队列，成功：%d/%d，收件人：%s，投递ID：%s",
+                successCount, totalCount, String.join(", ", request.getRecipients()), String.join(", ", deliveryIds));
             log.info(result);
 
             if (successCount == totalCount) {
@@ -760,7 +813,7 @@ public class TraceabilityServiceImpl implements TraceabilityService {
             } else if (successCount > 0) {
                 return BaseResponse.success(result + "（部分成功）");
             } else {
-                return BaseResponse.error("所有邮件发送失败");
+                return BaseResponse.error("所有邮件加入发送队列失败");
             }
 
         } catch (Exception e) {
@@ -802,11 +855,11 @@ public class TraceabilityServiceImpl implements TraceabilityService {
 
             for (String adminEmail : adminEmails) {
                 try {
-                    emailService.sendSimpleEmail(adminEmail, subject, content);
+                    mailQueueService.enqueue(adminEmail, subject, content, false);
                     successCount++;
-                    log.info("管理员确认邮件发送成功，收件人：{}", adminEmail);
+                    log.info("管理员确认邮件已加入发送队列，收件人：{}", adminEmail);
                 } catch (Exception e) {
-                    log.error("管理员确认邮件发送失败，收件人：{}，错误：{}", adminEmail, e.getMessage());
+                    log.error("管理员确认邮件加入发送队列失败，收件人：{}，错误：{}", adminEmail, e.getMessage());
                 }
             }
 
@@ -0,0 +1,228 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.ArchiveConfig;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterialRollup;
+import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
+import com.mmw.metal_micro_wire_backend.repository.WireMaterialRollupRepository;
+import com.mmw.metal_micro_wire_backend.service.RecentDetectionStoreService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityCacheService;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialArchiveService;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialSearchService;
+import com.mmw.metal_micro_wire_backend.util.WireMaterialSegmentCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 线材检测数据归档服务实现类
+ * 按天将过期明细写入列式段文件（archivePath/yyyy/MM/yyyyMMdd.seg），
+ * 同时在wire_material_rollups中保存按(日期, 场景, 设备)的汇总，然后删除热表中的明细
+ */
+@Slf4j
+@Service
+public class WireMaterialArchiveServiceImpl implements WireMaterialArchiveService {
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final int MIN_RETENTION_MONTHS = 2;
+
+    private final WireMaterialRepository wireMaterialRepository;
+    private final WireMaterialRollupRepository wireMaterialRollupRepository;
+    private final ArchiveConfig archiveConfig;
+    private final WireMaterialSearchService wireMaterialSearchService;
+    private final TraceabilityCacheService traceabilityCacheService;
+    private final RecentDetectionStoreService recentDetectionStoreService;
+    private final TransactionTemplate transactionTemplate;
+
+    public WireMaterialArchiveServiceImpl(WireMaterialRepository wireMaterialRepository,
+                                          WireMaterialRollupRepository wireMaterialRollupRepository,
+                                          ArchiveConfig archiveConfig,
+                                          WireMaterialSearchService wireMaterialSearchService,
+                                          TraceabilityCacheService traceabilityCacheService,
+                                          RecentDetectionStoreService recentDetectionStoreService,
+                                          PlatformTransactionManager transactionManager) {
+        this.wireMaterialRepository = wireMaterialRepository;
+        this.wireMaterialRollupRepository = wireMaterialRollupRepository;
+        this.archiveConfig = archiveConfig;
+        this.wireMaterialSearchService = wireMaterialSearchService;
+        this.traceabilityCacheService = traceabilityCacheService;
+        this.recentDetectionStoreService = recentDetectionStoreService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int archiveExpiredRecords() {
+        int retentionMonths = Math.max(MIN_RETENTION_MONTHS, archiveConfig.getRetentionMonths());
+        LocalDateTime cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+
+        int archivedCount = 0;
+        int archivedDays = 0;
+        while (archivedDays < archiveConfig.getMaxDaysPerRun()) {
+            // 已归档的明细会被删除，每次重新取最早时间即可跳过没有数据的日期
+            LocalDateTime earliest = wireMaterialRepository.findEarliestEventTime();
+            if (earliest == null || !earliest.isBefore(cutoff)) {
+                break;
+            }
+
+            LocalDate day = earliest.toLocalDate();
+            List<WireMaterial> rows = wireMaterialRepository.findByEventTimeGreaterThanEqualAndEventTimeLessThan(
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            try {
+                archiveDay(day, rows);
+                traceabilityCacheService.invalidate(day.atStartOfDay());
+            } catch (Exception e) {
+                log.error("归档{}的线材数据失败，本次归档任务终止", day, e);
+                break;
+            }
+
+            archivedCount += rows.size();
+            archivedDays++;
+            log.info("已归档{}的线材数据{}条", day, rows.size());
+        }
+
+        if (archivedDays > 0) {
+            log.info("线材数据归档完成，共归档{}天、{}条记录，保留期：{}个月", archivedDays, archivedCount, retentionMonths);
+        }
+        return archivedCount;
+    }
+
+    @Override
+    public Optional<WireMaterial> findArchivedByBatchNumber(String batchNumber) {
+        try {
+            for (Path segment : candidateSegments(batchNumber)) {
+                Optional<WireMaterial> found = WireMaterialSegmentCodec.find(segment, batchNumber);
+                if (found.isPresent()) {
+                    log.debug("在归档段文件{}中找到批次：{}", segment, batchNumber);
+                    return found;
+                }
+            }
+        } catch (IOException e) {
+            log.error("读取归档段文件失败，批次号：{}", batchNumber, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 归档某一天的数据
+     * 段文件已存在时（例如补录的迟到数据）与已有内容合并，汇总按合并后的全量重新计算，保证重复执行结果一致
+     */
+    private void archiveDay(LocalDate day, List<WireMaterial> rows) throws IOException {
+        Path segment = segmentPath(day);
+
+        Map<String, WireMaterial> merged = new LinkedHashMap<>();
+        if (Files.exists(segment)) {
+            for (WireMaterial archived : WireMaterialSegmentCodec.readAll(segment)) {
+                merged.put(archived.getBatchNumber(), archived);
+            }
+        }
+        for (WireMaterial row : rows) {
+            merged.put(row.getBatchNumber(), row);
+        }
+
+        WireMaterialSegmentCodec.write(new ArrayList<>(merged.values()), segment);
+
+        List<WireMaterialRollup> rollups = buildRollups(day, merged.values());
+        List<String> batchNumbers = rows.stream().map(WireMaterial::getBatchNumber).collect(Collectors.toList());
+
+        // 只删除已写入段文件的批次，归档期间新写入的同日数据留到下次归档
+        transactionTemplate.executeWithoutResult(status -> {
+            wireMaterialRollupRepository.deleteByRollupDate(day);
+            wireMaterialRollupRepository.saveAll(rollups);
+            for (int i = 0; i < batchNumbers.size(); i += DELETE_CHUNK_SIZE) {
+                wireMaterialRepository.deleteAllByIdInBatch(
+                        batchNumbers.subList(i, Math.min(i + DELETE_CHUNK_SIZE, batchNumbers.size())));
+            }
+            wireMaterialSearchService.removeFromIndex(batchNumbers);
+        });
+        recentDetectionStoreService.remove(batchNumbers);
+    }
+
+    /**
+     * 按(场景, 设备)汇总某一天的检测结果
+     */
+    private List<WireMaterialRollup> buildRollups(LocalDate day, Collection<WireMaterial> materials) {
+        Map<List<String>, WireMaterialRollup> rollups = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (WireMaterial material : materials) {
+            WireMaterialRollup rollup = rollups.computeIfAbsent(
+                    Arrays.asList(material.getScenarioCode(), material.getDeviceId()),
+                    key -> WireMaterialRollup.builder()
+                            .rollupDate(day)
+                            .scenarioCode(material.getScenarioCode())
+                            .deviceId(material.getDeviceId())
+                            .totalCount(0L)
+                            .passCount(0L)
+                            .failCount(0L)
+                            .pendingReviewCount(0L)
+                            .unknownCount(0L)
+                            .archivedTime(now)
+                            .build());
+
+            rollup.setTotalCount(rollup.getTotalCount() + 1);
+            WireMaterial.FinalEvaluationResult result = material.getFinalEvaluationResult();
+            if (result == WireMaterial.FinalEvaluationResult.PASS) {
+                rollup.setPassCount(rollup.getPassCount() + 1);
+            } else if (result == WireMaterial.FinalEvaluationResult.FAIL) {
+                rollup.setFailCount(rollup.getFailCount() + 1);
+            } else if (result == WireMaterial.FinalEvaluationResult.PENDING_REVIEW) {
+                rollup.setPendingReviewCount(rollup.getPendingReviewCount() + 1);
+            } else {
+                rollup.setUnknownCount(rollup.getUnknownCount() + 1);
+            }
+        }
+        return new ArrayList<>(rollups.values());
+    }
+
+    /**
+     * 根据批次号中的检测日期（第5-12位）定位候选段文件
+     * 事件时间经过时区转换可能与批次日期相差一天，因此同时检查前后两天；
+     * 批次号无法解析时退化为扫描全部段文件
+     */
+    private List<Path> candidateSegments(String batchNumber) throws IOException {
+        if (batchNumber != null && batchNumber.length() >= 12) {
+            try {
+                LocalDate batchDay = LocalDate.parse(batchNumber.substring(4, 12), DAY_FORMATTER);
+                return Stream.of(batchDay, batchDay.minusDays(1), batchDay.plusDays(1))
+                        .map(this::segmentPath)
+                        .filter(Files::exists)
+                        .collect(Collectors.toList());
+            } catch (DateTimeParseException e) {
+                log.debug("批次号{}中未包含有效日期，扫描全部归档段文件", batchNumber);
+            }
+        }
+
+        Path root = Paths.get(archiveConfig.getArchivePath());
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(LocalDate day) {
+        return Paths.get(archiveConfig.getArchivePath(),
+                String.valueOf(day.getYear()),
+                String.format("%02d", day.getMonthValue()),
+                day.format(DAY_FORMATTER) + SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,374 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialExportRequest;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 线材数据导出服务实现类
+ * 使用只进游标（fetchSize）配合RowCallbackHandler逐行写出，不在内存中缓存结果集
+ */
+@Slf4j
+@Service
+public class WireMaterialExportServiceImpl implements WireMaterialExportService {
+
+    private static final String FORMAT_CSV = "csv";
+    private static final String FORMAT_NDJSON = "ndjson";
+
+    /**
+     * openGauss/PostgreSQL驱动在关闭自动提交时按该大小分批拉取
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * 输出缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter CSV_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 导出列定义（原始设备报文source_origin_raw体积较大，不参与导出）
+     */
+    private static final List<ExportColumn> COLUMNS = List.of(
+            new ExportColumn("batch_number", "batchNumber", ColumnType.STRING),
+            new ExportColumn("device_id", "deviceId", ColumnType.STRING),
+            new ExportColumn("diameter", "diameter", ColumnType.DECIMAL),
+            new ExportColumn("resistance", "resistance", ColumnType.DECIMAL),
+            new ExportColumn("extensibility", "extensibility", ColumnType.DECIMAL),
+            new ExportColumn("weight", "weight", ColumnType.DECIMAL),
+            new ExportColumn("manufacturer", "manufacturer", ColumnType.STRING),
+            new ExportColumn("responsible_person", "responsiblePerson", ColumnType.STRING),
+            new ExportColumn("process_type", "processType", ColumnType.STRING),
+            new ExportColumn("production_machine", "productionMachine", ColumnType.STRING),
+            new ExportColumn("contact_email", "contactEmail", ColumnType.STRING),
+            new ExportColumn("scenario_code", "scenarioCode", ColumnType.STRING),
+            new ExportColumn("device_code", "deviceCode", ColumnType.STRING),
+            new ExportColumn("event_time", "eventTime", ColumnType.TIME),
+            new ExportColumn("evaluation_result", "evaluationResult", ColumnType.STRING),
+            new ExportColumn("evaluation_message", "evaluationMessage", ColumnType.STRING),
+            new ExportColumn("model_evaluation_result", "modelEvaluationResult", ColumnType.STRING),
+            new ExportColumn("model_confidence", "modelConfidence", ColumnType.DECIMAL),
+            new ExportColumn("final_evaluation_result", "finalEvaluationResult", ColumnType.STRING),
+            new ExportColumn("create_time", "createTime", ColumnType.TIME)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Boolean mysql;
+
+    public WireMaterialExportServiceImpl(JdbcTemplate jdbcTemplate,
+                                         ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // openGauss/PostgreSQL驱动只有在事务内（关闭自动提交）才会使用游标分批读取
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public String validate(WireMaterialExportRequest request) {
+        String format = normalizeFormat(request.getFormat());
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            return "不支持的导出格式：" + request.getFormat();
+        }
+        if (request.getStartTime() != null && request.getEndTime() != null
+                && !request.getStartTime().isBefore(request.getEndTime())) {
+            return "开始时间必须早于结束时间";
+        }
+        if (StringUtils.hasText(request.getFinalEvaluationResult())) {
+            try {
+                WireMaterial.FinalEvaluationResult.valueOf(request.getFinalEvaluationResult().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return "不支持的评估结果：" + request.getFinalEvaluationResult();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long export(WireMaterialExportRequest request, OutputStream outputStream) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String sql = buildQuery(request, params);
+        boolean ndjson = FORMAT_NDJSON.equals(normalizeFormat(request.getFormat()));
+        int fetchSize = isMysql() ? Integer.MIN_VALUE : FETCH_SIZE;
+
+        GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(outputStream), BUFFER_SIZE);
+        RowWriter writer = ndjson ? new NdjsonRowWriter(gzip) : new CsvRowWriter(gzip);
+        long[] rowCount = {0};
+
+        try {
+            writer.writeHeader();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.writeRow(rs);
+                    rowCount[0]++;
+                } catch (IOException e) {
+                    // 客户端断开等写出异常，终止游标读取
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            writer.finish();
+            gzip.finish();
+            outputStream.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("线材数据导出完成，格式：{}，记录数：{}", ndjson ? FORMAT_NDJSON : FORMAT_CSV, rowCount[0]);
+        return rowCount[0];
+    }
+
+    /**
+     * 构建导出查询语句，按事件时间顺序输出
+     */
+    private String buildQuery(WireMaterialExportRequest request, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(COLUMNS.get(i).column());
+        }
+        sql.append(" FROM wire_materials WHERE 1 = 1");
+
+        if (request.getStartTime() != null) {
+            sql.append(" AND event_time >= ?");
+            params.add(Timestamp.valueOf(request.getStartTime()));
+        }
+        if (request.getEndTime() != null) {
+            sql.append(" AND event_time < ?");
+            params.add(Timestamp.valueOf(request.getEndTime()));
+        }
+        if (StringUtils.hasText(request.getScenarioCode())) {
+            sql.append(" AND scenario_code = ?");
+            params.add(request.getScenarioCode());
+        }
+        if (StringUtils.hasText(request.getDeviceId())) {
+            sql.append(" AND device_id = ?");
+            params.add(request.getDeviceId());
+        }
+        if (StringUtils.hasText(request.getFinalEvaluationResult())) {
+            sql.append(" AND final_evaluation_result = ?");
+            params.add(request.getFinalEvaluationResult().toUpperCase(Locale.ROOT));
+        }
+        sql.append(" ORDER BY event_time, batch_number");
+        return sql.toString();
+    }
+
+    private String normalizeFormat(String format) {
+        return StringUtils.hasText(format) ? format.trim().toLowerCase(Locale.ROOT) : FORMAT_CSV;
+    }
+
+    /**
+     * 根据数据库产品名称判断是否为MySQL
+     * MySQL驱动只有fetchSize为Integer.MIN_VALUE时才逐行流式读取
+     */
+    private boolean isMysql() {
+        if (mysql == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            mysql = productName != null && productName.toLowerCase(Locale.ROOT).contains("mysql");
+        }
+        return mysql;
+    }
+
+    private enum ColumnType {
+        STRING, DECIMAL, TIME
+    }
+
+    private record ExportColumn(String column, String field, ColumnType type) {
+    }
+
+    private interface RowWriter {
+        void writeHeader() throws IOException;
+
+        void writeRow(ResultSet rs) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * CSV写出器，带UTF-8 BOM以便Excel正确识别中文
+     */
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream outputStream) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            writer.write('\uFEFF');
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(COLUMNS.get(i).column());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws IOException {
+            try {
+                for (int i = 0; i < COLUMNS.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    ExportColumn column = COLUMNS.get(i);
+                    String value = switch (column.type()) {
+                        case DECIMAL -> {
+                            BigDecimal decimal = rs.getBigDecimal(i + 1);
+                            yield decimal != null ? decimal.toPlainString() : null;
+                        }
+                        case TIME -> {
+                            Timestamp timestamp = rs.getTimestamp(i + 1);
+                            yield timestamp != null ? timestamp.toLocalDateTime().format(CSV_TIME_FORMATTER) : null;
+                        }
+                        default -> rs.getString(i + 1);
+                    };
+                    if (value != null) {
+                        writeEscaped(value);
+                    }
+                }
+                writer.write("\r\n");
+            } catch (SQLException e) {
+                throw new IOException("读取导出数据失败", e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            boolean needQuote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!needQuote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    /**
+     * NDJSON写出器，每条记录一行JSON对象
+     */
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream outputStream) throws IOException {
+            this.generator = objectMapper.getFactory()
+                    .createGenerator(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+            this.generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            // 记录之间用换行分隔，不使用默认的空格分隔符
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeHeader() {
+            // NDJSON没有表头
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws IOException {
+            try {
+                generator.writeStartObject();
+                for (int i = 0; i < COLUMNS.size(); i++) {
+                    ExportColumn column = COLUMNS.get(i);
+                    generator.writeFieldName(column.field());
+                    switch (column.type()) {
+                        case DECIMAL -> {
+                            BigDecimal decimal = rs.getBigDecimal(i + 1);
+                            if (decimal != null) {
+                                generator.writeNumber(decimal);
+                            } else {
+                                generator.writeNull();
+                            }
+                        }
+                        case TIME -> {
+                            Timestamp timestamp = rs.getTimestamp(i + 1);
+                            if (timestamp != null) {
+                                generator.writeString(timestamp.toLocalDateTime().toString());
+                            } else {
+                                generator.writeNull();
+                            }
+                        }
+                        default -> generator.writeString(rs.getString(i + 1));
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (SQLException e) {
+                throw new IOException("读取导出数据失败", e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * 防止gzip流结束时关闭底层的Servlet输出流
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
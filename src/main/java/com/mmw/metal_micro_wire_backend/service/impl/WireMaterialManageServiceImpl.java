@@ -6,10 +6,16 @@ import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageRequest
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageResponse;
 import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialResponse;
 import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
 import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
+import com.mmw.metal_micro_wire_backend.service.DimensionDictionaryService;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialArchiveService;
 import com.mmw.metal_micro_wire_backend.service.WireMaterialManageService;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialSearchService;
+import com.mmw.metal_micro_wire_backend.util.KeysetPageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -33,6 +39,10 @@ import java.util.Optional;
 public class WireMaterialManageServiceImpl implements WireMaterialManageService {
     
     private final WireMaterialRepository wireMaterialRepository;
+    private final WireMaterialArchiveService wireMaterialArchiveService;
+    private final WireMaterialSearchService wireMaterialSearchService;
+    private final DimensionDictionaryService dimensionDictionaryService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
     public BaseResponse<WireMaterialPageResponse> getWireMaterialList(WireMaterialPageRequest request) {
@@ -47,53 +57,9 @@ public class WireMaterialManageServiceImpl implements WireMaterialManageService
             Specification<WireMaterial> spec = (root, query, criteriaBuilder) -> {
                 List<Predicate> predicates = new ArrayList<>();
                 
-                // 批次号关键词搜索
-                if (StringUtils.hasText(request.getBatchNumberKeyword())) {
-                    predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("batchNumber")), 
-                        "%" + request.getBatchNumberKeyword().toLowerCase() + "%"
-                    ));
-                }
-                
-                // 设备ID关键词搜索
-                if (StringUtils.hasText(request.getDeviceIdKeyword())) {
-                    predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("deviceId")), 
-                        "%" + request.getDeviceIdKeyword().toLowerCase() + "%"
-                    ));
-                }
-                
-                // 生产商关键词搜索
-                if (StringUtils.hasText(request.getManufacturerKeyword())) {
-                    predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("manufacturer")), 
-                        "%" + request.getManufacturerKeyword().toLowerCase() + "%"
-                    ));
-                }
-                
-                // 负责人关键词搜索
-                if (StringUtils.hasText(request.getResponsiblePersonKeyword())) {
-                    predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("responsiblePerson")), 
-                        "%" + request.getResponsiblePersonKeyword().toLowerCase() + "%"
-                    ));
-                }
-                
-                // 工艺类型关键词搜索
-                if (StringUtils.hasText(request.getProcessTypeKeyword())) {
-                    predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("processType")), 
-                        "%" + request.getProcessTypeKeyword().toLowerCase() + "%"
-                    ));
-                }
-                
-                // 生产机器关键词搜索
-                if (StringUtils.hasText(request.getProductionMachineKeyword())) {
-                    predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("productionMachine")), 
-                        "%" + request.getProductionMachineKeyword().toLowerCase() + "%"
-                    ));
-                }
+                // 关键词搜索（批次号、设备ID、生产商、负责人、工艺类型、生产机器），由搜索索引转换为索引查找
+                predicates.add(wireMaterialSearchService.keywordSpecification(request)
+                        .toPredicate(root, query, criteriaBuilder));
                 
                 // 应用场景编号筛选
                 if (StringUtils.hasText(request.getScenarioCode())) {
@@ -108,6 +74,16 @@ public class WireMaterialManageServiceImpl implements WireMaterialManageService
                 return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
             };
             
+            // 游标分页：不执行COUNT查询，查询代价与页深度无关
+            if (request.isKeysetMode()) {
+                KeysetPageUtil.KeysetPage keysetPage = KeysetPageUtil.fetch(wireMaterialRepository, spec,
+                        request.getSortBy(), direction, request.getAfter(), request.getSize(), request.isWithTotal());
+                return BaseResponse.success(WireMaterialPageResponse.fromKeysetPage(
+                        keysetPage.content().stream().map(WireMaterialResponse::fromEntity).toList(),
+                        request.getSize(), !StringUtils.hasText(request.getAfter()),
+                        keysetPage.nextCursor(), keysetPage.totalElements()));
+            }
+            
             // 查询数据
             Page<WireMaterial> wireMaterialPage = wireMaterialRepository.findAll(spec, pageable);
             
@@ -126,6 +102,10 @@ public class WireMaterialManageServiceImpl implements WireMaterialManageService
     public BaseResponse<WireMaterialResponse> getWireMaterialByBatchNumber(String batchNumber) {
         try {
             Optional<WireMaterial> wireMaterialOpt = wireMaterialRepository.findById(batchNumber);
+            if (wireMaterialOpt.isEmpty()) {
+                // 热表中不存在时查询归档段文件
+                wireMaterialOpt = wireMaterialArchiveService.findArchivedByBatchNumber(batchNumber);
+            }
             if (wireMaterialOpt.isEmpty()) {
                 return BaseResponse.error("线材记录不存在：" + batchNumber);
             }
@@ -177,7 +157,9 @@ public class WireMaterialManageServiceImpl implements WireMaterialManageService
                 wireMaterial.setContactEmail(request.getContactEmail());
             }
             
+            dimensionDictionaryService.assignIds(wireMaterial);
             WireMaterial savedWireMaterial = wireMaterialRepository.save(wireMaterial);
+            eventPublisher.publishEvent(WireMaterialChangedEvent.saved(savedWireMaterial));
             log.info("线材信息更新成功，批次号：{}", batchNumber);
             
             return BaseResponse.success(WireMaterialResponse.fromEntity(savedWireMaterial));
@@ -191,11 +173,13 @@ public class WireMaterialManageServiceImpl implements WireMaterialManageService
     @Transactional
     public BaseResponse<Void> deleteWireMaterial(String batchNumber) {
         try {
-            if (!wireMaterialRepository.existsById(batchNumber)) {
+            Optional<WireMaterial> existing = wireMaterialRepository.findById(batchNumber);
+            if (existing.isEmpty()) {
                 return BaseResponse.error("线材记录不存在：" + batchNumber);
             }
             
             wireMaterialRepository.deleteById(batchNumber);
+            eventPublisher.publishEvent(WireMaterialChangedEvent.deleted(existing.get()));
             log.info("线材记录删除成功，批次号：{}", batchNumber);
             
             return BaseResponse.success(null);
@@ -0,0 +1,175 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.PartitionConfig;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 线材数据分区管理服务实现类
+ * 同时支持openGauss（pg_partition）与MySQL（information_schema.PARTITIONS）
+ * 分区只能在末尾追加，因此从现有最大月份分区之后依次创建；
+ * 存在MAXVALUE兜底分区时改为从兜底分区中依次拆分出新月份
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WireMaterialPartitionServiceImpl implements WireMaterialPartitionService {
+
+    private static final String TABLE_NAME = "wire_materials";
+    private static final DateTimeFormatter PARTITION_SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUNDARY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionConfig partitionConfig;
+
+    private volatile Boolean mysql;
+
+    @Override
+    public boolean isPartitioned() {
+        return !listPartitions().isEmpty();
+    }
+
+    @Override
+    public List<String> listPartitions() {
+        if (isMysql()) {
+            return jdbcTemplate.queryForList(
+                    "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                    "ORDER BY PARTITION_ORDINAL_POSITION",
+                    String.class, TABLE_NAME);
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT p.relname FROM pg_partition p " +
+                "JOIN pg_class c ON p.parentid = c.oid " +
+                "WHERE c.relname = ? AND p.parttype = 'p' " +
+                "AND c.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema()) " +
+                "ORDER BY p.relname",
+                String.class, TABLE_NAME);
+    }
+
+    @Override
+    public int ensureUpcomingPartitions() {
+        List<String> partitions = listPartitions();
+        if (partitions.isEmpty()) {
+            log.warn("{}表未分区，跳过分区预创建，请先执行db/partition目录下的分区迁移脚本", TABLE_NAME);
+            return 0;
+        }
+
+        YearMonth target = YearMonth.now().plusMonths(partitionConfig.getMonthsAhead());
+        YearMonth latest = findLatestMonth(partitions);
+        if (latest == null) {
+            log.warn("{}表中未找到符合命名规则（{}yyyyMM）的月度分区，跳过分区预创建",
+                    TABLE_NAME, partitionConfig.getPartitionPrefix());
+            return 0;
+        }
+
+        String catchAll = findCatchAllPartition(partitions);
+        int created = 0;
+        for (YearMonth month = latest.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            String partitionName = partitionName(month);
+            String boundary = month.plusMonths(1).atDay(1).atStartOfDay().format(BOUNDARY_FORMATTER);
+            String sql = catchAll != null
+                    ? splitCatchAllSql(catchAll, partitionName, boundary)
+                    : addPartitionSql(partitionName, boundary);
+            try {
+                jdbcTemplate.execute(sql);
+                created++;
+                log.info("创建分区成功：{}.{}，上界：{}", TABLE_NAME, partitionName, boundary);
+            } catch (Exception e) {
+                // 分区只能按顺序追加，某个月份失败后后续月份也无法创建
+                log.error("创建分区失败：{}.{}，SQL：{}", TABLE_NAME, partitionName, sql, e);
+                break;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * 从分区名称中解析出最新的月份
+     */
+    private YearMonth findLatestMonth(List<String> partitions) {
+        String prefix = partitionConfig.getPartitionPrefix().toLowerCase(Locale.ROOT);
+        YearMonth latest = null;
+        for (String partition : partitions) {
+            String name = partition.toLowerCase(Locale.ROOT);
+            if (!name.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                YearMonth month = YearMonth.parse(name.substring(prefix.length()), PARTITION_SUFFIX_FORMATTER);
+                if (latest == null || month.isAfter(latest)) {
+                    latest = month;
+                }
+            } catch (DateTimeParseException e) {
+                log.debug("忽略不符合月度命名规则的分区：{}", partition);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 查找兜底分区，不存在时返回null
+     */
+    private String findCatchAllPartition(List<String> partitions) {
+        String catchAll = partitionConfig.getCatchAllPartition();
+        if (catchAll == null || catchAll.isBlank()) {
+            return null;
+        }
+        return partitions.stream()
+                .filter(partition -> partition.equalsIgnoreCase(catchAll))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 在末尾追加月度分区（无兜底分区时）
+     */
+    private String addPartitionSql(String partitionName, String boundary) {
+        return isMysql()
+                ? String.format("ALTER TABLE %s ADD PARTITION (PARTITION %s VALUES LESS THAN ('%s'))",
+                        TABLE_NAME, partitionName, boundary)
+                : String.format("ALTER TABLE %s ADD PARTITION %s VALUES LESS THAN ('%s')",
+                        TABLE_NAME, partitionName, boundary);
+    }
+
+    /**
+     * 从兜底分区中拆分出月度分区，兜底分区保持在最后
+     * openGauss拆分会使全局索引（主键）失效，需同时重建
+     */
+    private String splitCatchAllSql(String catchAll, String partitionName, String boundary) {
+        return isMysql()
+                ? String.format("ALTER TABLE %s REORGANIZE PARTITION %s INTO (" +
+                                "PARTITION %s VALUES LESS THAN ('%s'), PARTITION %s VALUES LESS THAN (MAXVALUE))",
+                        TABLE_NAME, catchAll, partitionName, boundary, catchAll)
+                : String.format("ALTER TABLE %s SPLIT PARTITION %s AT ('%s') INTO (PARTITION %s, PARTITION %s) " +
+                                "UPDATE GLOBAL INDEX",
+                        TABLE_NAME, catchAll, boundary, partitionName, catchAll);
+    }
+
+    private String partitionName(YearMonth month) {
+        return partitionConfig.getPartitionPrefix() + month.format(PARTITION_SUFFIX_FORMATTER);
+    }
+
+    /**
+     * 根据数据库产品名称判断是否为MySQL，其余按openGauss处理
+     */
+    private boolean isMysql() {
+        if (mysql == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            mysql = productName != null && productName.toLowerCase(Locale.ROOT).contains("mysql");
+            log.info("分区管理检测到数据库类型：{}", productName);
+        }
+        return mysql;
+    }
+}
@@ -0,0 +1,279 @@
+package com.mmw.metal_micro_wire_backend.service.impl;
+
+import com.mmw.metal_micro_wire_backend.config.SearchConfig;
+import com.mmw.metal_micro_wire_backend.dto.wirematerial.WireMaterialPageRequest;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterialBatchGram;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.WireMaterialSearchService;
+import com.mmw.metal_micro_wire_backend.util.NGramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import jakarta.persistence.criteria.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 线材关键词搜索服务实现类
+ * 批次号：数据库三元组倒排表（wire_material_batch_grams），关键词不足3个字符时使用主键前缀匹配；
+ * 设备ID、生产商、负责人、工艺类型、生产机器：取值基数低，在内存中对全部取值建立三元组索引，
+ * 关键词先解析为匹配的取值集合，再以 IN 条件走索引查询。
+ * 索引在数据变更事务提交后于独立事务中维护，索引写入失败不会影响检测数据本身
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WireMaterialSearchServiceImpl implements WireMaterialSearchService {
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchConfig searchConfig;
+
+    /**
+     * 维度字段的内存取值索引
+     */
+    private final Map<DimensionField, NGramIndex> dimensionIndexes = createDimensionIndexes();
+
+    private volatile boolean dimensionsReady = false;
+    private volatile boolean batchGramsReady = false;
+
+    /**
+     * 支持索引搜索的维度字段
+     */
+    private enum DimensionField {
+        DEVICE_ID("deviceId", "device_id", WireMaterialPageRequest::getDeviceIdKeyword, WireMaterial::getDeviceId),
+        MANUFACTURER("manufacturer", "manufacturer", WireMaterialPageRequest::getManufacturerKeyword, WireMaterial::getManufacturer),
+        RESPONSIBLE_PERSON("responsiblePerson", "responsible_person", WireMaterialPageRequest::getResponsiblePersonKeyword, WireMaterial::getResponsiblePerson),
+        PROCESS_TYPE("processType", "process_type", WireMaterialPageRequest::getProcessTypeKeyword, WireMaterial::getProcessType),
+        PRODUCTION_MACHINE("productionMachine", "production_machine", WireMaterialPageRequest::getProductionMachineKeyword, WireMaterial::getProductionMachine);
+
+        private final String field;
+        private final String column;
+        private final Function<WireMaterialPageRequest, String> keywordGetter;
+        private final Function<WireMaterial, String> valueGetter;
+
+        DimensionField(String field, String column,
+                       Function<WireMaterialPageRequest, String> keywordGetter,
+                       Function<WireMaterial, String> valueGetter) {
+            this.field = field;
+            this.column = column;
+            this.keywordGetter = keywordGetter;
+            this.valueGetter = valueGetter;
+        }
+    }
+
+    @Override
+    public Specification<WireMaterial> keywordSpecification(WireMaterialPageRequest request) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (StringUtils.hasText(request.getBatchNumberKeyword())) {
+                predicates.add(batchNumberPredicate(root, query, criteriaBuilder, request.getBatchNumberKeyword()));
+            }
+
+            for (DimensionField field : DimensionField.values()) {
+                String keyword = field.keywordGetter.apply(request);
+                if (StringUtils.hasText(keyword)) {
+                    predicates.add(dimensionPredicate(root, criteriaBuilder, field, keyword));
+                }
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 线材数据变更提交后维护索引：新数据写入三元组，更新只可能改变维度取值，删除时移除三元组
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onWireMaterialChanged(WireMaterialChangedEvent event) {
+        WireMaterial wireMaterial = event.getWireMaterial();
+        switch (event.getChangeType()) {
+            case CREATED -> indexWireMaterial(wireMaterial);
+            case SAVED -> addDimensionValues(wireMaterial);
+            case DELETED -> {
+                try {
+                    removeFromIndex(List.of(wireMaterial.getBatchNumber()));
+                } catch (Exception e) {
+                    log.error("移除批次号搜索索引失败，批次号：{}", wireMaterial.getBatchNumber(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void indexWireMaterial(WireMaterial wireMaterial) {
+        if (!searchConfig.isEnabled()) {
+            return;
+        }
+        addDimensionValues(wireMaterial);
+
+        try {
+            // 同一批次号重复上报时先清除旧的三元组，避免主键冲突
+            jdbcTemplate.update("DELETE FROM wire_material_batch_grams WHERE batch_number = ?", wireMaterial.getBatchNumber());
+            insertBatchGrams(List.of(wireMaterial.getBatchNumber()));
+        } catch (Exception e) {
+            log.error("更新批次号搜索索引失败，批次号：{}", wireMaterial.getBatchNumber(), e);
+        }
+    }
+
+    @Override
+    public void removeFromIndex(Collection<String> batchNumbers) {
+        if (batchNumbers.isEmpty()) {
+            return;
+        }
+        List<String> list = new ArrayList<>(batchNumbers);
+        for (int i = 0; i < list.size(); i += DELETE_CHUNK_SIZE) {
+            List<String> chunk = list.subList(i, Math.min(i + DELETE_CHUNK_SIZE, list.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update("DELETE FROM wire_material_batch_grams WHERE batch_number IN (" + placeholders + ")",
+                    chunk.toArray());
+        }
+    }
+
+    @Override
+    public int rebuildIndexes() {
+        if (!searchConfig.isEnabled()) {
+            log.info("线材索引搜索未启用，使用LIKE模糊查询");
+            return 0;
+        }
+
+        for (DimensionField field : DimensionField.values()) {
+            NGramIndex index = dimensionIndexes.get(field);
+            jdbcTemplate.queryForList("SELECT DISTINCT " + field.column + " FROM wire_materials WHERE "
+                    + field.column + " IS NOT NULL", String.class).forEach(index::add);
+            log.info("维度取值索引加载完成：{}，取值数量：{}", field.field, index.size());
+        }
+        dimensionsReady = true;
+
+        // 只回填尚未建立三元组的批次，按批次号顺序分批处理
+        int backfilled = 0;
+        String lastBatchNumber = "";
+        while (true) {
+            List<String> missing = jdbcTemplate.queryForList(
+                    "SELECT w.batch_number FROM wire_materials w WHERE w.batch_number > ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM wire_material_batch_grams g WHERE g.batch_number = w.batch_number) " +
+                    "ORDER BY w.batch_number LIMIT " + searchConfig.getBackfillBatchSize(),
+                    String.class, lastBatchNumber);
+            if (missing.isEmpty()) {
+                break;
+            }
+            insertBatchGrams(missing);
+            backfilled += missing.size();
+            lastBatchNumber = missing.get(missing.size() - 1);
+        }
+        batchGramsReady = true;
+
+        log.info("批次号三元组索引就绪，本次回填{}个批次", backfilled);
+        return backfilled;
+    }
+
+    /**
+     * 批次号搜索条件
+     * 关键词不少于3个字符时：三元组倒排表求候选集 + LIKE校验（三元组全部命中不代表连续出现）；
+     * 不足3个字符时：主键前缀匹配
+     */
+    private Predicate batchNumberPredicate(Root<WireMaterial> root, CriteriaQuery<?> query,
+                                           CriteriaBuilder criteriaBuilder, String keyword) {
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        Predicate like = criteriaBuilder.like(criteriaBuilder.lower(root.get("batchNumber")), "%" + lower + "%");
+        if (!searchConfig.isEnabled() || !batchGramsReady) {
+            return like;
+        }
+
+        List<String> grams = selectGrams(lower);
+        if (grams.isEmpty()) {
+            return criteriaBuilder.or(
+                    criteriaBuilder.like(root.get("batchNumber"), keyword + "%"),
+                    criteriaBuilder.like(root.get("batchNumber"), keyword.toUpperCase(Locale.ROOT) + "%"));
+        }
+
+        Subquery<String> candidates = query.subquery(String.class);
+        Root<WireMaterialBatchGram> gram = candidates.from(WireMaterialBatchGram.class);
+        candidates.select(gram.get("batchNumber"))
+                .where(gram.get("gram").in(grams))
+                .groupBy(gram.get("batchNumber"))
+                .having(criteriaBuilder.equal(criteriaBuilder.countDistinct(gram.get("gram")), (long) grams.size()));
+
+        return criteriaBuilder.and(root.get("batchNumber").in(candidates), like);
+    }
+
+    /**
+     * 维度字段搜索条件：关键词解析为取值集合后使用IN查询
+     */
+    private Predicate dimensionPredicate(Root<WireMaterial> root, CriteriaBuilder criteriaBuilder,
+                                         DimensionField field, String keyword) {
+        Predicate like = criteriaBuilder.like(criteriaBuilder.lower(root.get(field.field)),
+                "%" + keyword.toLowerCase(Locale.ROOT) + "%");
+        if (!searchConfig.isEnabled() || !dimensionsReady) {
+            return like;
+        }
+
+        Set<String> matches = dimensionIndexes.get(field).search(keyword, searchConfig.getMaxDimensionMatches());
+        if (matches == null) {
+            log.debug("维度{}关键词{}匹配取值过多，使用LIKE模糊查询", field.field, keyword);
+            return like;
+        }
+        if (matches.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        return root.get(field.field).in(matches);
+    }
+
+    /**
+     * 选取覆盖整个关键词的不重叠三元组（含末尾三元组），减少参与求交的倒排表数量
+     */
+    private List<String> selectGrams(String lower) {
+        if (lower.length() < NGramIndex.GRAM_LENGTH) {
+            return Collections.emptyList();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + NGramIndex.GRAM_LENGTH <= lower.length(); i += NGramIndex.GRAM_LENGTH) {
+            grams.add(lower.substring(i, i + NGramIndex.GRAM_LENGTH));
+        }
+        grams.add(lower.substring(lower.length() - NGramIndex.GRAM_LENGTH));
+        return new ArrayList<>(grams);
+    }
+
+    private void addDimensionValues(WireMaterial wireMaterial) {
+        if (!searchConfig.isEnabled()) {
+            return;
+        }
+        for (DimensionField field : DimensionField.values()) {
+            dimensionIndexes.get(field).add(field.valueGetter.apply(wireMaterial));
+        }
+    }
+
+    private static Map<DimensionField, NGramIndex> createDimensionIndexes() {
+        Map<DimensionField, NGramIndex> indexes = new EnumMap<>(DimensionField.class);
+        for (DimensionField field : DimensionField.values()) {
+            indexes.put(field, new NGramIndex());
+        }
+        return indexes;
+    }
+
+    /**
+     * 批量写入批次号三元组
+     */
+    private void insertBatchGrams(List<String> batchNumbers) {
+        List<Object[]> rows = new ArrayList<>();
+        for (String batchNumber : batchNumbers) {
+            for (String gram : NGramIndex.grams(batchNumber)) {
+                rows.add(new Object[]{gram, batchNumber});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO wire_material_batch_grams (gram, batch_number) VALUES (?, ?)", rows);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.DimensionDictionaryService;
+import com.mmw.metal_micro_wire_backend.service.TraceabilityCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 维度字典初始化任务
+ * 启动后为尚未分配字典ID的历史线材数据补齐ID，保证溯源统计覆盖全部数据
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DimensionDictionaryInitTask {
+
+    private final DimensionDictionaryService dimensionDictionaryService;
+    private final TraceabilityCacheService traceabilityCacheService;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        try {
+            int updated = dimensionDictionaryService.backfillIds();
+            if (updated > 0) {
+                log.info("维度字典ID回填完成，共更新{}行", updated);
+                // 回填前缓存的统计结果按空ID分组，需要全部失效
+                traceabilityCacheService.invalidateAll();
+            }
+        } catch (Exception e) {
+            log.error("维度字典ID回填失败", e);
+        }
+    }
+}
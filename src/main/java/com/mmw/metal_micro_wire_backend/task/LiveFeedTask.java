@@ -0,0 +1,39 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.LiveFeedService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 实时推送定时任务
+ * 合并推送计数增量，定时发送心跳
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.live-feed.enabled", havingValue = "true", matchIfMissing = true)
+public class LiveFeedTask {
+
+    private final LiveFeedService liveFeedService;
+
+    @Scheduled(fixedDelayString = "${app.live-feed.counter-interval-ms:1000}")
+    public void publishCounters() {
+        try {
+            liveFeedService.publishCounters();
+        } catch (Exception e) {
+            log.error("推送计数增量失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.live-feed.heartbeat-interval-ms:15000}")
+    public void sendHeartbeat() {
+        try {
+            liveFeedService.sendHeartbeat();
+        } catch (Exception e) {
+            log.error("发送实时推送心跳失败", e);
+        }
+    }
+}
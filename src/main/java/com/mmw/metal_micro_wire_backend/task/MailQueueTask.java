@@ -0,0 +1,58 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.MailQueueService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 邮件发送队列定时任务
+ * 调度线程只负责认领和提交批次，SMTP发送在邮件发送线程中进行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.mail-queue.enabled", havingValue = "true", matchIfMissing = true)
+public class MailQueueTask {
+
+    private final MailQueueService mailQueueService;
+
+    /**
+     * 轮询发送队列（默认每2秒）
+     */
+    @Scheduled(fixedDelayString = "${app.mail-queue.poll-interval-ms:2000}")
+    public void dispatch() {
+        try {
+            mailQueueService.dispatch();
+        } catch (Exception e) {
+            log.error("邮件发送队列调度异常", e);
+        }
+    }
+
+    /**
+     * 回收租约到期的邮件（每分钟）
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void releaseExpired() {
+        try {
+            mailQueueService.releaseExpired();
+        } catch (Exception e) {
+            log.error("回收邮件认领租约异常", e);
+        }
+    }
+
+    /**
+     * 清理过期的已发送和已失败邮件（默认每天凌晨4点30分）
+     */
+    @Scheduled(cron = "${app.mail-queue.purge-cron:0 30 4 * * ?}")
+    public void purge() {
+        try {
+            int deleted = mailQueueService.purge();
+            log.info("清理过期队列邮件{}封", deleted);
+        } catch (Exception e) {
+            log.error("清理过期队列邮件异常", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.MeasurementTimeSeriesService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 检测指标时间序列维护任务
+ * 启动后回填保留期内的历史数据（仅首次），定时把本节点的桶写入Redis
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.time-series.enabled", havingValue = "true", matchIfMissing = true)
+public class MeasurementTimeSeriesTask {
+
+    private final MeasurementTimeSeriesService measurementTimeSeriesService;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        try {
+            measurementTimeSeriesService.backfill();
+        } catch (Exception e) {
+            log.error("检测指标时间序列回填失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.time-series.flush-interval-ms:10000}")
+    public void flush() {
+        try {
+            measurementTimeSeriesService.flush();
+        } catch (Exception e) {
+            log.error("写入检测指标时间序列失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,48 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.WireMaterialPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 线材数据分区维护定时任务
+ * 启动时及每天定时预创建未来月份的分区，保证新数据始终有可写入的分区
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.partition.enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionMaintenanceTask {
+
+    private final WireMaterialPartitionService wireMaterialPartitionService;
+
+    /**
+     * 应用启动后立即检查一次分区
+     */
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        maintainPartitions();
+    }
+
+    /**
+     * 定时预创建未来月份分区
+     */
+    @Scheduled(cron = "${app.partition.cron:0 0 1 * * ?}")
+    public void maintainPartitions() {
+        try {
+            int created = wireMaterialPartitionService.ensureUpcomingPartitions();
+            if (created > 0) {
+                log.info("分区维护任务完成，新建{}个分区", created);
+            } else {
+                log.debug("分区维护任务完成，无需新建分区");
+            }
+        } catch (Exception e) {
+            log.error("分区维护任务异常", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.config.QualityReportConfig;
+import com.mmw.metal_micro_wire_backend.service.QualityReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 质量报告定时任务
+ * 只负责把报告提交到报告线程，生成和发送不占用调度线程
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.quality-report.enabled", havingValue = "true", matchIfMissing = true)
+public class QualityReportTask {
+
+    private final QualityReportService qualityReportService;
+    private final QualityReportConfig qualityReportConfig;
+
+    /**
+     * 每日质量报告（默认每天凌晨2点，统计前一天）
+     */
+    @Scheduled(cron = "${app.quality-report.cron:0 0 2 * * ?}")
+    public void generateDailyQualityReport() {
+        submit(QualityReportService.ReportPeriod.DAILY);
+    }
+
+    /**
+     * 每周质量报告（默认每周一凌晨2点30分，统计上一周）
+     */
+    @Scheduled(cron = "${app.quality-report.weekly-cron:0 30 2 * * MON}")
+    public void generateWeeklyQualityReport() {
+        if (qualityReportConfig.isWeeklyEnabled()) {
+            submit(QualityReportService.ReportPeriod.WEEKLY);
+        }
+    }
+
+    /**
+     * 每月质量报告（默认每月1号凌晨3点，统计上个月）
+     */
+    @Scheduled(cron = "${app.quality-report.monthly-cron:0 0 3 1 * ?}")
+    public void generateMonthlyQualityReport() {
+        if (qualityReportConfig.isMonthlyEnabled()) {
+            submit(QualityReportService.ReportPeriod.MONTHLY);
+        }
+    }
+
+    private void submit(QualityReportService.ReportPeriod period) {
+        log.info("提交{}质量报告生成任务", period.getDescription());
+        qualityReportService.generateAndSendAsync(period).whenComplete((sent, e) -> {
+            if (e != null) {
+                log.error("生成{}质量报告异常", period.getDescription(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.RecentDetectionStoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 近期检测数据内存存储维护任务
+ * 启动后加载保留期内的数据，加载完成前统计查询自动使用数据库；定时淘汰超出保留期的数据
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.recent-detections.enabled", havingValue = "true", matchIfMissing = true)
+public class RecentDetectionStoreTask {
+
+    private final RecentDetectionStoreService recentDetectionStoreService;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        try {
+            recentDetectionStoreService.load();
+        } catch (Exception e) {
+            log.error("近期检测数据加载失败，统计查询将使用数据库", e);
+        }
+    }
+
+    /**
+     * 定时淘汰超出保留期的数据
+     */
+    @Scheduled(cron = "${app.recent-detections.evict-cron:0 5 * * * ?}")
+    public void evictExpired() {
+        try {
+            int evicted = recentDetectionStoreService.evictExpired();
+            if (evicted > 0) {
+                log.info("近期检测数据淘汰完成，淘汰{}条记录", evicted);
+            }
+        } catch (Exception e) {
+            log.error("近期检测数据淘汰任务异常", e);
+        }
+    }
+}
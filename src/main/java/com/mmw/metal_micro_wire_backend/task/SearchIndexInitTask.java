@@ -0,0 +1,31 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.WireMaterialSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 线材搜索索引初始化任务
+ * 启动后加载维度取值索引并回填缺失的批次号三元组，完成前搜索自动使用LIKE模糊查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.search.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchIndexInitTask {
+
+    private final WireMaterialSearchService wireMaterialSearchService;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        try {
+            wireMaterialSearchService.rebuildIndexes();
+        } catch (Exception e) {
+            log.error("线材搜索索引初始化失败，搜索将使用LIKE模糊查询", e);
+        }
+    }
+}
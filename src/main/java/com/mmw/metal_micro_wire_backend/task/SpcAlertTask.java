@@ -0,0 +1,30 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.SpcService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * SPC过程漂移预警发送任务
+ * 控制图在数据写入时产生信号，邮件发送放在定时任务中，避免阻塞数据写入
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.spc.enabled", havingValue = "true", matchIfMissing = true)
+public class SpcAlertTask {
+
+    private final SpcService spcService;
+
+    @Scheduled(fixedDelayString = "${app.spc.dispatch-interval-ms:60000}")
+    public void dispatchAlerts() {
+        try {
+            spcService.dispatchAlerts();
+        } catch (Exception e) {
+            log.error("SPC过程漂移预警发送异常", e);
+        }
+    }
+}
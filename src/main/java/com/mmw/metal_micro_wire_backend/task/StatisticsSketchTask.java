@@ -0,0 +1,47 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.StatisticsSketchService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 统计草图维护任务
+ * 启动后回填历史数据（仅首次），定时把本节点的KLL草图写入Redis
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sketch.enabled", havingValue = "true", matchIfMissing = true)
+public class StatisticsSketchTask {
+
+    private final StatisticsSketchService statisticsSketchService;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        try {
+            statisticsSketchService.backfill();
+        } catch (Exception e) {
+            log.error("统计草图回填失败，总设备数将继续查询数据库", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sketch.flush-interval-ms:60000}")
+    public void flush() {
+        try {
+            statisticsSketchService.flush();
+        } catch (Exception e) {
+            log.error("写入统计草图失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
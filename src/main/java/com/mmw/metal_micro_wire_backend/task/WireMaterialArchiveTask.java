@@ -0,0 +1,35 @@
+package com.mmw.metal_micro_wire_backend.task;
+
+import com.mmw.metal_micro_wire_backend.service.WireMaterialArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 线材检测数据归档定时任务
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class WireMaterialArchiveTask {
+
+    private final WireMaterialArchiveService wireMaterialArchiveService;
+
+    /**
+     * 定时归档超过保留期的检测数据
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * ?}")
+    public void archiveExpiredRecords() {
+        log.info("开始执行线材数据归档任务");
+
+        try {
+            int archived = wireMaterialArchiveService.archiveExpiredRecords();
+            log.info("线材数据归档任务完成，归档{}条记录", archived);
+        } catch (Exception e) {
+            log.error("线材数据归档任务异常", e);
+        }
+    }
+}
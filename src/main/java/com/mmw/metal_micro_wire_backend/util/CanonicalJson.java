@@ -0,0 +1,65 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * JSON规范化工具类
+ * 对象字段按名称排序、去掉null字段、去掉空白，使语义相同的参数得到相同的字符串，用作缓存键或需要逐字节稳定的请求内容
+ */
+public final class CanonicalJson {
+
+    private CanonicalJson() {
+    }
+
+    public static String write(JsonNode node) {
+        StringBuilder builder = new StringBuilder();
+        append(builder, node);
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            builder.append("null");
+        } else if (node.isObject()) {
+            List<String> names = new ArrayList<>();
+            Iterator<String> iterator = node.fieldNames();
+            while (iterator.hasNext()) {
+                String name = iterator.next();
+                if (!node.get(name).isNull()) {
+                    names.add(name);
+                }
+            }
+            names.sort(null);
+            builder.append('{');
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(quote(names.get(i))).append(':');
+                append(builder, node.get(names.get(i)));
+            }
+            builder.append('}');
+        } else if (node.isArray()) {
+            builder.append('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                append(builder, node.get(i));
+            }
+            builder.append(']');
+        } else {
+            // 数值、字符串、布尔值使用Jackson的标准输出
+            builder.append(node.toString());
+        }
+    }
+
+    private static String quote(String name) {
+        return TextNode.valueOf(name).toString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mmw.metal_micro_wire_backend.dto.chat.ChatToolCall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 流式对话响应组装器
+ * 逐个接收 chat/completions 流式响应的数据块，拼接正文并按index组装工具调用（参数分多个数据块到达）。
+ * 正文中出现DeepSeek特殊格式的工具调用标记时，标记及其后的内容不再转发给客户端；
+ * 可能是标记开头的尾部字符先暂存，确认不是标记后再转发。标记由增量扫描器识别，每个字符只扫描一次
+ */
+public class ChatStreamAssembler {
+
+    private final StringBuilder content = new StringBuilder();
+    private final ToolCallMarkup.Scanner markerScanner = ToolCallMarkup.streamScanner();
+    private final Map<Integer, ToolCallBuilder> toolCalls = new TreeMap<>();
+    private int forwardedLength;
+    private boolean markerDetected;
+    private String finishReason;
+
+    private static class ToolCallBuilder {
+        private String id;
+        private String name;
+        private final StringBuilder arguments = new StringBuilder();
+    }
+
+    /**
+     * 处理一个数据块
+     * @return 可以转发给客户端的正文增量，可能为空字符串
+     */
+    public String onChunk(JsonNode chunk) {
+        JsonNode choices = chunk.get("choices");
+        if (choices == null || !choices.isArray() || choices.isEmpty()) {
+            return "";
+        }
+        JsonNode choice = choices.get(0);
+        JsonNode reason = choice.get("finish_reason");
+        if (reason != null && !reason.isNull()) {
+            finishReason = reason.asText();
+        }
+        JsonNode delta = choice.get("delta");
+        if (delta == null) {
+            return "";
+        }
+
+        JsonNode toolCallDeltas = delta.get("tool_calls");
+        if (toolCallDeltas != null && toolCallDeltas.isArray()) {
+            for (JsonNode toolCallDelta : toolCallDeltas) {
+                int index = toolCallDelta.path("index").asInt(toolCalls.size());
+                ToolCallBuilder builder = toolCalls.computeIfAbsent(index, key -> new ToolCallBuilder());
+                if (toolCallDelta.hasNonNull("id")) {
+                    builder.id = toolCallDelta.get("id").asText();
+                }
+                JsonNode function = toolCallDelta.get("function");
+                if (function != null) {
+                    if (function.hasNonNull("name")) {
+                        builder.name = function.get("name").asText();
+                    }
+                    if (function.hasNonNull("arguments")) {
+                        builder.arguments.append(function.get("arguments").asText());
+                    }
+                }
+            }
+        }
+
+        JsonNode text = delta.get("content");
+        if (text == null || text.isNull()) {
+            return "";
+        }
+        return appendContent(text.asText());
+    }
+
+    /**
+     * 流结束时释放暂存的尾部字符
+     */
+    public String flush() {
+        if (markerDetected || forwardedLength >= content.length()) {
+            return "";
+        }
+        String tail = content.substring(forwardedLength);
+        forwardedLength = content.length();
+        return tail;
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+
+    public String getFinishReason() {
+        return finishReason;
+    }
+
+    /**
+     * 正文中是否出现了DeepSeek特殊格式的工具调用标记
+     */
+    public boolean isToolCallMarkerDetected() {
+        return markerDetected;
+    }
+
+    public boolean hasToolCalls() {
+        return !toolCalls.isEmpty();
+    }
+
+    /**
+     * 组装完成的标准格式工具调用，参数为空时补为空对象
+     */
+    public List<ChatToolCall.ToolCallRequest> getToolCalls() {
+        List<ChatToolCall.ToolCallRequest> requests = new ArrayList<>(toolCalls.size());
+        for (Map.Entry<Integer, ToolCallBuilder> entry : toolCalls.entrySet()) {
+            ToolCallBuilder builder = entry.getValue();
+            if (builder.name == null) {
+                continue;
+            }
+            ChatToolCall.ToolCallRequest request = new ChatToolCall.ToolCallRequest();
+            request.setId(builder.id != null ? builder.id : "tool_call_" + entry.getKey());
+            request.setType("function");
+            ChatToolCall.FunctionCall functionCall = new ChatToolCall.FunctionCall();
+            functionCall.setName(builder.name);
+            functionCall.setArguments(builder.arguments.length() > 0 ? builder.arguments.toString() : "{}");
+            request.setFunction(functionCall);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private String appendContent(String text) {
+        if (text.isEmpty()) {
+            return "";
+        }
+        content.append(text);
+        if (markerDetected) {
+            return "";
+        }
+
+        List<ToolCallMarkup.Token> markers = markerScanner.scan(content, false);
+        if (!markers.isEmpty()) {
+            markerDetected = true;
+            return release(markers.get(0).start());
+        }
+        return release(markerScanner.position());
+    }
+
+    private String release(int end) {
+        if (end <= forwardedLength) {
+            return "";
+        }
+        String released = content.substring(forwardedLength, end);
+        forwardedLength = end;
+        return released;
+    }
+}
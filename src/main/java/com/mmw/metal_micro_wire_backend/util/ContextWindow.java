@@ -0,0 +1,113 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.List;
+
+/**
+ * 对话上下文窗口计算
+ * 按DeepSeek给出的经验比例在本地估算token数（1个中文字符约0.6个token，1个英文字符约0.3个token），
+ * 并从最新的消息向前选取不超过预算的连续消息
+ */
+public final class ContextWindow {
+
+    /**
+     * 每条消息的角色、分隔符等格式开销
+     */
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final double CJK_TOKENS = 0.6;
+    private static final double OTHER_TOKENS = 0.3;
+
+    private ContextWindow() {
+    }
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        double tokens = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            tokens += isCjk(codePoint) ? CJK_TOKENS : OTHER_TOKENS;
+            i += Character.charCount(codePoint);
+        }
+        return (int) Math.ceil(tokens);
+    }
+
+    /**
+     * 估算一条消息的token数（含格式开销）
+     */
+    public static int estimateMessageTokens(String content) {
+        return estimateTokens(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * 计算窗口起点：从最后一条消息向前累加，直到超出预算；
+     * 至少保留最近的minRecent条消息，即使它们已超出预算
+     * @param messageTokens 按时间顺序排列的各消息token数
+     * @return 窗口内第一条消息的下标，等于列表长度表示不保留任何消息
+     */
+    public static int startOfWindow(List<Integer> messageTokens, int budget, int minRecent) {
+        int start = messageTokens.size();
+        long total = 0;
+        while (start > 0) {
+            int tokens = messageTokens.get(start - 1);
+            int kept = messageTokens.size() - start;
+            if (kept >= minRecent && total + tokens > budget) {
+                break;
+            }
+            total += tokens;
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * 计算尚未合并进摘要的消息区间：从摘要覆盖的最后一条消息之后，到窗口内第一条消息之前
+     * @param messageIds 按时间顺序排列的消息ID
+     * @param lastSummarizedId 摘要覆盖的最后一条消息ID，为null或已不在列表中时从第一条消息开始
+     * @param firstKeptId 窗口内第一条消息ID，为null或不在列表中时到最后一条消息为止
+     * @return 区间[from, to)，没有未合并的消息时区间为空
+     */
+    public static Range unsummarizedRange(List<String> messageIds, String lastSummarizedId, String firstKeptId) {
+        int from = 0;
+        if (lastSummarizedId != null) {
+            int index = messageIds.lastIndexOf(lastSummarizedId);
+            from = index + 1;
+        }
+        int to = messageIds.size();
+        if (firstKeptId != null) {
+            int index = messageIds.subList(from, messageIds.size()).indexOf(firstKeptId);
+            if (index >= 0) {
+                to = from + index;
+            }
+        }
+        return new Range(from, to);
+    }
+
+    /**
+     * 消息下标区间[from, to)
+     */
+    public record Range(int from, int to) {
+
+        public boolean isEmpty() {
+            return from >= to;
+        }
+
+        public int size() {
+            return Math.max(0, to - from);
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || (codePoint >= 0x3000 && codePoint <= 0x303F)
+                || (codePoint >= 0xFF00 && codePoint <= 0xFFEF);
+    }
+}
@@ -0,0 +1,345 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 检测数据内存列式存储
+ * 每个字段一个基本类型数组：事件时间（epoch秒）、四项测量值、字典编码的维度ID、评估结果（字节）。
+ * 写入（追加/更新/删除/淘汰）串行执行；读取通过volatile快照无锁进行，聚合为按数组顺序的紧凑循环，
+ * 数据量较大时拆分到ForkJoin公共线程池并行计算后合并
+ */
+public class DetectionColumns {
+
+    /** 维度列下标 */
+    public static final int MANUFACTURER = 0;
+    public static final int RESPONSIBLE_PERSON = 1;
+    public static final int PROCESS_TYPE = 2;
+    public static final int PRODUCTION_MACHINE = 3;
+    public static final int CONTACT_EMAIL = 4;
+    public static final int SCENARIO = 5;
+    public static final int DIMENSION_COUNT = 6;
+
+    /** 测量值列下标 */
+    public static final int DIAMETER = 0;
+    public static final int RESISTANCE = 1;
+    public static final int EXTENSIBILITY = 2;
+    public static final int WEIGHT = 3;
+    public static final int MEASUREMENT_COUNT = 4;
+
+    /** 维度取值为空 */
+    public static final int NULL_ID = -1;
+    /** 不按该项过滤/分组 */
+    public static final int NONE = -1;
+
+    /** 评估结果为空 */
+    public static final byte RESULT_NULL = -1;
+    /** 已删除（等待压缩） */
+    public static final byte RESULT_REMOVED = -2;
+
+    /**
+     * 计数数组长度：[总数, 各最终评估结果（按枚举序号）的数量...]
+     */
+    public static final int COUNT_SLOTS = 1 + WireMaterial.FinalEvaluationResult.values().length;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int parallelThreshold;
+    private final Map<String, Integer> rowIndex = new HashMap<>();
+    private int removedCount = 0;
+    private volatile Snapshot snapshot;
+
+    /**
+     * 一行检测数据
+     */
+    public record Row(String batchNumber, long eventSecond, double[] measurements, int[] dimensions, byte result) {
+    }
+
+    /**
+     * 聚合查询条件
+     * @param fromSecond 开始时间（epoch秒，包含）
+     * @param toSecond 结束时间（epoch秒，包含）
+     * @param scenarioId 场景ID过滤，NONE表示不过滤
+     * @param filterDimension 维度过滤列，NONE表示不过滤
+     * @param filterValue 维度过滤取值ID
+     * @param groupDimension 分组列，NONE表示不分组
+     * @param secondaryGroupDimension 第二分组列，NONE表示不使用
+     */
+    public record Query(long fromSecond, long toSecond, int scenarioId, int filterDimension, int filterValue,
+                        int groupDimension, int secondaryGroupDimension) {
+    }
+
+    /**
+     * 只读快照：size之前的行对读取方可见
+     */
+    private record Snapshot(int size, long[] eventSeconds, double[][] measurements, int[][] dimensions,
+                            byte[] results, String[] batchNumbers) {
+    }
+
+    /**
+     * @param parallelThreshold 行数达到该值时使用ForkJoin并行聚合
+     */
+    public DetectionColumns(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1024, parallelThreshold);
+        this.snapshot = allocate(0, INITIAL_CAPACITY);
+    }
+
+    /**
+     * 写入一行，批次号已存在时原位更新
+     */
+    public synchronized void upsert(Row row) {
+        Integer index = rowIndex.get(row.batchNumber());
+        Snapshot current = snapshot;
+        if (index != null) {
+            if (current.results()[index] == RESULT_REMOVED) {
+                removedCount--;
+            }
+            write(current, index, row);
+            return;
+        }
+
+        if (current.size() == current.results().length) {
+            current = grow(current, current.size() * 2);
+        }
+        int position = current.size();
+        write(current, position, row);
+        rowIndex.put(row.batchNumber(), position);
+        // 先写数组再发布新的size，读取方通过volatile读保证看到完整的行
+        snapshot = new Snapshot(position + 1, current.eventSeconds(), current.measurements(),
+                current.dimensions(), current.results(), current.batchNumbers());
+    }
+
+    /**
+     * 写入一行，批次号已存在时忽略（用于加载历史数据，不覆盖加载期间实时写入的较新状态）
+     */
+    public synchronized boolean insertIfAbsent(Row row) {
+        if (rowIndex.containsKey(row.batchNumber())) {
+            return false;
+        }
+        upsert(row);
+        return true;
+    }
+
+    /**
+     * 删除一行（标记删除，淘汰时压缩）
+     */
+    public synchronized boolean remove(String batchNumber) {
+        Integer index = rowIndex.get(batchNumber);
+        Snapshot current = snapshot;
+        if (index == null || current.results()[index] == RESULT_REMOVED) {
+            return false;
+        }
+        current.results()[index] = RESULT_REMOVED;
+        removedCount++;
+        return true;
+    }
+
+    /**
+     * 淘汰事件时间早于cutoffSecond的行，并压缩掉已删除的行
+     * @return 淘汰和压缩掉的行数
+     */
+    public synchronized int evictBefore(long cutoffSecond) {
+        Snapshot current = snapshot;
+        int kept = 0;
+        for (int i = 0; i < current.size(); i++) {
+            if (current.results()[i] != RESULT_REMOVED && current.eventSeconds()[i] >= cutoffSecond) {
+                kept++;
+            }
+        }
+        int dropped = current.size() - kept;
+        if (dropped == 0) {
+            return 0;
+        }
+
+        Snapshot compacted = allocate(0, Math.max(INITIAL_CAPACITY, kept + kept / 2));
+        rowIndex.clear();
+        int position = 0;
+        for (int i = 0; i < current.size(); i++) {
+            if (current.results()[i] == RESULT_REMOVED || current.eventSeconds()[i] < cutoffSecond) {
+                continue;
+            }
+            copyRow(current, i, compacted, position);
+            rowIndex.put(current.batchNumbers()[i], position);
+            position++;
+        }
+        removedCount = 0;
+        snapshot = new Snapshot(position, compacted.eventSeconds(), compacted.measurements(),
+                compacted.dimensions(), compacted.results(), compacted.batchNumbers());
+        return dropped;
+    }
+
+    /**
+     * 当前有效行数
+     */
+    public synchronized int size() {
+        return snapshot.size() - removedCount;
+    }
+
+    /**
+     * 按条件聚合计数
+     * @return 分组键 -> 计数数组（见COUNT_SLOTS），不分组时只有键0
+     */
+    public Map<Long, long[]> aggregate(Query query) {
+        Snapshot current = snapshot;
+        if (current.size() >= parallelThreshold) {
+            int leafSize = Math.max(1024, current.size() / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            return ForkJoinPool.commonPool().invoke(new AggregateTask(current, query, 0, current.size(), leafSize));
+        }
+        return aggregateRange(current, query, 0, current.size());
+    }
+
+    /**
+     * 将两个维度ID组合为分组键
+     */
+    public static long groupKey(int primary, int secondary) {
+        return ((long) primary << 32) | (secondary & 0xFFFFFFFFL);
+    }
+
+    public static int primaryOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int secondaryOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * 聚合[from, to)范围内的行
+     */
+    private static Map<Long, long[]> aggregateRange(Snapshot snapshot, Query query, int from, int to) {
+        long[] eventSeconds = snapshot.eventSeconds();
+        byte[] results = snapshot.results();
+        int[] scenarios = snapshot.dimensions()[SCENARIO];
+        int[] filterColumn = query.filterDimension() == NONE ? null : snapshot.dimensions()[query.filterDimension()];
+        int[] groupColumn = query.groupDimension() == NONE ? null : snapshot.dimensions()[query.groupDimension()];
+        int[] secondaryColumn = query.secondaryGroupDimension() == NONE ? null : snapshot.dimensions()[query.secondaryGroupDimension()];
+        long fromSecond = query.fromSecond();
+        long toSecond = query.toSecond();
+        int scenarioId = query.scenarioId();
+        int filterValue = query.filterValue();
+
+        Map<Long, long[]> groups = new HashMap<>();
+        long[] ungrouped = groupColumn == null ? new long[COUNT_SLOTS] : null;
+
+        for (int i = from; i < to; i++) {
+            long second = eventSeconds[i];
+            byte result = results[i];
+            if (second < fromSecond || second > toSecond || result == RESULT_REMOVED
+                    || (scenarioId != NONE && scenarios[i] != scenarioId)
+                    || (filterColumn != null && filterColumn[i] != filterValue)) {
+                continue;
+            }
+
+            long[] counts = ungrouped != null ? ungrouped
+                    : groups.computeIfAbsent(groupKey(groupColumn[i], secondaryColumn == null ? NULL_ID : secondaryColumn[i]),
+                            key -> new long[COUNT_SLOTS]);
+            counts[0]++;
+            if (result >= 0) {
+                counts[1 + result]++;
+            }
+        }
+
+        if (ungrouped != null && ungrouped[0] > 0) {
+            groups.put(0L, ungrouped);
+        }
+        return groups;
+    }
+
+    private static void mergeInto(Map<Long, long[]> target, Map<Long, long[]> source) {
+        source.forEach((key, counts) -> {
+            long[] existing = target.putIfAbsent(key, counts);
+            if (existing != null) {
+                for (int i = 0; i < COUNT_SLOTS; i++) {
+                    existing[i] += counts[i];
+                }
+            }
+        });
+    }
+
+    /**
+     * 并行聚合任务：二分拆分到阈值以下后顺序聚合，再逐级合并
+     */
+    private static class AggregateTask extends RecursiveTask<Map<Long, long[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Snapshot snapshot;
+        private final Query query;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        AggregateTask(Snapshot snapshot, Query query, int from, int to, int leafSize) {
+            this.snapshot = snapshot;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Map<Long, long[]> compute() {
+            if (to - from <= leafSize) {
+                return aggregateRange(snapshot, query, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(snapshot, query, from, middle, leafSize);
+            AggregateTask right = new AggregateTask(snapshot, query, middle, to, leafSize);
+            left.fork();
+            Map<Long, long[]> result = right.compute();
+            mergeInto(result, left.join());
+            return result;
+        }
+    }
+
+    private static void write(Snapshot snapshot, int index, Row row) {
+        snapshot.eventSeconds()[index] = row.eventSecond();
+        for (int m = 0; m < MEASUREMENT_COUNT; m++) {
+            snapshot.measurements()[m][index] = row.measurements()[m];
+        }
+        for (int d = 0; d < DIMENSION_COUNT; d++) {
+            snapshot.dimensions()[d][index] = row.dimensions()[d];
+        }
+        snapshot.batchNumbers()[index] = row.batchNumber();
+        snapshot.results()[index] = row.result();
+    }
+
+    private static void copyRow(Snapshot source, int from, Snapshot target, int to) {
+        target.eventSeconds()[to] = source.eventSeconds()[from];
+        for (int m = 0; m < MEASUREMENT_COUNT; m++) {
+            target.measurements()[m][to] = source.measurements()[m][from];
+        }
+        for (int d = 0; d < DIMENSION_COUNT; d++) {
+            target.dimensions()[d][to] = source.dimensions()[d][from];
+        }
+        target.batchNumbers()[to] = source.batchNumbers()[from];
+        target.results()[to] = source.results()[from];
+    }
+
+    private static Snapshot allocate(int size, int capacity) {
+        double[][] measurements = new double[MEASUREMENT_COUNT][capacity];
+        int[][] dimensions = new int[DIMENSION_COUNT][capacity];
+        return new Snapshot(size, new long[capacity], measurements, dimensions, new byte[capacity], new String[capacity]);
+    }
+
+    /**
+     * 扩容：复制到新数组，旧快照的读取方不受影响
+     */
+    private static Snapshot grow(Snapshot current, int capacity) {
+        double[][] measurements = new double[MEASUREMENT_COUNT][];
+        for (int m = 0; m < MEASUREMENT_COUNT; m++) {
+            measurements[m] = Arrays.copyOf(current.measurements()[m], capacity);
+        }
+        int[][] dimensions = new int[DIMENSION_COUNT][];
+        for (int d = 0; d < DIMENSION_COUNT; d++) {
+            dimensions[d] = Arrays.copyOf(current.dimensions()[d], capacity);
+        }
+        return new Snapshot(current.size(), Arrays.copyOf(current.eventSeconds(), capacity), measurements, dimensions,
+                Arrays.copyOf(current.results(), capacity), Arrays.copyOf(current.batchNumbers(), capacity));
+    }
+}
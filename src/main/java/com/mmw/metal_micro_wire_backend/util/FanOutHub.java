@@ -0,0 +1,185 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 消息扇出中心
+ * 每个订阅者有独立的有界缓冲区和至多一个发送任务：发布方只做非阻塞入队，不受慢速订阅者影响；
+ * 缓冲区写满的订阅者视为慢消费者，直接断开（客户端重连后重新获取快照），已断开或发送失败的订阅者自动移除
+ */
+public class FanOutHub<T> {
+
+    /**
+     * 订阅者的发送端
+     */
+    public interface Sink<T> {
+
+        /**
+         * 发送一条消息（在发送线程中调用，可以阻塞）
+         */
+        void send(T message) throws Exception;
+
+        /**
+         * 订阅被移除时调用
+         * @param reason 移除原因
+         */
+        void close(String reason);
+    }
+
+    private final Executor executor;
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong evictedSlowConsumers = new AtomicLong();
+
+    private class Subscriber {
+        private final long id;
+        private final Sink<T> sink;
+        private final Predicate<T> filter;
+        private final BlockingQueue<T> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(long id, Sink<T> sink, Predicate<T> filter, int capacity) {
+            this.id = id;
+            this.sink = sink;
+            this.filter = filter;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * @param executor 发送线程池，每个订阅者同一时间至多占用一个线程
+     */
+    public FanOutHub(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 注册订阅者
+     * @param sink 发送端
+     * @param capacity 缓冲区容量
+     * @param filter 只接收满足条件的消息
+     * @return 订阅ID
+     */
+    public long subscribe(Sink<T> sink, int capacity, Predicate<T> filter) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("缓冲区容量必须大于0：" + capacity);
+        }
+        long id = nextId.incrementAndGet();
+        subscribers.put(id, new Subscriber(id, sink, filter, capacity));
+        return id;
+    }
+
+    /**
+     * 移除订阅者（不调用其close）
+     */
+    public void unsubscribe(long id) {
+        Subscriber subscriber = subscribers.remove(id);
+        if (subscriber != null) {
+            subscriber.closed = true;
+            subscriber.buffer.clear();
+        }
+    }
+
+    /**
+     * 发布消息
+     * @return 接收该消息的订阅者数
+     */
+    public int publish(T message) {
+        int delivered = 0;
+        List<Subscriber> slow = new ArrayList<>();
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.closed || !subscriber.filter.test(message)) {
+                continue;
+            }
+            if (subscriber.buffer.offer(message)) {
+                delivered++;
+                schedule(subscriber);
+            } else {
+                slow.add(subscriber);
+            }
+        }
+        for (Subscriber subscriber : slow) {
+            if (evict(subscriber, "缓冲区已满，订阅者消费过慢")) {
+                evictedSlowConsumers.incrementAndGet();
+            }
+        }
+        return delivered;
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * 累计因消费过慢被断开的订阅者数
+     */
+    public long getEvictedSlowConsumers() {
+        return evictedSlowConsumers.get();
+    }
+
+    /**
+     * 移除并关闭全部订阅者
+     */
+    public void closeAll(String reason) {
+        for (Subscriber subscriber : new ArrayList<>(subscribers.values())) {
+            evict(subscriber, reason);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+            evict(subscriber, "发送线程池已满");
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            T message;
+            while (!subscriber.closed && (message = subscriber.buffer.poll()) != null) {
+                try {
+                    subscriber.sink.send(message);
+                } catch (Exception e) {
+                    subscriber.scheduled.set(false);
+                    evict(subscriber, "发送失败：" + e.getMessage());
+                    return;
+                }
+            }
+            subscriber.scheduled.set(false);
+            // 释放标记后再检查一次，避免与并发的发布方错过调度
+            if (subscriber.closed || subscriber.buffer.isEmpty() || !subscriber.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean evict(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber.id) == null) {
+            return false;
+        }
+        subscriber.closed = true;
+        subscriber.buffer.clear();
+        try {
+            subscriber.sink.close(reason);
+        } catch (Exception ignored) {
+            // 连接已不可用
+        }
+        return true;
+    }
+}
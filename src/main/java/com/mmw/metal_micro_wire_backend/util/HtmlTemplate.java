@@ -0,0 +1,104 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的HTML模板
+ * 模板在加载时解析为文本片段和占位符，渲染时只做拼接：{{name}} 输出HTML转义后的值，
+ * {{{name}}} 原样输出（用于嵌入已渲染的子模板）；缺失或为null的值输出为空。
+ * 编译后不可变，可在多个线程中同时渲染
+ */
+public final class HtmlTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final List<String> literals;
+    private final List<String> names;
+    private final List<Boolean> raw;
+
+    private HtmlTemplate(List<String> literals, List<String> names, List<Boolean> raw) {
+        this.literals = literals;
+        this.names = names;
+        this.raw = raw;
+    }
+
+    /**
+     * 编译模板
+     * @throws IllegalArgumentException 占位符未闭合或名称为空
+     */
+    public static HtmlTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            boolean unescaped = source.startsWith("{", open + OPEN.length());
+            int nameStart = open + OPEN.length() + (unescaped ? 1 : 0);
+            int close = source.indexOf(unescaped ? "}" + CLOSE : CLOSE, nameStart);
+            if (close < 0) {
+                throw new IllegalArgumentException("模板占位符未闭合，位置：" + open);
+            }
+            String name = source.substring(nameStart, close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("模板占位符名称为空，位置：" + open);
+            }
+            literals.add(source.substring(position, open));
+            names.add(name);
+            raw.add(unescaped);
+            position = close + CLOSE.length() + (unescaped ? 1 : 0);
+        }
+        return new HtmlTemplate(List.copyOf(literals), List.copyOf(names), List.copyOf(raw));
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder();
+        renderTo(out, values);
+        return out.toString();
+    }
+
+    /**
+     * 渲染到已有的缓冲区（重复渲染行模板时避免中间字符串）
+     */
+    public void renderTo(StringBuilder out, Map<String, ?> values) {
+        for (int i = 0; i < names.size(); i++) {
+            out.append(literals.get(i));
+            Object value = values.get(names.get(i));
+            if (value != null) {
+                if (raw.get(i)) {
+                    out.append(value);
+                } else {
+                    escapeTo(out, value.toString());
+                }
+            }
+        }
+        out.append(literals.get(literals.size() - 1));
+    }
+
+    public static String escape(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        escapeTo(out, text);
+        return out.toString();
+    }
+
+    private static void escapeTo(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
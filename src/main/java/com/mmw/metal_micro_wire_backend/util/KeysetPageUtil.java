@@ -0,0 +1,157 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.repository.WireMaterialRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 线材数据游标（Keyset）分页工具类
+ * 以(排序字段, 批次号)作为定位键，通过WHERE条件跳过已读取的数据，
+ * 任意页深度的查询代价都与第一页相同，且默认不执行COUNT查询
+ */
+public final class KeysetPageUtil {
+
+    /**
+     * 支持游标分页的排序字段（必须为非空列，否则无法构造定位条件）
+     */
+    private static final Set<String> SUPPORTED_SORT_FIELDS = Set.of("createTime", "eventTime", "batchNumber");
+
+    private static final String TIE_BREAKER = "batchNumber";
+    private static final String SEPARATOR = "\n";
+
+    private KeysetPageUtil() {
+    }
+
+    /**
+     * 游标分页查询结果
+     * @param content 当前页数据
+     * @param nextCursor 下一页游标，没有下一页时为null
+     * @param hasNext 是否还有下一页
+     * @param totalElements 总记录数，未要求统计时为-1
+     */
+    public record KeysetPage(List<WireMaterial> content, String nextCursor, boolean hasNext, long totalElements) {
+    }
+
+    /**
+     * 判断排序字段是否支持游标分页
+     */
+    public static boolean isSupportedSortField(String sortBy) {
+        return SUPPORTED_SORT_FIELDS.contains(sortBy);
+    }
+
+    /**
+     * 执行游标分页查询
+     * @param repository 线材数据访问层
+     * @param filter 业务过滤条件
+     * @param sortBy 排序字段
+     * @param direction 排序方向
+     * @param after 上一页返回的游标，为空时查询第一页
+     * @param size 每页大小
+     * @param withTotal 是否统计总记录数
+     * @return 分页结果
+     */
+    public static KeysetPage fetch(WireMaterialRepository repository,
+                                   Specification<WireMaterial> filter,
+                                   String sortBy,
+                                   Sort.Direction direction,
+                                   String after,
+                                   int size,
+                                   boolean withTotal) {
+        if (!isSupportedSortField(sortBy)) {
+            throw new IllegalArgumentException("游标分页不支持按该字段排序：" + sortBy);
+        }
+
+        Specification<WireMaterial> spec = filter;
+        if (StringUtils.hasText(after)) {
+            spec = spec.and(seekAfter(sortBy, direction, decode(after, sortBy)));
+        }
+
+        Sort sort = TIE_BREAKER.equals(sortBy)
+                ? Sort.by(direction, TIE_BREAKER)
+                : Sort.by(direction, sortBy).and(Sort.by(direction, TIE_BREAKER));
+
+        // 多取一条用于判断是否还有下一页
+        List<WireMaterial> rows = repository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<WireMaterial> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(content.get(content.size() - 1), sortBy) : null;
+        long totalElements = withTotal ? repository.count(filter) : -1;
+
+        return new KeysetPage(content, nextCursor, hasNext, totalElements);
+    }
+
+    /**
+     * 构造定位条件：升序时 (sort > v) OR (sort = v AND batch > b)，降序时取反
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Specification<WireMaterial> seekAfter(String sortBy, Sort.Direction direction, Cursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            Path<String> batchPath = root.get(TIE_BREAKER);
+            Predicate batchAfter = compare(criteriaBuilder, direction, batchPath, cursor.batchNumber());
+            if (TIE_BREAKER.equals(sortBy)) {
+                return batchAfter;
+            }
+
+            Path<Comparable> sortPath = root.get(sortBy);
+            return criteriaBuilder.or(
+                    compare(criteriaBuilder, direction, sortPath, cursor.sortValue()),
+                    criteriaBuilder.and(criteriaBuilder.equal(sortPath, cursor.sortValue()), batchAfter));
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate compare(CriteriaBuilder criteriaBuilder, Sort.Direction direction,
+                                     Path path, Comparable value) {
+        return direction.isAscending()
+                ? criteriaBuilder.greaterThan(path, value)
+                : criteriaBuilder.lessThan(path, value);
+    }
+
+    /**
+     * 将最后一条记录编码为不透明游标
+     */
+    private static String encode(WireMaterial last, String sortBy) {
+        String sortValue = switch (sortBy) {
+            case "createTime" -> last.getCreateTime().toString();
+            case "eventTime" -> last.getEventTime().toString();
+            default -> "";
+        };
+        String raw = sortBy + SEPARATOR + sortValue + SEPARATOR + last.getBatchNumber();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，游标必须与当前排序字段一致
+     */
+    private static Cursor decode(String token, String sortBy) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length != 3 || !parts[0].equals(sortBy)) {
+                throw new IllegalArgumentException("游标与当前排序字段不匹配");
+            }
+            Comparable<?> sortValue = switch (sortBy) {
+                case "createTime", "eventTime" -> LocalDateTime.parse(parts[1]);
+                default -> parts[2];
+            };
+            return new Cursor(sortValue, parts[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标：" + token, e);
+        }
+    }
+
+    private record Cursor(Comparable<?> sortValue, String batchNumber) {
+    }
+}
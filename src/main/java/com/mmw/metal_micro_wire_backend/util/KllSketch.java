@@ -0,0 +1,280 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * KLL分位数草图（Karnin-Lang-Liberty）
+ * 第h层的每个元素代表2^h个原始值；某层超出容量时排序后隔一取一提升到上一层。
+ * 容量按层自顶向下以2/3衰减，内存为O(k)，分位数的秩误差约为1.65/k。
+ * 两个草图可以直接合并（例如不同时间桶、不同节点），合并结果与把数据写入同一个草图的精度相同。
+ * 非线程安全，由调用方同步
+ */
+public class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final double DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final int SERIAL_VERSION = 1;
+
+    private final int k;
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> levelSizes = new ArrayList<>();
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    /**
+     * 压缩时的取样偏移交替使用0和1，避免系统性偏向较小或较大的元素
+     */
+    private boolean compactOffset;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("k不能小于" + MIN_LEVEL_CAPACITY + "：" + k);
+        }
+        this.k = k;
+        addLevel();
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        count++;
+        min = Double.isNaN(min) ? value : Math.min(min, value);
+        max = Double.isNaN(max) ? value : Math.max(max, value);
+        compress();
+    }
+
+    /**
+     * 合并另一个草图（另一个草图不变）
+     */
+    public void merge(KllSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            double[] items = other.levels.get(h);
+            int size = other.levelSizes.get(h);
+            for (int i = 0; i < size; i++) {
+                append(h, items[i]);
+            }
+        }
+        count += other.count;
+        min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+        max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+        compress();
+    }
+
+    /**
+     * 估计分位数
+     * @param fraction 分位（0~1），0返回最小值，1返回最大值
+     * @return 分位数估计值，草图为空时返回NaN
+     */
+    public double quantile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("分位必须在0到1之间：" + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+
+        int retained = retainedItems();
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int position = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            double[] items = levels.get(h);
+            int size = levelSizes.get(h);
+            for (int i = 0; i < size; i++) {
+                values[position] = items[i];
+                weights[position] = 1L << h;
+                position++;
+            }
+        }
+
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        double targetWeight = fraction * count;
+        long cumulative = 0;
+        for (Integer index : order) {
+            cumulative += weights[index];
+            if (cumulative >= targetWeight) {
+                return values[index];
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * 当前保留的元素个数
+     */
+    public int retainedItems() {
+        int total = 0;
+        for (int size : levelSizes) {
+            total += size;
+        }
+        return total;
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + retainedItems() * Double.BYTES);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(SERIAL_VERSION);
+            out.writeInt(k);
+            out.writeLong(count);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            out.writeInt(levels.size());
+            for (int h = 0; h < levels.size(); h++) {
+                int size = levelSizes.get(h);
+                double[] items = levels.get(h);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeDouble(items[i]);
+                }
+            }
+            out.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static KllSketch fromBytes(byte[] bytes) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            int version = in.readByte();
+            if (version != SERIAL_VERSION) {
+                throw new IllegalArgumentException("不支持的KLL草图版本：" + version);
+            }
+            KllSketch sketch = new KllSketch(in.readInt());
+            sketch.count = in.readLong();
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            int levelCount = in.readInt();
+            for (int h = 0; h < levelCount; h++) {
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    sketch.append(h, in.readDouble());
+                }
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(toBytes());
+    }
+
+    public static KllSketch fromBase64(String encoded) {
+        return fromBytes(Base64.getDecoder().decode(encoded));
+    }
+
+    private void append(int level, double value) {
+        while (levels.size() <= level) {
+            addLevel();
+        }
+        double[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels.set(level, items);
+        }
+        items[size] = value;
+        levelSizes.set(level, size + 1);
+    }
+
+    private void addLevel() {
+        levels.add(new double[MIN_LEVEL_CAPACITY]);
+        levelSizes.add(0);
+    }
+
+    /**
+     * 保留元素总数超出总容量时，从最低层开始压缩第一个超出本层容量的层
+     */
+    private void compress() {
+        while (retainedItems() > totalCapacity()) {
+            for (int h = 0; h < levels.size(); h++) {
+                if (levelSizes.get(h) >= capacity(h)) {
+                    compactLevel(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void compactLevel(int level) {
+        double[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        Arrays.sort(items, 0, size);
+
+        // 奇数个元素时保留最大的一个在本层，其余两两取一
+        int pairs = size / 2;
+        int offset = compactOffset ? 1 : 0;
+        compactOffset = !compactOffset;
+        for (int i = 0; i < pairs; i++) {
+            append(level + 1, items[2 * i + offset]);
+        }
+
+        items = levels.get(level);
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            levelSizes.set(level, 1);
+        } else {
+            levelSizes.set(level, 0);
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,100 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 进程内LRU缓存（带过期时间）
+ * 作为Redis之前的本地近端缓存，容量超出时淘汰最久未访问的条目
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LocalLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private record Entry<V>(V value, long expireAt) {
+    }
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param ttlMillis 条目存活时间（毫秒）
+     */
+    public LocalLruCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LocalLruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，不存在或已过期时返回null
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * 写入缓存值
+     */
+    public synchronized void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * 写入缓存值，使用单独的存活时间（毫秒）
+     */
+    public synchronized void put(K key, V value, long entryTtlMillis) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + entryTtlMillis));
+    }
+
+    /**
+     * 获取缓存值，不存在时通过loader加载并写入（loader在锁外执行，并发时可能重复加载）
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 删除缓存值
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 当前条目数（包含未清理的过期条目）
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
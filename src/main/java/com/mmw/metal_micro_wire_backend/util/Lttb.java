@@ -0,0 +1,74 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 最大三角形三桶降采样（Largest-Triangle-Three-Buckets）
+ * 保留首尾两点，其余点均分为 threshold-2 个桶，每个桶选取与上一个选中点、下一个桶平均点构成三角形面积最大的点，
+ * 比等间隔抽样或取平均更能保留曲线的峰值和形状
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * @param points 按x升序排列的点
+     * @param threshold 目标点数，小于3时只保留首尾
+     * @param x 横坐标
+     * @param y 纵坐标
+     * @return 选中的点（原对象），点数不超过threshold时原样返回
+     */
+    public static <T> List<T> downsample(List<T> points, int threshold,
+                                         ToDoubleFunction<T> x, ToDoubleFunction<T> y) {
+        int size = points.size();
+        if (threshold >= size || size <= 2) {
+            return new ArrayList<>(points);
+        }
+        List<T> sampled = new ArrayList<>(Math.max(threshold, 2));
+        sampled.add(points.get(0));
+        if (threshold < 3) {
+            sampled.add(points.get(size - 1));
+            return sampled;
+        }
+
+        double every = (double) (size - 2) / (threshold - 2);
+        int selected = 0;
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int averageStart = (int) Math.floor((i + 1) * every) + 1;
+            int averageEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int j = averageStart; j < averageEnd; j++) {
+                averageX += x.applyAsDouble(points.get(j));
+                averageY += y.applyAsDouble(points.get(j));
+            }
+            int averageLength = averageEnd - averageStart;
+            averageX /= averageLength;
+            averageY /= averageLength;
+
+            // 当前桶中与上一个选中点、下一个桶平均点构成最大三角形的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double selectedX = x.applyAsDouble(points.get(selected));
+            double selectedY = y.applyAsDouble(points.get(selected));
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((selectedX - averageX) * (y.applyAsDouble(points.get(j)) - selectedY)
+                        - (selectedX - x.applyAsDouble(points.get(j))) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(points.get(next));
+            selected = next;
+        }
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.List;
+
+/**
+ * 摘要邮件合成工具类
+ * 把发给同一收件人的多封同类邮件合并为一封：只有一封时原样返回；
+ * 任一条目为HTML时合成HTML摘要（纯文本条目转义后放入pre），否则合成纯文本摘要
+ */
+public final class MailDigest {
+
+    private MailDigest() {
+    }
+
+    /**
+     * 摘要条目
+     */
+    public record Item(String subject, String content, boolean html) {
+    }
+
+    /**
+     * 合成后的邮件
+     */
+    public record Composed(String subject, String content, boolean html) {
+    }
+
+    public static Composed compose(List<Item> items) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("摘要条目不能为空");
+        }
+        Item first = items.get(0);
+        if (items.size() == 1) {
+            return new Composed(first.subject(), first.content(), first.html());
+        }
+
+        String subject = first.subject() + " 等" + items.size() + "条通知";
+        boolean html = items.stream().anyMatch(Item::html);
+        StringBuilder content = new StringBuilder();
+        if (html) {
+            content.append("<html><body>");
+            content.append("<p>以下").append(items.size()).append("条通知已合并为一封邮件发送：</p>");
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                content.append("<h3>").append(i + 1).append(". ").append(HtmlTemplate.escape(item.subject())).append("</h3>");
+                if (item.html()) {
+                    content.append(item.content());
+                } else {
+                    content.append("<pre style=\"white-space: pre-wrap;\">")
+                            .append(HtmlTemplate.escape(item.content())).append("</pre>");
+                }
+                content.append("<hr/>");
+            }
+            content.append("</body></html>");
+        } else {
+            content.append("以下").append(items.size()).append("条通知已合并为一封邮件发送。\n\n");
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                content.append("==================== ").append(i + 1).append("/").append(items.size())
+                        .append(" ====================\n");
+                content.append(item.subject()).append("\n\n");
+                content.append(item.content()).append("\n\n");
+            }
+        }
+        return new Composed(subject, content.toString(), html);
+    }
+}
@@ -0,0 +1,35 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * 线材检测指标
+ */
+public enum MeasurementMetric {
+    DIAMETER("直径", WireMaterial::getDiameter),
+    RESISTANCE("电阻", WireMaterial::getResistance),
+    EXTENSIBILITY("延展率", WireMaterial::getExtensibility),
+    WEIGHT("重量", WireMaterial::getWeight);
+
+    private final String displayName;
+    private final Function<WireMaterial, BigDecimal> extractor;
+
+    MeasurementMetric(String displayName, Function<WireMaterial, BigDecimal> extractor) {
+        this.displayName = displayName;
+        this.extractor = extractor;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 读取线材数据中该指标的值，可能为null
+     */
+    public BigDecimal valueOf(WireMaterial wireMaterial) {
+        return extractor.apply(wireMaterial);
+    }
+}
@@ -0,0 +1,100 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存三元组倒排索引
+ * 对一组取值（如生产商、负责人等低基数字段的全部取值）建立 三元组 -> 取值 的倒排表，
+ * 子串查询时先求关键词各三元组倒排表的交集，再逐个校验是否包含关键词，匹配不区分大小写
+ */
+public class NGramIndex {
+
+    /**
+     * 三元组长度
+     */
+    public static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    private final Set<String> values = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 拆分出字符串（小写）的全部三元组，长度不足3时返回空集合
+     */
+    public static Set<String> grams(String value) {
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.length() < GRAM_LENGTH) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * 添加取值，已存在时忽略
+     */
+    public void add(String value) {
+        if (value == null || value.isEmpty() || !values.add(value)) {
+            return;
+        }
+        for (String gram : grams(value)) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(value);
+        }
+    }
+
+    /**
+     * 查询包含关键词的全部取值
+     * @param keyword 关键词
+     * @param limit 结果数量上限，超过时返回null表示匹配过多
+     * @return 匹配的取值集合
+     */
+    public Set<String> search(String keyword, int limit) {
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        Collection<String> candidates = lower.length() < GRAM_LENGTH ? values : intersect(grams(lower));
+
+        Set<String> matches = new HashSet<>();
+        for (String candidate : candidates) {
+            if (candidate.toLowerCase(Locale.ROOT).contains(lower)) {
+                matches.add(candidate);
+                if (matches.size() > limit) {
+                    return null;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 索引中的取值数量
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * 从最短的倒排表开始求交集
+     */
+    private Collection<String> intersect(Set<String> grams) {
+        List<Set<String>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<String> posting = postings.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 节点本地聚合
+ * 本节点在内存中按键维护聚合（KLL草图、时间序列桶），记录待写出的键，定时整体写入Redis（字段带节点标识）；
+ * 历史数据由一个节点在分布式锁下回填，回填只读取截止时间之前入库的数据，之后入库的数据由各节点实时计入，
+ * 两者不重叠。截止时间为最早启动的节点的启动时间，回填完成前一直保留。
+ * 聚合的读写均以本对象同步
+ * @param <K> 聚合键类型
+ * @param <V> 聚合类型
+ */
+public class NodeLocalAggregates<K, V> {
+
+    /**
+     * 维度取值为空时的占位值
+     */
+    public static final String NONE = "-";
+    public static final String FIELD_SEPARATOR = "|";
+
+    private static final String BACKFILL_DONE = "done";
+    private static final Duration BACKFILL_LOCK_TTL = Duration.ofHours(6);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String backfillKey;
+    private final String cutoffKey;
+    private final String nodeId;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    private final Map<K, V> aggregates = new HashMap<>();
+    private final Set<K> dirtyKeys = new HashSet<>();
+
+    /**
+     * @param metaKeyPrefix 回填状态键的前缀，如 sketch:meta:
+     * @param configuredNodeId 配置的节点标识，为空时使用主机名
+     */
+    public NodeLocalAggregates(StringRedisTemplate redisTemplate, String metaKeyPrefix, String configuredNodeId) {
+        this.redisTemplate = redisTemplate;
+        this.backfillKey = metaKeyPrefix + "backfill";
+        this.cutoffKey = metaKeyPrefix + "cutoff";
+        this.nodeId = resolveNodeId(configuredNodeId);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 本节点的启动时间
+     */
+    public LocalDateTime startedAt() {
+        return startedAt;
+    }
+
+    /**
+     * 更新键对应的聚合；内存中没有时由loader加载（在锁外执行，可能读取Redis），并发加载时保留先放入的一份
+     */
+    public void update(K key, Function<K, V> loader, Consumer<V> updater) {
+        synchronized (this) {
+            V aggregate = aggregates.get(key);
+            if (aggregate != null) {
+                updater.accept(aggregate);
+                dirtyKeys.add(key);
+                return;
+            }
+        }
+        V loaded = loader.apply(key);
+        synchronized (this) {
+            V existing = aggregates.putIfAbsent(key, loaded);
+            updater.accept(existing != null ? existing : loaded);
+            dirtyKeys.add(key);
+        }
+    }
+
+    public synchronized boolean contains(K key) {
+        return aggregates.containsKey(key);
+    }
+
+    /**
+     * 在锁内遍历内存中的聚合
+     */
+    public synchronized void forEach(BiConsumer<K, V> action) {
+        aggregates.forEach(action);
+    }
+
+    /**
+     * 写出待写出的聚合，之后移除evict匹配的键；写入失败时重新标记为待写出，下个周期重试
+     * @param encoder 在锁内序列化聚合
+     * @param writer 在锁外写入Redis
+     * @return 写出的聚合数
+     */
+    public int flush(Function<V, String> encoder, Predicate<K> evict, Consumer<Map<K, String>> writer) {
+        Map<K, String> encoded = new HashMap<>();
+        synchronized (this) {
+            for (K key : dirtyKeys) {
+                encoded.put(key, encoder.apply(aggregates.get(key)));
+            }
+            dirtyKeys.clear();
+            aggregates.keySet().removeIf(evict);
+        }
+        if (encoded.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            writer.accept(encoded);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                for (K key : encoded.keySet()) {
+                    if (aggregates.containsKey(key)) {
+                        dirtyKeys.add(key);
+                    }
+                }
+            }
+            throw e;
+        }
+        return encoded.size();
+    }
+
+    /**
+     * 登记本节点启动时间作为回填截止时间，已有更早节点登记或回填已完成时不变
+     */
+    public void registerStart() {
+        if (isBackfillDone()) {
+            return;
+        }
+        redisTemplate.opsForValue().setIfAbsent(cutoffKey, startedAt.toString());
+    }
+
+    /**
+     * 回填截止时间：只回填在此之前入库的数据
+     */
+    public LocalDateTime backfillCutoff() {
+        String stored = redisTemplate.opsForValue().get(cutoffKey);
+        if (stored == null) {
+            return startedAt;
+        }
+        LocalDateTime registered = LocalDateTime.parse(stored);
+        return registered.isBefore(startedAt) ? registered : startedAt;
+    }
+
+    /**
+     * 获取回填锁，回填已完成或其他节点正在回填时返回false
+     */
+    public boolean tryStartBackfill() {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(backfillKey, "running:" + nodeId, BACKFILL_LOCK_TTL));
+    }
+
+    /**
+     * 标记回填完成，不再需要截止时间
+     */
+    public void completeBackfill() {
+        redisTemplate.opsForValue().set(backfillKey, BACKFILL_DONE);
+        redisTemplate.delete(cutoffKey);
+    }
+
+    /**
+     * 回填失败时释放锁，之后重新回填
+     */
+    public void abortBackfill() {
+        redisTemplate.delete(backfillKey);
+    }
+
+    public boolean isBackfillDone() {
+        return BACKFILL_DONE.equals(redisTemplate.opsForValue().get(backfillKey));
+    }
+
+    /**
+     * 维度取值作为字段的一部分，空值替换为占位值，分隔符替换为斜杠
+     */
+    public static String valueOrNone(String value) {
+        return StringUtils.hasText(value) ? value.replace(FIELD_SEPARATOR, "/") : NONE;
+    }
+
+    /**
+     * 节点标识：优先使用配置值，未配置时使用主机名，主机名不可用时随机生成
+     */
+    public static String resolveNodeId(String configuredNodeId) {
+        return StringUtils.hasText(configuredNodeId) ? configuredNodeId : resolveHostName();
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+}
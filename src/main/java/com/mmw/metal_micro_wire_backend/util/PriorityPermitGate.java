@@ -0,0 +1,189 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带优先级通道的并发许可闸门
+ * 同时持有的许可数不超过上限；许可用尽时请求在所属通道中排队（通道内先到先得），
+ * 释放的许可直接交给优先级最高的非空通道的队首请求。队列已满或等待超时的请求立即返回失败，
+ * 并按通道记录等待时间和拒绝次数
+ */
+public class PriorityPermitGate {
+
+    /**
+     * 获取许可的结果
+     */
+    public enum Result {
+        ACQUIRED, QUEUE_FULL, TIMEOUT
+    }
+
+    /**
+     * 通道统计
+     * @param queued 当前排队数
+     * @param acquired 累计获得许可数
+     * @param rejected 累计因队列已满被拒绝数
+     * @param timedOut 累计等待超时数
+     * @param averageWaitMillis 获得许可的请求的平均等待时间（毫秒）
+     * @param maxWaitMillis 获得许可的请求的最长等待时间（毫秒）
+     */
+    public record LaneStats(int queued, long acquired, long rejected, long timedOut,
+                            double averageWaitMillis, double maxWaitMillis) {
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int maxQueuedPerLane;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<ArrayDeque<Waiter>> queues;
+    private final long[] acquired;
+    private final long[] rejected;
+    private final long[] timedOut;
+    private final long[] totalWaitNanos;
+    private final long[] maxWaitNanos;
+    private int running;
+
+    /**
+     * @param maxConcurrent 最大并发许可数
+     * @param lanes 通道数，编号越小优先级越高
+     * @param maxQueuedPerLane 每个通道的最大排队数
+     */
+    public PriorityPermitGate(int maxConcurrent, int lanes, int maxQueuedPerLane) {
+        if (maxConcurrent < 1 || lanes < 1) {
+            throw new IllegalArgumentException("并发许可数和通道数必须大于0");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueuedPerLane = Math.max(0, maxQueuedPerLane);
+        this.queues = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+        this.acquired = new long[lanes];
+        this.rejected = new long[lanes];
+        this.timedOut = new long[lanes];
+        this.totalWaitNanos = new long[lanes];
+        this.maxWaitNanos = new long[lanes];
+    }
+
+    /**
+     * 获取一个许可，获得后必须调用{@link #release()}
+     * @param lane 通道编号
+     * @param timeoutMillis 最长排队时间，不大于0时不排队
+     */
+    public Result acquire(int lane, long timeoutMillis) throws InterruptedException {
+        long begin = System.nanoTime();
+        lock.lock();
+        try {
+            if (running < maxConcurrent) {
+                running++;
+                recordAcquired(lane, 0);
+                return Result.ACQUIRED;
+            }
+            if (timeoutMillis <= 0 || queues.get(lane).size() >= maxQueuedPerLane) {
+                rejected[lane]++;
+                return Result.QUEUE_FULL;
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            queues.get(lane).addLast(waiter);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            try {
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                // 许可已转交时交给下一个排队请求
+                if (waiter.granted) {
+                    releaseLocked();
+                } else {
+                    queues.get(lane).remove(waiter);
+                }
+                throw e;
+            }
+            if (!waiter.granted) {
+                queues.get(lane).remove(waiter);
+                timedOut[lane]++;
+                return Result.TIMEOUT;
+            }
+            recordAcquired(lane, System.nanoTime() - begin);
+            return Result.ACQUIRED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放一个许可
+     */
+    public void release() {
+        lock.lock();
+        try {
+            releaseLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前持有的许可数
+     */
+    public int running() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 指定通道的统计
+     */
+    public LaneStats laneStats(int lane) {
+        lock.lock();
+        try {
+            double averageWait = acquired[lane] > 0 ? totalWaitNanos[lane] / 1e6 / acquired[lane] : 0.0;
+            return new LaneStats(queues.get(lane).size(), acquired[lane], rejected[lane], timedOut[lane],
+                    averageWait, maxWaitNanos[lane] / 1e6);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseLocked() {
+        for (ArrayDeque<Waiter> queue : queues) {
+            Waiter next = queue.pollFirst();
+            if (next != null) {
+                // 许可直接转交，持有数不变
+                next.granted = true;
+                next.condition.signal();
+                return;
+            }
+        }
+        if (running > 0) {
+            running--;
+        }
+    }
+
+    private void recordAcquired(int lane, long waitNanos) {
+        acquired[lane]++;
+        totalWaitNanos[lane] += waitNanos;
+        maxWaitNanos[lane] = Math.max(maxWaitNanos[lane], waitNanos);
+    }
+}
@@ -0,0 +1,23 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+/**
+ * 重试退避时间计算
+ */
+public final class RetryBackoff {
+
+    private RetryBackoff() {
+    }
+
+    /**
+     * 指数退避：第1次失败后等待initialMillis，之后每次翻倍，不超过maxMillis
+     * @param attempts 已失败次数（从1开始）
+     */
+    public static long exponential(int attempts, long initialMillis, long maxMillis) {
+        if (attempts <= 1) {
+            return Math.min(initialMillis, maxMillis);
+        }
+        int shift = Math.min(attempts - 1, 30);
+        long delay = initialMillis << shift;
+        return delay <= 0 || delay > maxMillis ? maxMillis : delay;
+    }
+}
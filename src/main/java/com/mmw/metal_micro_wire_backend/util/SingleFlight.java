@@ -0,0 +1,80 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 并发相同请求合并执行
+ * 同一个键同时只有一个线程执行loader，其余线程等待并共享其结果（或异常）；执行结束后不保留结果
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 一次正在进行的执行及等待其结果的线程数
+     */
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            existing.waiters.incrementAndGet();
+            try {
+                return await(existing.future);
+            } finally {
+                existing.waiters.decrementAndGet();
+            }
+        }
+        CompletableFuture<V> own = flight.future;
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 正在执行的键数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 正在等待指定键执行结果的线程数，不含执行loader的线程
+     */
+    public int waiterCount(K key) {
+        Flight<V> flight = inFlight.get(key);
+        return flight != null ? flight.waiters.get() : 0;
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+/**
+ * 按分钟分桶的滑动窗口计数器（环形缓冲区）
+ * 维护窗口内的总数和不合格数，窗口前移时减去过期桶，更新和读取均为O(1)（前移按分钟数摊还）。
+ * 非线程安全，由调用方同步
+ */
+public class SlidingWindowCounter {
+
+    private final int windowMinutes;
+    private final long[] bucketMinutes;
+    private final long[] totals;
+    private final long[] fails;
+
+    private long latestMinute = Long.MIN_VALUE;
+    private long total;
+    private long fail;
+
+    public SlidingWindowCounter(int windowMinutes) {
+        if (windowMinutes < 1) {
+            throw new IllegalArgumentException("窗口分钟数必须大于0：" + windowMinutes);
+        }
+        this.windowMinutes = windowMinutes;
+        this.bucketMinutes = new long[windowMinutes];
+        this.totals = new long[windowMinutes];
+        this.fails = new long[windowMinutes];
+    }
+
+    /**
+     * 将窗口前移到指定分钟，丢弃移出窗口的桶
+     */
+    public void advance(long minute) {
+        if (minute <= latestMinute) {
+            return;
+        }
+        long steps = latestMinute == Long.MIN_VALUE ? windowMinutes : Math.min(windowMinutes, minute - latestMinute);
+        for (long m = minute - steps + 1; m <= minute; m++) {
+            int index = (int) Math.floorMod(m, (long) windowMinutes);
+            total -= totals[index];
+            fail -= fails[index];
+            totals[index] = 0;
+            fails[index] = 0;
+            bucketMinutes[index] = m;
+        }
+        latestMinute = minute;
+    }
+
+    /**
+     * 在指定分钟的桶中累加计数（可为负数，用于撤销）
+     * @return 该分钟仍在窗口内、计数被接受时返回true
+     */
+    public boolean add(long minute, long totalDelta, long failDelta) {
+        advance(minute);
+        if (!contains(minute)) {
+            return false;
+        }
+        int index = (int) Math.floorMod(minute, (long) windowMinutes);
+        totals[index] += totalDelta;
+        fails[index] += failDelta;
+        total += totalDelta;
+        fail += failDelta;
+        return true;
+    }
+
+    /**
+     * 判断指定分钟是否仍在窗口内
+     */
+    public boolean contains(long minute) {
+        return latestMinute != Long.MIN_VALUE && minute <= latestMinute && minute > latestMinute - windowMinutes;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getFail() {
+        return fail;
+    }
+
+    /**
+     * 不合格率（百分比），窗口内没有数据时为0
+     */
+    public double getFailRate() {
+        return total > 0 ? fail * 100.0 / total : 0.0;
+    }
+}
@@ -0,0 +1,245 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单个序列的流式统计过程控制图（X-bar/R、EWMA、CUSUM）
+ * 每个观测值以O(1)时间和O(1)状态增量更新：前若干个子组作为基线（第一阶段）确定中心线和标准差后冻结，
+ * 之后的观测值只与冻结的基线比较，避免缓慢漂移把控制限一起带偏
+ */
+public class SpcChart {
+
+    /**
+     * X-bar/R 控制图常数，下标为子组大小（2~10）
+     */
+    private static final double[] A2 = {0, 0, 1.880, 1.023, 0.729, 0.577, 0.483, 0.419, 0.373, 0.337, 0.308};
+    private static final double[] D3 = {0, 0, 0, 0, 0, 0, 0, 0.076, 0.136, 0.184, 0.223};
+    private static final double[] D4 = {0, 0, 3.267, 2.574, 2.282, 2.114, 2.004, 1.924, 1.864, 1.816, 1.777};
+    private static final double[] SMALL_D2 = {0, 0, 1.128, 1.693, 2.059, 2.326, 2.534, 2.704, 2.847, 2.970, 3.078};
+
+    public static final int MIN_SUBGROUP_SIZE = 2;
+    public static final int MAX_SUBGROUP_SIZE = 10;
+
+    /**
+     * 控制图告警信号
+     */
+    public enum Signal {
+        XBAR_ABOVE_UCL("子组均值超出控制上限"),
+        XBAR_BELOW_LCL("子组均值低于控制下限"),
+        RANGE_ABOVE_UCL("子组极差超出控制上限"),
+        EWMA_ABOVE_UCL("EWMA超出控制上限"),
+        EWMA_BELOW_LCL("EWMA低于控制下限"),
+        CUSUM_UPWARD("CUSUM检测到向上偏移"),
+        CUSUM_DOWNWARD("CUSUM检测到向下偏移");
+
+        private final String description;
+
+        Signal(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 控制图参数
+     * @param subgroupSize 子组大小（2~10）
+     * @param baselineSubgroups 基线子组数
+     * @param ewmaLambda EWMA平滑系数（0~1]
+     * @param ewmaWidth EWMA控制限宽度（标准差倍数）
+     * @param cusumK CUSUM参考值（标准差倍数）
+     * @param cusumH CUSUM决策区间（标准差倍数）
+     */
+    public record Parameters(int subgroupSize, int baselineSubgroups, double ewmaLambda, double ewmaWidth,
+                             double cusumK, double cusumH) {
+
+        public Parameters {
+            if (subgroupSize < MIN_SUBGROUP_SIZE || subgroupSize > MAX_SUBGROUP_SIZE) {
+                throw new IllegalArgumentException("子组大小必须在2到10之间：" + subgroupSize);
+            }
+            if (baselineSubgroups < 1) {
+                throw new IllegalArgumentException("基线子组数必须大于0：" + baselineSubgroups);
+            }
+            if (ewmaLambda <= 0 || ewmaLambda > 1) {
+                throw new IllegalArgumentException("EWMA平滑系数必须在(0, 1]之间：" + ewmaLambda);
+            }
+        }
+    }
+
+    /**
+     * 控制图状态快照
+     * @param baselineReady 基线是否已确定，未确定时控制限为NaN
+     */
+    public record State(long count, double mean, double stdDev, boolean baselineReady,
+                        double centerLine, double sigma, double xbarUpperLimit, double xbarLowerLimit,
+                        double rangeCenterLine, double rangeUpperLimit, double rangeLowerLimit,
+                        double ewma, double ewmaUpperLimit, double ewmaLowerLimit,
+                        double cusumHigh, double cusumLow) {
+    }
+
+    private final Parameters parameters;
+
+    // 全部观测值的Welford运行统计
+    private long count;
+    private double mean;
+    private double m2;
+
+    // 当前子组
+    private int subgroupFill;
+    private double subgroupSum;
+    private double subgroupMin;
+    private double subgroupMax;
+
+    // 基线（第一阶段）
+    private int baselineSubgroupCount;
+    private double baselineXbarSum;
+    private double baselineRangeSum;
+    private boolean baselineReady;
+    private double centerLine;
+    private double sigma;
+    private double rangeCenterLine;
+
+    // EWMA
+    private double ewma;
+    private double ewmaDecay;
+    private boolean ewmaAbove;
+    private boolean ewmaBelow;
+
+    // CUSUM（以标准差为单位）
+    private double cusumHigh;
+    private double cusumLow;
+
+    public SpcChart(Parameters parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * 加入一个观测值
+     * @return 本次观测触发的信号，基线确定前始终为空
+     */
+    public synchronized List<Signal> add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+
+        List<Signal> signals = baselineReady ? checkIndividual(value) : Collections.emptyList();
+
+        if (subgroupFill == 0) {
+            subgroupMin = value;
+            subgroupMax = value;
+        } else {
+            subgroupMin = Math.min(subgroupMin, value);
+            subgroupMax = Math.max(subgroupMax, value);
+        }
+        subgroupSum += value;
+        subgroupFill++;
+
+        if (subgroupFill == parameters.subgroupSize()) {
+            double xbar = subgroupSum / subgroupFill;
+            double range = subgroupMax - subgroupMin;
+            subgroupFill = 0;
+            subgroupSum = 0;
+
+            if (baselineReady) {
+                signals = checkSubgroup(xbar, range, signals);
+            } else {
+                accumulateBaseline(xbar, range);
+            }
+        }
+        return signals;
+    }
+
+    public synchronized State state() {
+        int n = parameters.subgroupSize();
+        double stdDev = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+        if (!baselineReady) {
+            return new State(count, mean, stdDev, false, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                    Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0.0, 0.0);
+        }
+        double ewmaHalfWidth = ewmaHalfWidth();
+        return new State(count, mean, stdDev, true, centerLine, sigma,
+                centerLine + A2[n] * rangeCenterLine, centerLine - A2[n] * rangeCenterLine,
+                rangeCenterLine, D4[n] * rangeCenterLine, D3[n] * rangeCenterLine,
+                ewma, centerLine + ewmaHalfWidth, centerLine - ewmaHalfWidth, cusumHigh, cusumLow);
+    }
+
+    /**
+     * 基线子组全部相同（极差为0）时继续累积，直到能够估计出非零标准差
+     */
+    private void accumulateBaseline(double xbar, double range) {
+        baselineSubgroupCount++;
+        baselineXbarSum += xbar;
+        baselineRangeSum += range;
+        if (baselineSubgroupCount < parameters.baselineSubgroups() || baselineRangeSum <= 0) {
+            return;
+        }
+
+        int n = parameters.subgroupSize();
+        centerLine = baselineXbarSum / baselineSubgroupCount;
+        rangeCenterLine = baselineRangeSum / baselineSubgroupCount;
+        sigma = rangeCenterLine / SMALL_D2[n];
+        ewma = centerLine;
+        ewmaDecay = 1.0;
+        baselineReady = true;
+    }
+
+    private List<Signal> checkIndividual(double value) {
+        List<Signal> signals = new ArrayList<>(2);
+
+        double lambda = parameters.ewmaLambda();
+        ewma = lambda * value + (1 - lambda) * ewma;
+        ewmaDecay *= (1 - lambda) * (1 - lambda);
+        double halfWidth = ewmaHalfWidth();
+        // EWMA越限后会持续若干点，只在进入越限状态时发出一次信号
+        boolean above = ewma > centerLine + halfWidth;
+        boolean below = ewma < centerLine - halfWidth;
+        if (above && !ewmaAbove) {
+            signals.add(Signal.EWMA_ABOVE_UCL);
+        }
+        if (below && !ewmaBelow) {
+            signals.add(Signal.EWMA_BELOW_LCL);
+        }
+        ewmaAbove = above;
+        ewmaBelow = below;
+
+        double standardized = (value - centerLine) / sigma;
+        cusumHigh = Math.max(0, cusumHigh + standardized - parameters.cusumK());
+        cusumLow = Math.max(0, cusumLow - standardized - parameters.cusumK());
+        if (cusumHigh > parameters.cusumH()) {
+            signals.add(Signal.CUSUM_UPWARD);
+            cusumHigh = 0;
+        }
+        if (cusumLow > parameters.cusumH()) {
+            signals.add(Signal.CUSUM_DOWNWARD);
+            cusumLow = 0;
+        }
+        return signals;
+    }
+
+    private List<Signal> checkSubgroup(double xbar, double range, List<Signal> signals) {
+        int n = parameters.subgroupSize();
+        List<Signal> result = signals.isEmpty() ? new ArrayList<>(1) : signals;
+        if (xbar > centerLine + A2[n] * rangeCenterLine) {
+            result.add(Signal.XBAR_ABOVE_UCL);
+        } else if (xbar < centerLine - A2[n] * rangeCenterLine) {
+            result.add(Signal.XBAR_BELOW_LCL);
+        }
+        if (range > D4[n] * rangeCenterLine) {
+            result.add(Signal.RANGE_ABOVE_UCL);
+        }
+        return result;
+    }
+
+    /**
+     * EWMA控制限半宽：L·σ·sqrt(λ/(2-λ)·(1-(1-λ)^(2i)))，(1-λ)^(2i)随每次更新累乘得到
+     */
+    private double ewmaHalfWidth() {
+        double lambda = parameters.ewmaLambda();
+        return parameters.ewmaWidth() * sigma * Math.sqrt(lambda / (2 - lambda) * (1 - ewmaDecay));
+    }
+}
@@ -0,0 +1,144 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 字符二元组TF-IDF相似度索引
+ * 中文文本不分词，直接按相邻两个字符切分；文档以二元组词频存储，
+ * 查询时用当前文档集合计算IDF权重，返回余弦相似度最高的文档
+ */
+public class TfIdfIndex {
+
+    private final Map<String, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+
+    /**
+     * 最相似的文档
+     * @param key 文档键
+     * @param score 余弦相似度，范围[0, 1]
+     */
+    public record Match(String key, double score) {
+    }
+
+    /**
+     * 拆分文本的字符二元组及词频，只有一个字符时使用该字符本身
+     */
+    public static Map<String, Integer> grams(String text) {
+        Map<String, Integer> grams = new HashMap<>();
+        if (text == null || text.isEmpty()) {
+            return grams;
+        }
+        int[] codePoints = text.codePoints().toArray();
+        if (codePoints.length == 1) {
+            grams.put(text, 1);
+            return grams;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.merge(new String(codePoints, i, 2), 1, Integer::sum);
+        }
+        return grams;
+    }
+
+    /**
+     * 添加或替换文档
+     */
+    public synchronized void add(String key, String text) {
+        remove(key);
+        Map<String, Integer> grams = grams(text);
+        if (grams.isEmpty()) {
+            return;
+        }
+        documents.put(key, grams);
+        for (String gram : grams.keySet()) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        Map<String, Integer> grams = documents.remove(key);
+        if (grams == null) {
+            return;
+        }
+        for (String gram : grams.keySet()) {
+            Set<String> keys = postings.get(gram);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询与文本最相似的文档，只比较至少含有一个相同二元组的文档
+     * @return 最相似的文档，没有候选时返回null
+     */
+    public synchronized Match nearest(String text) {
+        Map<String, Integer> queryGrams = grams(text);
+        Set<String> candidates = new HashSet<>();
+        for (String gram : queryGrams.keySet()) {
+            Set<String> keys = postings.get(gram);
+            if (keys != null) {
+                candidates.addAll(keys);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Double> queryWeights = weights(queryGrams);
+        double queryNorm = norm(queryWeights);
+        Match best = null;
+        for (String candidate : candidates) {
+            Map<String, Double> documentWeights = weights(documents.get(candidate));
+            double dot = 0;
+            for (Map.Entry<String, Double> entry : queryWeights.entrySet()) {
+                Double weight = documentWeights.get(entry.getKey());
+                if (weight != null) {
+                    dot += entry.getValue() * weight;
+                }
+            }
+            double score = dot / (queryNorm * norm(documentWeights));
+            if (best == null || score > best.score()) {
+                best = new Match(candidate, score);
+            }
+        }
+        return best;
+    }
+
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    public synchronized void clear() {
+        documents.clear();
+        postings.clear();
+    }
+
+    /**
+     * 词频乘以平滑IDF：ln((N+1)/(df+1))+1
+     */
+    private Map<String, Double> weights(Map<String, Integer> grams) {
+        Map<String, Double> weights = new HashMap<>(grams.size());
+        int documentCount = documents.size();
+        for (Map.Entry<String, Integer> entry : grams.entrySet()) {
+            Set<String> keys = postings.get(entry.getKey());
+            int df = keys != null ? keys.size() : 0;
+            double idf = Math.log((documentCount + 1.0) / (df + 1.0)) + 1;
+            weights.put(entry.getKey(), entry.getValue() * idf);
+        }
+        return weights;
+    }
+
+    private static double norm(Map<String, Double> weights) {
+        double sum = 0;
+        for (double weight : weights.values()) {
+            sum += weight * weight;
+        }
+        return Math.sqrt(sum);
+    }
+}
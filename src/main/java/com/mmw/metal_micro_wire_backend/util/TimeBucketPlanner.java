@@ -0,0 +1,148 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 统计时间窗口分桶工具类
+ * 将查询窗口拆分为可缓存的整月/整日桶（已结束，结果不再变化）、当天的开放桶，
+ * 以及首尾不足一天的实时查询片段，各桶的计数可直接相加
+ */
+public final class TimeBucketPlanner {
+
+    private static final DateTimeFormatter MONTH_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter DAY_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 闭区间上界与下一个桶起点的间隔（数据库时间精度为微秒）
+     */
+    private static final long END_OFFSET_NANOS = 1000L;
+
+    private TimeBucketPlanner() {
+    }
+
+    /**
+     * 桶类型
+     */
+    public enum BucketType {
+        /** 已结束的整月 */
+        MONTH,
+        /** 已结束的整日 */
+        DAY,
+        /** 当天（开放桶），新数据写入时失效 */
+        OPEN,
+        /** 不足一天的片段，直接查询不缓存 */
+        LIVE
+    }
+
+    /**
+     * 时间桶
+     * @param type 桶类型
+     * @param id 缓存标识（M202501 / D20250101 / O20250101），LIVE桶为null
+     * @param start 开始时间（包含），null表示不限
+     * @param end 结束时间（包含），null表示不限
+     */
+    public record TimeBucket(BucketType type, String id, LocalDateTime start, LocalDateTime end) {
+
+        public boolean isCacheable() {
+            return type != BucketType.LIVE;
+        }
+    }
+
+    /**
+     * 拆分查询窗口
+     * @param start 查询开始时间（包含），null表示从最早的数据开始
+     * @param end 查询结束时间（包含），null或不早于当前时间表示截止到最新数据
+     * @param earliest 最早的数据时间，无数据时为null
+     * @param now 当前时间
+     * @return 时间桶列表，按时间顺序排列
+     */
+    public static List<TimeBucket> plan(LocalDateTime start, LocalDateTime end,
+                                        LocalDateTime earliest, LocalDateTime now) {
+        List<TimeBucket> buckets = new ArrayList<>();
+        LocalDateTime todayStart = now.toLocalDate().atStartOfDay();
+        boolean open = end == null || !end.isBefore(now);
+
+        if (start == null) {
+            if (earliest == null) {
+                buckets.add(live(null, end));
+                return buckets;
+            }
+            start = earliest.toLocalDate().atStartOfDay();
+        }
+        if (!open && end.isBefore(start)) {
+            buckets.add(live(start, end));
+            return buckets;
+        }
+
+        LocalDateTime fullFrom = ceilDay(start);
+        LocalDateTime fullTo = open ? todayStart : min(floorDay(end), todayStart);
+
+        if (fullFrom.isBefore(fullTo)) {
+            if (start.isBefore(fullFrom)) {
+                buckets.add(live(start, fullFrom.minusNanos(END_OFFSET_NANOS)));
+            }
+            addClosedBuckets(buckets, fullFrom, fullTo);
+            if (open) {
+                buckets.add(openBucket(todayStart));
+            } else {
+                buckets.add(live(fullTo, end));
+            }
+            return buckets;
+        }
+
+        // 窗口内没有已结束的整日
+        if (open && !start.isAfter(todayStart)) {
+            if (start.isBefore(todayStart)) {
+                buckets.add(live(start, todayStart.minusNanos(END_OFFSET_NANOS)));
+            }
+            buckets.add(openBucket(todayStart));
+        } else {
+            buckets.add(live(start, end));
+        }
+        return buckets;
+    }
+
+    /**
+     * 将[from, to)的整日区间拆分为整月桶和整日桶
+     */
+    private static void addClosedBuckets(List<TimeBucket> buckets, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime cursor = from;
+        while (cursor.isBefore(to)) {
+            LocalDateTime nextMonth = cursor.plusMonths(1);
+            if (cursor.getDayOfMonth() == 1 && !nextMonth.isAfter(to)) {
+                buckets.add(new TimeBucket(BucketType.MONTH, "M" + cursor.format(MONTH_ID_FORMATTER),
+                        cursor, nextMonth.minusNanos(END_OFFSET_NANOS)));
+                cursor = nextMonth;
+            } else {
+                LocalDateTime nextDay = cursor.plusDays(1);
+                buckets.add(new TimeBucket(BucketType.DAY, "D" + cursor.format(DAY_ID_FORMATTER),
+                        cursor, nextDay.minusNanos(END_OFFSET_NANOS)));
+                cursor = nextDay;
+            }
+        }
+    }
+
+    private static TimeBucket openBucket(LocalDateTime todayStart) {
+        return new TimeBucket(BucketType.OPEN, "O" + todayStart.format(DAY_ID_FORMATTER), todayStart, null);
+    }
+
+    private static TimeBucket live(LocalDateTime start, LocalDateTime end) {
+        return new TimeBucket(BucketType.LIVE, null, start, end);
+    }
+
+    private static LocalDateTime floorDay(LocalDateTime time) {
+        return time.toLocalDate().atStartOfDay();
+    }
+
+    private static LocalDateTime ceilDay(LocalDateTime time) {
+        LocalDateTime floor = floorDay(time);
+        return floor.equals(time) ? floor : floor.plusDays(1);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,100 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.Arrays;
+
+/**
+ * 时间序列桶：按检测指标维护样本数、总和、最小值、最大值。
+ * 各项都可直接合并，因此同一时间桶可以由多个节点分别聚合、查询时再合并。
+ * 非线程安全，由调用方同步
+ */
+public class TimeSeriesBucket {
+
+    private static final int FIELDS = 4;
+    private static final String SEPARATOR = ",";
+
+    private final long[] counts = new long[MeasurementMetric.values().length];
+    private final double[] sums = new double[counts.length];
+    private final double[] mins = new double[counts.length];
+    private final double[] maxs = new double[counts.length];
+
+    public TimeSeriesBucket() {
+        Arrays.fill(mins, Double.NaN);
+        Arrays.fill(maxs, Double.NaN);
+    }
+
+    public void add(MeasurementMetric metric, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int i = metric.ordinal();
+        counts[i]++;
+        sums[i] += value;
+        mins[i] = Double.isNaN(mins[i]) ? value : Math.min(mins[i], value);
+        maxs[i] = Double.isNaN(maxs[i]) ? value : Math.max(maxs[i], value);
+    }
+
+    /**
+     * 合并另一个桶（另一个桶不变）
+     */
+    public void merge(TimeSeriesBucket other) {
+        for (int i = 0; i < counts.length; i++) {
+            if (other.counts[i] == 0) {
+                continue;
+            }
+            counts[i] += other.counts[i];
+            sums[i] += other.sums[i];
+            mins[i] = Double.isNaN(mins[i]) ? other.mins[i] : Math.min(mins[i], other.mins[i]);
+            maxs[i] = Double.isNaN(maxs[i]) ? other.maxs[i] : Math.max(maxs[i], other.maxs[i]);
+        }
+    }
+
+    public long getCount(MeasurementMetric metric) {
+        return counts[metric.ordinal()];
+    }
+
+    public double getMin(MeasurementMetric metric) {
+        return mins[metric.ordinal()];
+    }
+
+    public double getMax(MeasurementMetric metric) {
+        return maxs[metric.ordinal()];
+    }
+
+    /**
+     * 平均值，没有样本时返回NaN
+     */
+    public double getMean(MeasurementMetric metric) {
+        int i = metric.ordinal();
+        return counts[i] == 0 ? Double.NaN : sums[i] / counts[i];
+    }
+
+    /**
+     * 编码为逗号分隔的文本：每个指标依次为样本数、总和、最小值、最大值
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(counts[i]).append(SEPARATOR).append(sums[i]).append(SEPARATOR)
+                    .append(mins[i]).append(SEPARATOR).append(maxs[i]);
+        }
+        return builder.toString();
+    }
+
+    public static TimeSeriesBucket decode(String encoded) {
+        String[] parts = encoded.split(SEPARATOR);
+        TimeSeriesBucket bucket = new TimeSeriesBucket();
+        if (parts.length != bucket.counts.length * FIELDS) {
+            throw new IllegalArgumentException("时间序列桶格式错误：" + encoded);
+        }
+        for (int i = 0; i < bucket.counts.length; i++) {
+            bucket.counts[i] = Long.parseLong(parts[i * FIELDS]);
+            bucket.sums[i] = Double.parseDouble(parts[i * FIELDS + 1]);
+            bucket.mins[i] = Double.parseDouble(parts[i * FIELDS + 2]);
+            bucket.maxs[i] = Double.parseDouble(parts[i * FIELDS + 3]);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,95 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 检测指标时间序列的聚合粒度
+ * 桶标识为桶起始时间的 yyyyMMddHHmm，分区（Redis键）取其前缀：分钟桶按天、小时桶按月、天桶按年分区
+ */
+public enum TimeSeriesResolution {
+    MINUTE(ChronoUnit.MINUTES, 8),
+    HOUR(ChronoUnit.HOURS, 6),
+    DAY(ChronoUnit.DAYS, 4);
+
+    private static final DateTimeFormatter BUCKET_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private final ChronoUnit unit;
+    private final int partitionLength;
+
+    TimeSeriesResolution(ChronoUnit unit, int partitionLength) {
+        this.unit = unit;
+        this.partitionLength = partitionLength;
+    }
+
+    public Duration getBucketDuration() {
+        return unit.getDuration();
+    }
+
+    /**
+     * 时间所在桶的起始时间
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * 时间所在桶的标识
+     */
+    public String bucketId(LocalDateTime time) {
+        return truncate(time).format(BUCKET_FORMATTER);
+    }
+
+    public static LocalDateTime parseBucketId(String bucketId) {
+        return LocalDateTime.parse(bucketId, BUCKET_FORMATTER);
+    }
+
+    /**
+     * 桶所在的分区
+     */
+    public String partitionOf(String bucketId) {
+        return bucketId.substring(0, partitionLength);
+    }
+
+    /**
+     * 时间范围 [start, end) 覆盖的桶数
+     */
+    public long bucketCount(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            return 0;
+        }
+        return unit.between(truncate(start), truncate(end.minusNanos(1))) + 1;
+    }
+
+    /**
+     * 时间范围 [start, end) 覆盖的分区，按时间顺序
+     */
+    public Set<String> partitions(LocalDateTime start, LocalDateTime end) {
+        Set<String> partitions = new LinkedHashSet<>();
+        LocalDateTime last = truncate(end.minusNanos(1));
+        for (LocalDateTime bucket = truncate(start); !bucket.isAfter(last); bucket = bucket.plus(1, unit)) {
+            partitions.add(partitionOf(bucket.format(BUCKET_FORMATTER)));
+        }
+        return partitions;
+    }
+
+    /**
+     * 选择满足点数预算的最细粒度：从分钟到天依次尝试，跳过保留期不覆盖开始时间的粒度；
+     * 连天粒度都超出预算时仍返回天粒度，由调用方再做降采样
+     * @param retained 该粒度的保留期是否覆盖开始时间
+     */
+    public static TimeSeriesResolution choose(LocalDateTime start, LocalDateTime end, int maxPoints,
+                                              Predicate<TimeSeriesResolution> retained) {
+        for (TimeSeriesResolution resolution : values()) {
+            if (retained.test(resolution) && resolution.bucketCount(start, end) <= maxPoints) {
+                return resolution;
+            }
+        }
+        return DAY;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+/**
+ * 令牌桶限流器
+ * 桶中最多存放capacity个令牌，按固定速率补充，每次请求消耗一个令牌；允许短时突发，长期速率不超过补充速率
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param capacity 桶容量（允许的突发请求数）
+     * @param refillPerMinute 每分钟补充的令牌数
+     * @param nowNanos 当前时间（System.nanoTime()）
+     */
+    public TokenBucket(int capacity, double refillPerMinute, long nowNanos) {
+        if (capacity < 1 || refillPerMinute <= 0) {
+            throw new IllegalArgumentException("令牌桶容量和补充速率必须大于0");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / 60_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试消耗一个令牌
+     * @return 令牌充足时返回true
+     */
+    public synchronized boolean tryConsume(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * 距离下一个令牌可用的时间（纳秒），已有令牌时为0
+     */
+    public synchronized long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
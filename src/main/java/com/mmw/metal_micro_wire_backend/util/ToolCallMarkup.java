@@ -0,0 +1,195 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import java.util.*;
+
+/**
+ * DeepSeek工具调用标记扫描器
+ * 正文中的工具调用标记（ASCII形式 {@code <|tool_calls_begin|>}、全角形式 {@code <｜tool▁calls▁begin｜>}
+ * 以及不带尖括号的形式）在一遍扫描中全部识别出来，按首字符分组匹配，不使用正则表达式；
+ * 扫描器可以从上次停止的位置继续，用于逐块到达的流式正文
+ */
+public final class ToolCallMarkup {
+
+    /**
+     * 标记类型
+     */
+    public enum TokenType {
+        CALLS_BEGIN, CALLS_END, CALL_BEGIN, CALL_END, SEP, FUNCTION_CALLS
+    }
+
+    /**
+     * 识别出的标记
+     * @param start 标记在正文中的起始位置
+     * @param end 标记之后第一个字符的位置
+     */
+    public record Token(TokenType type, int start, int end) {
+    }
+
+    private record Marker(String text, TokenType type, boolean bracketed) {
+    }
+
+    private static final List<Marker> MARKERS = List.of(
+            new Marker("<|tool_calls_begin|>", TokenType.CALLS_BEGIN, true),
+            new Marker("<｜tool▁calls▁begin｜>", TokenType.CALLS_BEGIN, true),
+            new Marker("tool_calls_begin", TokenType.CALLS_BEGIN, false),
+            new Marker("<|tool_calls_end|>", TokenType.CALLS_END, true),
+            new Marker("<｜tool▁calls▁end｜>", TokenType.CALLS_END, true),
+            new Marker("tool_calls_end", TokenType.CALLS_END, false),
+            new Marker("<|tool_call_begin|>", TokenType.CALL_BEGIN, true),
+            new Marker("<｜tool▁call▁begin｜>", TokenType.CALL_BEGIN, true),
+            new Marker("tool_call_begin", TokenType.CALL_BEGIN, false),
+            new Marker("<|tool_call_end|>", TokenType.CALL_END, true),
+            new Marker("<｜tool▁call▁end｜>", TokenType.CALL_END, true),
+            new Marker("tool_call_end", TokenType.CALL_END, false),
+            new Marker("<|tool_sep|>", TokenType.SEP, true),
+            new Marker("<｜tool▁sep｜>", TokenType.SEP, true),
+            new Marker("tool▁sep", TokenType.SEP, false),
+            new Marker("function_calls", TokenType.FUNCTION_CALLS, false));
+
+    private static final Map<Character, Marker[]> ALL_MARKERS = groupByFirstChar(false);
+    private static final Map<Character, Marker[]> BRACKETED_MARKERS = groupByFirstChar(true);
+
+    private ToolCallMarkup() {
+    }
+
+    /**
+     * 扫描完整正文中的全部标记
+     */
+    public static List<Token> scan(CharSequence text) {
+        return new Scanner(ALL_MARKERS).scan(text, true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 正文中是否含有任一标记，找到第一个即返回
+     */
+    public static boolean containsMarker(CharSequence text) {
+        return text != null && !new Scanner(ALL_MARKERS).scan(text, true, 1).isEmpty();
+    }
+
+    /**
+     * 创建用于流式正文的扫描器，只识别带尖括号的标记
+     */
+    public static Scanner streamScanner() {
+        return new Scanner(BRACKETED_MARKERS);
+    }
+
+    /**
+     * 查找与openIndex处的左括号配对的右括号，忽略JSON字符串中的括号
+     * @return 右括号的位置，未闭合时返回-1
+     */
+    public static int findClosingBracket(CharSequence text, int openIndex) {
+        char open = text.charAt(openIndex);
+        char close = open == '[' ? ']' : '}';
+        int depth = 0;
+        boolean inString = false;
+        for (int i = openIndex; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == open) {
+                depth++;
+            } else if (c == close && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 增量扫描器
+     * 记录已扫描到的位置，正文追加后从该位置继续；末尾可能是某个标记开头的字符暂不扫描
+     */
+    public static final class Scanner {
+
+        private final Map<Character, Marker[]> markers;
+        private int position;
+
+        private Scanner(Map<Character, Marker[]> markers) {
+            this.markers = markers;
+        }
+
+        /**
+         * 扫描上次停止位置之后的内容
+         * @param endOfInput 正文是否已完整；为false时末尾可能是标记开头的部分留待下次扫描
+         * @return 本次识别出的标记
+         */
+        public List<Token> scan(CharSequence text, boolean endOfInput) {
+            return scan(text, endOfInput, Integer.MAX_VALUE);
+        }
+
+        /**
+         * 已确认不属于未完成标记的正文长度
+         */
+        public int position() {
+            return position;
+        }
+
+        private List<Token> scan(CharSequence text, boolean endOfInput, int maxTokens) {
+            List<Token> tokens = new ArrayList<>();
+            int i = position;
+            int length = text.length();
+            while (i < length && tokens.size() < maxTokens) {
+                Marker[] candidates = markers.get(text.charAt(i));
+                if (candidates != null) {
+                    Marker matched = null;
+                    boolean pending = false;
+                    for (Marker marker : candidates) {
+                        int available = length - i;
+                        if (available >= marker.text().length()) {
+                            if (regionMatches(text, i, marker.text(), marker.text().length())) {
+                                matched = marker;
+                                break;
+                            }
+                        } else if (!endOfInput && regionMatches(text, i, marker.text(), available)) {
+                            pending = true;
+                        }
+                    }
+                    if (matched != null) {
+                        tokens.add(new Token(matched.type(), i, i + matched.text().length()));
+                        i += matched.text().length();
+                        continue;
+                    }
+                    if (pending) {
+                        break;
+                    }
+                }
+                i++;
+            }
+            position = i;
+            return tokens;
+        }
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String marker, int length) {
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(offset + i) != marker.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按首字符分组，组内按长度降序排列
+     */
+    private static Map<Character, Marker[]> groupByFirstChar(boolean bracketedOnly) {
+        Map<Character, List<Marker>> groups = new HashMap<>();
+        for (Marker marker : MARKERS) {
+            if (!bracketedOnly || marker.bracketed()) {
+                groups.computeIfAbsent(marker.text().charAt(0), key -> new ArrayList<>()).add(marker);
+            }
+        }
+        Map<Character, Marker[]> result = new HashMap<>();
+        groups.forEach((first, markers) -> {
+            markers.sort(Comparator.comparingInt((Marker marker) -> marker.text().length()).reversed());
+            result.put(first, markers.toArray(new Marker[0]));
+        });
+        return result;
+    }
+}
@@ -0,0 +1,379 @@
+package com.mmw.metal_micro_wire_backend.util;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 线材归档段文件编解码工具
+ *
+ * 文件格式（列式存储）：
+ * <pre>
+ * [magic:int "MMWS"][version:short][rowCount:int]
+ * [GZIP压缩的列数据]
+ *   batch_number  升序排列，便于按批次号二分查找
+ *   低基数文本列    字典编码（设备、生产商、负责人、工艺、机器、邮箱、场景、设备代码）
+ *   数值列         zigzag变长整数编码的unscaledValue + scale
+ *   时间列         相对前一行的秒级增量，变长整数编码
+ *   枚举列         单字节序号
+ * </pre>
+ * 同一列的值连续存放，重复度高的列压缩效果明显优于按行存储。
+ */
+public final class WireMaterialSegmentCodec {
+
+    private static final int MAGIC = 0x4D4D5753; // "MMWS"
+    private static final short VERSION = 1;
+    private static final int NULL_MARKER = -1;
+
+    private WireMaterialSegmentCodec() {
+    }
+
+    /**
+     * 将线材记录写入段文件（按批次号排序，先写临时文件再原子替换）
+     */
+    public static void write(List<WireMaterial> materials, Path target) throws IOException {
+        List<WireMaterial> rows = new ArrayList<>(materials);
+        rows.sort(Comparator.comparing(WireMaterial::getBatchNumber));
+
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            header.writeInt(MAGIC);
+            header.writeShort(VERSION);
+            header.writeInt(rows.size());
+            header.flush();
+
+            GZIPOutputStream gzip = new GZIPOutputStream(header, 64 * 1024);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+
+            writeStringColumn(out, rows, WireMaterial::getBatchNumber);
+            writeDictionaryColumn(out, rows, WireMaterial::getDeviceId);
+            writeDecimalColumn(out, rows, WireMaterial::getDiameter);
+            writeDecimalColumn(out, rows, WireMaterial::getResistance);
+            writeDecimalColumn(out, rows, WireMaterial::getExtensibility);
+            writeDecimalColumn(out, rows, WireMaterial::getWeight);
+            writeStringColumn(out, rows, WireMaterial::getSourceOriginRaw);
+            writeDictionaryColumn(out, rows, WireMaterial::getManufacturer);
+            writeDictionaryColumn(out, rows, WireMaterial::getResponsiblePerson);
+            writeDictionaryColumn(out, rows, WireMaterial::getProcessType);
+            writeDictionaryColumn(out, rows, WireMaterial::getProductionMachine);
+            writeDictionaryColumn(out, rows, WireMaterial::getContactEmail);
+            writeDictionaryColumn(out, rows, WireMaterial::getScenarioCode);
+            writeDictionaryColumn(out, rows, WireMaterial::getDeviceCode);
+            writeTimeColumn(out, rows, WireMaterial::getEventTime);
+            writeEnumColumn(out, rows, WireMaterial::getEvaluationResult);
+            writeStringColumn(out, rows, WireMaterial::getEvaluationMessage);
+            writeEnumColumn(out, rows, WireMaterial::getModelEvaluationResult);
+            writeDecimalColumn(out, rows, WireMaterial::getModelConfidence);
+            writeEnumColumn(out, rows, WireMaterial::getFinalEvaluationResult);
+            writeTimeColumn(out, rows, WireMaterial::getCreateTime);
+
+            out.flush();
+            gzip.finish();
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取段文件中的全部记录
+     */
+    public static List<WireMaterial> readAll(Path source) throws IOException {
+        try (SegmentReader reader = open(source)) {
+            String[] batchNumbers = readStringColumn(reader.in(), reader.rowCount());
+            return decodeRemainingColumns(reader.in(), batchNumbers);
+        }
+    }
+
+    /**
+     * 按批次号查找记录
+     * 批次号列位于最前且有序，未命中时无需解码其余列
+     */
+    public static Optional<WireMaterial> find(Path source, String batchNumber) throws IOException {
+        try (SegmentReader reader = open(source)) {
+            String[] batchNumbers = readStringColumn(reader.in(), reader.rowCount());
+            int index = Arrays.binarySearch(batchNumbers, batchNumber);
+            if (index < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(decodeRemainingColumns(reader.in(), batchNumbers).get(index));
+        }
+    }
+
+    /**
+     * 校验文件头并打开压缩的列数据流
+     */
+    private static SegmentReader open(Path source) throws IOException {
+        DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)));
+        try {
+            if (header.readInt() != MAGIC) {
+                throw new IOException("不是有效的线材归档段文件：" + source);
+            }
+            short version = header.readShort();
+            if (version != VERSION) {
+                throw new IOException("不支持的归档段文件版本：" + version);
+            }
+            int rowCount = header.readInt();
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new GZIPInputStream(header, 64 * 1024), 64 * 1024));
+            return new SegmentReader(in, rowCount);
+        } catch (IOException e) {
+            header.close();
+            throw e;
+        }
+    }
+
+    private record SegmentReader(DataInputStream in, int rowCount) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static List<WireMaterial> decodeRemainingColumns(DataInputStream in, String[] batchNumbers) throws IOException {
+        int rowCount = batchNumbers.length;
+        String[] deviceIds = readDictionaryColumn(in, rowCount);
+        BigDecimal[] diameters = readDecimalColumn(in, rowCount);
+        BigDecimal[] resistances = readDecimalColumn(in, rowCount);
+        BigDecimal[] extensibilities = readDecimalColumn(in, rowCount);
+        BigDecimal[] weights = readDecimalColumn(in, rowCount);
+        String[] sourceOrigins = readStringColumn(in, rowCount);
+        String[] manufacturers = readDictionaryColumn(in, rowCount);
+        String[] responsiblePersons = readDictionaryColumn(in, rowCount);
+        String[] processTypes = readDictionaryColumn(in, rowCount);
+        String[] productionMachines = readDictionaryColumn(in, rowCount);
+        String[] contactEmails = readDictionaryColumn(in, rowCount);
+        String[] scenarioCodes = readDictionaryColumn(in, rowCount);
+        String[] deviceCodes = readDictionaryColumn(in, rowCount);
+        LocalDateTime[] eventTimes = readTimeColumn(in, rowCount);
+        WireMaterial.EvaluationResult[] evaluationResults = readEnumColumn(in, rowCount, WireMaterial.EvaluationResult.values());
+        String[] evaluationMessages = readStringColumn(in, rowCount);
+        WireMaterial.EvaluationResult[] modelResults = readEnumColumn(in, rowCount, WireMaterial.EvaluationResult.values());
+        BigDecimal[] modelConfidences = readDecimalColumn(in, rowCount);
+        WireMaterial.FinalEvaluationResult[] finalResults = readEnumColumn(in, rowCount, WireMaterial.FinalEvaluationResult.values());
+        LocalDateTime[] createTimes = readTimeColumn(in, rowCount);
+
+        List<WireMaterial> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(WireMaterial.builder()
+                    .batchNumber(batchNumbers[i])
+                    .deviceId(deviceIds[i])
+                    .diameter(diameters[i])
+                    .resistance(resistances[i])
+                    .extensibility(extensibilities[i])
+                    .weight(weights[i])
+                    .sourceOriginRaw(sourceOrigins[i])
+                    .manufacturer(manufacturers[i])
+                    .responsiblePerson(responsiblePersons[i])
+                    .processType(processTypes[i])
+                    .productionMachine(productionMachines[i])
+                    .contactEmail(contactEmails[i])
+                    .scenarioCode(scenarioCodes[i])
+                    .deviceCode(deviceCodes[i])
+                    .eventTime(eventTimes[i])
+                    .evaluationResult(evaluationResults[i])
+                    .evaluationMessage(evaluationMessages[i])
+                    .modelEvaluationResult(modelResults[i])
+                    .modelConfidence(modelConfidences[i])
+                    .finalEvaluationResult(finalResults[i])
+                    .createTime(createTimes[i])
+                    .build());
+        }
+        return rows;
+    }
+
+    // ==================== 列编码 ====================
+
+    private static void writeStringColumn(DataOutputStream out, List<WireMaterial> rows,
+                                          Function<WireMaterial, String> getter) throws IOException {
+        for (WireMaterial row : rows) {
+            writeString(out, getter.apply(row));
+        }
+    }
+
+    private static String[] readStringColumn(DataInputStream in, int rowCount) throws IOException {
+        String[] values = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    private static void writeDictionaryColumn(DataOutputStream out, List<WireMaterial> rows,
+                                              Function<WireMaterial, String> getter) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] codes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = getter.apply(rows.get(i));
+            codes[i] = value == null ? NULL_MARKER : dictionary.computeIfAbsent(value, k -> dictionary.size());
+        }
+        writeVarInt(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+        for (int code : codes) {
+            // +1 使null标记(-1)编码为0
+            writeVarInt(out, code + 1);
+        }
+    }
+
+    private static String[] readDictionaryColumn(DataInputStream in, int rowCount) throws IOException {
+        String[] dictionary = new String[readVarInt(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        String[] values = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            int code = readVarInt(in) - 1;
+            values[i] = code == NULL_MARKER ? null : dictionary[code];
+        }
+        return values;
+    }
+
+    private static void writeDecimalColumn(DataOutputStream out, List<WireMaterial> rows,
+                                           Function<WireMaterial, BigDecimal> getter) throws IOException {
+        for (WireMaterial row : rows) {
+            BigDecimal value = getter.apply(row);
+            if (value == null) {
+                out.writeByte(NULL_MARKER);
+                continue;
+            }
+            out.writeByte(value.scale());
+            writeVarLong(out, zigzag(value.unscaledValue().longValueExact()));
+        }
+    }
+
+    private static BigDecimal[] readDecimalColumn(DataInputStream in, int rowCount) throws IOException {
+        BigDecimal[] values = new BigDecimal[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            byte scale = in.readByte();
+            if (scale == NULL_MARKER) {
+                continue;
+            }
+            values[i] = new BigDecimal(BigInteger.valueOf(unzigzag(readVarLong(in))), scale);
+        }
+        return values;
+    }
+
+    private static void writeTimeColumn(DataOutputStream out, List<WireMaterial> rows,
+                                        Function<WireMaterial, LocalDateTime> getter) throws IOException {
+        long previous = 0;
+        for (WireMaterial row : rows) {
+            LocalDateTime value = getter.apply(row);
+            if (value == null) {
+                out.writeBoolean(false);
+                continue;
+            }
+            out.writeBoolean(true);
+            long seconds = value.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong(out, zigzag(seconds - previous));
+            writeVarInt(out, value.getNano());
+            previous = seconds;
+        }
+    }
+
+    private static LocalDateTime[] readTimeColumn(DataInputStream in, int rowCount) throws IOException {
+        LocalDateTime[] values = new LocalDateTime[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (!in.readBoolean()) {
+                continue;
+            }
+            long seconds = previous + unzigzag(readVarLong(in));
+            int nanos = readVarInt(in);
+            values[i] = LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+            previous = seconds;
+        }
+        return values;
+    }
+
+    private static <E extends Enum<E>> void writeEnumColumn(DataOutputStream out, List<WireMaterial> rows,
+                                                            Function<WireMaterial, E> getter) throws IOException {
+        for (WireMaterial row : rows) {
+            E value = getter.apply(row);
+            out.writeByte(value == null ? NULL_MARKER : value.ordinal());
+        }
+    }
+
+    private static <E extends Enum<E>> E[] readEnumColumn(DataInputStream in, int rowCount, E[] constants) throws IOException {
+        E[] values = Arrays.copyOf(constants, rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            byte ordinal = in.readByte();
+            values[i] = ordinal == NULL_MARKER ? null : constants[ordinal];
+        }
+        return values;
+    }
+
+    // ==================== 基础类型编码 ====================
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // 长度+1，0表示null
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
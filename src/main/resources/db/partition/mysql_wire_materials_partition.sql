@@ -0,0 +1,51 @@
+-- ============================================================
+-- wire_materials 月度范围分区迁移脚本（MySQL 8.x）
+-- 按 event_time 进行 RANGE COLUMNS 分区，分区命名规则：p + yyyyMM
+-- 末尾的 pmax 兜底分区接收超出已有月份的数据，避免写入因找不到分区而失败
+-- 后续月份的分区由 PartitionMaintenanceTask 每天从 pmax 中拆分预创建（见文末）
+-- 执行前请停止应用并备份数据
+-- ============================================================
+
+-- MySQL 要求分区键包含在所有唯一键中，因此主键调整为 (batch_number, event_time)
+-- 批次号的唯一性仍由应用层（JPA 以 batch_number 为主键）保证
+ALTER TABLE wire_materials
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (batch_number, event_time);
+
+ALTER TABLE wire_materials
+    PARTITION BY RANGE COLUMNS (event_time)
+    (
+        -- 历史数据统一放入起始分区，按实际最早数据时间调整
+        PARTITION p202412 VALUES LESS THAN ('2025-01-01 00:00:00'),
+        PARTITION p202501 VALUES LESS THAN ('2025-02-01 00:00:00'),
+        PARTITION p202502 VALUES LESS THAN ('2025-03-01 00:00:00'),
+        PARTITION p202503 VALUES LESS THAN ('2025-04-01 00:00:00'),
+        PARTITION p202504 VALUES LESS THAN ('2025-05-01 00:00:00'),
+        PARTITION p202505 VALUES LESS THAN ('2025-06-01 00:00:00'),
+        PARTITION p202506 VALUES LESS THAN ('2025-07-01 00:00:00'),
+        PARTITION p202507 VALUES LESS THAN ('2025-08-01 00:00:00'),
+        PARTITION p202508 VALUES LESS THAN ('2025-09-01 00:00:00'),
+        PARTITION p202509 VALUES LESS THAN ('2025-10-01 00:00:00'),
+        PARTITION p202510 VALUES LESS THAN ('2025-11-01 00:00:00'),
+        PARTITION p202511 VALUES LESS THAN ('2025-12-01 00:00:00'),
+        PARTITION p202512 VALUES LESS THAN ('2026-01-01 00:00:00'),
+        -- 兜底分区，必须保持为最后一个分区
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
+
+CREATE INDEX idx_wire_materials_event_time ON wire_materials (event_time);
+CREATE INDEX idx_wire_materials_scenario_event ON wire_materials (scenario_code, event_time);
+
+-- ------------------------------------------------------------
+-- 未来月份分区维护
+-- 应用启用 app.partition.enabled 时，PartitionMaintenanceTask 会在启动时及每天凌晨
+-- 将 pmax 拆分出至当前月份之后 app.partition.months-ahead 个月的分区。
+-- 未启用该任务时，需在每月初之前手动执行（以 2026 年 1 月为例）：
+--
+-- ALTER TABLE wire_materials REORGANIZE PARTITION pmax INTO (
+--     PARTITION p202601 VALUES LESS THAN ('2026-02-01 00:00:00'),
+--     PARTITION pmax VALUES LESS THAN (MAXVALUE)
+-- );
+--
+-- pmax 中已有数据时拆分需要搬移数据，应保证分区提前创建、pmax 保持为空
+-- ------------------------------------------------------------
@@ -0,0 +1,99 @@
+-- ============================================================
+-- wire_materials 月度范围分区迁移脚本（openGauss）
+-- 按 event_time 进行 RANGE 分区，分区命名规则：p + yyyyMM
+-- 末尾的 pmax 兜底分区接收超出已有月份的数据，避免写入因找不到分区而失败
+-- 后续月份的分区由 PartitionMaintenanceTask 每天从 pmax 中拆分预创建（见文末）
+-- 执行前请停止应用并备份数据
+-- ============================================================
+
+BEGIN;
+
+ALTER TABLE wire_materials RENAME TO wire_materials_legacy;
+
+CREATE TABLE wire_materials (
+    batch_number            VARCHAR(255)   NOT NULL,
+    device_id               VARCHAR(255)   NOT NULL,
+    diameter                NUMERIC(10, 2),
+    resistance              NUMERIC(10, 2),
+    extensibility           NUMERIC(10, 2),
+    weight                  NUMERIC(10, 2),
+    source_origin_raw       TEXT,
+    manufacturer            VARCHAR(255),
+    responsible_person      VARCHAR(255),
+    process_type            VARCHAR(255),
+    production_machine      VARCHAR(255),
+    contact_email           VARCHAR(255),
+    manufacturer_id         INTEGER,
+    responsible_person_id   INTEGER,
+    process_type_id         INTEGER,
+    production_machine_id   INTEGER,
+    contact_email_id        INTEGER,
+    scenario_code           VARCHAR(2),
+    device_code             VARCHAR(2),
+    event_time              TIMESTAMP      NOT NULL,
+    evaluation_result       VARCHAR(10),
+    evaluation_message      TEXT,
+    model_evaluation_result VARCHAR(10),
+    model_confidence        NUMERIC(5, 4),
+    final_evaluation_result VARCHAR(15),
+    create_time             TIMESTAMP      NOT NULL
+)
+PARTITION BY RANGE (event_time)
+(
+    -- 历史数据统一放入起始分区，按实际最早数据时间调整
+    PARTITION p202412 VALUES LESS THAN ('2025-01-01 00:00:00'),
+    PARTITION p202501 VALUES LESS THAN ('2025-02-01 00:00:00'),
+    PARTITION p202502 VALUES LESS THAN ('2025-03-01 00:00:00'),
+    PARTITION p202503 VALUES LESS THAN ('2025-04-01 00:00:00'),
+    PARTITION p202504 VALUES LESS THAN ('2025-05-01 00:00:00'),
+    PARTITION p202505 VALUES LESS THAN ('2025-06-01 00:00:00'),
+    PARTITION p202506 VALUES LESS THAN ('2025-07-01 00:00:00'),
+    PARTITION p202507 VALUES LESS THAN ('2025-08-01 00:00:00'),
+    PARTITION p202508 VALUES LESS THAN ('2025-09-01 00:00:00'),
+    PARTITION p202509 VALUES LESS THAN ('2025-10-01 00:00:00'),
+    PARTITION p202510 VALUES LESS THAN ('2025-11-01 00:00:00'),
+    PARTITION p202511 VALUES LESS THAN ('2025-12-01 00:00:00'),
+    PARTITION p202512 VALUES LESS THAN ('2026-01-01 00:00:00'),
+    -- 兜底分区，必须保持为最后一个分区
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- 批次号仍然全局唯一：openGauss 支持分区表上的 GLOBAL 索引，主键无需包含分区键
+ALTER TABLE wire_materials ADD CONSTRAINT wire_materials_pkey PRIMARY KEY (batch_number);
+
+-- 本地分区索引，支撑各统计查询的时间范围条件
+CREATE INDEX idx_wire_materials_event_time ON wire_materials (event_time) LOCAL;
+CREATE INDEX idx_wire_materials_scenario_event ON wire_materials (scenario_code, event_time) LOCAL;
+
+-- 显式列出字段，旧表字段顺序与新表不同（如后续追加的 *_id 字典列）时仍能正确迁移
+INSERT INTO wire_materials (
+    batch_number, device_id, diameter, resistance, extensibility, weight, source_origin_raw,
+    manufacturer, responsible_person, process_type, production_machine, contact_email,
+    manufacturer_id, responsible_person_id, process_type_id, production_machine_id, contact_email_id,
+    scenario_code, device_code, event_time, evaluation_result, evaluation_message,
+    model_evaluation_result, model_confidence, final_evaluation_result, create_time
+)
+SELECT
+    batch_number, device_id, diameter, resistance, extensibility, weight, source_origin_raw,
+    manufacturer, responsible_person, process_type, production_machine, contact_email,
+    manufacturer_id, responsible_person_id, process_type_id, production_machine_id, contact_email_id,
+    scenario_code, device_code, event_time, evaluation_result, evaluation_message,
+    model_evaluation_result, model_confidence, final_evaluation_result, create_time
+FROM wire_materials_legacy;
+
+COMMIT;
+
+-- 确认数据无误后删除旧表
+-- DROP TABLE wire_materials_legacy;
+
+-- ------------------------------------------------------------
+-- 未来月份分区维护
+-- 应用启用 app.partition.enabled 时，PartitionMaintenanceTask 会在启动时及每天凌晨
+-- 将 pmax 拆分出至当前月份之后 app.partition.months-ahead 个月的分区。
+-- 未启用该任务时，需在每月初之前手动执行（以 2026 年 1 月为例）：
+--
+-- ALTER TABLE wire_materials SPLIT PARTITION pmax AT ('2026-02-01 00:00:00')
+--     INTO (PARTITION p202601, PARTITION pmax) UPDATE GLOBAL INDEX;
+--
+-- pmax 中已有数据时拆分需要搬移数据，应保证分区提前创建、pmax 保持为空
+-- ------------------------------------------------------------
@@ -0,0 +1,115 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.config.AnswerCacheConfig;
+import com.mmw.metal_micro_wire_backend.config.ChatToolCacheConfig;
+import com.mmw.metal_micro_wire_backend.entity.Device;
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.event.DeviceChangedEvent;
+import com.mmw.metal_micro_wire_backend.event.DeviceStatusChangedEvent;
+import com.mmw.metal_micro_wire_backend.event.WireMaterialChangedEvent;
+import com.mmw.metal_micro_wire_backend.service.impl.AnswerCacheServiceImpl;
+import com.mmw.metal_micro_wire_backend.util.TfIdfIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IoT设备问答缓存测试类
+ */
+class AnswerCacheTest {
+
+    private AnswerCacheServiceImpl answerCacheService;
+    private final AtomicInteger generated = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        answerCacheService = new AnswerCacheServiceImpl(new AnswerCacheConfig(), new ChatToolCacheConfig());
+    }
+
+    @Test
+    void testSimilarityIndexRanksCloserQuestionHigher() {
+        TfIdfIndex index = new TfIdfIndex();
+        index.add("q1", "查询今天生产的线材合格率是多少");
+        index.add("q2", "设备列表有哪些设备");
+        TfIdfIndex.Match match = index.nearest("请查询今天生产的线材合格率是多少");
+        assertEquals("q1", match.key());
+        assertTrue(match.score() > 0.9);
+        assertTrue(index.nearest("查询本月生产的线材合格率是多少").score() < 0.8);
+        assertNull(index.nearest("温度"));
+    }
+
+    @Test
+    void testExactAndSimilarQuestionsHitCache() {
+        assertEquals("回答1", ask("查询今天生产的线材合格率是多少？", List.of()));
+        assertEquals("回答1", ask("查询今天生产的线材合格率是多少 ?", List.of()));
+        assertEquals("回答1", ask("请查询今天生产的线材合格率是多少", List.of()));
+        assertEquals(1, generated.get());
+
+        // 标识不同的问题不能共用回答
+        assertEquals("回答2", ask("设备D001的状态是什么", List.of("get_device_info")));
+        assertEquals("回答3", ask("设备D002的状态是什么", List.of("get_device_info")));
+        assertEquals(3, generated.get());
+    }
+
+    @Test
+    void testAnswerIsInvalidatedWhenDependentDataChanges() {
+        assertEquals("回答1", ask("设备D001的状态是什么", List.of("get_device_info")));
+        assertEquals("回答2", ask("本年度的合格率是多少", List.of("get_yearly_statistics")));
+
+        answerCacheService.onDeviceStatusChanged(
+                new DeviceStatusChangedEvent("D001", Device.DeviceStatus.ON, Device.DeviceStatus.OFF));
+
+        assertEquals("回答3", ask("设备D001的状态是什么", List.of("get_device_info")));
+        assertEquals("回答2", ask("本年度的合格率是多少", List.of("get_yearly_statistics")));
+        assertEquals(3, generated.get());
+    }
+
+    @Test
+    void testDeviceAnswersAreInvalidatedWhenDevicesAreAddedOrRemoved() {
+        assertEquals("回答1", ask("设备D003的状态是什么", List.of("get_device_info")));
+
+        answerCacheService.onDeviceChanged(DeviceChangedEvent.created("D003"));
+        assertEquals("回答2", ask("设备D003的状态是什么", List.of("get_device_info")));
+        assertEquals("回答2", ask("设备D003的状态是什么", List.of("get_device_info")));
+
+        answerCacheService.onDeviceChanged(DeviceChangedEvent.deleted("D003"));
+        assertEquals("回答3", ask("设备D003的状态是什么", List.of("get_device_info")));
+        assertEquals(3, generated.get());
+    }
+
+    @Test
+    void testWireMaterialAnswersSurviveIngestButNotEdits() {
+        assertEquals("回答1", ask("本年度的合格率是多少", List.of("get_yearly_statistics")));
+
+        // 新上报的检测数据不使回答失效
+        answerCacheService.onWireMaterialChanged(WireMaterialChangedEvent.created(new WireMaterial()));
+        assertEquals("回答1", ask("本年度的合格率是多少", List.of("get_yearly_statistics")));
+
+        answerCacheService.onWireMaterialChanged(WireMaterialChangedEvent.saved(new WireMaterial()));
+        assertEquals("回答2", ask("本年度的合格率是多少", List.of("get_yearly_statistics")));
+
+        answerCacheService.onWireMaterialChanged(WireMaterialChangedEvent.deleted(new WireMaterial()));
+        assertEquals("回答3", ask("本年度的合格率是多少", List.of("get_yearly_statistics")));
+        assertEquals(3, generated.get());
+    }
+
+    @Test
+    void testTimeDependentAndFallbackAnswersAreNotCached() {
+        ask("现在几点了", List.of("get_current_time"));
+        ask("现在几点了", List.of("get_current_time"));
+        assertEquals(2, generated.get());
+
+        answerCacheService.getOrGenerate("设备有哪些", question ->
+                new AnswerCacheService.GeneratedAnswer("AI服务暂不可用", null, false));
+        assertEquals(0, answerCacheService.size());
+    }
+
+    private String ask(String question, List<String> usedTools) {
+        return answerCacheService.getOrGenerate(question, q ->
+                new AnswerCacheService.GeneratedAnswer("回答" + generated.incrementAndGet(), usedTools, true));
+    }
+}
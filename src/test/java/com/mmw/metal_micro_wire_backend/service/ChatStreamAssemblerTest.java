@@ -0,0 +1,105 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mmw.metal_micro_wire_backend.dto.chat.ChatToolCall;
+import com.mmw.metal_micro_wire_backend.util.ChatStreamAssembler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式对话响应组装器测试类
+ */
+class ChatStreamAssemblerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testContentDeltasAreForwardedImmediately() {
+        ChatStreamAssembler assembler = new ChatStreamAssembler();
+        assertEquals("合格率", assembler.onChunk(content("合格率")));
+        assertEquals("为98%", assembler.onChunk(content("为98%")));
+        assertEquals("", assembler.onChunk(finish("stop")));
+        assertEquals("", assembler.flush());
+        assertEquals("合格率为98%", assembler.getContent());
+        assertEquals("stop", assembler.getFinishReason());
+        assertFalse(assembler.hasToolCalls());
+    }
+
+    @Test
+    void testToolCallArgumentsAreAssembledAcrossChunks() {
+        ChatStreamAssembler assembler = new ChatStreamAssembler();
+        assembler.onChunk(toolCall(0, "call_1", "get_device_info", ""));
+        assembler.onChunk(toolCall(0, null, null, "{\"deviceId\""));
+        assembler.onChunk(toolCall(1, "call_2", "get_current_time", null));
+        assembler.onChunk(toolCall(0, null, null, ":\"D1\"}"));
+        assembler.onChunk(finish("tool_calls"));
+
+        List<ChatToolCall.ToolCallRequest> toolCalls = assembler.getToolCalls();
+        assertEquals(2, toolCalls.size());
+        assertEquals("call_1", toolCalls.get(0).getId());
+        assertEquals("get_device_info", toolCalls.get(0).getFunction().getName());
+        assertEquals("{\"deviceId\":\"D1\"}", toolCalls.get(0).getFunction().getArguments());
+        assertEquals("{}", toolCalls.get(1).getFunction().getArguments());
+        assertEquals("tool_calls", assembler.getFinishReason());
+    }
+
+    @Test
+    void testMarkerSplitAcrossChunksIsNotForwarded() {
+        ChatStreamAssembler assembler = new ChatStreamAssembler();
+        assertEquals("好的", assembler.onChunk(content("好的<")));
+        assertEquals("", assembler.onChunk(content("｜to")));
+        assertEquals("", assembler.onChunk(content("ol▁calls▁begin｜>[...]")));
+        assertEquals("", assembler.flush());
+        assertTrue(assembler.isToolCallMarkerDetected());
+        assertTrue(assembler.getContent().startsWith("好的<｜tool▁calls▁begin｜>"));
+    }
+
+    @Test
+    void testHeldBackCharactersAreReleased() {
+        ChatStreamAssembler assembler = new ChatStreamAssembler();
+        assertEquals("a ", assembler.onChunk(content("a <")));
+        assertEquals("< b", assembler.onChunk(content(" b")));
+        assertEquals("", assembler.onChunk(content("<|")));
+        assertEquals("<|", assembler.flush());
+        assertFalse(assembler.isToolCallMarkerDetected());
+        assertEquals("a < b<|", assembler.getContent());
+    }
+
+    private JsonNode content(String text) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        chunk.putArray("choices").addObject().putObject("delta").put("content", text);
+        return chunk;
+    }
+
+    private JsonNode finish(String reason) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        ObjectNode choice = chunk.putArray("choices").addObject();
+        choice.putObject("delta");
+        choice.put("finish_reason", reason);
+        return chunk;
+    }
+
+    private JsonNode toolCall(int index, String id, String name, String arguments) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        ArrayNode toolCalls = chunk.putArray("choices").addObject().putObject("delta").putArray("tool_calls");
+        ObjectNode toolCall = toolCalls.addObject();
+        toolCall.put("index", index);
+        if (id != null) {
+            toolCall.put("id", id);
+        }
+        ObjectNode function = toolCall.putObject("function");
+        if (name != null) {
+            function.put("name", name);
+        }
+        if (arguments != null) {
+            function.put("arguments", arguments);
+        }
+        return chunk;
+    }
+}
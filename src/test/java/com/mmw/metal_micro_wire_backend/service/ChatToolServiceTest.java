@@ -2,6 +2,7 @@ package com.mmw.metal_micro_wire_backend.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.config.ChatToolCacheConfig;
 import com.mmw.metal_micro_wire_backend.dto.chat.ChatToolCall;
 import com.mmw.metal_micro_wire_backend.service.impl.ChatToolServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,8 +44,10 @@ class ChatToolServiceTest {
                 wireMaterialManageService,
                 traceabilityService,
                 overViewService,
-                objectMapper
+                objectMapper,
+                new ChatToolCacheConfig()
         );
+        chatToolService.initResultCache();
     }
 
     @Test
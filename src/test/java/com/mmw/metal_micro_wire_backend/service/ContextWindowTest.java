@@ -0,0 +1,58 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.ContextWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对话上下文窗口计算测试类
+ */
+class ContextWindowTest {
+
+    @Test
+    void testChineseTextIsEstimatedHigherThanAscii() {
+        assertEquals(0, ContextWindow.estimateTokens(null));
+        assertEquals(5, ContextWindow.estimateTokens("金属微细线材检测"));
+        assertEquals(3, ContextWindow.estimateTokens("pass rate"));
+        assertEquals(ContextWindow.estimateTokens("合格率") + ContextWindow.MESSAGE_OVERHEAD_TOKENS,
+                ContextWindow.estimateMessageTokens("合格率"));
+    }
+
+    @Test
+    void testWindowKeepsMostRecentMessagesWithinBudget() {
+        List<Integer> tokens = List.of(50, 40, 30, 20, 10);
+        assertEquals(2, ContextWindow.startOfWindow(tokens, 60, 0));
+        assertEquals(0, ContextWindow.startOfWindow(tokens, 1000, 0));
+        assertEquals(5, ContextWindow.startOfWindow(tokens, 5, 0));
+    }
+
+    @Test
+    void testMinimumRecentMessagesAreKeptOverBudget() {
+        List<Integer> tokens = List.of(10, 500, 400);
+        assertEquals(1, ContextWindow.startOfWindow(tokens, 100, 2));
+        assertEquals(0, ContextWindow.startOfWindow(List.of(), 100, 2));
+    }
+
+    @Test
+    void testUnsummarizedRangeStartsAfterLastSummarizedMessage() {
+        List<String> ids = List.of("m1", "m2", "m3", "m4", "m5", "m6");
+        assertEquals(new ContextWindow.Range(2, 4), ContextWindow.unsummarizedRange(ids, "m2", "m5"));
+        // 没有摘要时从第一条消息开始
+        assertEquals(new ContextWindow.Range(0, 4), ContextWindow.unsummarizedRange(ids, null, "m5"));
+        // 摘要覆盖的消息已被裁剪时从现存的第一条消息开始
+        assertEquals(new ContextWindow.Range(0, 3), ContextWindow.unsummarizedRange(ids, "m0", "m4"));
+        // 窗口不保留消息时到最后一条为止
+        assertEquals(6, ContextWindow.unsummarizedRange(ids, "m3", null).to());
+    }
+
+    @Test
+    void testUnsummarizedRangeIsEmptyWhenSummaryReachesWindow() {
+        List<String> ids = List.of("m1", "m2", "m3", "m4");
+        assertTrue(ContextWindow.unsummarizedRange(ids, "m2", "m3").isEmpty());
+        assertEquals(0, ContextWindow.unsummarizedRange(ids, "m4", null).size());
+        assertTrue(ContextWindow.unsummarizedRange(List.of(), null, null).isEmpty());
+    }
+}
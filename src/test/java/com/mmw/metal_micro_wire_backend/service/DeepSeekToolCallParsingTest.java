@@ -33,53 +33,22 @@ public class DeepSeekToolCallParsingTest {
 
     @Test
     void testParseDeepSeekToolCallsWithMarkdownFormat() throws Exception {
-        // 测试实际的DeepSeek返回格式
-        String content = "<｜tool▁calls▁begin｜><｜tool▁call▁begin｜>function<｜tool▁sep｜>get_device_list\n" +
-                "```json\n" +
-                "{\"status\":\"ON\"}\n" +
-                "```<｜tool▁call▁end｜>\n" +
-                "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_overall_statistics\n" +
-                "```json\n" +
-                "{}\n" +
-                "```<｜tool▁call▁end｜>\n" +
-                "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_quality_issues\n" +
-                "```json\n" +
-                "{}\n" +
-                "```<｜tool▁call▁end｜>\n" +
-                "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_manufacturer_ranking\n" +
-                "```json\n" +
-                "{}\n" +
-                "```<｜tool▁call▁end｜><｜tool▁calls▁end｜>";
-
         // 使用反射访问私有方法
         Method method = ChatServiceImpl.class.getDeclaredMethod("parseDeepSeekToolCalls", String.class);
         method.setAccessible(true);
 
         @SuppressWarnings("unchecked")
-        List<ChatToolCall.ToolCallRequest> result = (List<ChatToolCall.ToolCallRequest>) method.invoke(chatService, content);
+        List<ChatToolCall.ToolCallRequest> result = (List<ChatToolCall.ToolCallRequest>) method.invoke(chatService, ToolCallFixtures.MARKDOWN_FORMAT);
 
         assertNotNull(result);
-        assertEquals(4, result.size());
-
-        // 验证第一个工具调用
-        ChatToolCall.ToolCallRequest firstCall = result.get(0);
-        assertEquals("get_device_list", firstCall.getFunction().getName());
-        assertEquals("{\"status\":\"ON\"}", firstCall.getFunction().getArguments());
-
-        // 验证第二个工具调用
-        ChatToolCall.ToolCallRequest secondCall = result.get(1);
-        assertEquals("get_overall_statistics", secondCall.getFunction().getName());
-        assertEquals("{}", secondCall.getFunction().getArguments());
-
-        // 验证第三个工具调用
-        ChatToolCall.ToolCallRequest thirdCall = result.get(2);
-        assertEquals("get_quality_issues", thirdCall.getFunction().getName());
-        assertEquals("{}", thirdCall.getFunction().getArguments());
-
-        // 验证第四个工具调用
-        ChatToolCall.ToolCallRequest fourthCall = result.get(3);
-        assertEquals("get_manufacturer_ranking", fourthCall.getFunction().getName());
-        assertEquals("{}", fourthCall.getFunction().getArguments());
+        assertEquals(ToolCallFixtures.MARKDOWN_FORMAT_CALLS.size(), result.size());
+
+        // 按顺序验证每个工具调用
+        for (int i = 0; i < result.size(); i++) {
+            ToolCallFixtures.ExpectedCall expected = ToolCallFixtures.MARKDOWN_FORMAT_CALLS.get(i);
+            assertEquals(expected.name(), result.get(i).getFunction().getName());
+            assertEquals(expected.arguments(), result.get(i).getFunction().getArguments());
+        }
     }
 
     @Test
@@ -89,28 +58,23 @@ public class DeepSeekToolCallParsingTest {
         method.setAccessible(true);
 
         // 测试标准markdown格式
-        String markdownJson = "```json\n{\"status\":\"ON\"}\n```";
-        String result = (String) method.invoke(chatService, markdownJson);
+        String result = (String) method.invoke(chatService, ToolCallFixtures.MARKDOWN_JSON);
         assertEquals("{\"status\":\"ON\"}", result);
 
         // 测试简单代码块格式
-        String codeBlockJson = "```\n{\"page\": 1}\n```";
-        String result2 = (String) method.invoke(chatService, codeBlockJson);
+        String result2 = (String) method.invoke(chatService, ToolCallFixtures.CODE_BLOCK_JSON);
         assertEquals("{\"page\": 1}", result2);
 
         // 测试纯JSON格式
-        String pureJson = "{\"test\": true}";
-        String result3 = (String) method.invoke(chatService, pureJson);
+        String result3 = (String) method.invoke(chatService, ToolCallFixtures.PURE_JSON);
         assertEquals("{\"test\": true}", result3);
 
         // 测试空内容
-        String emptyContent = "";
-        String result4 = (String) method.invoke(chatService, emptyContent);
+        String result4 = (String) method.invoke(chatService, ToolCallFixtures.EMPTY_ARGUMENTS);
         assertEquals("{}", result4);
 
         // 测试非JSON内容
-        String nonJson = "```\nsome text\n```";
-        String result5 = (String) method.invoke(chatService, nonJson);
+        String result5 = (String) method.invoke(chatService, ToolCallFixtures.NON_JSON);
         assertEquals("{}", result5);
     }
 
@@ -167,19 +131,17 @@ public class DeepSeekToolCallParsingTest {
         method.setAccessible(true);
 
         // 测试各种工具调用标记
-        assertTrue((Boolean) method.invoke(chatService, "<｜tool▁calls▁begin｜>"));
-        assertTrue((Boolean) method.invoke(chatService, "<｜tool▁call▁begin｜>"));
-        assertTrue((Boolean) method.invoke(chatService, "<｜tool▁sep｜>"));
-        assertTrue((Boolean) method.invoke(chatService, "<|tool_calls_begin|>"));
-        assertTrue((Boolean) method.invoke(chatService, "tool_calls_begin"));
-        assertTrue((Boolean) method.invoke(chatService, "function_calls"));
+        for (String sample : ToolCallFixtures.MARKER_SAMPLES) {
+            assertTrue((Boolean) method.invoke(chatService, sample), sample);
+        }
 
         // 测试JSON数组格式
-        assertTrue((Boolean) method.invoke(chatService, "[{\"name\": \"test\", \"arguments\": {}}]"));
+        assertTrue((Boolean) method.invoke(chatService, ToolCallFixtures.JSON_ARRAY));
 
         // 测试不包含标记的内容
-        assertFalse((Boolean) method.invoke(chatService, "normal text"));
-        assertFalse((Boolean) method.invoke(chatService, ""));
+        for (String sample : ToolCallFixtures.NON_MARKER_SAMPLES) {
+            assertFalse((Boolean) method.invoke(chatService, sample), sample);
+        }
         assertFalse((Boolean) method.invoke(chatService, (Object) null));
     }
 }
@@ -0,0 +1,141 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial.FinalEvaluationResult;
+import com.mmw.metal_micro_wire_backend.util.DetectionColumns;
+import com.mmw.metal_micro_wire_backend.util.DetectionColumns.Query;
+import com.mmw.metal_micro_wire_backend.util.DetectionColumns.Row;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.mmw.metal_micro_wire_backend.util.DetectionColumns.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 近期检测数据列式存储测试类
+ */
+class DetectionColumnsTest {
+
+    private static final int PASS = 1 + FinalEvaluationResult.PASS.ordinal();
+    private static final int FAIL = 1 + FinalEvaluationResult.FAIL.ordinal();
+
+    @Test
+    void testUngroupedAggregateCountsResultsInWindow() {
+        DetectionColumns columns = new DetectionColumns(Integer.MAX_VALUE);
+        columns.upsert(row("B1", 100, 1, 1, FinalEvaluationResult.PASS));
+        columns.upsert(row("B2", 200, 1, 2, FinalEvaluationResult.FAIL));
+        columns.upsert(row("B3", 300, 2, 1, null));
+        columns.upsert(row("B4", 400, 1, 1, FinalEvaluationResult.PASS));
+
+        long[] counts = columns.aggregate(query(150, 400, NONE, NONE)).get(0L);
+        assertEquals(3, counts[0]);
+        assertEquals(1, counts[PASS]);
+        assertEquals(1, counts[FAIL]);
+
+        long[] scenarioOne = columns.aggregate(query(0, 1000, 1, NONE)).get(0L);
+        assertEquals(3, scenarioOne[0]);
+
+        assertTrue(columns.aggregate(query(500, 1000, NONE, NONE)).isEmpty());
+    }
+
+    @Test
+    void testGroupedAggregateWithSecondaryColumn() {
+        DetectionColumns columns = new DetectionColumns(Integer.MAX_VALUE);
+        columns.upsert(row("B1", 100, 1, 7, FinalEvaluationResult.PASS));
+        columns.upsert(row("B2", 100, 1, 7, FinalEvaluationResult.FAIL));
+        columns.upsert(row("B3", 100, 1, 8, FinalEvaluationResult.FAIL));
+
+        Map<Long, long[]> groups = columns.aggregate(
+                new Query(0, 1000, NONE, NONE, 0, MANUFACTURER, CONTACT_EMAIL));
+        assertEquals(2, groups.size());
+
+        long[] seven = groups.get(DetectionColumns.groupKey(7, 70));
+        assertEquals(2, seven[0]);
+        assertEquals(1, seven[FAIL]);
+        assertEquals(7, DetectionColumns.primaryOf(DetectionColumns.groupKey(7, 70)));
+        assertEquals(70, DetectionColumns.secondaryOf(DetectionColumns.groupKey(7, 70)));
+
+        Map<Long, long[]> filtered = columns.aggregate(
+                new Query(0, 1000, NONE, MANUFACTURER, 8, NONE, NONE));
+        assertEquals(1, filtered.get(0L)[FAIL]);
+    }
+
+    @Test
+    void testUpsertUpdatesInPlaceAndRemoveHidesRow() {
+        DetectionColumns columns = new DetectionColumns(Integer.MAX_VALUE);
+        columns.upsert(row("B1", 100, 1, 1, null));
+        columns.upsert(row("B1", 100, 1, 1, FinalEvaluationResult.FAIL));
+        assertEquals(1, columns.size());
+        assertEquals(1, columns.aggregate(query(0, 1000, NONE, NONE)).get(0L)[FAIL]);
+
+        assertFalse(columns.insertIfAbsent(row("B1", 100, 1, 1, FinalEvaluationResult.PASS)));
+        assertEquals(0, columns.aggregate(query(0, 1000, NONE, NONE)).get(0L)[PASS]);
+
+        assertTrue(columns.remove("B1"));
+        assertFalse(columns.remove("B1"));
+        assertEquals(0, columns.size());
+        assertTrue(columns.aggregate(query(0, 1000, NONE, NONE)).isEmpty());
+
+        columns.upsert(row("B1", 100, 1, 1, FinalEvaluationResult.PASS));
+        assertEquals(1, columns.size());
+        assertEquals(1, columns.aggregate(query(0, 1000, NONE, NONE)).get(0L)[PASS]);
+    }
+
+    @Test
+    void testEvictBeforeCompactsExpiredAndRemovedRows() {
+        DetectionColumns columns = new DetectionColumns(Integer.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            columns.upsert(row("B" + i, i * 10, 1, 1, FinalEvaluationResult.PASS));
+        }
+        columns.remove("B9");
+
+        assertEquals(6, columns.evictBefore(50));
+        assertEquals(4, columns.size());
+        assertEquals(0, columns.evictBefore(50));
+
+        // 压缩后索引重建，更新仍然定位到原来的行
+        columns.upsert(row("B5", 50, 1, 1, FinalEvaluationResult.FAIL));
+        long[] counts = columns.aggregate(query(0, 1000, NONE, NONE)).get(0L);
+        assertEquals(4, counts[0]);
+        assertEquals(1, counts[FAIL]);
+    }
+
+    @Test
+    void testParallelAggregateMatchesSequential() {
+        DetectionColumns parallel = new DetectionColumns(1024);
+        DetectionColumns sequential = new DetectionColumns(Integer.MAX_VALUE);
+        FinalEvaluationResult[] results = FinalEvaluationResult.values();
+        for (int i = 0; i < 20000; i++) {
+            Row row = row("B" + i, i, i % 3, i % 17, i % 5 == 0 ? null : results[i % results.length]);
+            parallel.upsert(row);
+            sequential.upsert(row);
+        }
+
+        Query grouped = new Query(1000, 18000, 1, NONE, 0, MANUFACTURER, NONE);
+        Map<Long, long[]> expected = sequential.aggregate(grouped);
+        Map<Long, long[]> actual = parallel.aggregate(grouped);
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((key, counts) -> {
+            for (int slot = 0; slot < COUNT_SLOTS; slot++) {
+                assertEquals(counts[slot], actual.get(key)[slot]);
+            }
+        });
+    }
+
+    private Query query(long from, long to, int scenarioId, int groupDimension) {
+        return new Query(from, to, scenarioId, NONE, 0, groupDimension, NONE);
+    }
+
+    private Row row(String batchNumber, long eventSecond, int scenarioId, int manufacturerId,
+                    FinalEvaluationResult result) {
+        int[] dimensions = new int[DIMENSION_COUNT];
+        dimensions[MANUFACTURER] = manufacturerId;
+        dimensions[RESPONSIBLE_PERSON] = NULL_ID;
+        dimensions[PROCESS_TYPE] = NULL_ID;
+        dimensions[PRODUCTION_MACHINE] = NULL_ID;
+        dimensions[CONTACT_EMAIL] = manufacturerId * 10;
+        dimensions[SCENARIO] = scenarioId;
+        return new Row(batchNumber, eventSecond, new double[MEASUREMENT_COUNT], dimensions,
+                result == null ? RESULT_NULL : (byte) result.ordinal());
+    }
+}
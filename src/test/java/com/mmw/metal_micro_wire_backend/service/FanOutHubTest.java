@@ -0,0 +1,111 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.FanOutHub;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消息扇出中心测试类
+ */
+class FanOutHubTest {
+
+    /**
+     * 记录收到消息的发送端
+     */
+    private static class RecordingSink implements FanOutHub.Sink<String> {
+        private final List<String> received = new ArrayList<>();
+        private String closeReason;
+        private boolean failing;
+
+        @Override
+        public void send(String message) throws Exception {
+            if (failing) {
+                throw new IllegalStateException("连接已断开");
+            }
+            received.add(message);
+        }
+
+        @Override
+        public void close(String reason) {
+            closeReason = reason;
+        }
+    }
+
+    @Test
+    void testPublishFansOutWithTopicFilter() {
+        FanOutHub<String> hub = new FanOutHub<>(Runnable::run);
+        RecordingSink all = new RecordingSink();
+        RecordingSink alertsOnly = new RecordingSink();
+        hub.subscribe(all, 10, message -> true);
+        hub.subscribe(alertsOnly, 10, message -> message.startsWith("alert"));
+
+        assertEquals(2, hub.publish("alert-1"));
+        assertEquals(1, hub.publish("detection-1"));
+        assertEquals(List.of("alert-1", "detection-1"), all.received);
+        assertEquals(List.of("alert-1"), alertsOnly.received);
+    }
+
+    @Test
+    void testSlowConsumerIsEvictedWithoutAffectingOthers() {
+        // 手动执行的线程池，用于模拟发送线程跟不上
+        Queue<Runnable> pending = new ArrayDeque<>();
+        FanOutHub<String> hub = new FanOutHub<>(pending::add);
+        RecordingSink slow = new RecordingSink();
+        hub.subscribe(slow, 2, message -> true);
+
+        hub.publish("m1");
+        hub.publish("m2");
+        assertEquals(1, pending.size(), "每个订阅者同一时间只有一个发送任务");
+        assertEquals(0, hub.publish("m3"));
+        assertEquals(0, hub.size());
+        assertEquals(1, hub.getEvictedSlowConsumers());
+        assertNotNull(slow.closeReason);
+
+        RecordingSink fast = new RecordingSink();
+        hub.subscribe(fast, 2, message -> true);
+        hub.publish("m4");
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+        assertEquals(List.of("m4"), fast.received);
+        assertTrue(slow.received.isEmpty());
+    }
+
+    @Test
+    void testFailedSinkIsRemoved() {
+        FanOutHub<String> hub = new FanOutHub<>(Runnable::run);
+        RecordingSink sink = new RecordingSink();
+        sink.failing = true;
+        hub.subscribe(sink, 10, message -> true);
+
+        hub.publish("m1");
+        assertEquals(0, hub.size());
+        assertNotNull(sink.closeReason);
+        assertEquals(0, hub.getEvictedSlowConsumers());
+    }
+
+    @Test
+    void testUnsubscribeAndCloseAll() {
+        FanOutHub<String> hub = new FanOutHub<>(Runnable::run);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        long firstId = hub.subscribe(first, 10, message -> true);
+        hub.subscribe(second, 10, message -> true);
+
+        hub.unsubscribe(firstId);
+        hub.publish("m1");
+        assertTrue(first.received.isEmpty());
+        assertNull(first.closeReason);
+
+        hub.closeAll("服务关闭");
+        assertEquals("服务关闭", second.closeReason);
+        assertEquals(0, hub.size());
+        assertThrows(IllegalArgumentException.class, () -> hub.subscribe(new RecordingSink(), 0, message -> true));
+    }
+}
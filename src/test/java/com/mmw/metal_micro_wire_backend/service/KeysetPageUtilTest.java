@@ -0,0 +1,119 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.util.KeysetPageUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 线材数据游标分页工具测试类（游标编解码与校验）
+ */
+class KeysetPageUtilTest {
+
+    private static final Specification<WireMaterial> NO_FILTER = (root, query, criteriaBuilder) -> null;
+
+    private final WireMaterial last = WireMaterial.builder()
+            .batchNumber("WM-2025-0001")
+            .eventTime(LocalDateTime.of(2025, 1, 15, 8, 30, 15, 123_000_000))
+            .createTime(LocalDateTime.of(2025, 1, 15, 8, 31))
+            .build();
+
+    @Test
+    void testCursorRoundTripForEachSortField() throws Exception {
+        assertCursor(decode(encode(last, "createTime"), "createTime"), last.getCreateTime(), "WM-2025-0001");
+        assertCursor(decode(encode(last, "eventTime"), "eventTime"), last.getEventTime(), "WM-2025-0001");
+        assertCursor(decode(encode(last, "batchNumber"), "batchNumber"), "WM-2025-0001", "WM-2025-0001");
+
+        // 游标可直接放入URL参数
+        String token = encode(last, "eventTime");
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testMalformedOrTamperedCursorIsRejected() throws Exception {
+        assertInvalidCursor("not base64 !!", "createTime");
+        assertInvalidCursor(token("createTime\n2025-01-15T08:31"), "createTime");
+        assertInvalidCursor(token("createTime\n2025-13-45T99:00\nWM-2025-0001"), "createTime");
+        assertInvalidCursor(token("createTime\n' OR 1=1 --\nWM-2025-0001"), "createTime");
+
+        // 截断后只剩排序字段，无法还原定位键
+        assertInvalidCursor(encode(last, "eventTime").substring(0, 12), "eventTime");
+    }
+
+    @Test
+    void testCursorFromAnotherSortFieldIsRejected() throws Exception {
+        String eventTimeCursor = encode(last, "eventTime");
+        IllegalArgumentException e = assertInvalidCursor(eventTimeCursor, "createTime");
+        assertEquals("游标与当前排序字段不匹配", e.getCause().getMessage());
+        assertInvalidCursor(encode(last, "batchNumber"), "eventTime");
+        assertInvalidCursor(eventTimeCursor, "batchNumber");
+    }
+
+    @Test
+    void testFetchValidatesSortFieldAndCursorBeforeQuerying() {
+        assertTrue(KeysetPageUtil.isSupportedSortField("eventTime"));
+        assertFalse(KeysetPageUtil.isSupportedSortField("diameter"));
+
+        // 参数校验失败时不访问数据库
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageUtil.fetch(
+                null, NO_FILTER, "diameter", Sort.Direction.DESC, null, 20, false));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageUtil.fetch(
+                null, NO_FILTER, "createTime", Sort.Direction.DESC, encode(last, "eventTime"), 20, false));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageUtil.fetch(
+                null, NO_FILTER, "createTime", Sort.Direction.DESC, "%%%", 20, false));
+    }
+
+    private IllegalArgumentException assertInvalidCursor(String token, String sortBy) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decode(token, sortBy));
+        assertTrue(e.getMessage().startsWith("无效的分页游标"), e.getMessage());
+        return e;
+    }
+
+    private static void assertCursor(Object cursor, Object sortValue, String batchNumber) throws Exception {
+        assertEquals(sortValue, accessor(cursor, "sortValue"));
+        assertEquals(batchNumber, accessor(cursor, "batchNumber"));
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(WireMaterial row, String sortBy) throws Exception {
+        return (String) invoke("encode", new Class<?>[]{WireMaterial.class, String.class}, row, sortBy);
+    }
+
+    private static Object decode(String token, String sortBy) throws Exception {
+        return invoke("decode", new Class<?>[]{String.class, String.class}, token, sortBy);
+    }
+
+    /**
+     * 使用反射访问私有的编解码方法，并还原方法抛出的异常
+     */
+    private static Object invoke(String name, Class<?>[] parameterTypes, Object... args) throws Exception {
+        Method method = KeysetPageUtil.class.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        try {
+            return method.invoke(null, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static Object accessor(Object record, String name) throws Exception {
+        Method method = record.getClass().getDeclaredMethod(name);
+        method.setAccessible(true);
+        return method.invoke(record);
+    }
+}
@@ -0,0 +1,100 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.KllSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KLL分位数草图测试类
+ */
+class KllSketchTest {
+
+    private static final int N = 100_000;
+
+    @Test
+    void testSmallInputIsExact() {
+        KllSketch sketch = new KllSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.update(i);
+        }
+        assertEquals(100, sketch.getCount());
+        assertEquals(50.0, sketch.quantile(0.5), 0.0);
+        assertEquals(95.0, sketch.quantile(0.95), 0.0);
+        assertEquals(1.0, sketch.quantile(0), 0.0);
+        assertEquals(100.0, sketch.quantile(1), 0.0);
+    }
+
+    @Test
+    void testLargeInputStaysWithinRankErrorAndBoundedMemory() {
+        KllSketch sketch = new KllSketch();
+        for (double value : shuffled(N, 1)) {
+            sketch.update(value);
+        }
+        assertEquals(N, sketch.getCount());
+        assertTrue(sketch.retainedItems() < 1000, "保留元素过多：" + sketch.retainedItems());
+        assertRankError(sketch, 0.5);
+        assertRankError(sketch, 0.95);
+        assertRankError(sketch, 0.99);
+        assertEquals(0.0, sketch.getMin(), 0.0);
+        assertEquals(N - 1, sketch.getMax(), 0.0);
+    }
+
+    @Test
+    void testMergedSketchesMatchSingleStream() {
+        KllSketch left = new KllSketch();
+        KllSketch right = new KllSketch();
+        List<Double> values = shuffled(N, 2);
+        for (int i = 0; i < values.size(); i++) {
+            (i % 3 == 0 ? left : right).update(values.get(i));
+        }
+        left.merge(right);
+        assertEquals(N, left.getCount());
+        assertRankError(left, 0.5);
+        assertRankError(left, 0.99);
+
+        KllSketch empty = new KllSketch();
+        empty.merge(left);
+        assertEquals(left.quantile(0.5), empty.quantile(0.5), 0.0);
+    }
+
+    @Test
+    void testSerializationRoundTrip() {
+        KllSketch sketch = new KllSketch();
+        for (double value : shuffled(5000, 3)) {
+            sketch.update(value);
+        }
+        KllSketch restored = KllSketch.fromBase64(sketch.toBase64());
+        assertEquals(sketch.getCount(), restored.getCount());
+        assertEquals(sketch.retainedItems(), restored.retainedItems());
+        assertEquals(sketch.quantile(0.95), restored.quantile(0.95), 0.0);
+        assertEquals(sketch.getMax(), restored.getMax(), 0.0);
+    }
+
+    @Test
+    void testEmptySketch() {
+        KllSketch sketch = new KllSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+    }
+
+    private void assertRankError(KllSketch sketch, double fraction) {
+        // 值0..N-1，估计值即为秩
+        double rank = sketch.quantile(fraction) / N;
+        assertEquals(fraction, rank, 0.02, "分位" + fraction);
+    }
+
+    private List<Double> shuffled(int n, long seed) {
+        List<Double> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            values.add((double) i);
+        }
+        Collections.shuffle(values, new Random(seed));
+        return values;
+    }
+}
@@ -0,0 +1,155 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.config.LlmGatewayConfig;
+import com.mmw.metal_micro_wire_backend.dto.chat.LlmGatewayStatsResponse;
+import com.mmw.metal_micro_wire_backend.exception.LlmOverloadedException;
+import com.mmw.metal_micro_wire_backend.service.impl.LlmGatewayServiceImpl;
+import com.mmw.metal_micro_wire_backend.util.PriorityPermitGate;
+import com.mmw.metal_micro_wire_backend.util.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI对话请求闸门测试
+ */
+class LlmGatewayTest {
+
+    @Test
+    void testReleasedPermitGoesToHigherPriorityLaneFirst() throws Exception {
+        PriorityPermitGate gate = new PriorityPermitGate(1, 2, 10);
+        assertEquals(PriorityPermitGate.Result.ACQUIRED, gate.acquire(0, 0));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        Thread background = waiter(gate, 1, "background", order);
+        awaitQueued(gate, 1, 1);
+        Thread interactive1 = waiter(gate, 0, "interactive-1", order);
+        awaitQueued(gate, 0, 1);
+        Thread interactive2 = waiter(gate, 0, "interactive-2", order);
+        awaitQueued(gate, 0, 2);
+
+        gate.release();
+        for (Thread thread : List.of(interactive1, interactive2, background)) {
+            thread.join(2000);
+        }
+
+        // 交互通道内先到先得，后台通道最后
+        assertEquals(List.of("interactive-1", "interactive-2", "background"), order);
+        assertEquals(0, gate.running());
+        assertEquals(3, gate.laneStats(0).acquired());
+        assertTrue(gate.laneStats(1).maxWaitMillis() > 0);
+    }
+
+    @Test
+    void testFullQueueAndTimeoutAreRejected() throws Exception {
+        PriorityPermitGate gate = new PriorityPermitGate(1, 2, 0);
+        assertEquals(PriorityPermitGate.Result.ACQUIRED, gate.acquire(0, 0));
+        assertEquals(PriorityPermitGate.Result.QUEUE_FULL, gate.acquire(0, 1000));
+
+        PriorityPermitGate queued = new PriorityPermitGate(1, 2, 1);
+        queued.acquire(0, 0);
+        long begin = System.nanoTime();
+        assertEquals(PriorityPermitGate.Result.TIMEOUT, queued.acquire(1, 50));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) >= 40);
+        assertEquals(0, queued.laneStats(1).queued());
+        assertEquals(1, queued.laneStats(1).timedOut());
+
+        // 超时的请求不应占用许可
+        queued.release();
+        assertEquals(0, queued.running());
+    }
+
+    @Test
+    void testTokenBucketRefillsAtConfiguredRate() {
+        long start = 1_000_000_000L;
+        TokenBucket bucket = new TokenBucket(2, 60, start);
+
+        assertTrue(bucket.tryConsume(start));
+        assertTrue(bucket.tryConsume(start));
+        assertFalse(bucket.tryConsume(start));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.nanosUntilAvailable(start), 1000);
+
+        // 每分钟60个，即每秒补充一个
+        assertTrue(bucket.tryConsume(start + TimeUnit.SECONDS.toNanos(1)));
+        assertFalse(bucket.tryConsume(start + TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void testGatewayRateLimitsInteractiveUsersOnly() {
+        LlmGatewayConfig config = new LlmGatewayConfig();
+        config.setUserBurst(2);
+        config.setUserRefillPerMinute(1);
+        LlmGatewayService gateway = new LlmGatewayServiceImpl(config);
+
+        gateway.acquire(1L, LlmGatewayService.Priority.INTERACTIVE).close();
+        gateway.acquire(1L, LlmGatewayService.Priority.INTERACTIVE).close();
+        LlmOverloadedException e = assertThrows(LlmOverloadedException.class,
+                () -> gateway.acquire(1L, LlmGatewayService.Priority.INTERACTIVE));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+
+        // 其他用户和后台问答不受该用户限速影响
+        gateway.acquire(2L, LlmGatewayService.Priority.INTERACTIVE).close();
+        for (int i = 0; i < 5; i++) {
+            gateway.acquire(-1L, LlmGatewayService.Priority.BACKGROUND).close();
+        }
+
+        LlmGatewayStatsResponse stats = gateway.getStats();
+        assertEquals(1, stats.getRateLimited());
+        assertEquals(0, stats.getRunning());
+        assertEquals(3, stats.getLanes().get("INTERACTIVE").getAcquired());
+        assertEquals(5, stats.getLanes().get("BACKGROUND").getAcquired());
+    }
+
+    @Test
+    void testGatewayRejectsWhenConcurrencyExhausted() {
+        LlmGatewayConfig config = new LlmGatewayConfig();
+        config.setMaxConcurrent(1);
+        config.setMaxQueued(0);
+        LlmGatewayService gateway = new LlmGatewayServiceImpl(config);
+
+        config.setInteractiveMaxWaitMs(2000);
+        config.setBackgroundMaxWaitMs(30000);
+        LlmGatewayService.Permit permit = gateway.acquire(1L, LlmGatewayService.Priority.INTERACTIVE);
+        LlmOverloadedException interactive = assertThrows(LlmOverloadedException.class,
+                () -> gateway.acquire(2L, LlmGatewayService.Priority.INTERACTIVE));
+        // 建议的重试间隔按各自通道的排队时间计算
+        assertEquals(2, interactive.getRetryAfterSeconds());
+        LlmOverloadedException background = assertThrows(LlmOverloadedException.class,
+                () -> gateway.acquire(-1L, LlmGatewayService.Priority.BACKGROUND));
+        assertEquals(30, background.getRetryAfterSeconds());
+
+        // 重复关闭只释放一次
+        permit.close();
+        permit.close();
+        assertEquals(0, gateway.getStats().getRunning());
+        gateway.acquire(2L, LlmGatewayService.Priority.INTERACTIVE).close();
+    }
+
+    private Thread waiter(PriorityPermitGate gate, int lane, String name, List<String> order) {
+        Thread thread = new Thread(() -> {
+            try {
+                if (gate.acquire(lane, 5000) == PriorityPermitGate.Result.ACQUIRED) {
+                    order.add(name);
+                    Thread.sleep(10);
+                    gate.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private void awaitQueued(PriorityPermitGate gate, int lane, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (gate.laneStats(lane).queued() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, gate.laneStats(lane).queued());
+    }
+}
@@ -0,0 +1,56 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.MailDigest;
+import com.mmw.metal_micro_wire_backend.util.RetryBackoff;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 邮件发送队列测试类（退避时间和摘要合成）
+ */
+class MailQueueTest {
+
+    @Test
+    void testExponentialBackoffIsCapped() {
+        assertEquals(30_000L, RetryBackoff.exponential(1, 30_000, 1_800_000));
+        assertEquals(60_000L, RetryBackoff.exponential(2, 30_000, 1_800_000));
+        assertEquals(240_000L, RetryBackoff.exponential(4, 30_000, 1_800_000));
+        assertEquals(1_800_000L, RetryBackoff.exponential(10, 30_000, 1_800_000));
+        assertEquals(1_800_000L, RetryBackoff.exponential(100, 30_000, 1_800_000));
+    }
+
+    @Test
+    void testSingleItemIsSentUnchanged() {
+        MailDigest.Composed composed = MailDigest.compose(List.of(new MailDigest.Item("主题", "内容", false)));
+        assertEquals("主题", composed.subject());
+        assertEquals("内容", composed.content());
+        assertFalse(composed.html());
+    }
+
+    @Test
+    void testPlainItemsAreMergedIntoOneMail() {
+        MailDigest.Composed composed = MailDigest.compose(List.of(
+                new MailDigest.Item("问题A", "内容A", false),
+                new MailDigest.Item("问题B", "内容B", false),
+                new MailDigest.Item("问题C", "内容C", false)));
+        assertEquals("问题A 等3条通知", composed.subject());
+        assertFalse(composed.html());
+        assertTrue(composed.content().indexOf("内容A") < composed.content().indexOf("内容B"));
+        assertTrue(composed.content().contains("3/3"));
+    }
+
+    @Test
+    void testMixedItemsEscapePlainTextInHtmlDigest() {
+        MailDigest.Composed composed = MailDigest.compose(List.of(
+                new MailDigest.Item("问题<A>", "a < b", false),
+                new MailDigest.Item("汇总", "<table></table>", true)));
+        assertTrue(composed.html());
+        assertTrue(composed.content().contains("问题&lt;A&gt;"));
+        assertTrue(composed.content().contains("a &lt; b"));
+        assertTrue(composed.content().contains("<table></table>"));
+        assertThrows(IllegalArgumentException.class, () -> MailDigest.compose(List.of()));
+    }
+}
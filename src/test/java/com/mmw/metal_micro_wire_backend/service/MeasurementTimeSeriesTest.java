@@ -0,0 +1,90 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.Lttb;
+import com.mmw.metal_micro_wire_backend.util.MeasurementMetric;
+import com.mmw.metal_micro_wire_backend.util.TimeSeriesBucket;
+import com.mmw.metal_micro_wire_backend.util.TimeSeriesResolution;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 检测指标时间序列（聚合桶、粒度选择、LTTB降采样）测试类
+ */
+class MeasurementTimeSeriesTest {
+
+    @Test
+    void testBucketMergeAndEncoding() {
+        TimeSeriesBucket left = new TimeSeriesBucket();
+        left.add(MeasurementMetric.DIAMETER, 1.0);
+        left.add(MeasurementMetric.DIAMETER, 3.0);
+        TimeSeriesBucket right = new TimeSeriesBucket();
+        right.add(MeasurementMetric.DIAMETER, 5.0);
+        right.add(MeasurementMetric.WEIGHT, 10.0);
+
+        left.merge(TimeSeriesBucket.decode(right.encode()));
+        assertEquals(3, left.getCount(MeasurementMetric.DIAMETER));
+        assertEquals(1.0, left.getMin(MeasurementMetric.DIAMETER), 0.0);
+        assertEquals(5.0, left.getMax(MeasurementMetric.DIAMETER), 0.0);
+        assertEquals(3.0, left.getMean(MeasurementMetric.DIAMETER), 1e-9);
+        assertEquals(1, left.getCount(MeasurementMetric.WEIGHT));
+        assertEquals(0, left.getCount(MeasurementMetric.RESISTANCE));
+        assertTrue(Double.isNaN(left.getMean(MeasurementMetric.RESISTANCE)));
+    }
+
+    @Test
+    void testBucketIdsAndPartitions() {
+        LocalDateTime time = LocalDateTime.of(2025, 3, 31, 23, 59, 30);
+        assertEquals("202503312359", TimeSeriesResolution.MINUTE.bucketId(time));
+        assertEquals("202503312300", TimeSeriesResolution.HOUR.bucketId(time));
+        assertEquals("202503310000", TimeSeriesResolution.DAY.bucketId(time));
+        assertEquals("20250331", TimeSeriesResolution.MINUTE.partitionOf("202503312359"));
+        assertEquals("202503", TimeSeriesResolution.HOUR.partitionOf("202503312300"));
+
+        LocalDateTime start = LocalDateTime.of(2025, 3, 31, 22, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 4, 1, 2, 0);
+        assertEquals(240, TimeSeriesResolution.MINUTE.bucketCount(start, end));
+        assertEquals(4, TimeSeriesResolution.HOUR.bucketCount(start, end));
+        assertEquals(List.of("202503", "202504"), new ArrayList<>(TimeSeriesResolution.HOUR.partitions(start, end)));
+    }
+
+    @Test
+    void testChooseFinestResolutionWithinBudget() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        assertEquals(TimeSeriesResolution.MINUTE,
+                TimeSeriesResolution.choose(start, start.plusHours(6), 500, r -> true));
+        assertEquals(TimeSeriesResolution.HOUR,
+                TimeSeriesResolution.choose(start, start.plusDays(7), 500, r -> true));
+        assertEquals(TimeSeriesResolution.DAY,
+                TimeSeriesResolution.choose(start, start.plusDays(90), 500, r -> true));
+        // 分钟粒度已过保留期
+        assertEquals(TimeSeriesResolution.HOUR, TimeSeriesResolution.choose(start, start.plusHours(6), 500,
+                r -> r != TimeSeriesResolution.MINUTE));
+        // 天粒度也超出预算时仍返回天粒度
+        assertEquals(TimeSeriesResolution.DAY,
+                TimeSeriesResolution.choose(start, start.plusDays(1000), 100, r -> true));
+    }
+
+    @Test
+    void testLttbKeepsEndpointsAndSpikes() {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(new double[]{i, i == 437 ? 100.0 : Math.sin(i / 50.0)});
+        }
+        List<double[]> sampled = Lttb.downsample(points, 50, p -> p[0], p -> p[1]);
+        assertEquals(50, sampled.size());
+        assertSame(points.get(0), sampled.get(0));
+        assertSame(points.get(999), sampled.get(49));
+        assertTrue(sampled.contains(points.get(437)), "峰值点应被保留");
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i)[0] > sampled.get(i - 1)[0]);
+        }
+
+        assertEquals(10, Lttb.downsample(points.subList(0, 10), 50, p -> p[0], p -> p[1]).size());
+        assertEquals(2, Lttb.downsample(points, 2, p -> p[0], p -> p[1]).size());
+    }
+}
@@ -2,7 +2,9 @@ package com.mmw.metal_micro_wire_backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mmw.metal_micro_wire_backend.config.DeepSeekConfig;
+import com.mmw.metal_micro_wire_backend.config.LlmGatewayConfig;
 import com.mmw.metal_micro_wire_backend.service.impl.ChatServiceImpl;
+import com.mmw.metal_micro_wire_backend.service.impl.LlmGatewayServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -39,12 +41,16 @@ class MultiToolCallExecutionTest {
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
+        // 关闭请求闸门，许可直接放行
+        LlmGatewayConfig gatewayConfig = new LlmGatewayConfig();
+        gatewayConfig.setEnabled(false);
         chatService = new ChatServiceImpl(
                 deepSeekConfig,
                 redisService,
                 restTemplate,
                 objectMapper,
-                chatToolService
+                chatToolService,
+                new LlmGatewayServiceImpl(gatewayConfig)
         );
     }
 
@@ -0,0 +1,61 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.NGramIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存三元组倒排索引测试类
+ */
+class NGramIndexTest {
+
+    @Test
+    void testGramsAreLowerCasedAndDeduplicated() {
+        assertEquals(List.of("abc", "bcd", "cda", "dab"), List.copyOf(NGramIndex.grams("ABCDAbc")));
+        assertEquals(List.of("天津华", "津华东"), List.copyOf(NGramIndex.grams("天津华东")));
+        assertTrue(NGramIndex.grams("ab").isEmpty());
+        assertTrue(NGramIndex.grams(null).isEmpty());
+    }
+
+    @Test
+    void testSearchMatchesSubstringsCaseInsensitively() {
+        NGramIndex index = new NGramIndex();
+        index.add("Tianjin Wire Co");
+        index.add("天津华东线材");
+        index.add("上海线材厂");
+        index.add("Tianjin Wire Co");
+        index.add(null);
+        index.add("");
+        assertEquals(3, index.size());
+
+        assertEquals(Set.of("Tianjin Wire Co"), index.search("WIRE", 10));
+        assertEquals(Set.of("天津华东线材", "上海线材厂"), index.search("线材", 10));
+        assertEquals(Set.of("天津华东线材"), index.search("华东线材", 10));
+        assertTrue(index.search("不存在的厂", 10).isEmpty());
+    }
+
+    @Test
+    void testAllGramsPresentButNotContiguousIsRejected() {
+        NGramIndex index = new NGramIndex();
+        index.add("abcx-bcd");
+        // abc 和 bcd 两个三元组都命中，但 abcd 并未连续出现
+        assertTrue(index.search("abcd", 10).isEmpty());
+        assertEquals(Set.of("abcx-bcd"), index.search("bcd", 10));
+    }
+
+    @Test
+    void testTooManyMatchesReturnsNull() {
+        NGramIndex index = new NGramIndex();
+        for (int i = 0; i < 5; i++) {
+            index.add("device-" + i);
+        }
+        assertNull(index.search("device", 4));
+        assertEquals(5, index.search("device", 5).size());
+        // 短关键词逐个校验全部取值
+        assertEquals(Set.of("device-3"), index.search("-3", 5));
+    }
+}
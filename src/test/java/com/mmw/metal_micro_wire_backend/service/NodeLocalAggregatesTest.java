@@ -0,0 +1,69 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.NodeLocalAggregates;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点本地聚合测试
+ */
+class NodeLocalAggregatesTest {
+
+    @Test
+    void testLoaderRunsOnlyWhenKeyIsMissing() {
+        NodeLocalAggregates<String, AtomicLong> aggregates = new NodeLocalAggregates<>(null, "test:meta:", "node-1");
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            aggregates.update("a", key -> {
+                loads.incrementAndGet();
+                return new AtomicLong(10);
+            }, AtomicLong::incrementAndGet);
+        }
+
+        assertEquals(1, loads.get());
+        Map<String, String> written = new HashMap<>();
+        assertEquals(1, aggregates.flush(String::valueOf, key -> false, written::putAll));
+        assertEquals("13", written.get("a"));
+        assertEquals("node-1", aggregates.nodeId());
+    }
+
+    @Test
+    void testConcurrentLoadKeepsFirstInsertedAggregate() {
+        NodeLocalAggregates<String, AtomicLong> aggregates = new NodeLocalAggregates<>(null, "test:meta:", "node-1");
+
+        // 加载期间另一个线程已放入同一个键，加载结果应被丢弃
+        aggregates.update("a", key -> {
+            aggregates.update("a", inner -> new AtomicLong(100), AtomicLong::incrementAndGet);
+            return new AtomicLong(0);
+        }, AtomicLong::incrementAndGet);
+
+        Map<String, String> written = new HashMap<>();
+        aggregates.flush(String::valueOf, key -> false, written::putAll);
+        assertEquals("102", written.get("a"));
+    }
+
+    @Test
+    void testFailedFlushMarksKeysDirtyAgain() {
+        NodeLocalAggregates<String, AtomicLong> aggregates = new NodeLocalAggregates<>(null, "test:meta:", "node-1");
+        aggregates.update("a", key -> new AtomicLong(), AtomicLong::incrementAndGet);
+        aggregates.update("old", key -> new AtomicLong(), AtomicLong::incrementAndGet);
+
+        assertThrows(IllegalStateException.class, () -> aggregates.flush(String::valueOf, "old"::equals, encoded -> {
+            throw new IllegalStateException("Redis不可用");
+        }));
+
+        // 已移出内存的键不再重试
+        Map<String, String> written = new HashMap<>();
+        assertEquals(1, aggregates.flush(String::valueOf, key -> false, written::putAll));
+        assertEquals(Map.of("a", "1"), written);
+        assertFalse(aggregates.contains("old"));
+        assertEquals(0, aggregates.flush(String::valueOf, key -> false, written::putAll));
+    }
+}
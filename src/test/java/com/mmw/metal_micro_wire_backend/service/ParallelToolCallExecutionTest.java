@@ -0,0 +1,134 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.config.DeepSeekConfig;
+import com.mmw.metal_micro_wire_backend.config.LlmGatewayConfig;
+import com.mmw.metal_micro_wire_backend.dto.chat.ChatToolCall;
+import com.mmw.metal_micro_wire_backend.service.impl.ChatServiceImpl;
+import com.mmw.metal_micro_wire_backend.service.impl.LlmGatewayServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * 同一轮多个工具调用并行执行测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ParallelToolCallExecutionTest {
+
+    @Mock
+    private DeepSeekConfig deepSeekConfig;
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ChatToolService chatToolService;
+
+    private ChatServiceImpl chatService;
+    private final DeepSeekConfig.ToolExecution toolExecution = new DeepSeekConfig.ToolExecution();
+
+    @BeforeEach
+    void setUp() {
+        // 关闭请求闸门，许可直接放行
+        LlmGatewayConfig gatewayConfig = new LlmGatewayConfig();
+        gatewayConfig.setEnabled(false);
+        chatService = new ChatServiceImpl(deepSeekConfig, redisService, restTemplate, new ObjectMapper(), chatToolService,
+                new LlmGatewayServiceImpl(gatewayConfig));
+        when(deepSeekConfig.getToolExecution()).thenReturn(toolExecution);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatService.shutdown();
+    }
+
+    @Test
+    void testToolCallsRunConcurrentlyAndKeepRequestOrder() throws Exception {
+        when(chatToolService.executeToolCall(any(), anyLong())).thenAnswer(invocation -> {
+            ChatToolCall.ToolCallRequest request = invocation.getArgument(0);
+            // 第一个调用最慢，结果仍应排在第一位
+            Thread.sleep(request.getId().equals("call_1") ? 400 : 200);
+            return success(request, request.getFunction().getName() + "结果");
+        });
+
+        long begin = System.currentTimeMillis();
+        List<Map<String, Object>> messages = executeToolCalls(List.of(
+                request("call_1", "get_overall_statistics"),
+                request("call_2", "get_yearly_statistics"),
+                request("call_3", "get_manufacturer_ranking")));
+        long elapsed = System.currentTimeMillis() - begin;
+
+        assertTrue(elapsed < 750, "工具调用未并行执行，耗时：" + elapsed + "ms");
+        assertEquals(3, messages.size());
+        assertEquals("call_1", messages.get(0).get("tool_call_id"));
+        assertEquals("get_overall_statistics结果", messages.get(0).get("content"));
+        assertEquals("call_2", messages.get(1).get("tool_call_id"));
+        assertEquals("call_3", messages.get(2).get("tool_call_id"));
+        assertEquals("tool", messages.get(2).get("role"));
+    }
+
+    @Test
+    void testSlowToolCallTimesOutWithoutBlockingOthers() throws Exception {
+        toolExecution.setTimeoutSeconds(1);
+        when(chatToolService.executeToolCall(any(), anyLong())).thenAnswer(invocation -> {
+            ChatToolCall.ToolCallRequest request = invocation.getArgument(0);
+            if (request.getId().equals("call_slow")) {
+                Thread.sleep(5000);
+            }
+            return success(request, "完成");
+        });
+
+        long begin = System.currentTimeMillis();
+        List<Map<String, Object>> messages = executeToolCalls(List.of(
+                request("call_slow", "analyze_quality_issues"),
+                request("call_fast", "get_current_time")));
+        long elapsed = System.currentTimeMillis() - begin;
+
+        assertTrue(elapsed < 3000, "超时的工具调用阻塞了整轮，耗时：" + elapsed + "ms");
+        assertEquals("工具调用超时", messages.get(0).get("content"));
+        assertEquals("完成", messages.get(1).get("content"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> executeToolCalls(List<ChatToolCall.ToolCallRequest> requests) throws Exception {
+        Method method = ChatServiceImpl.class.getDeclaredMethod("executeToolCalls", List.class, Long.class);
+        method.setAccessible(true);
+        return (List<Map<String, Object>>) method.invoke(chatService, requests, 1L);
+    }
+
+    private ChatToolCall.ToolCallRequest request(String id, String name) {
+        ChatToolCall.ToolCallRequest request = new ChatToolCall.ToolCallRequest();
+        request.setId(id);
+        request.setType("function");
+        ChatToolCall.FunctionCall functionCall = new ChatToolCall.FunctionCall();
+        functionCall.setName(name);
+        functionCall.setArguments("{}");
+        request.setFunction(functionCall);
+        return request;
+    }
+
+    private ChatToolCall.ToolCallResult success(ChatToolCall.ToolCallRequest request, String result) {
+        ChatToolCall.ToolCallResult toolResult = new ChatToolCall.ToolCallResult();
+        toolResult.setToolCallId(request.getId());
+        toolResult.setResult(result);
+        toolResult.setSuccess(true);
+        return toolResult;
+    }
+}
@@ -31,6 +31,12 @@ class ProblematicBatchesTest {
     @Mock
     private WireMaterialRepository wireMaterialRepository;
 
+    @Mock
+    private TraceabilityCacheService traceabilityCacheService;
+
+    @Mock
+    private RecentDetectionStoreService recentDetectionStoreService;
+
     @InjectMocks
     private TraceabilityServiceImpl traceabilityService;
 
@@ -0,0 +1,64 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.HtmlTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 质量报告（报告周期、预编译模板）测试类
+ */
+class QualityReportTest {
+
+    @Test
+    void testReportPeriodRanges() {
+        // 2025-03-05 是星期三
+        LocalDate date = LocalDate.of(2025, 3, 5);
+        assertEquals(LocalDate.of(2025, 3, 4), QualityReportService.ReportPeriod.DAILY.startOf(date));
+        assertEquals(date, QualityReportService.ReportPeriod.DAILY.endOf(date));
+        assertEquals(LocalDate.of(2025, 2, 24), QualityReportService.ReportPeriod.WEEKLY.startOf(date));
+        assertEquals(LocalDate.of(2025, 3, 3), QualityReportService.ReportPeriod.WEEKLY.endOf(date));
+        assertEquals(LocalDate.of(2025, 2, 1), QualityReportService.ReportPeriod.MONTHLY.startOf(date));
+        assertEquals(LocalDate.of(2025, 3, 1), QualityReportService.ReportPeriod.MONTHLY.endOf(date));
+
+        // 周一生成的周报统计上一周
+        LocalDate monday = LocalDate.of(2025, 3, 3);
+        assertEquals(LocalDate.of(2025, 2, 24), QualityReportService.ReportPeriod.WEEKLY.startOf(monday));
+        assertEquals(monday, QualityReportService.ReportPeriod.WEEKLY.endOf(monday));
+    }
+
+    @Test
+    void testTemplateEscapesValuesAndEmbedsRawSections() {
+        HtmlTemplate template = HtmlTemplate.compile("<h2>{{ title }}</h2>{{{body}}}<p>{{missing}}</p>");
+        Map<String, Object> values = new HashMap<>();
+        values.put("title", "A&B <生产商>");
+        values.put("body", "<table></table>");
+        assertEquals("<h2>A&amp;B &lt;生产商&gt;</h2><table></table><p></p>", template.render(values));
+    }
+
+    @Test
+    void testRowTemplateRendersRepeatedly() {
+        HtmlTemplate row = HtmlTemplate.compile("<tr><td>{{name}}</td><td>{{count}}</td></tr>");
+        StringBuilder out = new StringBuilder();
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            values.put("name", "机器" + i);
+            values.put("count", i * 10L);
+            row.renderTo(out, values);
+        }
+        assertEquals("<tr><td>机器1</td><td>10</td></tr><tr><td>机器2</td><td>20</td></tr>"
+                + "<tr><td>机器3</td><td>30</td></tr>", out.toString());
+        assertEquals("纯文本", HtmlTemplate.compile("纯文本").render(values));
+    }
+
+    @Test
+    void testMalformedTemplateRejected() {
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("<p>{{name</p>"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("<p>{{ }}</p>"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("<p>{{{raw}}</p>"));
+    }
+}
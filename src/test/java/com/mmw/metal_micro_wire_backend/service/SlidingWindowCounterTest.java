@@ -0,0 +1,66 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.SlidingWindowCounter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分钟级滑动窗口计数器测试类
+ */
+class SlidingWindowCounterTest {
+
+    @Test
+    void testCountsWithinWindowAndExpiry() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3);
+        counter.add(100, 1, 0);
+        counter.add(100, 1, 1);
+        counter.add(101, 2, 1);
+        counter.add(102, 1, 0);
+        assertEquals(5, counter.getTotal());
+        assertEquals(2, counter.getFail());
+        assertEquals(40.0, counter.getFailRate(), 1e-9);
+
+        counter.advance(103);
+        assertEquals(3, counter.getTotal());
+        assertEquals(1, counter.getFail());
+
+        counter.advance(200);
+        assertEquals(0, counter.getTotal());
+        assertEquals(0.0, counter.getFailRate(), 1e-9);
+    }
+
+    @Test
+    void testLateAndCorrectionUpdates() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(5);
+        counter.add(10, 1, 1);
+        counter.add(12, 1, 0);
+
+        // 窗口内较早分钟的修正（不合格改判为合格）
+        assertTrue(counter.add(10, 0, -1));
+        assertEquals(2, counter.getTotal());
+        assertEquals(0, counter.getFail());
+
+        // 已移出窗口的分钟不再接受计数
+        counter.advance(20);
+        assertFalse(counter.add(12, 1, 1));
+        assertFalse(counter.contains(15));
+        assertTrue(counter.contains(16));
+        assertEquals(0, counter.getTotal());
+    }
+
+    @Test
+    void testBucketsAreReusedAcrossWraparound() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(2);
+        for (long minute = 0; minute < 10; minute++) {
+            counter.add(minute, 1, minute % 2);
+        }
+        assertEquals(2, counter.getTotal());
+        assertEquals(1, counter.getFail());
+    }
+
+    @Test
+    void testInvalidWindowRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(0));
+    }
+}
@@ -0,0 +1,123 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.SpcChart;
+import com.mmw.metal_micro_wire_backend.util.SpcChart.Parameters;
+import com.mmw.metal_micro_wire_backend.util.SpcChart.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式SPC控制图测试类
+ */
+class SpcChartTest {
+
+    private static final Parameters PARAMETERS = new Parameters(5, 20, 0.2, 3.0, 0.5, 5.0);
+
+    @Test
+    void testNoSignalsBeforeBaselineAndLimitsFromRangeEstimate() {
+        SpcChart chart = new SpcChart(PARAMETERS);
+        Random random = new Random(42);
+        for (int i = 0; i < 99; i++) {
+            assertTrue(chart.add(10 + random.nextGaussian() * 0.1).isEmpty());
+        }
+        assertFalse(chart.state().baselineReady());
+        assertTrue(Double.isNaN(chart.state().centerLine()));
+
+        chart.add(10);
+        SpcChart.State state = chart.state();
+        assertTrue(state.baselineReady());
+        assertEquals(100, state.count());
+        assertEquals(10.0, state.centerLine(), 0.05);
+        assertEquals(0.1, state.sigma(), 0.03);
+        assertEquals(state.centerLine() + 0.577 * state.rangeCenterLine(), state.xbarUpperLimit(), 1e-9);
+        assertEquals(2.114 * state.rangeCenterLine(), state.rangeUpperLimit(), 1e-9);
+    }
+
+    @Test
+    void testWelfordStatisticsMatchDirectComputation() {
+        SpcChart chart = new SpcChart(PARAMETERS);
+        double[] values = {1.0, 2.0, 4.0, 7.0, 11.0, 16.0};
+        for (double value : values) {
+            chart.add(value);
+        }
+        double mean = 41.0 / 6;
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        assertEquals(mean, chart.state().mean(), 1e-12);
+        assertEquals(Math.sqrt(squares / (values.length - 1)), chart.state().stdDev(), 1e-9);
+    }
+
+    @Test
+    void testStableProcessRaisesNoCusumSignals() {
+        SpcChart chart = warmedUp(new Random(7));
+        Random random = new Random(8);
+        List<Signal> signals = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            signals.addAll(chart.add(10 + random.nextGaussian() * 0.1));
+        }
+        assertFalse(signals.contains(Signal.CUSUM_UPWARD), signals.toString());
+        assertFalse(signals.contains(Signal.CUSUM_DOWNWARD), signals.toString());
+    }
+
+    @Test
+    void testSmallSustainedShiftDetectedByCusumAndEwmaBeforeLimitViolation() {
+        SpcChart chart = warmedUp(new Random(7));
+        Random random = new Random(9);
+        List<Signal> signals = new ArrayList<>();
+        // 1.5倍标准差的持续偏移，单个观测值仍在3σ以内
+        for (int i = 0; i < 30; i++) {
+            signals.addAll(chart.add(10.15 + random.nextGaussian() * 0.02));
+        }
+        assertTrue(signals.contains(Signal.CUSUM_UPWARD), signals.toString());
+        assertTrue(signals.contains(Signal.EWMA_ABOVE_UCL), signals.toString());
+        assertFalse(signals.contains(Signal.CUSUM_DOWNWARD));
+        // EWMA只在进入越限状态时发出一次信号
+        assertEquals(1, signals.stream().filter(s -> s == Signal.EWMA_ABOVE_UCL).count());
+    }
+
+    @Test
+    void testLargeDownwardShiftTriggersXbarSignal() {
+        SpcChart chart = warmedUp(new Random(7));
+        List<Signal> signals = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            signals.addAll(chart.add(9.5));
+        }
+        assertTrue(signals.contains(Signal.XBAR_BELOW_LCL), signals.toString());
+        assertTrue(signals.contains(Signal.EWMA_BELOW_LCL), signals.toString());
+    }
+
+    @Test
+    void testConstantBaselineWaitsForVariation() {
+        SpcChart chart = new SpcChart(new Parameters(2, 2, 0.2, 3.0, 0.5, 5.0));
+        for (int i = 0; i < 10; i++) {
+            chart.add(5.0);
+        }
+        assertFalse(chart.state().baselineReady());
+        chart.add(5.0);
+        chart.add(5.2);
+        assertTrue(chart.state().baselineReady());
+    }
+
+    @Test
+    void testInvalidParametersRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Parameters(1, 20, 0.2, 3.0, 0.5, 5.0));
+        assertThrows(IllegalArgumentException.class, () -> new Parameters(11, 20, 0.2, 3.0, 0.5, 5.0));
+        assertThrows(IllegalArgumentException.class, () -> new Parameters(5, 20, 0.0, 3.0, 0.5, 5.0));
+    }
+
+    private SpcChart warmedUp(Random random) {
+        SpcChart chart = new SpcChart(PARAMETERS);
+        for (int i = 0; i < 100; i++) {
+            chart.add(10 + random.nextGaussian() * 0.1);
+        }
+        assertTrue(chart.state().baselineReady());
+        return chart;
+    }
+}
@@ -0,0 +1,115 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.util.TimeBucketPlanner;
+import com.mmw.metal_micro_wire_backend.util.TimeBucketPlanner.BucketType;
+import com.mmw.metal_micro_wire_backend.util.TimeBucketPlanner.TimeBucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 溯源统计时间分桶测试类
+ */
+class TimeBucketPlannerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 15, 10, 30);
+
+    @Test
+    void testOpenWindowSplitsIntoMonthsDaysAndOpenBucket() {
+        List<TimeBucket> buckets = TimeBucketPlanner.plan(
+                LocalDateTime.of(2025, 1, 20, 8, 0), null, null, NOW);
+
+        assertEquals(List.of(BucketType.LIVE, BucketType.DAY, BucketType.MONTH, BucketType.DAY, BucketType.OPEN),
+                collapseTypes(buckets));
+
+        TimeBucket head = buckets.get(0);
+        assertEquals(LocalDateTime.of(2025, 1, 20, 8, 0), head.start());
+        assertEquals(LocalDateTime.of(2025, 1, 21, 0, 0).minusNanos(1000), head.end());
+
+        assertTrue(ids(buckets).contains("D20250121"));
+        assertTrue(ids(buckets).contains("D20250131"));
+        assertTrue(ids(buckets).contains("M202502"));
+        assertTrue(ids(buckets).contains("D20250314"));
+        assertFalse(ids(buckets).contains("D20250315"));
+
+        TimeBucket open = buckets.get(buckets.size() - 1);
+        assertEquals("O20250315", open.id());
+        assertEquals(LocalDateTime.of(2025, 3, 15, 0, 0), open.start());
+        assertNull(open.end());
+    }
+
+    @Test
+    void testBucketsAreContiguous() {
+        List<TimeBucket> buckets = TimeBucketPlanner.plan(
+                LocalDateTime.of(2024, 11, 3, 17, 45), LocalDateTime.of(2025, 2, 10, 12, 0), null, NOW);
+
+        for (int i = 1; i < buckets.size(); i++) {
+            assertEquals(buckets.get(i - 1).end().plusNanos(1000), buckets.get(i).start(),
+                    "桶之间不能有空隙或重叠：" + buckets.get(i - 1) + " -> " + buckets.get(i));
+        }
+        assertEquals(LocalDateTime.of(2024, 11, 3, 17, 45), buckets.get(0).start());
+
+        TimeBucket tail = buckets.get(buckets.size() - 1);
+        assertEquals(BucketType.LIVE, tail.type());
+        assertEquals(LocalDateTime.of(2025, 2, 10, 0, 0), tail.start());
+        assertEquals(LocalDateTime.of(2025, 2, 10, 12, 0), tail.end());
+        assertTrue(ids(buckets).containsAll(List.of("M202412", "M202501")));
+    }
+
+    @Test
+    void testNullStartUsesEarliestDay() {
+        List<TimeBucket> buckets = TimeBucketPlanner.plan(
+                null, null, LocalDateTime.of(2025, 3, 1, 9, 12), NOW);
+
+        assertEquals(LocalDateTime.of(2025, 3, 1, 0, 0), buckets.get(0).start());
+        assertTrue(buckets.stream().allMatch(TimeBucket::isCacheable));
+        assertEquals(15, buckets.size());
+    }
+
+    @Test
+    void testNoDataReturnsSingleLiveBucket() {
+        List<TimeBucket> buckets = TimeBucketPlanner.plan(null, null, null, NOW);
+
+        assertEquals(1, buckets.size());
+        assertFalse(buckets.get(0).isCacheable());
+    }
+
+    @Test
+    void testWindowWithinTodayIsNotCached() {
+        List<TimeBucket> buckets = TimeBucketPlanner.plan(
+                LocalDateTime.of(2025, 3, 15, 8, 0), LocalDateTime.of(2025, 3, 15, 9, 0), null, NOW);
+
+        assertEquals(1, buckets.size());
+        assertEquals(BucketType.LIVE, buckets.get(0).type());
+    }
+
+    @Test
+    void testWindowFromYesterdayAfternoonUsesOpenBucket() {
+        List<TimeBucket> buckets = TimeBucketPlanner.plan(
+                LocalDateTime.of(2025, 3, 14, 16, 0), LocalDateTime.of(2025, 3, 15, 23, 0), null, NOW);
+
+        assertEquals(List.of(BucketType.LIVE, BucketType.OPEN), collapseTypes(buckets));
+    }
+
+    /**
+     * 合并相邻的同类型桶，便于断言整体结构
+     */
+    private List<BucketType> collapseTypes(List<TimeBucket> buckets) {
+        List<BucketType> types = new ArrayList<>();
+        for (TimeBucket bucket : buckets) {
+            if (types.isEmpty() || types.get(types.size() - 1) != bucket.type()) {
+                types.add(bucket.type());
+            }
+        }
+        return types;
+    }
+
+    private List<String> ids(List<TimeBucket> buckets) {
+        return buckets.stream().map(TimeBucket::id).collect(Collectors.toList());
+    }
+}
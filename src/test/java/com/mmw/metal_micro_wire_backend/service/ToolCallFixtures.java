@@ -0,0 +1,75 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import java.util.List;
+
+/**
+ * 工具调用解析测试共用的样例
+ * DeepSeekToolCallParsingTest 与 ToolCallMarkupTest 使用同一组样例，保证标记扫描与完整解析的结果一致
+ */
+final class ToolCallFixtures {
+
+    /**
+     * 期望解析出的工具调用
+     */
+    record ExpectedCall(String name, String arguments) {
+    }
+
+    /**
+     * 实际的DeepSeek返回格式：分隔符格式，参数位于markdown代码块中
+     */
+    static final String MARKDOWN_FORMAT = "<｜tool▁calls▁begin｜><｜tool▁call▁begin｜>function<｜tool▁sep｜>get_device_list\n" +
+            "```json\n" +
+            "{\"status\":\"ON\"}\n" +
+            "```<｜tool▁call▁end｜>\n" +
+            "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_overall_statistics\n" +
+            "```json\n" +
+            "{}\n" +
+            "```<｜tool▁call▁end｜>\n" +
+            "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_quality_issues\n" +
+            "```json\n" +
+            "{}\n" +
+            "```<｜tool▁call▁end｜>\n" +
+            "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_manufacturer_ranking\n" +
+            "```json\n" +
+            "{}\n" +
+            "```<｜tool▁call▁end｜><｜tool▁calls▁end｜>";
+
+    static final List<ExpectedCall> MARKDOWN_FORMAT_CALLS = List.of(
+            new ExpectedCall("get_device_list", "{\"status\":\"ON\"}"),
+            new ExpectedCall("get_overall_statistics", "{}"),
+            new ExpectedCall("get_quality_issues", "{}"),
+            new ExpectedCall("get_manufacturer_ranking", "{}"));
+
+    // ==================== 参数代码块 ====================
+
+    static final String MARKDOWN_JSON = "```json\n{\"status\":\"ON\"}\n```";
+    static final String CODE_BLOCK_JSON = "```\n{\"page\": 1}\n```";
+    static final String PURE_JSON = "{\"test\": true}";
+    static final String EMPTY_ARGUMENTS = "";
+    static final String NON_JSON = "```\nsome text\n```";
+
+    static final List<String> ARGUMENT_SAMPLES = List.of(MARKDOWN_JSON, CODE_BLOCK_JSON, PURE_JSON, EMPTY_ARGUMENTS, NON_JSON);
+
+    // ==================== 工具调用标记 ====================
+
+    /**
+     * 包含工具调用标记的文本（含各种全角、ASCII和不带尖括号的形式）
+     */
+    static final List<String> MARKER_SAMPLES = List.of(
+            "<｜tool▁calls▁begin｜>",
+            "<｜tool▁call▁begin｜>",
+            "<｜tool▁sep｜>",
+            "<|tool_calls_begin|>",
+            "tool_calls_begin",
+            "function_calls");
+
+    /**
+     * JSON数组格式的工具调用，没有标记
+     */
+    static final String JSON_ARRAY = "[{\"name\": \"test\", \"arguments\": {}}]";
+
+    static final List<String> NON_MARKER_SAMPLES = List.of("normal text", "");
+
+    private ToolCallFixtures() {
+    }
+}
@@ -0,0 +1,217 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.dto.chat.ChatToolCall;
+import com.mmw.metal_micro_wire_backend.service.impl.ChatServiceImpl;
+import com.mmw.metal_micro_wire_backend.util.ToolCallMarkup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工具调用标记扫描测试，样例与DeepSeekToolCallParsingTest共用（ToolCallFixtures），
+ * 并与完整解析及原有的逐个查找标记实现对照
+ */
+class ToolCallMarkupTest {
+
+    private static final String MARKDOWN_FORMAT = ToolCallFixtures.MARKDOWN_FORMAT;
+
+    /**
+     * 原实现（逐个contains查找标记）的标记检测，作为对照
+     */
+    private static final List<String> LEGACY_MARKERS = List.of(
+            "<|tool_calls_begin|>", "<｜tool▁calls▁begin｜>", "<｜tool▁call▁begin｜>", "tool_calls_begin",
+            "tool_call_begin", "function_calls", "<｜tool▁sep｜>", "tool▁sep");
+
+    private ChatServiceImpl chatService;
+
+    @BeforeEach
+    void setUp() {
+        // 只用到解析相关的私有方法，其余依赖不参与
+        chatService = new ChatServiceImpl(null, null, null, new ObjectMapper(), null, null);
+    }
+
+    @Test
+    void testScanRecognizesAllMarkersInOrder() {
+        List<ToolCallMarkup.TokenType> types = types(ToolCallMarkup.scan(MARKDOWN_FORMAT));
+
+        List<ToolCallMarkup.TokenType> expected = new ArrayList<>();
+        expected.add(ToolCallMarkup.TokenType.CALLS_BEGIN);
+        for (int i = 0; i < ToolCallFixtures.MARKDOWN_FORMAT_CALLS.size(); i++) {
+            expected.addAll(List.of(ToolCallMarkup.TokenType.CALL_BEGIN, ToolCallMarkup.TokenType.SEP,
+                    ToolCallMarkup.TokenType.CALL_END));
+        }
+        expected.add(ToolCallMarkup.TokenType.CALLS_END);
+        assertEquals(expected, types);
+    }
+
+    @Test
+    void testScanAsciiAndBareMarkers() {
+        String content = "<|tool_calls_begin|>[]<|tool_calls_end|> tool_call_begin x tool_call_end function_calls: []";
+        List<ToolCallMarkup.Token> tokens = ToolCallMarkup.scan(content);
+
+        assertEquals(List.of(ToolCallMarkup.TokenType.CALLS_BEGIN, ToolCallMarkup.TokenType.CALLS_END,
+                ToolCallMarkup.TokenType.CALL_BEGIN, ToolCallMarkup.TokenType.CALL_END,
+                ToolCallMarkup.TokenType.FUNCTION_CALLS), types(tokens));
+        // ASCII标记整体识别，不会再把其中的 tool_calls_begin 识别一次
+        assertEquals(0, tokens.get(0).start());
+        assertEquals("<|tool_calls_begin|>".length(), tokens.get(0).end());
+    }
+
+    @Test
+    void testContainsMarker() {
+        assertTrue(ToolCallMarkup.containsMarker("<｜tool▁call▁begin｜>"));
+        assertTrue(ToolCallMarkup.containsMarker("tool_calls_begin some content tool_calls_end"));
+        assertTrue(ToolCallMarkup.containsMarker("tool▁sep"));
+        assertFalse(ToolCallMarkup.containsMarker("这是普通的文本内容，没有工具调用"));
+        assertFalse(ToolCallMarkup.containsMarker("<|tool"));
+        assertFalse(ToolCallMarkup.containsMarker(null));
+    }
+
+    @Test
+    void testStreamScannerMatchesWholeTextScanAcrossChunks() {
+        // 按不同块大小逐块扫描，结果应与整段扫描的带尖括号标记一致
+        List<ToolCallMarkup.Token> expected = ToolCallMarkup.scan(MARKDOWN_FORMAT);
+        for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+            ToolCallMarkup.Scanner scanner = ToolCallMarkup.streamScanner();
+            StringBuilder content = new StringBuilder();
+            List<ToolCallMarkup.Token> tokens = new ArrayList<>();
+            for (int i = 0; i < MARKDOWN_FORMAT.length(); i += chunkSize) {
+                content.append(MARKDOWN_FORMAT, i, Math.min(i + chunkSize, MARKDOWN_FORMAT.length()));
+                tokens.addAll(scanner.scan(content, false));
+                assertTrue(scanner.position() <= content.length());
+            }
+            tokens.addAll(scanner.scan(content, true));
+            assertEquals(expected, tokens, "块大小：" + chunkSize);
+        }
+    }
+
+    @Test
+    void testStreamScannerHoldsPossibleMarkerPrefix() {
+        ToolCallMarkup.Scanner scanner = ToolCallMarkup.streamScanner();
+        StringBuilder content = new StringBuilder("好的<｜to");
+
+        assertTrue(scanner.scan(content, false).isEmpty());
+        assertEquals(2, scanner.position());
+
+        content.append("ol▁calls▁begin｜>[]");
+        List<ToolCallMarkup.Token> tokens = scanner.scan(content, false);
+        assertEquals(1, tokens.size());
+        assertEquals(2, tokens.get(0).start());
+
+        // 不带尖括号的形式不在流式正文中识别
+        ToolCallMarkup.Scanner plain = ToolCallMarkup.streamScanner();
+        assertTrue(plain.scan("function_calls", false).isEmpty());
+        assertEquals("function_calls".length(), plain.position());
+    }
+
+    @Test
+    void testFindClosingBracketSkipsStrings() {
+        String content = "调用 [{\"name\": \"a]\", \"arguments\": {\"q\": \"[x\"}}] 结束";
+        int start = content.indexOf('[');
+        int end = ToolCallMarkup.findClosingBracket(content, start);
+
+        assertEquals(content.lastIndexOf(']'), end);
+        assertEquals(-1, ToolCallMarkup.findClosingBracket("[{\"name\": \"a\"}", 0));
+    }
+
+    @Test
+    void testScanAndFullParseAgreeOnSharedFixtures() throws Exception {
+        // 每个工具调用对应一对调用标记，分隔符后的函数名与完整解析结果一致
+        List<ToolCallMarkup.Token> tokens = ToolCallMarkup.scan(MARKDOWN_FORMAT);
+        List<ChatToolCall.ToolCallRequest> parsed = parse(MARKDOWN_FORMAT);
+        List<String> scannedNames = new ArrayList<>();
+        for (ToolCallMarkup.Token token : tokens) {
+            if (token.type() == ToolCallMarkup.TokenType.SEP) {
+                scannedNames.add(MARKDOWN_FORMAT.substring(token.end(), MARKDOWN_FORMAT.indexOf('\n', token.end())));
+            }
+        }
+        assertEquals(ToolCallFixtures.MARKDOWN_FORMAT_CALLS.stream().map(ToolCallFixtures.ExpectedCall::name).toList(),
+                scannedNames);
+        assertEquals(ToolCallFixtures.MARKDOWN_FORMAT_CALLS, parsed.stream()
+                .map(call -> new ToolCallFixtures.ExpectedCall(call.getFunction().getName(), call.getFunction().getArguments()))
+                .toList());
+
+        // 参数样例放入分隔符格式后，完整解析得到的参数与单独提取代码块的结果相同
+        for (String sample : ToolCallFixtures.ARGUMENT_SAMPLES) {
+            String content = "<｜tool▁call▁begin｜>function<｜tool▁sep｜>get_device_list<｜tool▁sep｜>" + sample
+                    + "<｜tool▁call▁end｜>";
+            assertEquals(List.of(ToolCallMarkup.TokenType.CALL_BEGIN, ToolCallMarkup.TokenType.SEP,
+                    ToolCallMarkup.TokenType.SEP, ToolCallMarkup.TokenType.CALL_END), types(ToolCallMarkup.scan(content)));
+            List<ChatToolCall.ToolCallRequest> calls = parse(content);
+            assertEquals(1, calls.size(), sample);
+            assertEquals("get_device_list", calls.get(0).getFunction().getName());
+            assertEquals(invoke("extractJsonFromMarkdown", sample), calls.get(0).getFunction().getArguments(), sample);
+        }
+
+        // 标记检测与原实现一致
+        List<String> samples = new ArrayList<>(ToolCallFixtures.MARKER_SAMPLES);
+        samples.addAll(ToolCallFixtures.NON_MARKER_SAMPLES);
+        samples.add(MARKDOWN_FORMAT);
+        for (String sample : samples) {
+            assertEquals(legacyContainsMarker(sample), ToolCallMarkup.containsMarker(sample), sample);
+            assertEquals(ToolCallMarkup.containsMarker(sample), !ToolCallMarkup.scan(sample).isEmpty(), sample);
+            assertEquals(legacyContainsMarker(sample), invoke("containsToolCallMarkers", sample), sample);
+        }
+        assertFalse(ToolCallMarkup.containsMarker(ToolCallFixtures.JSON_ARRAY));
+        assertEquals(1, parse(ToolCallFixtures.JSON_ARRAY).size());
+    }
+
+    @Test
+    void testScanTimingComparedWithLegacyContainsChecks() {
+        // 较长的回复正文，工具调用位于末尾；原实现对每种标记各扫描一遍全文
+        String content = "这是一段较长的普通回复内容，包含线材检测结果的说明。".repeat(2000) + MARKDOWN_FORMAT;
+        int rounds = 200;
+        boolean legacy = false;
+        boolean scanned = false;
+        for (int i = 0; i < rounds; i++) {
+            legacy |= legacyContainsMarker(content);
+            scanned |= ToolCallMarkup.containsMarker(content);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            legacy &= legacyContainsMarker(content);
+        }
+        long legacyNanos = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            scanned &= ToolCallMarkup.containsMarker(content);
+        }
+        long scanNanos = System.nanoTime() - begin;
+
+        assertTrue(legacy);
+        assertEquals(legacy, scanned);
+        System.out.printf("标记检测 %d 字符 x %d 次：原实现 %.2f ms，单遍扫描 %.2f ms%n", content.length(), rounds,
+                legacyNanos / 1e6, scanNanos / 1e6);
+    }
+
+    private static boolean legacyContainsMarker(String content) {
+        for (String marker : LEGACY_MARKERS) {
+            if (content.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ChatToolCall.ToolCallRequest> parse(String content) throws Exception {
+        return (List<ChatToolCall.ToolCallRequest>) invoke("parseDeepSeekToolCalls", content);
+    }
+
+    private Object invoke(String methodName, String argument) throws Exception {
+        Method method = ChatServiceImpl.class.getDeclaredMethod(methodName, String.class);
+        method.setAccessible(true);
+        return method.invoke(chatService, argument);
+    }
+
+    private List<ToolCallMarkup.TokenType> types(List<ToolCallMarkup.Token> tokens) {
+        return tokens.stream().map(ToolCallMarkup.Token::type).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmw.metal_micro_wire_backend.util.CanonicalJson;
+import com.mmw.metal_micro_wire_backend.util.LocalLruCache;
+import com.mmw.metal_micro_wire_backend.util.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工具调用结果缓存测试类（参数规范化、并发合并、单条目存活时间）
+ */
+class ToolResultCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testEquivalentArgumentsProduceSameKey() throws Exception {
+        String a = CanonicalJson.write(objectMapper.readTree("{\"how\": \"month\", \"page\": 1, \"status\": null}"));
+        String b = CanonicalJson.write(objectMapper.readTree("{\"page\":1,\"how\":\"month\"}"));
+        assertEquals(a, b);
+        assertEquals("{\"how\":\"month\",\"page\":1}", a);
+        assertNotEquals(a, CanonicalJson.write(objectMapper.readTree("{\"page\":2,\"how\":\"month\"}")));
+        assertEquals("{\"a\":[{\"x\":1,\"y\":\"\\\"\"}]}",
+                CanonicalJson.write(objectMapper.readTree("{\"a\":[{\"y\":\"\\\"\",\"x\":1}]}")));
+    }
+
+    @Test
+    void testConcurrentIdenticalCallsRunOnce() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> singleFlight.execute("get_overall_statistics:{}", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "{\"total\":1}";
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                futures.add(executor.submit(() -> singleFlight.execute("get_overall_statistics:{}", () -> {
+                    executions.incrementAndGet();
+                    return "{\"total\":2}";
+                })));
+            }
+            // 等待其余调用都加入正在进行的执行后再放行
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (singleFlight.waiterCount("get_overall_statistics:{}") < 7) {
+                assertTrue(System.nanoTime() < deadline, "并发调用未加入正在进行的执行");
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("{\"total\":1}", future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureIsSharedAndNotRetained() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("k", () -> {
+            throw new IllegalStateException("数据库不可用");
+        }));
+        assertEquals("ok", singleFlight.execute("k", () -> "ok"));
+    }
+
+    @Test
+    void testPerEntryTtl() throws Exception {
+        LocalLruCache<String, String> cache = new LocalLruCache<>(10, 60_000);
+        cache.put("short", "a", 50);
+        cache.put("long", "b");
+        Thread.sleep(120);
+        assertNull(cache.get("short"));
+        assertEquals("b", cache.get("long"));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +32,12 @@ class TraceabilityServiceTest {
     @Mock
     private WireMaterialRepository wireMaterialRepository;
 
+    @Mock
+    private TraceabilityCacheService traceabilityCacheService;
+
+    @Mock
+    private RecentDetectionStoreService recentDetectionStoreService;
+
     @InjectMocks
     private TraceabilityServiceImpl traceabilityService;
 
@@ -45,6 +52,18 @@ class TraceabilityServiceTest {
                 .scenarioCode("TEST_SCENARIO")
                 .failRateThreshold(5.0)
                 .build();
+
+        // 缓存直接按请求的时间范围回源查询
+        when(traceabilityCacheService.getDimensionStatistics(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    BiFunction<LocalDateTime, LocalDateTime, List<Object[]>> loader = invocation.getArgument(5);
+                    return loader.apply(invocation.getArgument(1), invocation.getArgument(2));
+                });
+        // 查询时间范围超出内存存储保留期，回退到数据库查询
+        when(recentDetectionStoreService.getDimensionStatistics(any(), any(), any(), any(), any()))
+                .thenReturn(null);
+        when(recentDetectionStoreService.getOverallStatistics(any(), any(), any()))
+                .thenReturn(null);
     }
 
     @Test
@@ -0,0 +1,222 @@
+package com.mmw.metal_micro_wire_backend.service;
+
+import com.mmw.metal_micro_wire_backend.entity.WireMaterial;
+import com.mmw.metal_micro_wire_backend.util.WireMaterialSegmentCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 线材归档段文件编解码测试类
+ */
+class WireMaterialSegmentCodecTest {
+
+    private Path directory;
+    private Path segment;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("segment-codec");
+        segment = directory.resolve("2025/01/20250115.seg");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void testRoundTripKeepsAllColumnsAndSortsByBatchNumber() throws IOException {
+        WireMaterial full = material("B003", LocalDateTime.of(2025, 1, 15, 8, 30, 15, 123_000_000));
+        WireMaterial sparse = WireMaterial.builder()
+                .batchNumber("B001")
+                .evaluationResult(null)
+                .modelEvaluationResult(null)
+                .finalEvaluationResult(null)
+                .createTime(null)
+                .build();
+
+        WireMaterialSegmentCodec.write(List.of(full, sparse), segment);
+        List<WireMaterial> rows = WireMaterialSegmentCodec.readAll(segment);
+
+        assertEquals(List.of("B001", "B003"), rows.stream().map(WireMaterial::getBatchNumber).toList());
+        assertSameContent(full, rows.get(1));
+        // 空值在每种列编码中都原样保留
+        assertSameContent(sparse, rows.get(0));
+        assertFalse(Files.exists(segment.resolveSibling(segment.getFileName() + ".tmp")));
+    }
+
+    @Test
+    void testDecimalScaleAndSignArePreserved() throws IOException {
+        WireMaterial row = material("B001", LocalDateTime.of(2025, 1, 15, 0, 0));
+        row.setDiameter(new BigDecimal("0.1500"));
+        row.setResistance(new BigDecimal("-12.5"));
+        row.setExtensibility(new BigDecimal("1E+3"));
+        row.setWeight(new BigDecimal("123456789012.000001"));
+
+        WireMaterial decoded = WireMaterialSegmentCodec.readAll(write(row)).get(0);
+
+        // 比较unscaledValue和scale，0.1500 与 0.15 不视为相同
+        assertEquals(new BigDecimal("0.1500"), decoded.getDiameter());
+        assertEquals(4, decoded.getDiameter().scale());
+        assertEquals(new BigDecimal("-12.5"), decoded.getResistance());
+        assertEquals(-3, decoded.getExtensibility().scale());
+        assertEquals(new BigDecimal("123456789012.000001"), decoded.getWeight());
+    }
+
+    @Test
+    void testTimeDeltasHandleUnorderedTimesNanosAndGaps() throws IOException {
+        // 按批次号排序后事件时间先后交错，相邻行的增量有正有负，中间夹有空值
+        LocalDateTime base = LocalDateTime.of(2025, 1, 15, 12, 0);
+        WireMaterial first = material("B001", base.plusHours(5).plusNanos(999_999_999));
+        WireMaterial second = material("B002", null);
+        WireMaterial third = material("B003", base.minusDays(400));
+        WireMaterial fourth = material("B004", base.minusDays(400));
+        WireMaterial fifth = material("B005", LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1));
+
+        List<WireMaterial> rows = WireMaterialSegmentCodec.readAll(write(fifth, third, first, fourth, second));
+
+        assertEquals(base.plusHours(5).plusNanos(999_999_999), rows.get(0).getEventTime());
+        assertNull(rows.get(1).getEventTime());
+        assertEquals(base.minusDays(400), rows.get(2).getEventTime());
+        assertEquals(base.minusDays(400), rows.get(3).getEventTime());
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1), rows.get(4).getEventTime());
+    }
+
+    @Test
+    void testDictionaryColumnsWithRepeatedDistinctAndNullValues() throws IOException {
+        List<WireMaterial> input = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            WireMaterial row = material(String.format("B%04d", i), LocalDateTime.of(2025, 1, 15, 0, 0).plusSeconds(i));
+            // 生产商只有三个取值，设备代码各不相同（字典序号超过单字节变长整数），联系邮箱每隔一行为空
+            row.setManufacturer(i % 3 == 0 ? "天津华东线材" : i % 3 == 1 ? "上海线材厂" : "");
+            row.setDeviceCode("DEV-" + i);
+            row.setContactEmail(i % 2 == 0 ? null : "qa@example.com");
+            input.add(row);
+        }
+
+        List<WireMaterial> rows = WireMaterialSegmentCodec.readAll(write(input.toArray(new WireMaterial[0])));
+
+        assertEquals(300, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertSameContent(input.get(i), rows.get(i));
+        }
+        assertEquals("", rows.get(2).getManufacturer());
+        assertNull(rows.get(298).getContactEmail());
+    }
+
+    @Test
+    void testFindUsesSortedBatchNumbers() throws IOException {
+        write(material("B003", LocalDateTime.of(2025, 1, 15, 3, 0)),
+                material("B001", LocalDateTime.of(2025, 1, 15, 1, 0)),
+                material("B002", LocalDateTime.of(2025, 1, 15, 2, 0)));
+
+        Optional<WireMaterial> found = WireMaterialSegmentCodec.find(segment, "B002");
+        assertTrue(found.isPresent());
+        assertEquals(LocalDateTime.of(2025, 1, 15, 2, 0), found.get().getEventTime());
+        assertTrue(WireMaterialSegmentCodec.find(segment, "B000").isEmpty());
+        assertTrue(WireMaterialSegmentCodec.find(segment, "B004").isEmpty());
+    }
+
+    @Test
+    void testMergingIntoExistingSegmentReplacesDuplicatesAndKeepsOthers() throws IOException {
+        write(material("B001", LocalDateTime.of(2025, 1, 15, 1, 0)),
+                material("B003", LocalDateTime.of(2025, 1, 15, 3, 0)));
+
+        // 与归档服务相同：读出已有内容，按批次号合并迟到数据后整体重写
+        WireMaterial corrected = material("B003", LocalDateTime.of(2025, 1, 15, 3, 30));
+        corrected.setFinalEvaluationResult(WireMaterial.FinalEvaluationResult.FAIL);
+        WireMaterial late = material("B002", LocalDateTime.of(2025, 1, 15, 2, 0));
+
+        Map<String, WireMaterial> merged = new LinkedHashMap<>();
+        for (WireMaterial archived : WireMaterialSegmentCodec.readAll(segment)) {
+            merged.put(archived.getBatchNumber(), archived);
+        }
+        merged.put(corrected.getBatchNumber(), corrected);
+        merged.put(late.getBatchNumber(), late);
+        WireMaterialSegmentCodec.write(new ArrayList<>(merged.values()), segment);
+
+        List<WireMaterial> rows = WireMaterialSegmentCodec.readAll(segment);
+        assertEquals(List.of("B001", "B002", "B003"), rows.stream().map(WireMaterial::getBatchNumber).toList());
+        assertSameContent(late, rows.get(1));
+        assertSameContent(corrected, rows.get(2));
+        assertEquals(WireMaterial.FinalEvaluationResult.FAIL,
+                WireMaterialSegmentCodec.find(segment, "B003").orElseThrow().getFinalEvaluationResult());
+    }
+
+    @Test
+    void testRejectsFilesWithoutSegmentHeader() throws IOException {
+        Files.createDirectories(segment.getParent());
+        Files.write(segment, new byte[]{1, 2, 3, 4, 0, 1, 0, 0, 0, 0});
+        assertThrows(IOException.class, () -> WireMaterialSegmentCodec.readAll(segment));
+    }
+
+    private Path write(WireMaterial... rows) throws IOException {
+        WireMaterialSegmentCodec.write(Arrays.asList(rows), segment);
+        return segment;
+    }
+
+    private static WireMaterial material(String batchNumber, LocalDateTime eventTime) {
+        return WireMaterial.builder()
+                .batchNumber(batchNumber)
+                .deviceId("D001")
+                .diameter(new BigDecimal("0.150"))
+                .resistance(new BigDecimal("12.34"))
+                .extensibility(new BigDecimal("3.5"))
+                .weight(new BigDecimal("25.000"))
+                .sourceOriginRaw("{\"origin\":\"raw\"}")
+                .manufacturer("天津华东线材")
+                .responsiblePerson("张三")
+                .processType("拉丝工艺")
+                .productionMachine("拉丝机001")
+                .contactEmail("qa@example.com")
+                .scenarioCode("S01")
+                .deviceCode("DEV-001")
+                .eventTime(eventTime)
+                .evaluationResult(WireMaterial.EvaluationResult.PASS)
+                .evaluationMessage("检测通过")
+                .modelEvaluationResult(WireMaterial.EvaluationResult.FAIL)
+                .modelConfidence(new BigDecimal("0.9876"))
+                .finalEvaluationResult(WireMaterial.FinalEvaluationResult.PASS)
+                .createTime(LocalDateTime.of(2025, 1, 15, 9, 0, 1))
+                .build();
+    }
+
+    private static void assertSameContent(WireMaterial expected, WireMaterial actual) {
+        assertEquals(expected.getBatchNumber(), actual.getBatchNumber());
+        assertEquals(expected.getDeviceId(), actual.getDeviceId());
+        assertEquals(expected.getDiameter(), actual.getDiameter());
+        assertEquals(expected.getResistance(), actual.getResistance());
+        assertEquals(expected.getExtensibility(), actual.getExtensibility());
+        assertEquals(expected.getWeight(), actual.getWeight());
+        assertEquals(expected.getSourceOriginRaw(), actual.getSourceOriginRaw());
+        assertEquals(expected.getManufacturer(), actual.getManufacturer());
+        assertEquals(expected.getResponsiblePerson(), actual.getResponsiblePerson());
+        assertEquals(expected.getProcessType(), actual.getProcessType());
+        assertEquals(expected.getProductionMachine(), actual.getProductionMachine());
+        assertEquals(expected.getContactEmail(), actual.getContactEmail());
+        assertEquals(expected.getScenarioCode(), actual.getScenarioCode());
+        assertEquals(expected.getDeviceCode(), actual.getDeviceCode());
+        assertEquals(expected.getEventTime(), actual.getEventTime());
+        assertEquals(expected.getEvaluationResult(), actual.getEvaluationResult());
+        assertEquals(expected.getEvaluationMessage(), actual.getEvaluationMessage());
+        assertEquals(expected.getModelEvaluationResult(), actual.getModelEvaluationResult());
+        assertEquals(expected.getModelConfidence(), actual.getModelConfidence());
+        assertEquals(expected.getFinalEvaluationResult(), actual.getFinalEvaluationResult());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+    }
+}